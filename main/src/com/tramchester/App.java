@@ -7,6 +7,7 @@ import com.tramchester.cloud.SendMetricsToCloudWatch;
 import com.tramchester.cloud.SignalToCloudformationReady;
 import com.tramchester.config.AppConfiguration;
 import com.tramchester.config.TfgmTramLiveDataConfig;
+import com.tramchester.graph.search.JourneySearchAdmission;
 import com.tramchester.healthchecks.LiveDataJobHealthCheck;
 import com.tramchester.livedata.cloud.CountsUploadedLiveData;
 import com.tramchester.livedata.cloud.UploadsLiveData;
@@ -176,6 +177,12 @@ public class App extends Application<AppConfiguration>  {
         // api end points registration
         registerAPIResources(environment.jersey(), configuration.getPlanningEnabled());
 
+        if (configuration.getPlanningEnabled()) {
+            logger.info("Register journey search admission metrics");
+            final RegistersMetricsWithDropwizard registersMetrics = new RegistersMetricsWithDropwizard(metricRegistry);
+            registersMetrics.registerMetricsFor(container.get(JourneySearchAdmission.class));
+        }
+
         // TODO Check this
         logger.info("Set samesite cookie attribute");
         applicationContext.getServletContext().setAttribute(HttpCookie.SAME_SITE_DEFAULT_ATTRIBUTE,
@@ -14,10 +14,14 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -166,7 +170,67 @@ public class FileDataCache implements DataCache {
         }
     }
 
+    public void saveBinary(CachesBinaryData data) {
+        final Path path = cacheFolder.resolve(data.getFilename()).toAbsolutePath();
 
+        if (ready) {
+            logger.info("Saving binary to " + path);
+            // write to temp file and move, so never see partially written file
+            final Path tempPath = cacheFolder.resolve(data.getFilename() + ".tmp").toAbsolutePath();
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                data.cacheTo(output);
+            } catch (IOException exception) {
+                final String message = "Unable to save binary to " + tempPath;
+                logger.error(message, exception);
+                throw new RuntimeException(message, exception);
+            }
+            try {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException exception) {
+                final String message = "Unable to move " + tempPath + " to " + path;
+                logger.error(message, exception);
+                throw new RuntimeException(message, exception);
+            }
+        } else {
+            logger.error("Not ready, no data saved to " + path);
+        }
+    }
+
+    public boolean hasBinary(CachesBinaryData data) {
+        return Files.exists(cacheFolder.resolve(data.getFilename()));
+    }
+
+    /***
+     * Map the cache file read only and pass to data to load from. If the file cannot be loaded, for example the
+     * header or version no longer matches, it is deleted so the caller can rebuild and save it again
+     * @param data the target for the data
+     * @return true if loaded, false if the cache file was invalid and has been removed
+     */
+    public boolean loadBinary(CachesBinaryData data) {
+        if (!ready) {
+            throw new RuntimeException("Attempt to load from " + data.getFilename() + " when not ready");
+        }
+
+        final Path path = cacheFolder.resolve(data.getFilename()).toAbsolutePath();
+        logger.info("Loading binary " + path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            data.loadFrom(buffer);
+            return true;
+        } catch (IOException | CacheLoadException | BufferUnderflowException exception) {
+            logger.warn("Failed to load from cache file " + path + ", will be removed", exception);
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exception) {
+            final String message = "Unable to remove invalid cache file " + path;
+            logger.error(message, exception);
+            throw new RuntimeException(message, exception);
+        }
+        return false;
+    }
 
     public static class CacheLoadException extends Exception {
 
@@ -180,4 +244,10 @@ public class FileDataCache implements DataCache {
         String getFilename();
         void loadFrom(Stream<T> stream) throws CacheLoadException;
     }
+
+    public interface CachesBinaryData {
+        void cacheTo(DataOutput output) throws IOException;
+        String getFilename();
+        void loadFrom(MappedByteBuffer buffer) throws IOException, CacheLoadException;
+    }
 }
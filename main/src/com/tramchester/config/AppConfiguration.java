@@ -148,6 +148,62 @@ public class AppConfiguration extends TramchesterConfig {
     @JsonProperty("neighbourConfig")
     private NeighbourAppConfig neighbourConfig;
 
+    // optional, defaults to graph based calculation
+    @JsonProperty("routeCalculatorType")
+    private RouteCalculatorType routeCalculatorType;
+
+    // optional, defaults to false
+    @JsonProperty("nodeContentsSnapshot")
+    private Boolean nodeContentsSnapshot;
+
+    // optional, defaults to 0 which means path requests are searched one after another
+    @JsonProperty("journeySearchThreads")
+    private Integer journeySearchThreads;
+
+    // optional, defaults to 0 which means no limit on concurrent journey searches
+    @JsonProperty("journeyMaxConcurrentSearches")
+    private Integer journeyMaxConcurrentSearches;
+
+    // optional, defaults to twice journeyMaxConcurrentSearches
+    @JsonProperty("journeyMaxQueuedSearches")
+    private Integer journeyMaxQueuedSearches;
+
+    // optional, defaults to 1000
+    @JsonProperty("journeyMaxQueueMillis")
+    private Long journeyMaxQueueMillis;
+
+    // optional, defaults to 0 i.e. no deadline
+    @JsonProperty("journeyDeadlineMillis")
+    private Long journeyDeadlineMillis;
+
+    // optional, defaults to 0 i.e. no result cache
+    @JsonProperty("journeyResultCacheSize")
+    private Long journeyResultCacheSize;
+
+    // optional, defaults to 60
+    @JsonProperty("journeyResultCacheSeconds")
+    private Long journeyResultCacheSeconds;
+
+    // optional, defaults to number of available processors
+    @JsonProperty("journeyBatchThreads")
+    private Integer journeyBatchThreads;
+
+    // optional, defaults to false
+    @JsonProperty("timeOrderedAdjacency")
+    private Boolean timeOrderedAdjacency;
+
+    // optional, defaults to false
+    @JsonProperty("outboundAdjacency")
+    private Boolean outboundAdjacency;
+
+    // optional, defaults to 0
+    @JsonProperty("numberOfLandmarks")
+    private Integer numberOfLandmarks;
+
+    // optional, defaults to 14
+    @JsonProperty("precomputeRunningDays")
+    private Integer precomputeRunningDays;
+
     @Override
     public String getInstanceDataUrl() {
         return instanceDataUrl;
@@ -322,4 +378,74 @@ public class AppConfiguration extends TramchesterConfig {
         return distributionBucket;
     }
 
+    @Override
+    public RouteCalculatorType getRouteCalculatorType() {
+        return routeCalculatorType==null ? RouteCalculatorType.Graph : routeCalculatorType;
+    }
+
+    @Override
+    public boolean getNodeContentsSnapshot() {
+        return nodeContentsSnapshot!=null && nodeContentsSnapshot;
+    }
+
+    @Override
+    public int getJourneySearchThreads() {
+        return journeySearchThreads==null ? 0 : journeySearchThreads;
+    }
+
+    @Override
+    public int getJourneyMaxConcurrentSearches() {
+        return journeyMaxConcurrentSearches==null ? 0 : journeyMaxConcurrentSearches;
+    }
+
+    @Override
+    public int getJourneyMaxQueuedSearches() {
+        return journeyMaxQueuedSearches==null ? 2 * getJourneyMaxConcurrentSearches() : journeyMaxQueuedSearches;
+    }
+
+    @Override
+    public long getJourneyMaxQueueMillis() {
+        return journeyMaxQueueMillis==null ? 1000L : journeyMaxQueueMillis;
+    }
+
+    @Override
+    public long getJourneyDeadlineMillis() {
+        return journeyDeadlineMillis==null ? 0L : journeyDeadlineMillis;
+    }
+
+    @Override
+    public long getJourneyResultCacheSize() {
+        return journeyResultCacheSize==null ? 0L : journeyResultCacheSize;
+    }
+
+    @Override
+    public long getJourneyResultCacheSeconds() {
+        return journeyResultCacheSeconds==null ? 60L : journeyResultCacheSeconds;
+    }
+
+    @Override
+    public int getJourneyBatchThreads() {
+        return journeyBatchThreads==null ? Runtime.getRuntime().availableProcessors() : journeyBatchThreads;
+    }
+
+    @Override
+    public boolean getTimeOrderedAdjacency() {
+        return timeOrderedAdjacency!=null && timeOrderedAdjacency;
+    }
+
+    @Override
+    public boolean getOutboundAdjacency() {
+        return outboundAdjacency!=null && outboundAdjacency;
+    }
+
+    @Override
+    public int getNumberOfLandmarks() {
+        return numberOfLandmarks==null ? 0 : numberOfLandmarks;
+    }
+
+    @Override
+    public int getPrecomputeRunningDays() {
+        return precomputeRunningDays==null ? 14 : precomputeRunningDays;
+    }
+
 }
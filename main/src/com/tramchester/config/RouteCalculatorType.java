@@ -0,0 +1,6 @@
+package com.tramchester.config;
+
+public enum RouteCalculatorType {
+    Graph,          // traversal of the neo4j graph, see RouteCalculator
+    ConnectionScan  // in memory scan of the timetable, see ConnectionScanRouteCalculator
+}
@@ -156,6 +156,48 @@ public abstract class TramchesterConfig extends Configuration implements HasRemo
 
     public abstract String getDistributionBucket();
 
+    // which implementation to use when calculating station to station journeys
+    public abstract RouteCalculatorType getRouteCalculatorType();
+
+    // load node labels, times and relationship costs into memory at start up instead of caching on demand
+    public abstract boolean getNodeContentsSnapshot();
+
+    // number of threads used to search (num changes, query time) path requests in parallel, 0 or 1 for sequential
+    public abstract int getJourneySearchThreads();
+
+    // max journey searches running at once, 0 for no limit, see JourneySearchAdmission
+    public abstract int getJourneyMaxConcurrentSearches();
+
+    // max journey searches waiting to run, more than this are rejected straight away
+    public abstract int getJourneyMaxQueuedSearches();
+
+    // longest a journey search waits to run before it is rejected
+    public abstract long getJourneyMaxQueueMillis();
+
+    // searches for a journey request stop once this long has passed since the request arrived, 0 for no deadline
+    public abstract long getJourneyDeadlineMillis();
+
+    // max journey plans held in the server side result cache, 0 to disable the cache
+    public abstract long getJourneyResultCacheSize();
+
+    // how long a journey plan stays in the result cache
+    public abstract long getJourneyResultCacheSeconds();
+
+    // number of threads used to run the queries of a /journey/batch request in parallel
+    public abstract int getJourneyBatchThreads();
+
+    // load time ordered service to hour and hour to minute relationships at start up, used to skip past departures
+    public abstract boolean getTimeOrderedAdjacency();
+
+    // load outgoing relationships for all nodes at start up, so traversals can filter them without going to the graph
+    public abstract boolean getOutboundAdjacency();
+
+    // number of landmark stations used for lower bounds on the time to a destination, 0 to disable
+    public abstract int getNumberOfLandmarks();
+
+    // number of days, from today, that running routes and services are worked out for at start up
+    public abstract int getPrecomputeRunningDays();
+
     public boolean hasRailConfig() {
         return getRailConfig()!=null;
     }
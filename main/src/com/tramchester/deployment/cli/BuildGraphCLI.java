@@ -2,6 +2,9 @@ package com.tramchester.deployment.cli;
 
 import com.tramchester.GuiceContainerDependencies;
 import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.databaseManagement.GraphDatabaseBulkImport;
+import com.tramchester.graph.graphbuild.BulkImportedGraphCompletion;
+import com.tramchester.graph.graphbuild.GraphBulkImportFiles;
 import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
 import io.dropwizard.configuration.ConfigurationException;
 import org.apache.commons.io.FileUtils;
@@ -17,24 +20,35 @@ import static java.lang.String.format;
 
 public class BuildGraphCLI extends BaseCLI {
 
+    private static final String IMPORT_DIRECTORY = "import";
+
     private final Path destinationRoot;
+    private final Path neo4jAdmin; // null unless building via offline import
 
     public BuildGraphCLI(Path destinationRoot) {
+        this(destinationRoot, null);
+    }
+
+    public BuildGraphCLI(Path destinationRoot, Path neo4jAdmin) {
         super();
         this.destinationRoot = destinationRoot;
+        this.neo4jAdmin = neo4jAdmin;
     }
 
     public static void main(String[] args)  {
         Logger logger = LoggerFactory.getLogger(BuildGraphCLI.class);
 
-        if (args.length != 2) {
-            throw new RuntimeException("Expected 2 arguments: <config file> <destination directory>");
+        if (args.length != 2 && args.length != 3) {
+            throw new RuntimeException("Expected 2 or 3 arguments: <config file> <destination directory> [neo4j-admin]");
         }
         Path configFile = Paths.get(args[0]).toAbsolutePath();
         logger.info("Config from " + configFile);
 
         Path destination = Paths.get(args[1]).toAbsolutePath();
 
+        // given neo4j-admin the graph is created via offline import instead of transactions
+        Path neo4jAdmin = args.length == 3 ? Paths.get(args[2]).toAbsolutePath() : null;
+
         try {
             if (!Files.exists(destination)) {
                 Files.createDirectories(destination);
@@ -43,7 +57,7 @@ public class BuildGraphCLI extends BaseCLI {
                 throw new RuntimeException(format("Destination '%s' must be a directory", destination));
             }
 
-            BuildGraphCLI buildGraphCLI = new BuildGraphCLI(destination);
+            BuildGraphCLI buildGraphCLI = new BuildGraphCLI(destination, neo4jAdmin);
 
             buildGraphCLI.run(configFile, logger, "BuildGraphCLI");
 
@@ -56,6 +70,9 @@ public class BuildGraphCLI extends BaseCLI {
     @Override
     public void run(Logger logger, GuiceContainerDependencies dependencies, TramchesterConfig config) {
         Path original = config.getGraphDBConfig().getDbPath();
+        if (neo4jAdmin != null) {
+            bulkImport(logger, dependencies, original);
+        }
         dependencies.get(StagedTransportGraphBuilder.Ready.class);
         dependencies.close();
 
@@ -71,4 +88,23 @@ public class BuildGraphCLI extends BaseCLI {
         }
     }
 
+    private void bulkImport(Logger logger, GuiceContainerDependencies dependencies, Path original) {
+        Path importDirectory = destinationRoot.resolve(IMPORT_DIRECTORY);
+        logger.info(format("Bulk import via %s using %s", neo4jAdmin, importDirectory.toAbsolutePath()));
+
+        try {
+            GraphBulkImportFiles.ImportFiles importFiles = dependencies.get(GraphBulkImportFiles.class).writeTo(importDirectory);
+            dependencies.get(GraphDatabaseBulkImport.class).importFrom(importFiles, neo4jAdmin);
+            dependencies.get(BulkImportedGraphCompletion.class).complete();
+        } catch (RuntimeException e) {
+            // import stamps the version, so remove the DB rather than leave a partial one that looks up to date
+            logger.error("Bulk import failed, removing " + original.toAbsolutePath(), e);
+            dependencies.close();
+            FileUtils.deleteQuietly(original.toFile());
+            throw e;
+        } finally {
+            FileUtils.deleteQuietly(importDirectory.toFile());
+        }
+    }
+
 }
@@ -162,4 +162,8 @@ public class Journey implements Iterable<TransportStage<?,?>>, CallsAtPlatforms
     public int getJourneyIndex() {
         return journeyIndex;
     }
+
+    public Journey withJourneyIndex(int journeyIndex) {
+        return new Journey(departTime, queryTime, arrivalTime, stages, path, requestedNumberChanges, journeyIndex);
+    }
 }
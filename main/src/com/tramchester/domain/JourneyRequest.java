@@ -22,6 +22,8 @@ public class JourneyRequest {
 
     private boolean diagnostics;
     private boolean warnIfNoResults;
+    private Duration departureWindow;
+    private SearchCancellation cancellation;
 
 
     public JourneyRequest(TramDate date, TramTime originalQueryTime, boolean arriveBy, int maxChanges,
@@ -41,6 +43,8 @@ public class JourneyRequest {
 
         diagnostics = false;
         warnIfNoResults = true;
+        departureWindow = Duration.ZERO;
+        cancellation = SearchCancellation.none();
     }
 
     public JourneyRequest(JourneyRequest originalRequest, TramTime computedDepartTime) {
@@ -48,6 +52,8 @@ public class JourneyRequest {
                 originalRequest.maxJourneyDuration, originalRequest.maxNumberOfJourneys, originalRequest.requestedModes);
         diagnostics = originalRequest.diagnostics;
         warnIfNoResults = originalRequest.warnIfNoResults;
+        departureWindow = originalRequest.departureWindow;
+        cancellation = originalRequest.cancellation;
     }
 
     public TramDate getDate() {
@@ -121,6 +127,38 @@ public class JourneyRequest {
         return maxNumberOfJourneys;
     }
 
+    /***
+     * Profile query, find the journeys departing from original query time until the end of the window
+     * @param departureWindow width of the window, zero for a normal query
+     */
+    public JourneyRequest setDepartureWindow(Duration departureWindow) {
+        if (arriveBy && !departureWindow.isZero()) {
+            throw new RuntimeException("Departure window not supported for arrive by");
+        }
+        this.departureWindow = departureWindow;
+        return this;
+    }
+
+    public Duration getDepartureWindow() {
+        return departureWindow;
+    }
+
+    public boolean hasDepartureWindow() {
+        return !departureWindow.isZero();
+    }
+
+    /***
+     * Searches for this request, and any derived from it, stop once cancelled or past the deadline
+     */
+    public JourneyRequest setCancellation(SearchCancellation cancellation) {
+        this.cancellation = cancellation;
+        return this;
+    }
+
+    public SearchCancellation getCancellation() {
+        return cancellation;
+    }
+
     @Override
     public String toString() {
         return "JourneyRequest{" +
@@ -132,6 +170,8 @@ public class JourneyRequest {
                 ", maxJourneyDuration=" + maxJourneyDuration +
                 ", maxNumberOfJourneys=" + maxNumberOfJourneys +
                 ", allowedModes=" + requestedModes +
+                ", departureWindow=" + departureWindow +
+                ", cancellation=" + cancellation +
                 '}';
     }
 
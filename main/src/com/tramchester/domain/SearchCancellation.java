@@ -0,0 +1,72 @@
+package com.tramchester.domain;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/***
+ * Shared between a journey request and the searches made for it, so searches can stop early when the client has gone
+ * away or the request is past its deadline. Searches check this cooperatively, nothing is interrupted.
+ */
+public class SearchCancellation {
+
+    private final AtomicBoolean cancelled;
+    private final Instant deadline;
+    private final SearchCancellation parent;
+
+    private SearchCancellation(Instant deadline, SearchCancellation parent) {
+        this.deadline = deadline;
+        this.parent = parent;
+        this.cancelled = new AtomicBoolean(false);
+    }
+
+    public static SearchCancellation none() {
+        return new SearchCancellation(Instant.MAX, null);
+    }
+
+    public static SearchCancellation withDeadline(Instant deadline) {
+        return new SearchCancellation(deadline, null);
+    }
+
+    /***
+     * For one of several searches made for a request, cancelled along with the parent or on reaching its own deadline
+     */
+    public SearchCancellation createChild(Instant deadline) {
+        return new SearchCancellation(deadline, this);
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get() || (parent != null && parent.isCancelled());
+    }
+
+    /***
+     * Once past the deadline is also cancelled, so later checks only need isCancelled()
+     * @param now the current time
+     * @return true if cancelled or past the deadline
+     */
+    public boolean checkDeadline(Instant now) {
+        if (now.isAfter(deadline)) {
+            cancelled.set(true);
+        }
+        return isCancelled();
+    }
+
+    public boolean hasDeadline() {
+        return !Instant.MAX.equals(deadline);
+    }
+
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCancellation{" +
+                "cancelled=" + isCancelled() +
+                ", deadline=" + (hasDeadline() ? deadline : "none") +
+                '}';
+    }
+}
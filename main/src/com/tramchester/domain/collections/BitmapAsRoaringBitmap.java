@@ -4,6 +4,9 @@ import org.roaringbitmap.BatchIterator;
 import org.roaringbitmap.RoaringBatchIterator;
 import org.roaringbitmap.RoaringBitmap;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -192,6 +195,33 @@ public class BitmapAsRoaringBitmap implements SimpleBitmap {
         return size;
     }
 
+    /***
+     * Write in the portable roaring format
+     * @param output destination
+     * @throws IOException on failure to write
+     */
+    public void serialize(DataOutput output) throws IOException {
+        output.writeInt(bitmap.serializedSizeInBytes());
+        bitmap.serialize(output);
+    }
+
+    /***
+     * Read bitmap previously written by serialize, buffer is left positioned after the bitmap
+     * @param buffer source, for example a mapped file
+     * @param size size of the bitmap
+     * @return the bitmap
+     * @throws IOException if buffer does not contain a valid bitmap
+     */
+    public static BitmapAsRoaringBitmap deserialize(ByteBuffer buffer, int size) throws IOException {
+        final int bytes = buffer.getInt();
+        final ByteBuffer slice = buffer.slice();
+        slice.limit(bytes);
+        final RoaringBitmap roaringBitmap = new RoaringBitmap();
+        roaringBitmap.deserialize(slice);
+        buffer.position(buffer.position() + bytes);
+        return new BitmapAsRoaringBitmap(roaringBitmap, size);
+    }
+
     @Override
     public String toString() {
         return "BitmapAsRoaringBitmap{" +
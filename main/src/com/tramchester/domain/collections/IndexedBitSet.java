@@ -2,6 +2,9 @@ package com.tramchester.domain.collections;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -182,6 +185,25 @@ public class IndexedBitSet implements ImmutableIndexedBitSet {
         return new IndexedBitSet(bitSetA.rows, bitSetA.columns, and);
     }
 
+    public void serialize(DataOutput output) throws IOException {
+        output.writeInt(rows);
+        output.writeInt(columns);
+        bitmap.serialize(output);
+    }
+
+    /***
+     * Read bits previously written by serialize
+     * @param buffer source, for example a mapped file, left positioned after the bits
+     * @return IndexedBitSet with dimensions as saved
+     * @throws IOException if buffer does not contain valid bits
+     */
+    public static IndexedBitSet deserialize(ByteBuffer buffer) throws IOException {
+        final int rows = buffer.getInt();
+        final int columns = buffer.getInt();
+        final BitmapAsRoaringBitmap bitmap = BitmapAsRoaringBitmap.deserialize(buffer, rows * columns);
+        return new IndexedBitSet(rows, columns, bitmap);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
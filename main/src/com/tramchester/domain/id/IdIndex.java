@@ -0,0 +1,66 @@
+package com.tramchester.domain.id;
+
+import com.tramchester.domain.CoreDomain;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/***
+ * Fixed dense index for the items of one domain type, created from loaded data and never changed after. Ids that
+ * were not loaded, for example those parsed from a request, have no index.
+ */
+public class IdIndex<T extends HasId<T> & CoreDomain> {
+    public static final int NOT_INDEXED = -1;
+
+    private final Map<IdFor<T>, Integer> indexes;
+    private final List<T> items;
+
+    private IdIndex(Collection<T> source) {
+        items = List.copyOf(source);
+        final Map<IdFor<T>, Integer> byId = new HashMap<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            byId.put(items.get(i).getId(), i);
+        }
+        indexes = Collections.unmodifiableMap(byId);
+    }
+
+    public static <T extends HasId<T> & CoreDomain> IdIndex<T> of(Collection<T> items) {
+        return new IdIndex<>(items);
+    }
+
+    /***
+     * @return the index, or NOT_INDEXED
+     */
+    public int indexOf(IdFor<T> id) {
+        final Integer index = indexes.get(id);
+        return index == null ? NOT_INDEXED : index;
+    }
+
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /***
+     * @return empty bitmap backed set over this index
+     */
+    public IndexedIdSet<T> createSet() {
+        return new IndexedIdSet<>(this);
+    }
+
+    public IndexedIdSet<T> setOf(Stream<IdFor<T>> ids) {
+        final IndexedIdSet<T> result = createSet();
+        ids.forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IdIndex{" +
+                "size=" + items.size() +
+                '}';
+    }
+}
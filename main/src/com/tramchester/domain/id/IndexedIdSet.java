@@ -0,0 +1,61 @@
+package com.tramchester.domain.id;
+
+import com.tramchester.domain.CoreDomain;
+import com.tramchester.domain.collections.SimpleBitmap;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/***
+ * Set of ids held as a bitmap over an IdIndex, ids without an index are kept apart so results are the same as IdSet
+ */
+public class IndexedIdSet<T extends HasId<T> & CoreDomain> {
+    private final IdIndex<T> index;
+    private final SimpleBitmap bitmap;
+    private final IdSet<T> notIndexed;
+
+    IndexedIdSet(IdIndex<T> index) {
+        this.index = index;
+        this.bitmap = SimpleBitmap.create(index.size());
+        this.notIndexed = new IdSet<>();
+    }
+
+    public IndexedIdSet<T> add(IdFor<T> id) {
+        final int position = index.indexOf(id);
+        if (position == IdIndex.NOT_INDEXED) {
+            notIndexed.add(id);
+        } else {
+            bitmap.set(position);
+        }
+        return this;
+    }
+
+    public boolean contains(IdFor<T> id) {
+        final int position = index.indexOf(id);
+        if (position == IdIndex.NOT_INDEXED) {
+            return notIndexed.contains(id);
+        }
+        return bitmap.get(position);
+    }
+
+    public boolean isEmpty() {
+        return bitmap.isEmpty() && notIndexed.isEmpty();
+    }
+
+    public long size() {
+        return bitmap.cardinality() + notIndexed.size();
+    }
+
+    public Stream<IdFor<T>> stream() {
+        // bit indexes of the bitmap are shorts, too small for the larger indexes
+        final Stream<IdFor<T>> indexed = IntStream.range(0, index.size()).
+                filter(bitmap::get).
+                mapToObj(position -> index.get(position).getId());
+        return Stream.concat(indexed, notIndexed.stream());
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedIdSet{" + stream().collect(IdSet.idCollector()) + '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.tramchester.domain.presentation.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Collections;
+import java.util.Set;
+
+/***
+ * One line of the response from /journey/batch, index is the position of the query in the request as results are
+ * returned in the order they complete
+ */
+public class JourneyBatchResultDTO {
+
+    private int index;
+    private Set<JourneyDTO> journeys;
+    private String error;
+
+    public JourneyBatchResultDTO() {
+        // deserialisation
+    }
+
+    public JourneyBatchResultDTO(int index, Set<JourneyDTO> journeys) {
+        this(index, journeys, null);
+    }
+
+    private JourneyBatchResultDTO(int index, Set<JourneyDTO> journeys, String error) {
+        this.index = index;
+        this.journeys = journeys;
+        this.error = error;
+    }
+
+    public static JourneyBatchResultDTO failed(int index, String error) {
+        return new JourneyBatchResultDTO(index, Collections.emptySet(), error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Set<JourneyDTO> getJourneys() {
+        return journeys;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "JourneyBatchResultDTO{" +
+                "index=" + index +
+                ", journeys=" + journeys.size() +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -15,6 +15,9 @@ import java.util.Set;
 
 @JsonTypeName("JourneyQuery")
 public class JourneyQueryDTO  {
+    // minutes, profile scan covers the window plus the max journey duration
+    private static final int MAX_DEPARTURE_WINDOW = 3 * TramTime.MINS_IN_HOUR;
+
     @JsonProperty("date")
     private LocalDate date;
 
@@ -43,6 +46,11 @@ public class JourneyQueryDTO  {
     @JsonProperty("modes")
     private Set<TransportMode> modes;
 
+    // minutes, when set all the journeys departing from time until the end of the window are returned
+    @JsonSetter(nulls = Nulls.SKIP)
+    @JsonProperty("departureWindow")
+    private int departureWindow;
+
     public JourneyQueryDTO() {
         modes = Collections.emptySet();
         // deserialisation
@@ -90,6 +98,7 @@ public class JourneyQueryDTO  {
                 ", arriveBy=" + arriveBy +
                 ", maxChanges=" + maxChanges +
                 ", modes=" + modes +
+                ", departureWindow=" + departureWindow +
                 '}';
     }
 
@@ -133,7 +142,14 @@ public class JourneyQueryDTO  {
     @JsonIgnore
     public boolean valid() {
         return startId!=null && startType!=null && destId!=null && destType!=null && date!=null
-                && modes!=null;
+                && modes!=null && validDepartureWindow();
+    }
+
+    private boolean validDepartureWindow() {
+        if (departureWindow==0) {
+            return true;
+        }
+        return departureWindow>0 && departureWindow<=MAX_DEPARTURE_WINDOW && !arriveBy;
     }
 
     public void setModes(Set<TransportMode> modes) {
@@ -143,4 +159,12 @@ public class JourneyQueryDTO  {
     public Set<TransportMode> getModes() {
         return modes;
     }
+
+    public void setDepartureWindow(int departureWindow) {
+        this.departureWindow = departureWindow;
+    }
+
+    public int getDepartureWindow() {
+        return departureWindow;
+    }
 }
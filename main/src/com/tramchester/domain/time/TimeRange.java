@@ -44,6 +44,28 @@ public class TimeRange {
         return new TimeRange(first, second);
     }
 
+    /***
+     * Widen the range so begin and end fall on multiples of bucketMinutes, so ranges that are close together
+     * map onto the same range
+     * @param bucketMinutes size of the bucket in minutes
+     * @return a new, possibly larger, range
+     */
+    public TimeRange roundOutwards(int bucketMinutes) {
+        final int beginOver = begin.getMinuteOfHour() % bucketMinutes;
+        final int endUnder = end.getMinuteOfHour() % bucketMinutes;
+        final TramTime roundedBegin = begin.minusMinutes(beginOver);
+        final TramTime roundedEnd = endUnder==0 ? end : end.plusMinutes(bucketMinutes - endUnder);
+        return new TimeRange(roundedBegin, roundedEnd);
+    }
+
+    public TramTime getBegin() {
+        return begin;
+    }
+
+    public TramTime getEnd() {
+        return end;
+    }
+
     public boolean contains(TramTime time) {
         return time.between(begin, end);
     }
@@ -1,48 +1,63 @@
 package com.tramchester.geo;
 
 import com.tramchester.domain.presentation.LatLong;
-import com.tramchester.mappers.Geography;
-import org.geotools.geometry.GeneralDirectPosition;
-import org.geotools.referencing.ReferencingFactoryFinder;
-import org.geotools.referencing.operation.DefaultCoordinateOperationFactory;
 import org.jetbrains.annotations.NotNull;
-import org.opengis.geometry.DirectPosition;
-import org.opengis.referencing.FactoryException;
-import org.opengis.referencing.crs.CRSAuthorityFactory;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
-import org.opengis.referencing.operation.CoordinateOperation;
-import org.opengis.referencing.operation.TransformException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static com.tramchester.mappers.Geography.AUTHORITY;
-
+/***
+ * WGS84 lat/long to and from OSGB36 national grid (EPSG 27700), a seven parameter Helmert shift between the datums
+ * followed by the Ordnance Survey Transverse Mercator series. Closed form so no per call allocation. Agrees with the
+ * geotools EPSG transforms to well under a metre across GB, grid to lat/long is within about 5e-8 degrees (5mm) of
+ * geotools, the difference is from the series. See "A guide to coordinate systems in Great Britain"
+ */
 public class CoordinateTransforms {
-    private static final Logger logger;
-
-    private static final CoordinateOperation gridToLatLong;
-    private static final CoordinateOperation latLongToGrid;
+    private static final Logger logger = LoggerFactory.getLogger(CoordinateTransforms.class);
 
-    static {
-        logger = LoggerFactory.getLogger(CoordinateTransforms.class);
+    // WGS84
+    private static final double WGS84_A = 6378137.0;
+    private static final double WGS84_B = 6356752.314245;
+    private static final double WGS84_E2 = 1 - ((WGS84_B * WGS84_B) / (WGS84_A * WGS84_A));
 
-        String latLongCode = Geography.getLatLongCode();
+    // Airy 1830, OSGB36
+    private static final double AIRY_A = 6377563.396;
+    private static final double AIRY_B = 6356256.909;
+    private static final double AIRY_E2 = 1 - ((AIRY_B * AIRY_B) / (AIRY_A * AIRY_A));
 
-        try {
-            CRSAuthorityFactory authorityFactory = ReferencingFactoryFinder.getCRSAuthorityFactory(AUTHORITY, null);
+    // national grid projection
+    private static final double F0 = 0.9996012717;
+    private static final double LAT0 = Math.toRadians(49);
+    private static final double LON0 = Math.toRadians(-2);
+    private static final double E0 = 400000;
+    private static final double N0 = -100000;
+    private static final double N = (AIRY_A - AIRY_B) / (AIRY_A + AIRY_B);
+    private static final double AF0 = AIRY_A * F0;
+    private static final double BF0 = AIRY_B * F0;
 
-            CoordinateReferenceSystem nationalGridRefSys = authorityFactory.createCoordinateReferenceSystem("27700");
-            CoordinateReferenceSystem latLongRef = authorityFactory.createCoordinateReferenceSystem(latLongCode);
+    // WGS84 to OSGB36 helmert parameters, rotations in radians and scale as a factor
+    private static final double TX = -446.448;
+    private static final double TY = 125.157;
+    private static final double TZ = -542.060;
+    private static final double RX = Math.toRadians(-0.1502 / 3600);
+    private static final double RY = Math.toRadians(-0.2470 / 3600);
+    private static final double RZ = Math.toRadians(-0.8421 / 3600);
+    private static final double S = 20.4894 * 1e-6;
 
-            latLongToGrid = new DefaultCoordinateOperationFactory().createOperation(latLongRef, nationalGridRefSys);
-            gridToLatLong = new DefaultCoordinateOperationFactory().createOperation(nationalGridRefSys, latLongRef);
+    // exact inverse of the helmert matrix, as geotools, rather than negating the parameters which differs by ~5mm
+    private static final double DET = ((1 + S) * (((1 + S) * (1 + S)) + (RX * RX))) + (RZ * ((RZ * (1 + S)) - (RX * RY))) +
+            (RY * ((RZ * RX) + (RY * (1 + S))));
+    private static final double I00 = (((1 + S) * (1 + S)) + (RX * RX)) / DET;
+    private static final double I01 = ((RZ * (1 + S)) + (RY * RX)) / DET;
+    private static final double I02 = ((RZ * RX) - (RY * (1 + S))) / DET;
+    private static final double I10 = ((RX * RY) - (RZ * (1 + S))) / DET;
+    private static final double I11 = (((1 + S) * (1 + S)) + (RY * RY)) / DET;
+    private static final double I12 = ((RX * (1 + S)) + (RZ * RY)) / DET;
+    private static final double I20 = ((RZ * RX) + (RY * (1 + S))) / DET;
+    private static final double I21 = ((RZ * RY) - (RX * (1 + S))) / DET;
+    private static final double I22 = (((1 + S) * (1 + S)) + (RZ * RZ)) / DET;
 
-        } catch (FactoryException e) {
-            String msg = "Unable to init geotools factory or transforms";
-            logger.error(msg, e);
-            throw new RuntimeException(msg);
-        }
-    }
+    // for single conversions, avoids allocating a pair each call
+    private static final ThreadLocal<double[]> pair = ThreadLocal.withInitial(() -> new double[2]);
 
     private CoordinateTransforms() {
 
@@ -55,20 +70,17 @@ public class CoordinateTransforms {
             return GridPosition.Invalid;
         }
 
-        try {
-            // note the lat(y) lon(x) ordering here
-            DirectPosition directPositionLatLong = new GeneralDirectPosition(position.getLat(), position.getLon());
-            DirectPosition directPositionGrid = latLongToGrid.getMathTransform().transform(directPositionLatLong, null);
-
-            long easting = Math.round(directPositionGrid.getOrdinate(0));
-            long northing = Math.round(directPositionGrid.getOrdinate(1));
+        final double[] values = pair.get();
+        values[0] = position.getLat();
+        values[1] = position.getLon();
+        toGrid(values, 0);
 
-            return new GridPosition(easting, northing);
-        }
-        catch (TransformException transformException) {
-            logger.warn("Could not transform " + position, transformException);
+        if (!Double.isFinite(values[0]) || !Double.isFinite(values[1])) {
+            logger.warn("Could not transform " + position);
             return GridPosition.Invalid;
         }
+
+        return new GridPosition(Math.round(values[0]), Math.round(values[1]));
     }
 
     public static LatLong getLatLong(GridPosition gridPosition) {
@@ -77,17 +89,184 @@ public class CoordinateTransforms {
             return LatLong.Invalid;
         }
 
-        try {
-            DirectPosition directPositionGrid = new GeneralDirectPosition(gridPosition.getEastings(), gridPosition.getNorthings());
-            DirectPosition directPositionLatLong = gridToLatLong.getMathTransform().transform(directPositionGrid, null);
-            double lat = directPositionLatLong.getOrdinate(0);
-            double lon = directPositionLatLong.getOrdinate(1);
-            return new LatLong(lat, lon);
-        }
-        catch (TransformException transformException) {
-            logger.warn("Could not transform " + gridPosition, transformException);
+        final double[] values = pair.get();
+        values[0] = gridPosition.getEastings();
+        values[1] = gridPosition.getNorthings();
+        toLatLong(values, 0);
+
+        if (!Double.isFinite(values[0]) || !Double.isFinite(values[1])) {
+            logger.warn("Could not transform " + gridPosition);
             return LatLong.Invalid;
         }
+
+        return new LatLong(values[0], values[1]);
+    }
+
+    /***
+     * Bulk conversion for importers, no rounding and no validity checks
+     * @param values pairs of lat, lon which are replaced by the unrounded eastings, northings
+     */
+    public static void toGridInPlace(double[] values) {
+        checkPairs(values);
+        for (int offset = 0; offset < values.length; offset = offset + 2) {
+            toGrid(values, offset);
+        }
+    }
+
+    /***
+     * Bulk conversion for importers, no validity checks
+     * @param values pairs of eastings, northings which are replaced by lat, lon
+     */
+    public static void toLatLongInPlace(double[] values) {
+        checkPairs(values);
+        for (int offset = 0; offset < values.length; offset = offset + 2) {
+            toLatLong(values, offset);
+        }
+    }
+
+    private static void checkPairs(double[] values) {
+        if (values.length % 2 != 0) {
+            throw new RuntimeException("Expected pairs of values, got length " + values.length);
+        }
+    }
+
+    private static void toGrid(final double[] values, final int offset) {
+        final double lat = Math.toRadians(values[offset]);
+        final double lon = Math.toRadians(values[offset + 1]);
+
+        // WGS84 geodetic to cartesian, height taken as zero
+        final double sinLat = Math.sin(lat);
+        final double cosLat = Math.cos(lat);
+        final double nu = WGS84_A / Math.sqrt(1 - (WGS84_E2 * sinLat * sinLat));
+        final double x1 = nu * cosLat * Math.cos(lon);
+        final double y1 = nu * cosLat * Math.sin(lon);
+        final double z1 = (1 - WGS84_E2) * nu * sinLat;
+
+        // helmert
+        final double x2 = TX + ((1 + S) * x1) - (RZ * y1) + (RY * z1);
+        final double y2 = TY + (RZ * x1) + ((1 + S) * y1) - (RX * z1);
+        final double z2 = TZ - (RY * x1) + (RX * y1) + ((1 + S) * z1);
+
+        // cartesian to Airy geodetic, Bowring's closed form
+        final double p = Math.sqrt((x2 * x2) + (y2 * y2));
+        final double theta = Math.atan2(z2 * AIRY_A, p * AIRY_B);
+        final double sinTheta = Math.sin(theta);
+        final double cosTheta = Math.cos(theta);
+        final double secondE2 = ((AIRY_A * AIRY_A) - (AIRY_B * AIRY_B)) / (AIRY_B * AIRY_B);
+        final double phi = Math.atan2(z2 + (secondE2 * AIRY_B * sinTheta * sinTheta * sinTheta),
+                p - (AIRY_E2 * AIRY_A * cosTheta * cosTheta * cosTheta));
+        final double lambda = Math.atan2(y2, x2);
+
+        // transverse mercator
+        final double sinPhi = Math.sin(phi);
+        final double cosPhi = Math.cos(phi);
+        final double tanPhi = sinPhi / cosPhi;
+        final double tan2 = tanPhi * tanPhi;
+        final double tan4 = tan2 * tan2;
+        final double oneMinusE2Sin2 = 1 - (AIRY_E2 * sinPhi * sinPhi);
+        final double nuTM = AF0 / Math.sqrt(oneMinusE2Sin2);
+        final double rho = AF0 * (1 - AIRY_E2) / Math.pow(oneMinusE2Sin2, 1.5);
+        final double eta2 = (nuTM / rho) - 1;
+        final double cos3 = cosPhi * cosPhi * cosPhi;
+        final double cos5 = cos3 * cosPhi * cosPhi;
+
+        final double I = meridionalArc(phi) + N0;
+        final double II = (nuTM / 2) * sinPhi * cosPhi;
+        final double III = (nuTM / 24) * sinPhi * cos3 * (5 - tan2 + (9 * eta2));
+        final double IIIA = (nuTM / 720) * sinPhi * cos5 * (61 - (58 * tan2) + tan4);
+        final double IV = nuTM * cosPhi;
+        final double V = (nuTM / 6) * cos3 * ((nuTM / rho) - tan2);
+        final double VI = (nuTM / 120) * cos5 * (5 - (18 * tan2) + tan4 + (14 * eta2) - (58 * tan2 * eta2));
+
+        final double dLon = lambda - LON0;
+        final double dLon2 = dLon * dLon;
+
+        values[offset] = E0 + (dLon * (IV + (dLon2 * (V + (dLon2 * VI)))));
+        values[offset + 1] = I + (dLon2 * (II + (dLon2 * (III + (dLon2 * IIIA)))));
+    }
+
+    private static void toLatLong(final double[] values, final int offset) {
+        final double easting = values[offset];
+        final double northing = values[offset + 1];
+
+        // inverse transverse mercator, iterate until the meridional arc is within 0.01mm of the northing
+        double phi = LAT0;
+        double arc = 0;
+        int iterations = 0;
+        do {
+            phi = phi + ((northing - N0 - arc) / AF0);
+            arc = meridionalArc(phi);
+            iterations++;
+        } while (Math.abs(northing - N0 - arc) >= 0.00001 && iterations < 20);
+
+        final double sinPhi = Math.sin(phi);
+        final double cosPhi = Math.cos(phi);
+        final double tanPhi = sinPhi / cosPhi;
+        final double tan2 = tanPhi * tanPhi;
+        final double tan4 = tan2 * tan2;
+        final double sec = 1 / cosPhi;
+        final double oneMinusE2Sin2 = 1 - (AIRY_E2 * sinPhi * sinPhi);
+        final double nu = AF0 / Math.sqrt(oneMinusE2Sin2);
+        final double rho = AF0 * (1 - AIRY_E2) / Math.pow(oneMinusE2Sin2, 1.5);
+        final double eta2 = (nu / rho) - 1;
+        final double nu3 = nu * nu * nu;
+        final double nu5 = nu3 * nu * nu;
+        final double nu7 = nu5 * nu * nu;
+
+        final double VII = tanPhi / (2 * rho * nu);
+        final double VIII = tanPhi / (24 * rho * nu3) * (5 + (3 * tan2) + eta2 - (9 * tan2 * eta2));
+        final double IX = tanPhi / (720 * rho * nu5) * (61 + (90 * tan2) + (45 * tan4));
+        final double X = sec / nu;
+        final double XI = sec / (6 * nu3) * ((nu / rho) + (2 * tan2));
+        final double XII = sec / (120 * nu5) * (5 + (28 * tan2) + (24 * tan4));
+        final double XIIA = sec / (5040 * nu7) * (61 + (662 * tan2) + (1320 * tan4) + (720 * tan4 * tan2));
+
+        final double dE = easting - E0;
+        final double dE2 = dE * dE;
+
+        final double airyLat = phi - (dE2 * (VII - (dE2 * (VIII - (dE2 * IX)))));
+        final double airyLon = LON0 + (dE * (X - (dE2 * (XI - (dE2 * (XII - (dE2 * XIIA)))))));
+
+        // Airy geodetic to cartesian, height taken as zero
+        final double sinLat = Math.sin(airyLat);
+        final double cosLat = Math.cos(airyLat);
+        final double nuAiry = AIRY_A / Math.sqrt(1 - (AIRY_E2 * sinLat * sinLat));
+        final double x1 = nuAiry * cosLat * Math.cos(airyLon);
+        final double y1 = nuAiry * cosLat * Math.sin(airyLon);
+        final double z1 = (1 - AIRY_E2) * nuAiry * sinLat;
+
+        // reverse helmert
+        final double dx = x1 - TX;
+        final double dy = y1 - TY;
+        final double dz = z1 - TZ;
+        final double x2 = (I00 * dx) + (I01 * dy) + (I02 * dz);
+        final double y2 = (I10 * dx) + (I11 * dy) + (I12 * dz);
+        final double z2 = (I20 * dx) + (I21 * dy) + (I22 * dz);
+
+        // cartesian to WGS84 geodetic, Bowring's closed form
+        final double p = Math.sqrt((x2 * x2) + (y2 * y2));
+        final double theta = Math.atan2(z2 * WGS84_A, p * WGS84_B);
+        final double sinTheta = Math.sin(theta);
+        final double cosTheta = Math.cos(theta);
+        final double secondE2 = ((WGS84_A * WGS84_A) - (WGS84_B * WGS84_B)) / (WGS84_B * WGS84_B);
+        final double lat = Math.atan2(z2 + (secondE2 * WGS84_B * sinTheta * sinTheta * sinTheta),
+                p - (WGS84_E2 * WGS84_A * cosTheta * cosTheta * cosTheta));
+        final double lon = Math.atan2(y2, x2);
+
+        values[offset] = Math.toDegrees(lat);
+        values[offset + 1] = Math.toDegrees(lon);
+    }
+
+    private static double meridionalArc(final double phi) {
+        final double n2 = N * N;
+        final double n3 = n2 * N;
+        final double diff = phi - LAT0;
+        final double sum = phi + LAT0;
+        final double ma = (1 + N + (1.25 * n2) + (1.25 * n3)) * diff;
+        final double mb = ((3 * N) + (3 * n2) + (2.625 * n3)) * Math.sin(diff) * Math.cos(sum);
+        final double mc = ((1.875 * n2) + (1.875 * n3)) * Math.sin(2 * diff) * Math.cos(2 * sum);
+        final double md = (35.0 / 24.0) * n3 * Math.sin(3 * diff) * Math.cos(3 * sum);
+        return BF0 * (ma - mb + mc - md);
     }
 
 }
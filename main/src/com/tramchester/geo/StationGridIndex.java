@@ -0,0 +1,283 @@
+package com.tramchester.geo;
+
+import com.tramchester.domain.places.Station;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/***
+ * Uniform grid over station grid positions, stations are held in arrays ordered by cell so range and nearest
+ * queries only visit the cells that overlap the area of interest rather than every station.
+ */
+public class StationGridIndex {
+    private static final long MIN_CELL_SIZE = 250;
+
+    // nearest results are sorted as distance squared and index packed into a single long
+    private static final int INDEX_BITS = 22;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final long minEastings;
+    private final long minNorthings;
+    private final long cellSize;
+    private final int columns;
+    private final int rows;
+
+    // stations for cell N are at positions cellStart[N] until cellStart[N+1]
+    private final int[] cellStart;
+    private final Station[] stations;
+    private final long[] eastings;
+    private final long[] northings;
+
+    private StationGridIndex(long minEastings, long minNorthings, long cellSize, int columns, int rows,
+                             int[] cellStart, Station[] stations, long[] eastings, long[] northings) {
+        this.minEastings = minEastings;
+        this.minNorthings = minNorthings;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.cellStart = cellStart;
+        this.stations = stations;
+        this.eastings = eastings;
+        this.northings = northings;
+    }
+
+    /***
+     * @param stations stations to index, those without a valid grid position are ignored
+     * @return index with roughly one station per cell
+     */
+    public static StationGridIndex create(Collection<Station> stations) {
+        final List<Station> valid = stations.stream().
+                filter(station -> station.getGridPosition().isValid()).
+                collect(Collectors.toList());
+
+        if (valid.size() > INDEX_MASK) {
+            throw new RuntimeException("Too many stations to index " + valid.size());
+        }
+
+        if (valid.isEmpty()) {
+            return new StationGridIndex(0, 0, MIN_CELL_SIZE, 1, 1, new int[2], new Station[0], new long[0], new long[0]);
+        }
+
+        long minE = Long.MAX_VALUE;
+        long minN = Long.MAX_VALUE;
+        long maxE = Long.MIN_VALUE;
+        long maxN = Long.MIN_VALUE;
+        for (Station station : valid) {
+            final GridPosition position = station.getGridPosition();
+            minE = Math.min(minE, position.getEastings());
+            minN = Math.min(minN, position.getNorthings());
+            maxE = Math.max(maxE, position.getEastings());
+            maxN = Math.max(maxN, position.getNorthings());
+        }
+
+        final long width = maxE - minE + 1;
+        final long height = maxN - minN + 1;
+        final long cellSize = Math.max(MIN_CELL_SIZE, (long) Math.ceil(Math.sqrt((double) (width * height) / valid.size())));
+        final int columns = (int) ((width + cellSize - 1) / cellSize);
+        final int rows = (int) ((height + cellSize - 1) / cellSize);
+
+        // count per cell, then prefix sum to get the start of each cell
+        final int[] cellForStation = new int[valid.size()];
+        final int[] cellStart = new int[(columns * rows) + 1];
+        for (int i = 0; i < valid.size(); i++) {
+            final GridPosition position = valid.get(i).getGridPosition();
+            final int column = (int) ((position.getEastings() - minE) / cellSize);
+            final int row = (int) ((position.getNorthings() - minN) / cellSize);
+            cellForStation[i] = (row * columns) + column;
+            cellStart[cellForStation[i] + 1]++;
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] = cellStart[cell + 1] + cellStart[cell];
+        }
+
+        final int[] nextInCell = Arrays.copyOf(cellStart, cellStart.length);
+        final Station[] ordered = new Station[valid.size()];
+        final long[] eastings = new long[valid.size()];
+        final long[] northings = new long[valid.size()];
+        for (int i = 0; i < valid.size(); i++) {
+            final int position = nextInCell[cellForStation[i]]++;
+            final Station station = valid.get(i);
+            ordered[position] = station;
+            eastings[position] = station.getGridPosition().getEastings();
+            northings[position] = station.getGridPosition().getNorthings();
+        }
+
+        return new StationGridIndex(minE, minN, cellSize, columns, rows, cellStart, ordered, eastings, northings);
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    /***
+     * @param position centre
+     * @param margin radius
+     * @return stations within margin of position, unordered
+     */
+    public List<Station> within(GridPosition position, MarginInMeters margin) {
+        final List<Station> results = new ArrayList<>();
+        final long range = margin.get();
+        final long rangeSquared = range * range;
+
+        final int minColumn = columnFor(position.getEastings() - range);
+        final int maxColumn = columnFor(position.getEastings() + range);
+        final int minRow = rowFor(position.getNorthings() - range);
+        final int maxRow = rowFor(position.getNorthings() + range);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = (row * columns) + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (distanceSquared(i, position) <= rangeSquared) {
+                        results.add(stations[i]);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    public boolean anyWithin(GridPosition position, MarginInMeters margin) {
+        final long range = margin.get();
+        final long rangeSquared = range * range;
+
+        final int minColumn = columnFor(position.getEastings() - range);
+        final int maxColumn = columnFor(position.getEastings() + range);
+        final int minRow = rowFor(position.getNorthings() - range);
+        final int maxRow = rowFor(position.getNorthings() + range);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = (row * columns) + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (distanceSquared(i, position) <= rangeSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /***
+     * @param box area
+     * @return stations inside the box, edges included
+     */
+    public Set<Station> containedIn(BoundingBox box) {
+        final Set<Station> results = new HashSet<>();
+
+        final int minColumn = columnFor(box.getMinEastings());
+        final int maxColumn = columnFor(box.getMaxEasting());
+        final int minRow = rowFor(box.getMinNorthings());
+        final int maxRow = rowFor(box.getMaxNorthings());
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = (row * columns) + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (eastings[i] >= box.getMinEastings() && eastings[i] <= box.getMaxEasting() &&
+                            northings[i] >= box.getMinNorthings() && northings[i] <= box.getMaxNorthings()) {
+                        results.add(stations[i]);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /***
+     * Search outwards from the cell containing the position one ring of cells at a time, stopping once the
+     * closest maxToFind are known or the margin is exceeded
+     * @param position centre
+     * @param maxToFind max number of results
+     * @param margin radius
+     * @return up to maxToFind stations within margin, nearest first
+     */
+    public List<Station> nearest(GridPosition position, int maxToFind, MarginInMeters margin) {
+        if (maxToFind <= 0 || stations.length == 0) {
+            return Collections.emptyList();
+        }
+
+        final long range = margin.get();
+        final long rangeSquared = range * range;
+
+        final long centreColumn = Math.floorDiv(position.getEastings() - minEastings, cellSize);
+        final long centreRow = Math.floorDiv(position.getNorthings() - minNorthings, cellSize);
+
+        // furthest ring that could contain a cell of the grid, and the furthest that can be within range
+        final long ringsToEdge = Math.max(Math.max(Math.abs(centreColumn), Math.abs(columns - 1 - centreColumn)),
+                Math.max(Math.abs(centreRow), Math.abs(rows - 1 - centreRow)));
+        final long ringsInRange = (range / cellSize) + 1;
+        final long maxRing = Math.min(ringsToEdge, ringsInRange);
+
+        long[] found = new long[Math.min(16, stations.length)];
+        int numberFound = 0;
+
+        for (long ring = 0; ring <= maxRing; ring++) {
+            for (long row = centreRow - ring; row <= centreRow + ring; row++) {
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                final boolean edgeRow = (row == centreRow - ring) || (row == centreRow + ring);
+                // only the cells on the perimeter of the ring
+                final long step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (long column = centreColumn - ring; column <= centreColumn + ring; column = column + step) {
+                    if (column < 0 || column >= columns) {
+                        continue;
+                    }
+                    final int cell = (int) ((row * columns) + column);
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        final long distanceSquared = distanceSquared(i, position);
+                        if (distanceSquared <= rangeSquared) {
+                            if (numberFound == found.length) {
+                                found = Arrays.copyOf(found, found.length * 2);
+                            }
+                            found[numberFound++] = (distanceSquared << INDEX_BITS) | i;
+                        }
+                    }
+                }
+            }
+
+            // anything in a later ring is at least ring * cellSize away
+            if (numberFound >= maxToFind) {
+                final long nearestUnvisited = ring * cellSize;
+                Arrays.sort(found, 0, numberFound);
+                if ((found[maxToFind - 1] >>> INDEX_BITS) <= nearestUnvisited * nearestUnvisited) {
+                    break;
+                }
+            }
+        }
+
+        Arrays.sort(found, 0, numberFound);
+        final int resultSize = Math.min(maxToFind, numberFound);
+        final List<Station> results = new ArrayList<>(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            results.add(stations[(int) (found[i] & INDEX_MASK)]);
+        }
+        return results;
+    }
+
+    private long distanceSquared(int index, GridPosition position) {
+        final long east = eastings[index] - position.getEastings();
+        final long north = northings[index] - position.getNorthings();
+        return (east * east) + (north * north);
+    }
+
+    private int columnFor(long eastings) {
+        return clamp(Math.floorDiv(eastings - minEastings, cellSize), columns);
+    }
+
+    private int rowFor(long northings) {
+        return clamp(Math.floorDiv(northings - minNorthings, cellSize), rows);
+    }
+
+    private static int clamp(long value, int size) {
+        if (value < 0) {
+            return 0;
+        }
+        if (value >= size) {
+            return size - 1;
+        }
+        return (int) value;
+    }
+}
@@ -38,8 +38,9 @@ public class StationLocations implements StationLocationsRepository {
     private final Set<BoundingBox> quadrants;
 
     private final Map<IdFor<NaptanArea>, LocationSet> locationsInNaptanArea;
-    private final Map<BoundingBox, Set<Station>> stationBoxes;
+    private final Map<TransportMode, StationGridIndex> indexForMode;
 
+    private StationGridIndex allStationsIndex;
     private BoundingBox bounds;
 
     @Inject
@@ -51,7 +52,7 @@ public class StationLocations implements StationLocationsRepository {
         this.geography = geography;
 
         quadrants = new HashSet<>();
-        stationBoxes = new HashMap<>();
+        indexForMode = new EnumMap<>(TransportMode.class);
         locationsInNaptanArea = new HashMap<>();
     }
 
@@ -61,6 +62,7 @@ public class StationLocations implements StationLocationsRepository {
         bounds = new CreateBoundingBox().createBoundingBox(stationRepository.getActiveStationStream());
         logger.info("Created bounds for active stations: " + bounds);
         createQuadrants();
+        createIndexes();
         if (naptanRespository.isEnabled()) {
             populateAreas();
         } else {
@@ -72,8 +74,8 @@ public class StationLocations implements StationLocationsRepository {
     @PreDestroy
     public void dispose() {
         logger.info("Stopping");
-        stationBoxes.values().forEach(Set::clear);
-        stationBoxes.clear();
+        indexForMode.clear();
+        allStationsIndex = null;
         quadrants.clear();
         locationsInNaptanArea.clear();
         logger.info("Stopped");
@@ -82,14 +84,20 @@ public class StationLocations implements StationLocationsRepository {
     private void createQuadrants() {
         populateQuadrants(bounds, DEPTH_LIMIT);
         logger.info("Added " + quadrants.size() + " quadrants");
-        quadrants.forEach(quadrant -> {
-            // NOTE assumption - composite stations cannot be outside bounds defined by stations themselves since
-            // composite location defined to be middle of composed stations
-            Set<Station> foundInQuadrant = stationRepository.getActiveStationStream().
-                    filter(station -> station.getGridPosition().isValid()).
-                    filter(station -> quadrant.contained(station.getGridPosition())).
-                    collect(Collectors.toSet());
-            stationBoxes.put(quadrant, foundInQuadrant);
+    }
+
+    private void createIndexes() {
+        final List<Station> activeStations = stationRepository.getActiveStationStream().collect(Collectors.toList());
+        allStationsIndex = StationGridIndex.create(activeStations);
+        logger.info("Indexed " + allStationsIndex.size() + " stations");
+
+        final Map<TransportMode, List<Station>> byMode = new EnumMap<>(TransportMode.class);
+        activeStations.forEach(station -> station.getTransportModes().forEach(mode ->
+                byMode.computeIfAbsent(mode, unused -> new ArrayList<>()).add(station)));
+        byMode.forEach((mode, stations) -> {
+            final StationGridIndex index = StationGridIndex.create(stations);
+            logger.info("Indexed " + index.size() + " stations for " + mode);
+            indexForMode.put(mode, index);
         });
     }
 
@@ -201,32 +209,44 @@ public class StationLocations implements StationLocationsRepository {
         return nearestStationsSorted(location.getGridPosition(), maxToFind, rangeInMeters, modes);
     }
 
-    // TODO Use quadrants for this search?
     // TODO Station Groups here?
     public List<Station> nearestStationsSorted(GridPosition gridPosition, int maxToFind, MarginInMeters rangeInMeters,
                                                EnumSet<TransportMode> modes) {
+        if (!gridPosition.isValid()) {
+            logger.warn("Invalid grid position, no nearest stations");
+            return Collections.emptyList();
+        }
 
-        final Geography.LocationsSource<Station> source;
         if (modes.isEmpty()) {
             logger.warn("No station modes provided, will not filter stations by mode");
-            source = stationRepository::getActiveStationStream;
-        } else {
-            source = () -> getStationModeFilteredStations(modes);
+            return allStationsIndex.nearest(gridPosition, maxToFind, rangeInMeters);
         }
 
-        return geography.getNearToSorted(source, gridPosition, rangeInMeters).
-                limit(maxToFind).
+        final List<StationGridIndex> indexes = modes.stream().
+                filter(indexForMode::containsKey).
+                map(indexForMode::get).
                 collect(Collectors.toList());
-    }
 
-    private Stream<Station> getStationModeFilteredStations(EnumSet<TransportMode> modes) {
-        return stationRepository.getActiveStationStream().
-                filter(station -> TransportMode.intersects(modes, station.getTransportModes()));
+        if (indexes.size() == 1) {
+            return indexes.get(0).nearest(gridPosition, maxToFind, rangeInMeters);
+        }
+
+        // stations can have more than one mode, so can appear in results from more than one index
+        return indexes.stream().
+                flatMap(index -> index.nearest(gridPosition, maxToFind, rangeInMeters).stream()).
+                distinct().
+                sorted(Comparator.comparingLong(station -> GridPositions.distanceTo(gridPosition, station.getGridPosition()))).
+                limit(maxToFind).
+                collect(Collectors.toList());
     }
 
     @Override
     public Stream<Station> nearestStationsUnsorted(Station station, MarginInMeters rangeInMeters) {
-        return geography.getNearToUnsorted(stationRepository::getActiveStationStream, station.getGridPosition(), rangeInMeters);
+        final GridPosition gridPosition = station.getGridPosition();
+        if (!gridPosition.isValid()) {
+            return Stream.empty();
+        }
+        return allStationsIndex.within(gridPosition, rangeInMeters).stream();
     }
 
     public boolean anyStationsWithinRangeOf(Location<?> position, MarginInMeters margin) {
@@ -234,17 +254,7 @@ public class StationLocations implements StationLocationsRepository {
     }
 
     public boolean anyStationsWithinRangeOf(GridPosition gridPosition, MarginInMeters margin) {
-        // find if within range of a box, if we then need to check if also within range of an actual station
-        Set<BoundingBox> quadrantsWithinRange = getQuadrantsWithinRange(gridPosition, margin);
-
-        if (quadrantsWithinRange.isEmpty()) {
-            logger.debug("No quadrant within range " + margin + " of " + gridPosition);
-            return false;
-        }
-
-        Stream<Station> candidateStations = quadrantsWithinRange.stream().flatMap(quadrant -> stationBoxes.get(quadrant).stream());
-
-        return geography.getNearToUnsorted(() -> candidateStations, gridPosition, margin).findAny().isPresent();
+        return allStationsIndex.anyWithin(gridPosition, margin);
     }
 
     public Stream<BoundingBoxWithStations> getStationsInGrids(long gridSize) {
@@ -266,17 +276,8 @@ public class StationLocations implements StationLocationsRepository {
                         map(y -> new BoundingBox(x, y, x + gridSize, y + gridSize)));
     }
 
-    private Set<BoundingBox> getQuadrantsWithinRange(GridPosition position, MarginInMeters range) {
-        return this.quadrants.stream().
-                filter(quadrant -> quadrant.within(range, position)).collect(Collectors.toSet());
-    }
-
     private Set<Station> getStationsWithin(BoundingBox box) {
-        Stream<BoundingBox> overlaps = quadrants.stream().filter(box::overlapsWith);
-
-        Stream<Station> candidateStations = overlaps.flatMap(quadrant -> stationBoxes.get(quadrant).stream());
-
-        return candidateStations.filter(box::contained).collect(Collectors.toSet());
+        return allStationsIndex.containedIn(box);
     }
 
     private Stream<Long> getEastingsStream(long gridSize) {
@@ -99,22 +99,27 @@ public class GraphDatabase implements DatabaseEventListener {
         try (TimedTransaction timed = new TimedTransaction(this, logger, "Create DB Constraints & indexes"))
         {
             Transaction tx = timed.transaction();
-            Schema schema = tx.schema();
-
-            schema.indexFor(GraphLabel.STATION).on(GraphPropertyKey.ROUTE_ID.getText()).create();
-            createUniqueIdConstraintFor(schema, GraphLabel.STATION, GraphPropertyKey.STATION_ID);
+            createIndexs(tx.schema());
+            timed.commit();
+        }
+    }
 
-            createUniqueIdConstraintFor(schema, GraphLabel.ROUTE_STATION, GraphPropertyKey.ROUTE_STATION_ID);
-            schema.indexFor(GraphLabel.ROUTE_STATION).on(GraphPropertyKey.STATION_ID.getText()).create();
-            schema.indexFor(GraphLabel.ROUTE_STATION).on(GraphPropertyKey.ROUTE_ID.getText()).create();
+    /***
+     * Indexes and constraints, also used for a DB created via offline import, see GraphDatabaseBulkImport
+     * @param schema schema of a transaction that has not made any other changes
+     */
+    public static void createIndexs(Schema schema) {
+        schema.indexFor(GraphLabel.STATION).on(GraphPropertyKey.ROUTE_ID.getText()).create();
+        createUniqueIdConstraintFor(schema, GraphLabel.STATION, GraphPropertyKey.STATION_ID);
 
-            schema.indexFor(GraphLabel.PLATFORM).on(GraphPropertyKey.PLATFORM_ID.getText()).create();
+        createUniqueIdConstraintFor(schema, GraphLabel.ROUTE_STATION, GraphPropertyKey.ROUTE_STATION_ID);
+        schema.indexFor(GraphLabel.ROUTE_STATION).on(GraphPropertyKey.STATION_ID.getText()).create();
+        schema.indexFor(GraphLabel.ROUTE_STATION).on(GraphPropertyKey.ROUTE_ID.getText()).create();
 
-            timed.commit();
-        }
+        schema.indexFor(GraphLabel.PLATFORM).on(GraphPropertyKey.PLATFORM_ID.getText()).create();
     }
 
-    private void createUniqueIdConstraintFor(Schema schema, GraphLabel label, GraphPropertyKey property) {
+    private static void createUniqueIdConstraintFor(Schema schema, GraphLabel label, GraphPropertyKey property) {
         schema.indexFor(label).on(property.getText()).create();
     }
 
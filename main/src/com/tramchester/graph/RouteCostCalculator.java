@@ -9,6 +9,7 @@ import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.InvalidDurationException;
 import com.tramchester.graph.graphbuild.GraphProps;
 import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import com.tramchester.repository.RouteRepository;
 import org.neo4j.graphalgo.EvaluationContext;
 import org.neo4j.graphalgo.GraphAlgoFactory;
@@ -16,14 +17,18 @@ import org.neo4j.graphalgo.PathFinder;
 import org.neo4j.graphalgo.WeightedPath;
 import org.neo4j.graphalgo.impl.util.DoubleEvaluator;
 import org.neo4j.graphdb.*;
+import org.neo4j.graphdb.traversal.BranchState;
+import org.neo4j.internal.helpers.collection.Iterables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.tramchester.graph.GraphPropertyKey.COST;
 import static com.tramchester.graph.TransportRelationshipTypes.*;
@@ -48,19 +53,21 @@ public class RouteCostCalculator {
         this.routeRepository = routeRepository;
     }
 
-    public Duration getAverageCostBetween(Transaction txn, Node startNode, Node endNode, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
-        return calculateLeastCost(txn, startNode, endNode, COST, date, modes);
+    public Duration getAverageCostBetween(Transaction txn, VirtualWalks walks, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
+        VirtualWalks.Bound walkNodes = walks.bind(txn, graphQuery);
+        return calculateLeastCost(txn, walkNodes.getStartNode(), walkNodes.getEndNode(), walkNodes, COST, date, modes);
     }
 
-    public Duration getAverageCostBetween(Transaction txn, Location<?> station, Node endNode, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
+    public Duration getAverageCostBetween(Transaction txn, Location<?> station, VirtualWalks walksAtEnd, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
         Node startNode = graphQuery.getLocationNode(txn, station);
-        return calculateLeastCost(txn, startNode, endNode, COST, date, modes);
+        VirtualWalks.Bound walkNodes = walksAtEnd.bind(txn, graphQuery);
+        return calculateLeastCost(txn, startNode, walkNodes.getEndNode(), walkNodes, COST, date, modes);
     }
 
-    // startNode must have been found within supplied txn
-    public Duration getAverageCostBetween(Transaction txn, Node startNode, Location<?> endStation, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
+    public Duration getAverageCostBetween(Transaction txn, VirtualWalks walksAtStart, Location<?> endStation, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
         Node endNode = graphQuery.getLocationNode(txn, endStation);
-        return calculateLeastCost(txn, startNode, endNode, COST, date, modes);
+        VirtualWalks.Bound walkNodes = walksAtStart.bind(txn, graphQuery);
+        return calculateLeastCost(txn, walkNodes.getStartNode(), endNode, walkNodes, COST, date, modes);
     }
 
     public Duration getAverageCostBetween(Transaction txn, Location<?> startStation, Location<?> endStation, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
@@ -78,13 +85,13 @@ public class RouteCostCalculator {
         }
         logger.info(format("Find approx. route cost between %s and %s", startLocation.getId(), endLocation.getId()));
 
-        return calculateLeastCost(txn, startNode, endNode, key, date, modes);
+        return calculateLeastCost(txn, startNode, endNode, VirtualWalks.Bound.empty(), key, date, modes);
     }
 
     // startNode and endNode must have been found within supplied txn
 
-    private Duration calculateLeastCost(Transaction txn, Node startNode, Node endNode, GraphPropertyKey key,
-                                        TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
+    private Duration calculateLeastCost(Transaction txn, Node startNode, Node endNode, VirtualWalks.Bound walkNodes,
+                                        GraphPropertyKey key, TramDate date, Set<TransportMode> modes) throws InvalidDurationException {
 
         Set<Route> routesRunningOn = routeRepository.getRoutesRunningOn(date).stream().
                 filter(route -> modes.contains(route.getTransportMode())).collect(Collectors.toSet());
@@ -97,7 +104,8 @@ public class RouteCostCalculator {
         Predicate<? super Relationship> routeFilter = (Predicate<Relationship>) relationship ->
                 !relationship.isType(ON_ROUTE) || available.contains(GraphProps.getRouteIdFrom(relationship));
 
-        PathExpander<Double> forTypesAndDirections = fullExpanderForCostApproximation(routeFilter);
+        PathExpander<Double> forTypesAndDirections = new WithWalksExpander(fullExpanderForCostApproximation(routeFilter),
+                walkNodes, false);
 
         PathFinder<WeightedPath> finder = GraphAlgoFactory.dijkstra(context, forTypesAndDirections,
                 new UsefulLoggingCostEvaluator(key));
@@ -130,6 +138,37 @@ public class RouteCostCalculator {
 
     }
 
+    /***
+     * Walks to and from stations are not in the graph, so add them to the expansion of the station nodes, the
+     * finder is bidirectional so the reverse expander is also needed
+     */
+    private static class WithWalksExpander implements PathExpander<Double> {
+        private final PathExpander<Double> delegate;
+        private final VirtualWalks.Bound walkNodes;
+        private final boolean reversed;
+
+        private WithWalksExpander(PathExpander<Double> delegate, VirtualWalks.Bound walkNodes, boolean reversed) {
+            this.delegate = delegate;
+            this.walkNodes = walkNodes;
+            this.reversed = reversed;
+        }
+
+        @Override
+        public ResourceIterable<Relationship> expand(Path path, BranchState<Double> state) {
+            final Node endNode = path.endNode();
+            final Stream<Relationship> walks = reversed ? walkNodes.getWalksTo(endNode) : walkNodes.getWalksFrom(endNode);
+            try (ResourceIterable<Relationship> expanded = delegate.expand(path, state)) {
+                final List<Relationship> relationships = Stream.concat(walks, expanded.stream()).collect(Collectors.toList());
+                return Iterables.asResourceIterable(relationships);
+            }
+        }
+
+        @Override
+        public PathExpander<Double> reverse() {
+            return new WithWalksExpander(delegate.reverse(), walkNodes, !reversed);
+        }
+    }
+
     private static class UsefulLoggingCostEvaluator extends DoubleEvaluator {
 
         // default implementation gives zero useful diagnostics, just throws NotFoundException
@@ -13,6 +13,7 @@ import com.tramchester.graph.NumberOfNodesAndRelationshipsRepository;
 import com.tramchester.graph.TransportRelationshipTypes;
 import com.tramchester.graph.graphbuild.GraphLabel;
 import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import com.tramchester.metrics.CacheMetrics;
 import com.tramchester.repository.ReportsCacheStats;
 import org.apache.commons.lang3.tuple.Pair;
@@ -148,6 +149,10 @@ public class CachedNodeOperations implements ReportsCacheStats, NodeContentsRepo
     @Override
     public EnumSet<GraphLabel> getLabels(Node node) {
         long nodeId = node.getId();
+        if (VirtualWalks.isVirtual(nodeId)) {
+            // ids are only unique within a query
+            return GraphProps.getLabelsFor(node);
+        }
         return labelCache.get(nodeId, id -> GraphProps.getLabelsFor(node));
     }
 
@@ -156,16 +161,14 @@ public class CachedNodeOperations implements ReportsCacheStats, NodeContentsRepo
         TransportRelationshipTypes relationshipType = TransportRelationshipTypes.from(relationship);
         if (TransportRelationshipTypes.hasCost(relationshipType)) {
             long relationshipId = relationship.getId();
+            if (VirtualWalks.isVirtual(relationshipId)) {
+                return GraphProps.getCost(relationship);
+            }
             return relationshipCostCache.get(relationshipId, id ->  GraphProps.getCost(relationship));
         } else {
             return Duration.ZERO;
         }
     }
 
-    public void deleteFromCostCache(Relationship relationship) {
-        long relationshipId = relationship.getId();
-        relationshipCostCache.invalidate(relationshipId);
-    }
-
 
 }
@@ -0,0 +1,113 @@
+package com.tramchester.graph.caches;
+
+import com.tramchester.caching.FileDataCache;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.databaseManagement.GraphDatabaseMetaInfo;
+import com.tramchester.graph.filters.GraphFilterActive;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+
+import static java.lang.String.format;
+
+/***
+ * Data derived from the built graph, including node and relationship ids, cached via FileDataCache. The file starts
+ * with a magic number, format version and the build stamp of the graph (see GraphDatabaseMetaInfo), a cache file for
+ * a different format or build of the graph is discarded and created again from the graph.
+ */
+public abstract class GraphBinaryCache implements FileDataCache.CachesBinaryData {
+    private static final Logger logger = LoggerFactory.getLogger(GraphBinaryCache.class);
+
+    protected final GraphDatabase graphDatabase;
+    private final FileDataCache dataCache;
+    private final GraphFilterActive graphFilter;
+    private final GraphDatabaseMetaInfo databaseMetaInfo;
+    private final String filename;
+    private final int magic;
+    private final int version;
+
+    private long buildStamp;
+
+    protected GraphBinaryCache(GraphDatabase graphDatabase, FileDataCache dataCache, GraphFilterActive graphFilter,
+                               GraphDatabaseMetaInfo databaseMetaInfo, String filename, int magic, int version) {
+        this.graphDatabase = graphDatabase;
+        this.dataCache = dataCache;
+        this.graphFilter = graphFilter;
+        this.databaseMetaInfo = databaseMetaInfo;
+        this.filename = filename;
+        this.magic = magic;
+        this.version = version;
+    }
+
+    /***
+     * Load from the cache if present and for the current build of the graph, otherwise create from the graph and save
+     */
+    protected void loadOrCreate() {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            buildStamp = databaseMetaInfo.getBuildStamp(txn);
+        }
+
+        if (graphFilter.isActive()) {
+            logger.warn("Filtering is enabled, skipping caching for " + filename);
+            createFromGraph();
+        } else if (dataCache.hasBinary(this) && dataCache.loadBinary(this) && matchesGraph()) {
+            logger.info("Loaded from cache " + filename);
+        } else {
+            logger.info("Not in cache or outdated, creating " + filename);
+            createFromGraph();
+            dataCache.saveBinary(this);
+        }
+    }
+
+    protected abstract void createFromGraph();
+
+    /***
+     * Further checks of the loaded data against the graph
+     * @return false if outdated, in which case it is created again
+     */
+    protected abstract boolean matchesGraph();
+
+    protected abstract void writeContents(DataOutput output) throws IOException;
+
+    protected abstract void readContents(MappedByteBuffer buffer) throws FileDataCache.CacheLoadException;
+
+    @Override
+    public final void cacheTo(final DataOutput output) throws IOException {
+        output.writeInt(magic);
+        output.writeInt(version);
+        output.writeLong(buildStamp);
+        writeContents(output);
+    }
+
+    @Override
+    public final String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public final void loadFrom(final MappedByteBuffer buffer) throws FileDataCache.CacheLoadException {
+        checkHeader(buffer.getInt(), magic, "magic");
+        checkHeader(buffer.getInt(), version, "version");
+        checkHeader(buffer.getLong(), buildStamp, "graph build");
+        readContents(buffer);
+    }
+
+    protected static void checkHeader(long actual, long expected, String name) throws FileDataCache.CacheLoadException {
+        if (actual != expected) {
+            throw new FileDataCache.CacheLoadException(format("Mismatch on %s, expected %s got %s", name, expected, actual));
+        }
+    }
+
+    protected static long count(Transaction txn, String query) {
+        try (Result result = txn.execute(query)) {
+            ResourceIterator<Object> rows = result.columnAs("count");
+            return (long) rows.next();
+        }
+    }
+}
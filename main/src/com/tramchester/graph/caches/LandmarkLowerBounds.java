@@ -0,0 +1,528 @@
+package com.tramchester.graph.caches;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.caching.FileDataCache;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.databaseManagement.GraphDatabaseMetaInfo;
+import com.tramchester.graph.filters.GraphFilterActive;
+import com.tramchester.graph.graphbuild.CompositeStationGraphBuilder;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import org.neo4j.graphdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/***
+ * Minimum travel time, in minutes, from a few landmark stations to every station and route station node and from
+ * every such node back to the landmarks. Via the triangle inequality these give a lower bound on the time from a route
+ * station to a destination (ALT). Times are shortest paths over the relationship costs of the built graph with waits
+ * taken as zero, so the bound never exceeds the real cost. Landmarks are picked farthest first.
+ * Cached via FileDataCache. See config numberOfLandmarks.
+ */
+@LazySingleton
+public class LandmarkLowerBounds extends GraphBinaryCache {
+    private static final Logger logger = LoggerFactory.getLogger(LandmarkLowerBounds.class);
+
+    private static final String FILENAME = "landmark_lower_bounds.bin";
+    private static final int MAGIC = 0x4c4d524b; // LMRK
+    private static final int VERSION = 3;
+    private static final int NO_SLOT = -1;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int requestedLandmarks;
+
+    // node id -> slot, station nodes first then route station nodes
+    private LongToIntMap slots;
+    private long[] slotNodeIds;
+    private int numberOfSlots;
+    private int numberOfStations;
+
+    private long[] landmarkNodeIds;
+    private int numberOfLandmarks;
+    // indexed by (landmark * numberOfSlots) + slot
+    private int[] fromLandmark;
+    private int[] toLandmark;
+
+    @Inject
+    public LandmarkLowerBounds(GraphDatabase graphDatabase, StagedTransportGraphBuilder.Ready ready,
+                               CompositeStationGraphBuilder.Ready compositesReady, FileDataCache dataCache,
+                               GraphFilterActive graphFilter, GraphDatabaseMetaInfo databaseMetaInfo, TramchesterConfig config) {
+        super(graphDatabase, dataCache, graphFilter, databaseMetaInfo, FILENAME, MAGIC, VERSION);
+        this.requestedLandmarks = config.getNumberOfLandmarks();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        if (!isEnabled()) {
+            logger.info("Disabled");
+            return;
+        }
+
+        loadOrCreate();
+
+        logger.info(format("started, %s landmarks %s, %s nodes", numberOfLandmarks, Arrays.toString(landmarkNodeIds),
+                numberOfSlots));
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        if (slots != null) {
+            slots.clear();
+        }
+        slots = null;
+        slotNodeIds = null;
+        landmarkNodeIds = null;
+        fromLandmark = null;
+        toLandmark = null;
+        logger.info("stopped");
+    }
+
+    public boolean isEnabled() {
+        return requestedLandmarks > 0;
+    }
+
+    /***
+     * @param destinationNodeIds the node ids of the destinations for a query
+     * @return lower bounds to the nearest of the destinations, or none if disabled or a destination is not a station
+     */
+    public ForDestinations forDestinations(final Set<Long> destinationNodeIds) {
+        if (!isEnabled() || destinationNodeIds.isEmpty()) {
+            return ForDestinations.none();
+        }
+
+        final int[] destinationSlots = new int[destinationNodeIds.size()];
+        int index = 0;
+        for (final Long nodeId : destinationNodeIds) {
+            final int slot = slotFor(nodeId);
+            if (slot == NO_SLOT) {
+                logger.info("No lower bounds, destination node is not a station " + nodeId);
+                return ForDestinations.none();
+            }
+            destinationSlots[index++] = slot;
+        }
+        return new ForDestinations(this, destinationSlots);
+    }
+
+    private int slotFor(final long nodeId) {
+        // query walks use negative ids
+        if (nodeId < 0) {
+            return NO_SLOT;
+        }
+        return slots.get(nodeId);
+    }
+
+    /***
+     * @return largest lower bound over the landmarks, for the nearest destination
+     */
+    private int lowerBound(final int slot, final int[] destinationSlots) {
+        int result = UNREACHABLE;
+        for (final int destination : destinationSlots) {
+            int best = 0;
+            for (int landmark = 0; landmark < numberOfLandmarks; landmark++) {
+                final int base = landmark * numberOfSlots;
+
+                // d(L,dest) <= d(L,node) + d(node,dest)
+                final int landmarkToNode = fromLandmark[base + slot];
+                final int landmarkToDest = fromLandmark[base + destination];
+                if (landmarkToNode != UNREACHABLE && landmarkToDest != UNREACHABLE) {
+                    best = Math.max(best, landmarkToDest - landmarkToNode);
+                }
+
+                // d(node,L) <= d(node,dest) + d(dest,L)
+                final int nodeToLandmark = toLandmark[base + slot];
+                final int destToLandmark = toLandmark[base + destination];
+                if (nodeToLandmark != UNREACHABLE && destToLandmark != UNREACHABLE) {
+                    best = Math.max(best, nodeToLandmark - destToLandmark);
+                }
+            }
+            result = Math.min(result, best);
+            if (result == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void createFromGraph() {
+        final Network network;
+        try (Transaction txn = graphDatabase.beginTx()) {
+            network = Network.from(txn);
+
+            final List<Long> nodeIds = new ArrayList<>();
+            addNodeIds(txn, GraphLabel.STATION, nodeIds);
+            numberOfStations = nodeIds.size();
+            addNodeIds(txn, GraphLabel.ROUTE_STATION, nodeIds);
+            setSlots(nodeIds);
+        }
+
+        final int[] nodeIndexes = new int[numberOfSlots];
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            nodeIndexes[slot] = network.asIndex(slotNodeIds[slot]);
+        }
+
+        final List<Long> landmarks = new ArrayList<>();
+        final List<int[]> fromLandmarks = new ArrayList<>();
+        final List<int[]> toLandmarks = new ArrayList<>();
+
+        // farthest first, from an arbitrary station, each landmark as far as possible from those already chosen
+        final int[] nearestLandmark = new int[numberOfStations];
+        if (numberOfStations > 0) {
+            final int[] fromSeed = network.shortestFrom(nodeIndexes[0], true);
+            for (int slot = 0; slot < numberOfStations; slot++) {
+                nearestLandmark[slot] = fromSeed[nodeIndexes[slot]];
+            }
+        }
+
+        while (landmarks.size() < requestedLandmarks) {
+            int farthest = NO_SLOT;
+            for (int slot = 0; slot < numberOfStations; slot++) {
+                if (nearestLandmark[slot] > 0 && (farthest == NO_SLOT || nearestLandmark[slot] > nearestLandmark[farthest])) {
+                    farthest = slot;
+                }
+            }
+            if (farthest == NO_SLOT) {
+                logger.info("All stations covered by " + landmarks.size() + " landmarks");
+                break;
+            }
+
+            final int source = nodeIndexes[farthest];
+            final int[] forwards = network.shortestFrom(source, true);
+            final int[] backwards = network.shortestFrom(source, false);
+
+            final int[] from = new int[numberOfSlots];
+            final int[] to = new int[numberOfSlots];
+            for (int slot = 0; slot < numberOfSlots; slot++) {
+                from[slot] = forwards[nodeIndexes[slot]];
+                to[slot] = backwards[nodeIndexes[slot]];
+            }
+            for (int slot = 0; slot < numberOfStations; slot++) {
+                nearestLandmark[slot] = Math.min(nearestLandmark[slot], from[slot]);
+            }
+
+            landmarks.add(slotNodeIds[farthest]);
+            fromLandmarks.add(from);
+            toLandmarks.add(to);
+        }
+
+        numberOfLandmarks = landmarks.size();
+        landmarkNodeIds = landmarks.stream().mapToLong(Long::longValue).toArray();
+        fromLandmark = new int[numberOfLandmarks * numberOfSlots];
+        toLandmark = new int[numberOfLandmarks * numberOfSlots];
+        for (int landmark = 0; landmark < numberOfLandmarks; landmark++) {
+            System.arraycopy(fromLandmarks.get(landmark), 0, fromLandmark, landmark * numberOfSlots, numberOfSlots);
+            System.arraycopy(toLandmarks.get(landmark), 0, toLandmark, landmark * numberOfSlots, numberOfSlots);
+        }
+    }
+
+    private void addNodeIds(Transaction txn, GraphLabel label, List<Long> nodeIds) {
+        final List<Long> forLabel = new ArrayList<>();
+        try (ResourceIterator<Node> nodes = txn.findNodes(label)) {
+            nodes.forEachRemaining(node -> forLabel.add(node.getId()));
+        }
+        forLabel.sort(Long::compare);
+        nodeIds.addAll(forLabel);
+    }
+
+    private void setSlots(List<Long> nodeIds) {
+        numberOfSlots = nodeIds.size();
+        slotNodeIds = new long[numberOfSlots];
+        slots = new LongToIntMap(numberOfSlots, NO_SLOT);
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            final long nodeId = nodeIds.get(slot);
+            slotNodeIds[slot] = nodeId;
+            slots.put(nodeId, slot);
+        }
+    }
+
+    @Override
+    protected boolean matchesGraph() {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            final long inGraph = count(txn, "MATCH (n:STATION) RETURN count(n) as count") +
+                    count(txn, "MATCH (n:ROUTE_STATION) RETURN count(n) as count");
+            if (inGraph != numberOfSlots) {
+                logger.warn(format("Cached landmark bounds does not match graph, nodes %s (graph %s), cache file %s is outdated",
+                        numberOfSlots, inGraph, FILENAME));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    protected void writeContents(final DataOutput output) throws IOException {
+        // fewer landmarks than requested are chosen when all stations are covered, so keep the configured number
+        output.writeInt(requestedLandmarks);
+        output.writeInt(numberOfSlots);
+        output.writeInt(numberOfStations);
+        output.writeInt(numberOfLandmarks);
+
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            output.writeLong(slotNodeIds[slot]);
+        }
+        for (int landmark = 0; landmark < numberOfLandmarks; landmark++) {
+            output.writeLong(landmarkNodeIds[landmark]);
+        }
+        for (int index = 0; index < fromLandmark.length; index++) {
+            output.writeInt(fromLandmark[index]);
+            output.writeInt(toLandmark[index]);
+        }
+    }
+
+    @Override
+    protected void readContents(final MappedByteBuffer buffer) throws FileDataCache.CacheLoadException {
+        checkHeader(buffer.getInt(), requestedLandmarks, "configured number of landmarks");
+
+        final int loadedSlots = buffer.getInt();
+        numberOfStations = buffer.getInt();
+        numberOfLandmarks = buffer.getInt();
+
+        final List<Long> nodeIds = new ArrayList<>(loadedSlots);
+        for (int slot = 0; slot < loadedSlots; slot++) {
+            nodeIds.add(buffer.getLong());
+        }
+        setSlots(nodeIds);
+
+        landmarkNodeIds = new long[numberOfLandmarks];
+        for (int landmark = 0; landmark < numberOfLandmarks; landmark++) {
+            landmarkNodeIds[landmark] = buffer.getLong();
+        }
+
+        fromLandmark = new int[numberOfLandmarks * numberOfSlots];
+        toLandmark = new int[numberOfLandmarks * numberOfSlots];
+        for (int index = 0; index < fromLandmark.length; index++) {
+            fromLandmark[index] = buffer.getInt();
+            toLandmark[index] = buffer.getInt();
+        }
+    }
+
+    /***
+     * Lower bounds towards the destinations of a single query
+     */
+    public static class ForDestinations {
+        private static final ForDestinations NONE = new ForDestinations(null, new int[0]);
+
+        private final LandmarkLowerBounds bounds;
+        private final int[] destinationSlots;
+
+        private ForDestinations(LandmarkLowerBounds bounds, int[] destinationSlots) {
+            this.bounds = bounds;
+            this.destinationSlots = destinationSlots;
+        }
+
+        public static ForDestinations none() {
+            return NONE;
+        }
+
+        public boolean isActive() {
+            return bounds != null;
+        }
+
+        /***
+         * @param node a route station (or station) node
+         * @return lower bound on the time to reach the nearest destination, zero if not known
+         */
+        public Duration getLowerBound(final Node node) {
+            if (bounds == null) {
+                return Duration.ZERO;
+            }
+            final int slot = bounds.slotFor(node.getId());
+            if (slot == NO_SLOT) {
+                return Duration.ZERO;
+            }
+            return Duration.ofMinutes(bounds.lowerBound(slot, destinationSlots));
+        }
+    }
+
+    /***
+     * Snapshot of the graph's relationships and costs, forward and reverse, only kept while the landmarks are computed
+     */
+    private static class Network {
+        private final int numberOfNodes;
+        private final int[] forwardOffsets;
+        private final int[] forwardTargets;
+        private final int[] forwardCosts;
+        private final int[] reverseOffsets;
+        private final int[] reverseTargets;
+        private final int[] reverseCosts;
+
+        private Network(int numberOfNodes, int[] starts, int[] ends, int[] costs, int numberOfRelationships) {
+            this.numberOfNodes = numberOfNodes;
+            forwardOffsets = new int[numberOfNodes + 1];
+            forwardTargets = new int[numberOfRelationships];
+            forwardCosts = new int[numberOfRelationships];
+            reverseOffsets = new int[numberOfNodes + 1];
+            reverseTargets = new int[numberOfRelationships];
+            reverseCosts = new int[numberOfRelationships];
+
+            group(starts, ends, costs, numberOfRelationships, forwardOffsets, forwardTargets, forwardCosts);
+            group(ends, starts, costs, numberOfRelationships, reverseOffsets, reverseTargets, reverseCosts);
+        }
+
+        static Network from(Transaction txn) {
+            long maxNodeId = -1;
+            try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+                for (Node node : nodes) {
+                    maxNodeId = Math.max(maxNodeId, node.getId());
+                }
+            }
+            final int numberOfNodes = checkedIndex(maxNodeId + 1);
+
+            int[] starts = new int[1024];
+            int[] ends = new int[1024];
+            int[] costs = new int[1024];
+            int count = 0;
+            try (ResourceIterable<Relationship> relationships = txn.getAllRelationships()) {
+                for (Relationship relationship : relationships) {
+                    final TransportRelationshipTypes relationshipType = TransportRelationshipTypes.from(relationship);
+                    if (relationshipType == TransportRelationshipTypes.ON_ROUTE) {
+                        // not used for traversals, and cost is not a lower bound
+                        continue;
+                    }
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        ends = Arrays.copyOf(ends, count * 2);
+                        costs = Arrays.copyOf(costs, count * 2);
+                    }
+                    starts[count] = checkedIndex(relationship.getStartNode().getId());
+                    ends[count] = checkedIndex(relationship.getEndNode().getId());
+                    costs[count] = TransportRelationshipTypes.hasCost(relationshipType) ?
+                            Math.toIntExact(GraphProps.getCost(relationship).toMinutes()) : 0;
+                    count++;
+                }
+            }
+            logger.info(format("Snapshot of %s nodes and %s relationships", numberOfNodes, count));
+            return new Network(numberOfNodes, starts, ends, costs, count);
+        }
+
+        private static void group(int[] keys, int[] values, int[] costs, int count, int[] offsets, int[] targets, int[] targetCosts) {
+            for (int index = 0; index < count; index++) {
+                offsets[keys[index] + 1]++;
+            }
+            for (int index = 0; index < offsets.length - 1; index++) {
+                offsets[index + 1] = offsets[index + 1] + offsets[index];
+            }
+            final int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+            for (int index = 0; index < count; index++) {
+                final int position = positions[keys[index]]++;
+                targets[position] = values[index];
+                targetCosts[position] = costs[index];
+            }
+        }
+
+        private static int checkedIndex(long id) {
+            if (id > Integer.MAX_VALUE - 8) {
+                throw new RuntimeException("Id too large for landmarks " + id);
+            }
+            return (int) id;
+        }
+
+        int asIndex(long nodeId) {
+            return checkedIndex(nodeId);
+        }
+
+        /***
+         * Dijkstra from the source, along relationships if forward, against them otherwise
+         */
+        int[] shortestFrom(final int source, final boolean forward) {
+            final int[] offsets = forward ? forwardOffsets : reverseOffsets;
+            final int[] targets = forward ? forwardTargets : reverseTargets;
+            final int[] costs = forward ? forwardCosts : reverseCosts;
+
+            final int[] distances = new int[numberOfNodes];
+            Arrays.fill(distances, UNREACHABLE);
+            distances[source] = 0;
+
+            final MinHeap heap = new MinHeap();
+            heap.push(0, source);
+            while (!heap.isEmpty()) {
+                final long top = heap.pop();
+                final int distance = (int) (top >>> Integer.SIZE);
+                final int node = (int) top;
+                if (distance > distances[node]) {
+                    // stale entry
+                    continue;
+                }
+                for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                    final int target = targets[edge];
+                    final int viaNode = distance + costs[edge];
+                    if (viaNode < distances[target]) {
+                        distances[target] = viaNode;
+                        heap.push(viaNode, target);
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+
+    /***
+     * Binary heap of distance and node index packed into longs, ordered on distance
+     */
+    private static class MinHeap {
+        private long[] entries = new long[1024];
+        private int size = 0;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int distance, int node) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            final long entry = ((long) distance << Integer.SIZE) | node;
+            int index = size++;
+            while (index > 0) {
+                final int parent = (index - 1) / 2;
+                if (entries[parent] <= entry) {
+                    break;
+                }
+                entries[index] = entries[parent];
+                index = parent;
+            }
+            entries[index] = entry;
+        }
+
+        long pop() {
+            final long result = entries[0];
+            final long last = entries[--size];
+            int index = 0;
+            while (true) {
+                int child = (index * 2) + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && entries[child + 1] < entries[child]) {
+                    child++;
+                }
+                if (last <= entries[child]) {
+                    break;
+                }
+                entries[index] = entries[child];
+                index = child;
+            }
+            entries[index] = last;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.tramchester.graph.caches;
+
+import java.util.Arrays;
+
+/***
+ * Open addressing (linear probe) map from non-negative long keys, such as node ids, to ints. No boxing on put or get,
+ * and clear() keeps the allocated tables so instances can be reused between queries. Occupied slots are tracked so
+ * clear() only touches those, not the whole table.
+ * Not thread safe.
+ */
+public class LongToIntMap {
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private final int missing;
+
+    private long[] keys;
+    private int[] values;
+    private int[] usedSlots;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    /***
+     * @param expectedSize expected number of entries, table will grow if exceeded
+     * @param missing value returned by get when key not present
+     */
+    public LongToIntMap(int expectedSize, int missing) {
+        this.missing = missing;
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final long needed = (long) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR);
+        final long capacity = Long.highestOneBit(needed - 1) << 1;
+        if (capacity > (1 << 30)) {
+            throw new RuntimeException("Requested size too large " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+        usedSlots = new int[threshold + 1];
+        size = 0;
+    }
+
+    private static int hash(long key) {
+        // spread bits, node ids are sequential
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    public int get(final long key) {
+        int index = hash(key) & mask;
+        while (true) {
+            final long current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == EMPTY) {
+                return missing;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(final long key) {
+        int index = hash(key) & mask;
+        while (true) {
+            final long current = keys[index];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public void put(final long key, final int value) {
+        if (key < 0) {
+            throw new RuntimeException("Negative keys not supported, got " + key);
+        }
+        int index = hash(key) & mask;
+        while (true) {
+            final long current = keys[index];
+            if (current == key) {
+                values[index] = value;
+                return;
+            }
+            if (current == EMPTY) {
+                keys[index] = key;
+                values[index] = value;
+                usedSlots[size] = index;
+                if (++size > threshold) {
+                    grow();
+                }
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[usedSlots[i]] = EMPTY;
+        }
+        size = 0;
+    }
+}
@@ -6,6 +6,10 @@ import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+/***
+ * Lowest cost arrival seen so far for a journey request, shared by all of its path requests, including those searched
+ * in parallel. Values are only ever lowered, via compare and set.
+ */
 public class LowestCostSeen {
     private final AtomicReference<Duration> lowestCost;
     private final AtomicInteger lowestNumChanges;
@@ -22,7 +26,7 @@ public class LowestCostSeen {
     }
 
     public void setLowestCost(Duration duration) {
-        lowestCost.getAndSet(duration);
+        lowestCost.accumulateAndGet(duration, LowestCostSeen::lower);
     }
 
     public int getLowestNumChanges() {
@@ -45,8 +49,13 @@ public class LowestCostSeen {
 
     public void setLowestCost(ImmutableJourneyState journeyState) {
         arrived.incrementAndGet();
-        lowestNumChanges.getAndSet(journeyState.getNumberChanges());
-        setLowestCost(journeyState.getTotalDurationSoFar());
+        // only ever lowered, can be shared between searches running in parallel
+        lowestNumChanges.accumulateAndGet(journeyState.getNumberChanges(), Math::min);
+        lowestCost.accumulateAndGet(journeyState.getTotalDurationSoFar(), LowestCostSeen::lower);
+    }
+
+    private static Duration lower(Duration current, Duration update) {
+        return update.compareTo(current) < 0 ? update : current;
     }
 
     @Override
@@ -53,11 +53,6 @@ public class NodeContentsDirect implements NodeContentsRepository {
         return GraphProps.getCost(relationship);
     }
 
-    @Override
-    public void deleteFromCostCache(Relationship relationship) {
-        // no-op
-    }
-
     @Override
     public EnumSet<GraphLabel> getLabels(Node node) {
         final Set<GraphLabel> graphLabels = GraphLabel.from(node.getLabels());
@@ -25,7 +25,6 @@ public interface NodeContentsRepository  {
 
     IdFor<Trip> getTripId(Relationship relationship);
     Duration getCost(Relationship lastRelationship);
-    void deleteFromCostCache(Relationship relationship);
 
     EnumSet<GraphLabel> getLabels(Node node);
 
@@ -0,0 +1,374 @@
+package com.tramchester.graph.caches;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.caching.FileDataCache;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.databaseManagement.GraphDatabaseMetaInfo;
+import com.tramchester.graph.filters.GraphFilterActive;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import org.neo4j.graphdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.time.Duration;
+import java.util.*;
+
+import static java.lang.String.format;
+
+/***
+ * Snapshot of labels, times, hours and costs from the built graph held in dense arrays indexed by node or relationship id,
+ * so no property reads are needed during a traversal. Cached via FileDataCache, stamped with the build of the graph.
+ * Nodes and relationships not present in the snapshot, i.e. the virtual walks for a query, are read directly.
+ * Ids (service, trip, route station) are delegated to CachedNodeOperations.
+ */
+@LazySingleton
+public class NodeContentsSnapshot extends GraphBinaryCache implements NodeContentsRepository {
+    private static final Logger logger = LoggerFactory.getLogger(NodeContentsSnapshot.class);
+
+    private static final String FILENAME = "node_contents.bin";
+    private static final int MAGIC = 0x4e434e54; // NCNT
+    private static final int VERSION = 1;
+
+    private static final short NO_LABELS = -1;
+    private static final short NO_TIME = -1;
+    private static final byte NO_HOUR = -1;
+    private static final int NO_COST = -1;
+    private static final int MINS_IN_DAY = TramTime.HOURS_IN_DAY * TramTime.MINS_IN_HOUR;
+
+    private static final GraphLabel[] graphLabels = GraphLabel.values();
+
+    private final CachedNodeOperations idLookups;
+
+    // distinct sets of labels, nodes hold an index into these
+    private final Map<Long, Short> labelSetIndexes;
+    private final List<EnumSet<GraphLabel>> labelSets;
+    private final List<Long> labelSetMasks;
+
+    // indexed by node id
+    private short[] nodeLabelSets;
+    private short[] nodeTimes;
+    private byte[] nodeHours;
+    private int numberOfNodes;
+
+    // indexed by relationship id
+    private int[] relationshipCosts;
+    private int numberOfRelationships;
+
+    private Duration[] durations;
+
+    @Inject
+    public NodeContentsSnapshot(GraphDatabase graphDatabase, StagedTransportGraphBuilder.Ready ready, FileDataCache dataCache,
+                                GraphFilterActive graphFilter, GraphDatabaseMetaInfo databaseMetaInfo,
+                                CachedNodeOperations idLookups) {
+        super(graphDatabase, dataCache, graphFilter, databaseMetaInfo, FILENAME, MAGIC, VERSION);
+        this.idLookups = idLookups;
+
+        labelSetIndexes = new HashMap<>();
+        labelSets = new ArrayList<>();
+        labelSetMasks = new ArrayList<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+
+        reset();
+        loadOrCreate();
+        createDurations();
+
+        logger.info(format("started, %s nodes, %s relationships, %s label sets", numberOfNodes, numberOfRelationships,
+                labelSets.size()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        labelSetIndexes.clear();
+        labelSets.clear();
+        labelSetMasks.clear();
+        nodeLabelSets = null;
+        nodeTimes = null;
+        nodeHours = null;
+        relationshipCosts = null;
+        durations = null;
+        logger.info("stopped");
+    }
+
+    private void reset() {
+        labelSetIndexes.clear();
+        labelSets.clear();
+        labelSetMasks.clear();
+        nodeLabelSets = new short[0];
+        nodeTimes = new short[0];
+        nodeHours = new byte[0];
+        numberOfNodes = 0;
+        relationshipCosts = new int[0];
+        numberOfRelationships = 0;
+    }
+
+    @Override
+    protected void createFromGraph() {
+        // discard anything from a cache file found to be outdated
+        reset();
+        try (Transaction txn = graphDatabase.beginTx()) {
+            try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+                nodes.forEach(node -> {
+                    final EnumSet<GraphLabel> labels = GraphProps.getLabelsFor(node);
+                    final short time = labels.contains(GraphLabel.MINUTE) ? pack(GraphProps.getTime(node)) : NO_TIME;
+                    final byte hour = labels.contains(GraphLabel.HOUR) ? (byte) GraphLabel.getHourFrom(labels) : NO_HOUR;
+                    addNode(node.getId(), asMask(labels), time, hour);
+                });
+            }
+            try (ResourceIterable<Relationship> relationships = txn.getAllRelationships()) {
+                relationships.forEach(relationship -> {
+                    final TransportRelationshipTypes relationshipType = TransportRelationshipTypes.from(relationship);
+                    final int cost = TransportRelationshipTypes.hasCost(relationshipType) ?
+                            Math.toIntExact(GraphProps.getCost(relationship).toMinutes()) : 0;
+                    addRelationship(relationship.getId(), cost);
+                });
+            }
+        }
+    }
+
+    @Override
+    protected boolean matchesGraph() {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            final long nodesInGraph = count(txn, "MATCH (n) RETURN count(n) as count");
+            final long relationshipsInGraph = count(txn, "MATCH ()-[r]->() RETURN count(r) as count");
+            if (nodesInGraph != numberOfNodes || relationshipsInGraph != numberOfRelationships) {
+                logger.warn(format("Cached snapshot does not match graph, nodes %s (graph %s) relationships %s (graph %s), cache file %s is outdated",
+                        numberOfNodes, nodesInGraph, numberOfRelationships, relationshipsInGraph, FILENAME));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    protected void writeContents(final DataOutput output) throws IOException {
+        output.writeInt(labelSetMasks.size());
+        for (final long labelMask : labelSetMasks) {
+            output.writeLong(labelMask);
+        }
+
+        output.writeInt(numberOfNodes);
+        output.writeInt(nodeLabelSets.length);
+        for (int nodeId = 0; nodeId < nodeLabelSets.length; nodeId++) {
+            output.writeShort(nodeLabelSets[nodeId]);
+            output.writeShort(nodeTimes[nodeId]);
+            output.writeByte(nodeHours[nodeId]);
+        }
+
+        output.writeInt(numberOfRelationships);
+        output.writeInt(relationshipCosts.length);
+        for (int relationshipId = 0; relationshipId < relationshipCosts.length; relationshipId++) {
+            output.writeInt(relationshipCosts[relationshipId]);
+        }
+    }
+
+    @Override
+    protected void readContents(final MappedByteBuffer buffer) {
+        reset();
+
+        final int numberOfLabelSets = buffer.getInt();
+        for (int index = 0; index < numberOfLabelSets; index++) {
+            labelSetFor(buffer.getLong());
+        }
+
+        numberOfNodes = buffer.getInt();
+        final int nodesLength = buffer.getInt();
+        nodeLabelSets = new short[nodesLength];
+        nodeTimes = new short[nodesLength];
+        nodeHours = new byte[nodesLength];
+        for (int nodeId = 0; nodeId < nodesLength; nodeId++) {
+            nodeLabelSets[nodeId] = buffer.getShort();
+            nodeTimes[nodeId] = buffer.getShort();
+            nodeHours[nodeId] = buffer.get();
+        }
+
+        numberOfRelationships = buffer.getInt();
+        final int relationshipsLength = buffer.getInt();
+        relationshipCosts = new int[relationshipsLength];
+        for (int relationshipId = 0; relationshipId < relationshipsLength; relationshipId++) {
+            relationshipCosts[relationshipId] = buffer.getInt();
+        }
+    }
+
+    private void createDurations() {
+        int maxCost = 0;
+        for (int i = 0; i < relationshipCosts.length; i++) {
+            maxCost = Math.max(maxCost, relationshipCosts[i]);
+        }
+        durations = new Duration[maxCost + 1];
+        for (int minutes = 0; minutes <= maxCost; minutes++) {
+            durations[minutes] = Duration.ofMinutes(minutes);
+        }
+    }
+
+    private void addNode(final long nodeId, final long labelMask, final short time, final byte hour) {
+        final int index = asIndex(nodeId);
+        if (index >= nodeLabelSets.length) {
+            final int newSize = Math.max(index + 1, nodeLabelSets.length * 2);
+            final int oldSize = nodeLabelSets.length;
+            nodeLabelSets = Arrays.copyOf(nodeLabelSets, newSize);
+            nodeTimes = Arrays.copyOf(nodeTimes, newSize);
+            nodeHours = Arrays.copyOf(nodeHours, newSize);
+            Arrays.fill(nodeLabelSets, oldSize, newSize, NO_LABELS);
+            Arrays.fill(nodeTimes, oldSize, newSize, NO_TIME);
+            Arrays.fill(nodeHours, oldSize, newSize, NO_HOUR);
+        }
+        nodeLabelSets[index] = labelSetFor(labelMask);
+        nodeTimes[index] = time;
+        nodeHours[index] = hour;
+        numberOfNodes++;
+    }
+
+    private void addRelationship(final long relationshipId, final int cost) {
+        final int index = asIndex(relationshipId);
+        if (index >= relationshipCosts.length) {
+            final int newSize = Math.max(index + 1, relationshipCosts.length * 2);
+            final int oldSize = relationshipCosts.length;
+            relationshipCosts = Arrays.copyOf(relationshipCosts, newSize);
+            Arrays.fill(relationshipCosts, oldSize, newSize, NO_COST);
+        }
+        relationshipCosts[index] = cost;
+        numberOfRelationships++;
+    }
+
+    private int asIndex(long id) {
+        if (id > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("Id too large for snapshot " + id);
+        }
+        return (int) id;
+    }
+
+    private short labelSetFor(final long labelMask) {
+        final Short existing = labelSetIndexes.get(labelMask);
+        if (existing != null) {
+            return existing;
+        }
+        final short index = (short) labelSets.size();
+        labelSets.add(fromMask(labelMask));
+        labelSetMasks.add(labelMask);
+        labelSetIndexes.put(labelMask, index);
+        return index;
+    }
+
+    private static long asMask(EnumSet<GraphLabel> labels) {
+        long mask = 0L;
+        for (GraphLabel label : labels) {
+            mask = mask | (1L << label.ordinal());
+        }
+        return mask;
+    }
+
+    private static EnumSet<GraphLabel> fromMask(long mask) {
+        final EnumSet<GraphLabel> labels = EnumSet.noneOf(GraphLabel.class);
+        for (GraphLabel label : graphLabels) {
+            if ((mask & (1L << label.ordinal())) != 0) {
+                labels.add(label);
+            }
+        }
+        return labels;
+    }
+
+    private static short pack(TramTime time) {
+        final int minutes = (time.getHourOfDay() * TramTime.MINS_IN_HOUR) + time.getMinuteOfHour();
+        return (short) (time.isNextDay() ? minutes + MINS_IN_DAY : minutes);
+    }
+
+    private static TramTime unpack(short packed) {
+        final int withinDay = packed % MINS_IN_DAY;
+        final int hour = withinDay / TramTime.MINS_IN_HOUR;
+        final int minute = withinDay % TramTime.MINS_IN_HOUR;
+        return packed >= MINS_IN_DAY ? TramTime.nextDay(hour, minute) : TramTime.of(hour, minute);
+    }
+
+    private boolean inSnapshot(final long nodeId) {
+        // query walks use negative ids
+        return nodeId >= 0 && nodeId < nodeLabelSets.length && nodeLabelSets[(int) nodeId] != NO_LABELS;
+    }
+
+    @Override
+    public EnumSet<GraphLabel> getLabels(final Node node) {
+        final long nodeId = node.getId();
+        if (inSnapshot(nodeId)) {
+            return labelSets.get(nodeLabelSets[(int) nodeId]);
+        }
+        return GraphProps.getLabelsFor(node);
+    }
+
+    @Override
+    public TramTime getTime(final Node node) {
+        final long nodeId = node.getId();
+        if (inSnapshot(nodeId)) {
+            final short packed = nodeTimes[(int) nodeId];
+            if (packed != NO_TIME) {
+                return unpack(packed);
+            }
+        }
+        return GraphProps.getTime(node);
+    }
+
+    @Override
+    public int getHour(final Node node) {
+        final long nodeId = node.getId();
+        if (inSnapshot(nodeId)) {
+            final byte hour = nodeHours[(int) nodeId];
+            if (hour != NO_HOUR) {
+                return hour;
+            }
+        }
+        return GraphLabel.getHourFrom(getLabels(node));
+    }
+
+    @Override
+    public Duration getCost(final Relationship relationship) {
+        final TransportRelationshipTypes relationshipType = TransportRelationshipTypes.from(relationship);
+        if (!TransportRelationshipTypes.hasCost(relationshipType)) {
+            return Duration.ZERO;
+        }
+        final long relationshipId = relationship.getId();
+        if (relationshipId >= 0 && relationshipId < relationshipCosts.length) {
+            final int cost = relationshipCosts[(int) relationshipId];
+            if (cost != NO_COST) {
+                return durations[cost];
+            }
+        }
+        return GraphProps.getCost(relationship);
+    }
+
+    @Override
+    public IdFor<RouteStation> getRouteStationId(Node node) {
+        return idLookups.getRouteStationId(node);
+    }
+
+    @Override
+    public IdFor<Service> getServiceId(Node node) {
+        return idLookups.getServiceId(node);
+    }
+
+    @Override
+    public IdFor<Trip> getTripId(Node node) {
+        return idLookups.getTripId(node);
+    }
+
+    @Override
+    public IdFor<Trip> getTripId(Relationship relationship) {
+        return idLookups.getTripId(relationship);
+    }
+}
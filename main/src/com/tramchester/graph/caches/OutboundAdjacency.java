@@ -0,0 +1,324 @@
+package com.tramchester.graph.caches;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.caching.FileDataCache;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.databaseManagement.GraphDatabaseMetaInfo;
+import com.tramchester.graph.filters.GraphFilterActive;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import org.neo4j.graphdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.NoSuchElementException;
+
+import static java.lang.String.format;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+/***
+ * Outgoing relationships of every node in the graph in compressed sparse row form: the relationship ids, end node ids
+ * and types of a node are held contiguously, indexed via node id. Lets a traversal filter on type and end node
+ * using primitives, only creating a Relationship for those that pass. Created from the graph once built, cached via
+ * FileDataCache. See config outboundAdjacency.
+ */
+@LazySingleton
+public class OutboundAdjacency extends GraphBinaryCache {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundAdjacency.class);
+
+    private static final String FILENAME = "outbound_adjacency.bin";
+    private static final int MAGIC = 0x4f424e44; // OBND
+    private static final int VERSION = 2;
+    private static final long NO_NODE = -1L;
+
+    private static final TransportRelationshipTypes[] relationshipTypes = TransportRelationshipTypes.values();
+
+    private final boolean enabled;
+
+    // indexed by node id, entries for a node are from offsets[id] to offsets[id+1]
+    private int[] offsets;
+    private int numberOfNodes;
+
+    // indexed by entry
+    private long[] relationshipIds;
+    private long[] endNodeIds;
+    private byte[] types;
+    private int numberOfEntries;
+
+    @Inject
+    public OutboundAdjacency(GraphDatabase graphDatabase, StagedTransportGraphBuilder.Ready ready, FileDataCache dataCache,
+                             GraphFilterActive graphFilter, GraphDatabaseMetaInfo databaseMetaInfo, TramchesterConfig config) {
+        super(graphDatabase, dataCache, graphFilter, databaseMetaInfo, FILENAME, MAGIC, VERSION);
+        this.enabled = config.getOutboundAdjacency();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        if (!enabled) {
+            logger.info("Disabled");
+            return;
+        }
+
+        if (relationshipTypes.length > Long.SIZE) {
+            throw new RuntimeException("Too many relationship types for mask " + relationshipTypes.length);
+        }
+
+        loadOrCreate();
+
+        logger.info(format("started, %s nodes, %s relationships", numberOfNodes, numberOfEntries));
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        offsets = null;
+        relationshipIds = null;
+        endNodeIds = null;
+        types = null;
+        logger.info("stopped");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /***
+     * Bind to the transaction for a search so relationships can be created from their ids
+     * @param txn transaction for the search
+     * @return the bound adjacency, or an empty one if disabled
+     */
+    public Bound bindTo(Transaction txn) {
+        if (!enabled) {
+            return Bound.empty();
+        }
+        return new Bound(this, txn);
+    }
+
+    public static long maskFor(TransportRelationshipTypes... relationshipTypes) {
+        long mask = 0L;
+        for (TransportRelationshipTypes relationshipType : relationshipTypes) {
+            mask = mask | (1L << relationshipType.ordinal());
+        }
+        return mask;
+    }
+
+    @Override
+    protected void createFromGraph() {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            // first pass for the number outgoing per node
+            long maxNodeId = -1;
+            long total = 0;
+            try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+                for (Node node : nodes) {
+                    maxNodeId = Math.max(maxNodeId, node.getId());
+                    total = total + node.getDegree(OUTGOING);
+                }
+            }
+
+            numberOfNodes = asIndex(maxNodeId + 1);
+            numberOfEntries = Math.toIntExact(total);
+            offsets = new int[numberOfNodes + 1];
+
+            try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+                for (Node node : nodes) {
+                    offsets[asIndex(node.getId()) + 1] = node.getDegree(OUTGOING);
+                }
+            }
+            for (int index = 0; index < numberOfNodes; index++) {
+                offsets[index + 1] = offsets[index + 1] + offsets[index];
+            }
+
+            relationshipIds = new long[numberOfEntries];
+            endNodeIds = new long[numberOfEntries];
+            types = new byte[numberOfEntries];
+
+            // second pass to fill in, keeps the order the graph returns for each node
+            try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+                for (Node node : nodes) {
+                    int position = offsets[asIndex(node.getId())];
+                    try (ResourceIterable<Relationship> outgoing = node.getRelationships(OUTGOING)) {
+                        for (Relationship relationship : outgoing) {
+                            relationshipIds[position] = relationship.getId();
+                            endNodeIds[position] = relationship.getEndNode().getId();
+                            types[position] = (byte) TransportRelationshipTypes.from(relationship).ordinal();
+                            position++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean matchesGraph() {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            final long inGraph = count(txn, "MATCH ()-[r]->() RETURN count(r) as count");
+            if (inGraph != numberOfEntries) {
+                logger.warn(format("Cached adjacency does not match graph, relationships %s (graph %s), cache file %s is outdated",
+                        numberOfEntries, inGraph, FILENAME));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private int asIndex(long id) {
+        if (id > Integer.MAX_VALUE - 8) {
+            throw new RuntimeException("Id too large for adjacency " + id);
+        }
+        return (int) id;
+    }
+
+    private boolean contains(final long nodeId) {
+        // query walks use negative ids
+        return nodeId >= 0 && nodeId < numberOfNodes;
+    }
+
+    @Override
+    protected void writeContents(final DataOutput output) throws IOException {
+        output.writeInt(numberOfNodes);
+        output.writeInt(numberOfEntries);
+
+        for (int index = 0; index <= numberOfNodes; index++) {
+            output.writeInt(offsets[index]);
+        }
+        for (int index = 0; index < numberOfEntries; index++) {
+            output.writeLong(relationshipIds[index]);
+            output.writeLong(endNodeIds[index]);
+            output.writeByte(types[index]);
+        }
+    }
+
+    @Override
+    protected void readContents(final MappedByteBuffer buffer) {
+        numberOfNodes = buffer.getInt();
+        numberOfEntries = buffer.getInt();
+
+        offsets = new int[numberOfNodes + 1];
+        for (int index = 0; index <= numberOfNodes; index++) {
+            offsets[index] = buffer.getInt();
+        }
+
+        relationshipIds = new long[numberOfEntries];
+        endNodeIds = new long[numberOfEntries];
+        types = new byte[numberOfEntries];
+        for (int index = 0; index < numberOfEntries; index++) {
+            relationshipIds[index] = buffer.getLong();
+            endNodeIds[index] = buffer.getLong();
+            types[index] = buffer.get();
+        }
+    }
+
+    /***
+     * The adjacency bound to the transaction of a single search
+     */
+    public static class Bound {
+        private static final Bound EMPTY = new Bound(null, null);
+
+        private final OutboundAdjacency adjacency;
+        private final Transaction txn;
+
+        private Bound(OutboundAdjacency adjacency, Transaction txn) {
+            this.adjacency = adjacency;
+            this.txn = txn;
+        }
+
+        public static Bound empty() {
+            return EMPTY;
+        }
+
+        public boolean contains(final Node node) {
+            return adjacency != null && adjacency.contains(node.getId());
+        }
+
+        /***
+         * @param node a node in the adjacency, see contains
+         * @param typeMask the relationship types to include, see maskFor
+         * @return outgoing relationships of the given types, created as iterated
+         */
+        public ResourceIterable<Relationship> getOutbound(final Node node, final long typeMask) {
+            return getOutbound(node, typeMask, NO_NODE);
+        }
+
+        /***
+         * @param node a node in the adjacency, see contains
+         * @param typeMask the relationship types to include, see maskFor
+         * @param excludedEndNodeId leave out relationships ending at this node
+         * @return outgoing relationships of the given types, created as iterated
+         */
+        public ResourceIterable<Relationship> getOutbound(final Node node, final long typeMask, final long excludedEndNodeId) {
+            final int index = adjacency.asIndex(node.getId());
+            return new Outbound(adjacency, txn, adjacency.offsets[index], adjacency.offsets[index + 1], typeMask, excludedEndNodeId);
+        }
+    }
+
+    private static class Outbound implements ResourceIterable<Relationship> {
+        private final OutboundAdjacency adjacency;
+        private final Transaction txn;
+        private final int begin;
+        private final int end;
+        private final long typeMask;
+        private final long excludedEndNodeId;
+
+        private Outbound(OutboundAdjacency adjacency, Transaction txn, int begin, int end, long typeMask, long excludedEndNodeId) {
+            this.adjacency = adjacency;
+            this.txn = txn;
+            this.begin = begin;
+            this.end = end;
+            this.typeMask = typeMask;
+            this.excludedEndNodeId = excludedEndNodeId;
+        }
+
+        @Override
+        public ResourceIterator<Relationship> iterator() {
+            return new ResourceIterator<>() {
+                private int position = findNext(begin);
+
+                @Override
+                public boolean hasNext() {
+                    return position < end;
+                }
+
+                @Override
+                public Relationship next() {
+                    if (position >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    final Relationship relationship = txn.getRelationshipById(adjacency.relationshipIds[position]);
+                    position = findNext(position + 1);
+                    return relationship;
+                }
+
+                @Override
+                public void close() {
+                    // noop
+                }
+            };
+        }
+
+        private int findNext(final int from) {
+            int index = from;
+            while (index < end && !matches(index)) {
+                index++;
+            }
+            return index;
+        }
+
+        private boolean matches(final int index) {
+            return ((typeMask >>> adjacency.types[index]) & 1L) != 0 && adjacency.endNodeIds[index] != excludedEndNodeId;
+        }
+
+        @Override
+        public void close() {
+            // noop
+        }
+    }
+}
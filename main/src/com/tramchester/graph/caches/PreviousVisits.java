@@ -1,7 +1,5 @@
 package com.tramchester.graph.caches;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.graphbuild.GraphLabel;
@@ -9,7 +7,6 @@ import com.tramchester.graph.search.ImmutableJourneyState;
 import com.tramchester.graph.search.diagnostics.ReasonCode;
 import com.tramchester.repository.ReportsCacheStats;
 import org.apache.commons.lang3.tuple.Pair;
-import org.jetbrains.annotations.NotNull;
 import org.neo4j.graphdb.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,33 +14,47 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import static com.tramchester.graph.search.diagnostics.ReasonCode.*;
 
+/***
+ * Results of previous visits to nodes during a single query, keyed on node id using primitive maps to avoid boxing
+ * in the evaluator. Obtain via PreviousVisitsPool, instances are reset and reused between queries.
+ * Not thread safe.
+ */
 public class PreviousVisits implements ReportsCacheStats {
     private static final Logger logger = LoggerFactory.getLogger(PreviousVisits.class);
 
-    private static final int CACHE_DURATION_MINS = 5;
-
-    private final Cache<Long, ReasonCode> timeNodePrevious;
-    private final Cache<Key<TramTime>, ReasonCode> hourNodePrevious;
-    private final Cache<Long, ReasonCode> routeStationPrevious;
-    private final Cache<Long, ReasonCode> servicePrevious;
-    private final Cache<Long, Integer> lowestNumberOfChanges;
-
-    public PreviousVisits() {
-        timeNodePrevious = createCache(100000);
-        hourNodePrevious = createCache(400000);
-        routeStationPrevious = createCache(40000);
-        servicePrevious = createCache(30000);
-        lowestNumberOfChanges = createCache(20000);
+    private static final int NOT_PRESENT = -1;
+    private static final int TIME_BITS = 12; // enough for minutes in two days
+    private static final ReasonCode[] reasonCodes = ReasonCode.values();
+
+    private final Visits timeNodePrevious;
+    private final Visits hourNodePrevious;
+    private final Visits routeStationPrevious;
+    private final Visits servicePrevious;
+    private final Visits lowestNumberOfChanges;
+
+    /***
+     * Sizes are the initial number of entries for each kind of node, tables grow as needed during a query
+     */
+    public PreviousVisits(int timeNodes, int hourNodes, int routeStationNodes, int serviceNodes) {
+        timeNodePrevious = new Visits("timeNodePrevious", timeNodes);
+        hourNodePrevious = new Visits("hourNodePrevious", hourNodes);
+        routeStationPrevious = new Visits("routeStationPrevious", routeStationNodes);
+        servicePrevious = new Visits("servicePrevious", serviceNodes);
+        lowestNumberOfChanges = new Visits("lowestNumberOfChanges", routeStationNodes);
     }
 
-    @NotNull
-    private <KEY, VALUE> Cache<KEY, VALUE> createCache(long maxCacheSize) {
-        return Caffeine.newBuilder().maximumSize(maxCacheSize).expireAfterAccess(CACHE_DURATION_MINS, TimeUnit.MINUTES).
-                recordStats().build();
+    /***
+     * Clear all previous results, keeps allocated storage, cost is the number of entries added since the last reset
+     */
+    public void reset() {
+        timeNodePrevious.reset();
+        hourNodePrevious.reset();
+        routeStationPrevious.reset();
+        servicePrevious.reset();
+        lowestNumberOfChanges.reset();
     }
 
     public void recordVisitIfUseful(ReasonCode result, Node node, ImmutableJourneyState journeyState, EnumSet<GraphLabel> labels) {
@@ -53,8 +64,8 @@ public class PreviousVisits implements ReportsCacheStats {
             TramTime journeyClock = journeyState.getJourneyClock();
 
             switch (result) {
-                case DoesNotOperateOnTime -> timeNodePrevious.put(node.getId(), result);
-                case NotAtHour -> hourNodePrevious.put(new Key<>(node, journeyClock), result);
+                case DoesNotOperateOnTime -> timeNodePrevious.put(node.getId(), result.ordinal());
+                case NotAtHour -> hourNodePrevious.put(hourKey(node.getId(), journeyClock), result.ordinal());
             }
             return;
         }
@@ -70,7 +81,7 @@ public class PreviousVisits implements ReportsCacheStats {
                 TramTime journeyClock = journeyState.getJourneyClock();
                 boolean isNextDay = journeyClock.isNextDay();
                 if (!isNextDay) {
-                    servicePrevious.put(node.getId(), result);
+                    servicePrevious.put(node.getId(), result.ordinal());
                 }
             }
         }
@@ -79,28 +90,24 @@ public class PreviousVisits implements ReportsCacheStats {
     private void recordRouteStationVisitIfUseful(final ReasonCode result, final long nodeId, final ImmutableJourneyState journeyState) {
         if (result == TooManyRouteChangesRequired) {
             // based on a route->route changes count only, invariant on current state of a journey
-            routeStationPrevious.put(nodeId, result);
+            routeStationPrevious.put(nodeId, result.ordinal());
         }
         if (result == RouteNotOnQueryDate) {
             // the route is unavailable for the query date
             TramTime journeyClock = journeyState.getJourneyClock();
             final boolean isNextDay = journeyClock.isNextDay();
             if (!isNextDay) {
-                routeStationPrevious.put(nodeId, result);
+                routeStationPrevious.put(nodeId, result.ordinal());
             }
         }
         if (result == TooManyInterchangesRequired) {
             // too many changes, record lowest number of changes on journey that gave this result
-            routeStationPrevious.put(nodeId, result);
+            routeStationPrevious.put(nodeId, result.ordinal());
 
             final int numberChanges = journeyState.getNumberChanges();
-            final Integer currentLowest = lowestNumberOfChanges.getIfPresent(nodeId);
-            if (currentLowest==null) {
+            final int currentLowest = lowestNumberOfChanges.get(nodeId);
+            if (currentLowest==NOT_PRESENT || numberChanges < currentLowest) {
                 lowestNumberOfChanges.put(nodeId, numberChanges);
-            } else {
-                if (numberChanges < currentLowest) {
-                    lowestNumberOfChanges.put(nodeId, numberChanges);
-                }
             }
         }
     }
@@ -109,51 +116,60 @@ public class PreviousVisits implements ReportsCacheStats {
 
         if (labels.contains(GraphLabel.MINUTE)) {
             // time node has by definition a unique time
-            final ReasonCode timeFound = timeNodePrevious.getIfPresent(node.getId());
-            if (timeFound != null) {
-                return timeFound;
+            final int timeFound = timeNodePrevious.get(node.getId());
+            if (timeFound != NOT_PRESENT) {
+                return reasonCodes[timeFound];
             }
         }
 
         if (labels.contains(GraphLabel.HOUR)) {
-            final ReasonCode hourFound = hourNodePrevious.getIfPresent(new Key<>(node, journeyState.getJourneyClock()));
-            if (hourFound != null) {
-                return hourFound;
+            final int hourFound = hourNodePrevious.get(hourKey(node.getId(), journeyState.getJourneyClock()));
+            if (hourFound != NOT_PRESENT) {
+                return reasonCodes[hourFound];
             }
         }
 
         if (labels.contains(GraphLabel.ROUTE_STATION)) {
-            final ReasonCode found = routeStationPrevious.getIfPresent(node.getId());
-            if (found != null) {
-                if (found == TooManyInterchangesRequired) {
-                    final Integer currentLowest = lowestNumberOfChanges.getIfPresent(node.getId());
-                    if (currentLowest!=null && journeyState.getNumberChanges()>=currentLowest) {
-                        return found;
+            final int found = routeStationPrevious.get(node.getId());
+            if (found != NOT_PRESENT) {
+                final ReasonCode reasonCode = reasonCodes[found];
+                if (reasonCode == TooManyInterchangesRequired) {
+                    final int currentLowest = lowestNumberOfChanges.get(node.getId());
+                    if (currentLowest!=NOT_PRESENT && journeyState.getNumberChanges()>=currentLowest) {
+                        return reasonCode;
                     }
                 } else {
-                    return found;
+                    return reasonCode;
                 }
             }
         }
 
         if (labels.contains(GraphLabel.SERVICE)) {
-            final ReasonCode found = servicePrevious.getIfPresent(node.getId());
-            if (found != null) {
-                return found;
+            final int found = servicePrevious.get(node.getId());
+            if (found != NOT_PRESENT) {
+                return reasonCodes[found];
             }
         }
 
         return ReasonCode.PreviousCacheMiss;
     }
 
+    private static long hourKey(final long nodeId, final TramTime journeyClock) {
+        int minutes = (journeyClock.getHourOfDay() * 60) + journeyClock.getMinuteOfHour();
+        if (journeyClock.isNextDay()) {
+            minutes = minutes + (TramTime.HOURS_IN_DAY * 60);
+        }
+        return (nodeId << TIME_BITS) | minutes;
+    }
+
     @Override
     public List<Pair<String, CacheStats>> stats() {
         List<Pair<String, CacheStats>> results = new ArrayList<>();
-        results.add(Pair.of("timeNodePrevious", timeNodePrevious.stats()));
-        results.add(Pair.of("hourNodePrevious", hourNodePrevious.stats()));
-        results.add(Pair.of("routeStationPrevious", routeStationPrevious.stats()));
-        results.add(Pair.of("servicePrevious", servicePrevious.stats()));
-        results.add(Pair.of("lowestNumberOfChanges", lowestNumberOfChanges.stats()));
+        results.add(timeNodePrevious.stats());
+        results.add(hourNodePrevious.stats());
+        results.add(routeStationPrevious.stats());
+        results.add(servicePrevious.stats());
+        results.add(lowestNumberOfChanges.stats());
 
         return results;
     }
@@ -162,32 +178,39 @@ public class PreviousVisits implements ReportsCacheStats {
         stats().forEach(pair -> logger.info("Cache stats for " + pair.getLeft() + " " + pair.getRight().toString()));
     }
 
-    private static class Key<T> {
-
-        private final long nodeId;
-        private final T other;
+    private static class Visits {
+        private final String name;
+        private final LongToIntMap map;
+        private long hits;
+        private long misses;
 
-        public Key(Node node, T other) {
-            this.nodeId = node.getId();
-            this.other = other;
+        private Visits(String name, int expectedSize) {
+            this.name = name;
+            this.map = new LongToIntMap(expectedSize, NOT_PRESENT);
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
+        private int get(final long key) {
+            final int value = map.get(key);
+            if (value == NOT_PRESENT) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return value;
+        }
 
-            Key<?> key = (Key<?>) o;
+        private void put(final long key, final int value) {
+            map.put(key, value);
+        }
 
-            if (nodeId != key.nodeId) return false;
-            return other.equals(key.other);
+        private void reset() {
+            map.clear();
+            hits = 0;
+            misses = 0;
         }
 
-        @Override
-        public int hashCode() {
-            int result = (int) (nodeId ^ (nodeId >>> 32));
-            result = 31 * result + other.hashCode();
-            return result;
+        private Pair<String, CacheStats> stats() {
+            return Pair.of(name, CacheStats.of(hits, misses, 0, 0, 0, 0, 0));
         }
     }
 
@@ -0,0 +1,93 @@
+package com.tramchester.graph.caches;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.graph.NumberOfNodesAndRelationshipsRepository;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Pool of PreviousVisits, avoids allocating per query. Tables start small, capped by the number of nodes in the
+ * graph, and grow with the nodes a query touches. Never waits, a new instance is created when none are available,
+ * only the number kept for reuse is bounded. Concurrency is limited by JourneySearchAdmission.
+ */
+@LazySingleton
+public class PreviousVisitsPool {
+    private static final Logger logger = LoggerFactory.getLogger(PreviousVisitsPool.class);
+
+    // upper limit on number of idle instances retained
+    private static final int MAX_POOLED = 16;
+    // initial entries per table, most queries only touch a small part of the graph
+    private static final int INITIAL_ENTRIES = 1024;
+
+    private final NumberOfNodesAndRelationshipsRepository numberOfNodes;
+    private final ConcurrentLinkedQueue<PreviousVisits> available;
+    private final AtomicInteger created;
+
+    private int timeNodes;
+    private int hourNodes;
+    private int routeStationNodes;
+    private int serviceNodes;
+
+    @Inject
+    public PreviousVisitsPool(NumberOfNodesAndRelationshipsRepository numberOfNodes) {
+        this.numberOfNodes = numberOfNodes;
+        available = new ConcurrentLinkedQueue<>();
+        created = new AtomicInteger(0);
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        timeNodes = sizeFor(GraphLabel.MINUTE);
+        hourNodes = sizeFor(GraphLabel.HOUR);
+        routeStationNodes = sizeFor(GraphLabel.ROUTE_STATION);
+        serviceNodes = sizeFor(GraphLabel.SERVICE);
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping, created " + created.get());
+        available.clear();
+        logger.info("stopped");
+    }
+
+    private int sizeFor(GraphLabel label) {
+        return Math.toIntExact(Math.min(numberOfNodes.numberOf(label), INITIAL_ENTRIES));
+    }
+
+    /***
+     * @return instance for one search, must be passed to release once the search is finished
+     */
+    public PreviousVisits acquire() {
+        final PreviousVisits pooled = available.poll();
+        if (pooled != null) {
+            return pooled;
+        }
+        created.incrementAndGet();
+        return new PreviousVisits(timeNodes, hourNodes, routeStationNodes, serviceNodes);
+    }
+
+    public void release(PreviousVisits previousVisits) {
+        previousVisits.reset();
+        if (available.size() < MAX_POOLED) {
+            available.offer(previousVisits);
+        }
+    }
+
+    public int getNumberAvailable() {
+        return available.size();
+    }
+
+    public int getNumberCreated() {
+        return created.get();
+    }
+
+}
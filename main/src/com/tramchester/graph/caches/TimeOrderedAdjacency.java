@@ -0,0 +1,327 @@
+package com.tramchester.graph.caches;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.caching.FileDataCache;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.databaseManagement.GraphDatabaseMetaInfo;
+import com.tramchester.graph.filters.GraphFilterActive;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import org.neo4j.graphdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.tramchester.graph.TransportRelationshipTypes.TO_HOUR;
+import static com.tramchester.graph.TransportRelationshipTypes.TO_MINUTE;
+import static java.lang.String.format;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+/***
+ * Outgoing TO_HOUR relationships of each service node in hour order, and outgoing TO_MINUTE relationships of each hour
+ * node in time order, held as one compact adjacency list keyed by node id. Lets the traversal skip straight to the
+ * first departure at or after the journey clock instead of sorting and filtering on every expansion.
+ * Created from the graph once built, cached via FileDataCache. See config timeOrderedAdjacency.
+ */
+@LazySingleton
+public class TimeOrderedAdjacency extends GraphBinaryCache {
+    private static final Logger logger = LoggerFactory.getLogger(TimeOrderedAdjacency.class);
+
+    private static final String FILENAME = "time_ordered_adjacency.bin";
+    private static final int MAGIC = 0x544f4144; // TOAD
+    private static final int VERSION = 2;
+    private static final int NO_SLOT = -1;
+    private static final int MINS_IN_DAY = TramTime.HOURS_IN_DAY * TramTime.MINS_IN_HOUR;
+
+    private final boolean enabled;
+
+    // node id -> slot, entries for a slot are from offsets[slot] to offsets[slot+1]
+    private LongToIntMap slots;
+    private long[] slotNodeIds;
+    private int[] offsets;
+    private long[] relationshipIds;
+    // hour for a service node's entries, packed time of the minute node for an hour node's entries
+    private short[] keys;
+    private int numberOfSlots;
+    private int numberOfEntries;
+
+    @Inject
+    public TimeOrderedAdjacency(GraphDatabase graphDatabase, StagedTransportGraphBuilder.Ready ready, FileDataCache dataCache,
+                                GraphFilterActive graphFilter, GraphDatabaseMetaInfo databaseMetaInfo, TramchesterConfig config) {
+        super(graphDatabase, dataCache, graphFilter, databaseMetaInfo, FILENAME, MAGIC, VERSION);
+        this.enabled = config.getTimeOrderedAdjacency();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        if (!enabled) {
+            logger.info("Disabled");
+            return;
+        }
+
+        loadOrCreate();
+
+        logger.info(format("started, %s nodes, %s relationships", numberOfSlots, numberOfEntries));
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        slots = null;
+        slotNodeIds = null;
+        offsets = null;
+        relationshipIds = null;
+        keys = null;
+        logger.info("stopped");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /***
+     * Bind to the transaction for a search so relationships can be looked up by id
+     * @param txn transaction for the search
+     * @param maxWaitMinutes longest wait considered at a minute node, later departures are not returned
+     * @return the bound adjacency, or an empty one if disabled
+     */
+    public Bound bindTo(Transaction txn, int maxWaitMinutes) {
+        if (!enabled) {
+            return Bound.empty();
+        }
+        return new Bound(this, txn, maxWaitMinutes);
+    }
+
+    @Override
+    protected void createFromGraph() {
+        final Builder builder = new Builder();
+        try (Transaction txn = graphDatabase.beginTx()) {
+            try (ResourceIterator<Node> serviceNodes = txn.findNodes(GraphLabel.SERVICE)) {
+                serviceNodes.forEachRemaining(node -> builder.add(node, TO_HOUR,
+                        endNode -> GraphLabel.getHourFrom(GraphProps.getLabelsFor(endNode))));
+            }
+            try (ResourceIterator<Node> hourNodes = txn.findNodes(GraphLabel.HOUR)) {
+                hourNodes.forEachRemaining(node -> builder.add(node, TO_MINUTE,
+                        endNode -> pack(GraphProps.getTime(endNode))));
+            }
+        }
+        builder.finish();
+    }
+
+    @Override
+    protected boolean matchesGraph() {
+        try (Transaction txn = graphDatabase.beginTx()) {
+            final long inGraph = count(txn, "MATCH ()-[r:TO_HOUR]->() RETURN count(r) as count") +
+                    count(txn, "MATCH ()-[r:TO_MINUTE]->() RETURN count(r) as count");
+            if (inGraph != numberOfEntries) {
+                logger.warn(format("Cached adjacency does not match graph, relationships %s (graph %s), cache file %s is outdated",
+                        numberOfEntries, inGraph, FILENAME));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static short pack(final TramTime time) {
+        final int minutes = (time.getHourOfDay() * TramTime.MINS_IN_HOUR) + time.getMinuteOfHour();
+        return (short) (time.isNextDay() ? minutes + MINS_IN_DAY : minutes);
+    }
+
+    private int slotFor(final long nodeId) {
+        // query walks use negative ids
+        if (nodeId < 0) {
+            return NO_SLOT;
+        }
+        return slots.get(nodeId);
+    }
+
+    /***
+     * @return index of first entry in slot with key at or after the given key, end of slot if none
+     */
+    private int firstAtOrAfter(final int slot, final int key) {
+        int low = offsets[slot];
+        int high = offsets[slot + 1];
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    protected void writeContents(final DataOutput output) throws IOException {
+        output.writeInt(numberOfSlots);
+        output.writeInt(numberOfEntries);
+
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            output.writeLong(slotNodeIds[slot]);
+            output.writeInt(offsets[slot + 1]);
+        }
+        for (int index = 0; index < numberOfEntries; index++) {
+            output.writeLong(relationshipIds[index]);
+            output.writeShort(keys[index]);
+        }
+    }
+
+    @Override
+    protected void readContents(final MappedByteBuffer buffer) {
+        numberOfSlots = buffer.getInt();
+        numberOfEntries = buffer.getInt();
+
+        slots = new LongToIntMap(numberOfSlots, NO_SLOT);
+        slotNodeIds = new long[numberOfSlots];
+        offsets = new int[numberOfSlots + 1];
+        for (int slot = 0; slot < numberOfSlots; slot++) {
+            slotNodeIds[slot] = buffer.getLong();
+            slots.put(slotNodeIds[slot], slot);
+            offsets[slot + 1] = buffer.getInt();
+        }
+
+        relationshipIds = new long[numberOfEntries];
+        keys = new short[numberOfEntries];
+        for (int index = 0; index < numberOfEntries; index++) {
+            relationshipIds[index] = buffer.getLong();
+            keys[index] = buffer.getShort();
+        }
+    }
+
+    /***
+     * Collects relationships per node, sorted by key, into the compact arrays
+     */
+    private class Builder {
+        private final List<Long> nodeIds;
+        private final List<long[]> idsPerNode;
+        private final List<short[]> keysPerNode;
+        private int total;
+
+        private Builder() {
+            nodeIds = new ArrayList<>();
+            idsPerNode = new ArrayList<>();
+            keysPerNode = new ArrayList<>();
+            total = 0;
+        }
+
+        private void add(final Node node, final RelationshipType relationshipType, final ToIntFunction<Node> keyForEndNode) {
+            final List<Relationship> relationships = new ArrayList<>();
+            node.getRelationships(OUTGOING, relationshipType).forEach(relationships::add);
+
+            final int size = relationships.size();
+            final int[] unsortedKeys = relationships.stream().mapToInt(relationship -> keyForEndNode.applyAsInt(relationship.getEndNode())).toArray();
+            final int[] order = IntStream.range(0, size).boxed().
+                    sorted(Comparator.comparingInt(index -> unsortedKeys[index])).
+                    mapToInt(Integer::intValue).toArray();
+
+            final long[] ids = new long[size];
+            final short[] sortedKeys = new short[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = relationships.get(order[i]).getId();
+                sortedKeys[i] = (short) unsortedKeys[order[i]];
+            }
+
+            nodeIds.add(node.getId());
+            idsPerNode.add(ids);
+            keysPerNode.add(sortedKeys);
+            total = total + size;
+        }
+
+        private void finish() {
+            numberOfSlots = nodeIds.size();
+            numberOfEntries = total;
+
+            slots = new LongToIntMap(numberOfSlots, NO_SLOT);
+            slotNodeIds = new long[numberOfSlots];
+            offsets = new int[numberOfSlots + 1];
+            relationshipIds = new long[numberOfEntries];
+            keys = new short[numberOfEntries];
+
+            int position = 0;
+            for (int slot = 0; slot < numberOfSlots; slot++) {
+                slotNodeIds[slot] = nodeIds.get(slot);
+                slots.put(slotNodeIds[slot], slot);
+                final long[] ids = idsPerNode.get(slot);
+                System.arraycopy(ids, 0, relationshipIds, position, ids.length);
+                System.arraycopy(keysPerNode.get(slot), 0, keys, position, ids.length);
+                position = position + ids.length;
+                offsets[slot + 1] = position;
+            }
+        }
+    }
+
+    /***
+     * The adjacency bound to the transaction and wait limit of a single search
+     */
+    public static class Bound {
+        private static final Bound EMPTY = new Bound(null, null, 0);
+
+        private final TimeOrderedAdjacency adjacency;
+        private final Transaction txn;
+        private final int maxWaitMinutes;
+
+        private Bound(TimeOrderedAdjacency adjacency, Transaction txn, int maxWaitMinutes) {
+            this.adjacency = adjacency;
+            this.txn = txn;
+            this.maxWaitMinutes = maxWaitMinutes;
+        }
+
+        public static Bound empty() {
+            return EMPTY;
+        }
+
+        public boolean hasOrderFor(final Node node) {
+            return adjacency != null && adjacency.slotFor(node.getId()) != NO_SLOT;
+        }
+
+        /***
+         * @param serviceNode a service node, see hasOrderFor
+         * @return the TO_HOUR relationships ordered by hour
+         */
+        public Stream<Relationship> getHoursInOrder(final Node serviceNode) {
+            final int slot = adjacency.slotFor(serviceNode.getId());
+            return relationshipsBetween(adjacency.offsets[slot], adjacency.offsets[slot + 1]);
+        }
+
+        /***
+         * @param hourNode an hour node, see hasOrderFor
+         * @param journeyClock current time of the journey
+         * @return TO_MINUTE relationships ordered by time, only those departing at or after journeyClock and within the
+         * max wait
+         */
+        public Stream<Relationship> getMinutesFrom(final Node hourNode, final TramTime journeyClock) {
+            final int slot = adjacency.slotFor(hourNode.getId());
+            final int earliest = pack(journeyClock);
+            final int begin = adjacency.firstAtOrAfter(slot, earliest);
+            final int end = adjacency.firstAtOrAfter(slot, earliest + maxWaitMinutes + 1);
+            return relationshipsBetween(begin, end);
+        }
+
+        private Stream<Relationship> relationshipsBetween(final int begin, final int end) {
+            return IntStream.range(begin, end).mapToObj(index -> txn.getRelationshipById(adjacency.relationshipIds[index]));
+        }
+
+        @Override
+        public String toString() {
+            return "TimeOrderedAdjacency.Bound{" +
+                    "enabled=" + (adjacency != null) +
+                    ", maxWaitMinutes=" + maxWaitMinutes +
+                    '}';
+        }
+    }
+}
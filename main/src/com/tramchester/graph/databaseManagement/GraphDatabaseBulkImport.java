@@ -0,0 +1,144 @@
+package com.tramchester.graph.databaseManagement;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.GraphDBConfig;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.DataSourceInfo;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.graphbuild.GraphBulkImportFiles;
+import com.tramchester.metrics.Timing;
+import com.tramchester.repository.DataSourceRepository;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+
+/***
+ * Creates the graph DB offline from files written by GraphBulkImportFiles using neo4j-admin database import, then
+ * adds the indexes and version information so GraphDatabase sees an up-to-date DB. The remaining builders, such as
+ * composites and walks for closed stations, then add their parts as usual, see also BulkImportedGraphCompletion.
+ * Must be used before GraphDatabase is started.
+ */
+@LazySingleton
+public class GraphDatabaseBulkImport {
+    private static final Logger logger = LoggerFactory.getLogger(GraphDatabaseBulkImport.class);
+
+    private static final String CONFIG_FILENAME = "import.conf";
+    private static final int INDEX_TIMEOUT_SECONDS = 60;
+
+    private final GraphDBConfig graphDBConfig;
+    private final GraphDatabaseServiceFactory serviceFactory;
+    private final GraphDatabaseMetaInfo databaseMetaInfo;
+    private final DataSourceRepository dataSourceRepository;
+
+    @Inject
+    public GraphDatabaseBulkImport(TramchesterConfig config, GraphDatabaseServiceFactory serviceFactory,
+                                   GraphDatabaseMetaInfo databaseMetaInfo, DataSourceRepository dataSourceRepository) {
+        this.graphDBConfig = config.getGraphDBConfig();
+        this.serviceFactory = serviceFactory;
+        this.databaseMetaInfo = databaseMetaInfo;
+        this.dataSourceRepository = dataSourceRepository;
+    }
+
+    /***
+     * @param importFiles files to import, replaces any existing DB at the configured path
+     * @param neo4jAdmin location of the neo4j-admin command, needs to be the same version of neo4j as used here
+     */
+    public void importFrom(GraphBulkImportFiles.ImportFiles importFiles, Path neo4jAdmin) {
+        final Path dbPath = graphDBConfig.getDbPath().toAbsolutePath();
+        logger.info(format("Import %s into %s", importFiles, dbPath));
+
+        if (!Files.isExecutable(neo4jAdmin)) {
+            throw new RuntimeException("Cannot execute neo4j-admin at " + neo4jAdmin.toAbsolutePath());
+        }
+
+        try (Timing ignored = new Timing(logger, "neo4j-admin import")) {
+            runImport(importFiles, neo4jAdmin, dbPath);
+        }
+
+        final GraphDatabaseService databaseService = serviceFactory.create();
+        try {
+            createIndexes(databaseService);
+            stampMetaInfo(databaseService, importFiles);
+        } finally {
+            serviceFactory.shutdownDatabase();
+        }
+
+        logger.info("Import finished for " + dbPath);
+    }
+
+    private void runImport(GraphBulkImportFiles.ImportFiles importFiles, Path neo4jAdmin, Path dbPath) {
+        // the embedded DB uses the configured path as neo4j home, so point the import at the data directory under it
+        final Path configFile = importFiles.getNodes().getParent().resolve(CONFIG_FILENAME);
+        final String dataDirectory = dbPath.resolve("data").toString().replace('\\', '/');
+
+        final List<String> command = Arrays.asList(neo4jAdmin.toAbsolutePath().toString(),
+                "database", "import", "full",
+                "--overwrite-destination",
+                "--id-type=integer",
+                "--array-delimiter=;",
+                "--additional-config=" + configFile.toAbsolutePath(),
+                "--nodes=" + importFiles.getNodes().toAbsolutePath(),
+                "--relationships=" + importFiles.getRelationships().toAbsolutePath(),
+                DEFAULT_DATABASE_NAME);
+
+        try {
+            Files.writeString(configFile, "server.directories.data=" + dataDirectory + System.lineSeparator());
+
+            logger.info("Running " + command);
+            final Process process = new ProcessBuilder(command).inheritIO().start();
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                final String message = format("neo4j-admin import failed with exit code %s for %s", exitCode, command);
+                logger.error(message);
+                throw new RuntimeException(message);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to run neo4j-admin import " + command, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during neo4j-admin import", e);
+        }
+    }
+
+    private void createIndexes(GraphDatabaseService databaseService) {
+        try (Timing ignored = new Timing(logger, "Create DB Constraints & indexes")) {
+            try (Transaction tx = databaseService.beginTx()) {
+                GraphDatabase.createIndexs(tx.schema());
+                tx.commit();
+            }
+            try (Transaction tx = databaseService.beginTx()) {
+                tx.schema().awaitIndexesOnline(INDEX_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private void stampMetaInfo(GraphDatabaseService databaseService, GraphBulkImportFiles.ImportFiles importFiles) {
+        final Set<DataSourceInfo> infos = dataSourceRepository.getDataSourceInfo();
+        if (infos.isEmpty()) {
+            logger.error("No data source info was provided, version will not be set in the DB");
+        }
+
+        try (Transaction tx = databaseService.beginTx()) {
+            if (!infos.isEmpty()) {
+                databaseMetaInfo.createVersionNode(tx, infos);
+            }
+            if (importFiles.isNeighboursAdded()) {
+                databaseMetaInfo.setNeighboursEnabled(tx);
+            }
+            tx.commit();
+        }
+    }
+}
@@ -13,12 +13,17 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 @LazySingleton
 public class GraphDatabaseMetaInfo {
     private static final Logger logger = LoggerFactory.getLogger(GraphDatabaseMetaInfo.class);
 
+    // set on the VERSION node alongside the data source versions, differs each time the graph is built
+    private static final String BUILD_STAMP = "buildStamp";
+    public static final long NO_BUILD_STAMP = 0L;
+
     public boolean isNeighboursEnabled(Transaction txn) {
         return hasAnyNodeWith(txn, GraphLabel.NEIGHBOURS_ENABLED);
     }
@@ -43,7 +48,9 @@ public class GraphDatabaseMetaInfo {
         query.stream().forEach(versionNode -> {
             final Map<String, Object> nodeProps = versionNode.getAllProperties();
             logger.info("Got properties for VERSION node " + nodeProps.toString());
-            nodeProps.forEach((key, value) -> versions.put(key, value.toString()));
+            nodeProps.entrySet().stream().
+                    filter(entry -> !BUILD_STAMP.equals(entry.getKey())).
+                    forEach(entry -> versions.put(entry.getKey(), entry.getValue().toString()));
         });
 
         return versions;
@@ -53,5 +60,29 @@ public class GraphDatabaseMetaInfo {
         logger.info("Setting version data in DB for " + infos);
         Node node = tx.createNode(GraphLabel.VERSION);
         infos.forEach(nameAndVersion -> GraphProps.setProp(node, nameAndVersion));
+        node.setProperty(BUILD_STAMP, newBuildStamp());
+    }
+
+    /***
+     * Identifies a particular build of the graph, so data derived from node or relationship ids can be checked against it
+     * @param txn transaction
+     * @return the stamp from the VERSION node, NO_BUILD_STAMP if not present
+     */
+    public long getBuildStamp(Transaction txn) {
+        try (ResourceIterator<Node> query = txn.findNodes(GraphLabel.VERSION)) {
+            return query.stream().
+                    filter(versionNode -> versionNode.hasProperty(BUILD_STAMP)).
+                    mapToLong(versionNode -> (long) versionNode.getProperty(BUILD_STAMP)).
+                    findFirst().
+                    orElse(NO_BUILD_STAMP);
+        }
+    }
+
+    private long newBuildStamp() {
+        long stamp = NO_BUILD_STAMP;
+        while (stamp == NO_BUILD_STAMP) {
+            stamp = ThreadLocalRandom.current().nextLong();
+        }
+        return stamp;
     }
 }
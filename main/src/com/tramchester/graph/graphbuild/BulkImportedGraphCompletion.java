@@ -0,0 +1,156 @@
+package com.tramchester.graph.graphbuild;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.Platform;
+import com.tramchester.domain.dates.DateRange;
+import com.tramchester.domain.places.InterchangeStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphQuery;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.filters.GraphFilter;
+import com.tramchester.metrics.TimedTransaction;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.repository.StationsWithDiversionRepository;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static java.lang.String.format;
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+/***
+ * Interchanges and diversions both depend on the graph, so are not known when GraphBulkImportFiles writes boards and
+ * departs. Once the imported DB is started this updates them to match StagedTransportGraphBuilder, boards and departs
+ * at interchanges become INTERCHANGE_BOARD and INTERCHANGE_DEPART and departs at other stations with diversions
+ * become DIVERSION_DEPART. Updates are committed per batch of stations to bound the size of each transaction.
+ */
+@LazySingleton
+public class BulkImportedGraphCompletion extends CreateNodesAndRelationships {
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportedGraphCompletion.class);
+
+    // each replaced relationship is a create and a delete, large stations have many boards and departs
+    private static final int STATIONS_PER_TRANSACTION = 20;
+
+    private final GraphQuery graphQuery;
+    private final GraphFilter graphFilter;
+    private final StationRepository stationRepository;
+    private final InterchangeRepository interchangeRepository;
+    private final StationsWithDiversionRepository stationsWithDiversionRepository;
+
+    @Inject
+    public BulkImportedGraphCompletion(GraphDatabase graphDatabase, GraphQuery graphQuery, GraphFilter graphFilter,
+                                       StationRepository stationRepository, InterchangeRepository interchangeRepository,
+                                       StationsWithDiversionRepository stationsWithDiversionRepository) {
+        super(graphDatabase);
+        this.graphQuery = graphQuery;
+        this.graphFilter = graphFilter;
+        this.stationRepository = stationRepository;
+        this.interchangeRepository = interchangeRepository;
+        this.stationsWithDiversionRepository = stationsWithDiversionRepository;
+    }
+
+    public void complete() {
+        logger.info("Completing imported graph");
+
+        final List<Station> interchanges = interchangeRepository.getAllInterchanges().stream().
+                map(InterchangeStation::getStation).
+                filter(graphFilter::shouldInclude).
+                collect(Collectors.toList());
+
+        inBatches(interchanges, "interchanges for import", (txn, station) ->
+                getBoardingNodes(txn, station).forEach(this::updateForInterchange));
+
+        final List<Station> withDiversions = stationRepository.getActiveStationStream().
+                filter(graphFilter::shouldInclude).
+                filter(station -> !interchangeRepository.isInterchange(station)).
+                filter(stationsWithDiversionRepository::hasDiversions).
+                collect(Collectors.toList());
+
+        inBatches(withDiversions, "diversions for import", (txn, station) -> {
+            final Set<DateRange> ranges = stationsWithDiversionRepository.getDateRangesFor(station);
+            getBoardingNodes(txn, station).forEach(boardingNode -> updateForDiversion(boardingNode, ranges));
+        });
+
+        logger.info(format("Completed for %s interchanges and %s stations with diversions", interchanges.size(),
+                withDiversions.size()));
+        reportStats();
+    }
+
+    private void inBatches(List<Station> stations, String name, BiConsumer<Transaction, Station> update) {
+        for (int start = 0; start < stations.size(); start = start + STATIONS_PER_TRANSACTION) {
+            final List<Station> batch = stations.subList(start, Math.min(start + STATIONS_PER_TRANSACTION, stations.size()));
+            final String batchName = format("%s %s to %s of %s", name, start, start + batch.size(), stations.size());
+            try (TimedTransaction timedTransaction = new TimedTransaction(graphDatabase, logger, batchName)) {
+                final Transaction txn = timedTransaction.transaction();
+                batch.forEach(station -> update.accept(txn, station));
+                timedTransaction.commit();
+            }
+        }
+    }
+
+    private List<Node> getBoardingNodes(Transaction txn, Station station) {
+        final List<Node> boardingNodes = new ArrayList<>();
+        // If bus we board to/from station, for trams it is from the platform
+        if (station.hasPlatforms()) {
+            for (Platform platform : station.getPlatforms()) {
+                final Node platformNode = graphQuery.getPlatformNode(txn, platform);
+                if (platformNode != null) {
+                    boardingNodes.add(platformNode);
+                }
+            }
+        } else {
+            final Node stationNode = graphQuery.getStationNode(txn, station);
+            if (stationNode != null) {
+                boardingNodes.add(stationNode);
+            }
+        }
+        return boardingNodes;
+    }
+
+    private void updateForInterchange(Node boardingNode) {
+        collect(boardingNode.getRelationships(OUTGOING, BOARD)).forEach(board -> {
+            board.getEndNode().addLabel(GraphLabel.INTERCHANGE);
+            replace(board, INTERCHANGE_BOARD);
+        });
+        collect(boardingNode.getRelationships(INCOMING, DEPART)).forEach(depart -> {
+            depart.getStartNode().addLabel(GraphLabel.INTERCHANGE);
+            replace(depart, INTERCHANGE_DEPART);
+        });
+    }
+
+    private void updateForDiversion(Node boardingNode, Set<DateRange> ranges) {
+        collect(boardingNode.getRelationships(INCOMING, DEPART)).forEach(depart -> {
+            final Relationship diversionDepart = replace(depart, DIVERSION_DEPART);
+            ranges.forEach(range -> GraphProps.setDateRange(diversionDepart, range));
+        });
+    }
+
+    private List<Relationship> collect(Iterable<Relationship> relationships) {
+        final List<Relationship> result = new ArrayList<>();
+        relationships.forEach(result::add);
+        return result;
+    }
+
+    /***
+     * Type of a relationship cannot be changed, so create a replacement with the same properties
+     */
+    private Relationship replace(Relationship existing, TransportRelationshipTypes type) {
+        final Relationship replacement = createRelationship(existing.getStartNode(), existing.getEndNode(), type);
+        existing.getAllProperties().forEach(replacement::setProperty);
+        existing.delete();
+        return replacement;
+    }
+}
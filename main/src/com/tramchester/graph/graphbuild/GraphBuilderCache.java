@@ -13,7 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -28,8 +28,9 @@ public class GraphBuilderCache {
     private final Map<IdFor<RouteStation>, Long> routeStations;
     private final Map<IdFor<Station>, Long> stationsToNodeId;
     private final Map<IdFor<Platform>, Long> platforms;
-    private final Map<String, Long> svcNodes;
-    private final Map<String, Long> hourNodes;
+    // per route so routes built concurrently can be cleared independently
+    private final Map<IdFor<Route>, Map<String, Long>> svcNodes;
+    private final Map<IdFor<Route>, Map<String, Long>> hourNodes;
     private final Map<Long, Set<Long>> boardings;
     private final Map<Long, Set<Long>> departs;
 
@@ -59,9 +60,11 @@ public class GraphBuilderCache {
     }
 
     // memory usage management
-    protected void routeClear() {
-        svcNodes.clear();
-        hourNodes.clear();
+    protected void routeClear(Collection<Route> routes) {
+        routes.forEach(route -> {
+            svcNodes.remove(route.getId());
+            hourNodes.remove(route.getId());
+        });
         logger.debug("Route Clear");
     }
 
@@ -119,26 +122,27 @@ public class GraphBuilderCache {
     }
 
     protected void putService(IdFor<Route> routeId, Service service, IdFor<Station> begin, IdFor<Station> end, Node svcNode) {
-        svcNodes.put(CreateKeys.getServiceKey(routeId, service.getId(), begin, end), svcNode.getId());
+        forRoute(svcNodes, routeId).put(CreateKeys.getServiceKey(routeId, service.getId(), begin, end), svcNode.getId());
     }
 
     // TODO This has to be route station to route Station
     protected Node getServiceNode(Transaction txn, IdFor<Route> routeId, Service service, IdFor<Station> startStation, IdFor<Station> endStation) {
         String id = CreateKeys.getServiceKey(routeId, service.getId(), startStation, endStation);
-        return txn.getNodeById(svcNodes.get(id));
+        return txn.getNodeById(forRoute(svcNodes, routeId).get(id));
     }
 
     protected void putHour(IdFor<Route> routeId, Service service, IdFor<Station> station, Integer hour, Node node) {
-        hourNodes.put(CreateKeys.getHourKey(routeId, service.getId(), station, hour), node.getId());
+        forRoute(hourNodes, routeId).put(CreateKeys.getHourKey(routeId, service.getId(), station, hour), node.getId());
     }
 
     protected Node getHourNode(Transaction txn, IdFor<Route> routeId, Service service, IdFor<Station> station, Integer hour) {
         String key = CreateKeys.getHourKey(routeId, service.getId(), station, hour);
-        if (!hourNodes.containsKey(key)) {
+        final Map<String, Long> forRoute = forRoute(hourNodes, routeId);
+        if (!forRoute.containsKey(key)) {
             throw new RuntimeException(format("Missing hour node for key %s service %s station %s hour %s",
                     key, service.getId(), station, hour));
         }
-        return txn.getNodeById(hourNodes.get(key));
+        return txn.getNodeById(forRoute.get(key));
     }
 
     protected void putBoarding(long platformOrStation, long routeStationNodeId) {
@@ -157,14 +161,12 @@ public class GraphBuilderCache {
         putRelationship(departs, boardingNodeId, routeStationNodeId);
     }
 
+    private Map<String, Long> forRoute(Map<IdFor<Route>, Map<String, Long>> nodesForRoutes, IdFor<Route> routeId) {
+        return nodesForRoutes.computeIfAbsent(routeId, unused -> new ConcurrentHashMap<>());
+    }
+
     private void putRelationship(Map<Long, Set<Long>> relationshipCache, long boardingNodeId, long routeStationNodeId) {
-        if (relationshipCache.containsKey(boardingNodeId)) {
-            relationshipCache.get(boardingNodeId).add(routeStationNodeId);
-        } else {
-            HashSet<Long> set = new HashSet<>();
-            set.add(routeStationNodeId);
-            relationshipCache.put(boardingNodeId, set);
-        }
+        relationshipCache.computeIfAbsent(boardingNodeId, unused -> ConcurrentHashMap.newKeySet()).add(routeStationNodeId);
     }
 
     private boolean hasRelationship(Map<Long, Set<Long>> relationshipCache,  long boardingNodeId, long routeStationNodeId) {
@@ -175,11 +177,11 @@ public class GraphBuilderCache {
     }
 
     public boolean hasServiceNode(IdFor<Route> routeId, Service service, IdFor<Station> begin, IdFor<Station> end) {
-        return svcNodes.containsKey(CreateKeys.getServiceKey(routeId, service.getId(), begin,end));
+        return forRoute(svcNodes, routeId).containsKey(CreateKeys.getServiceKey(routeId, service.getId(), begin,end));
     }
 
     public boolean hasHourNode(IdFor<Route> routeId, Service service, IdFor<Station> startId, Integer hour) {
-        return hourNodes.containsKey(CreateKeys.getHourKey(routeId, service.getId(), startId, hour));
+        return forRoute(hourNodes, routeId).containsKey(CreateKeys.getHourKey(routeId, service.getId(), startId, hour));
     }
 
 
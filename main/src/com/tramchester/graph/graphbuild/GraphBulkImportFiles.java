@@ -0,0 +1,820 @@
+package com.tramchester.graph.graphbuild;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.*;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.GTFSPickupDropoffType;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.StationTime;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphPropertyKey;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.filters.GraphFilter;
+import com.tramchester.metrics.Timing;
+import com.tramchester.repository.*;
+import org.neo4j.graphdb.Entity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.tramchester.domain.reference.GTFSPickupDropoffType.Regular;
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static com.tramchester.graph.graphbuild.GraphProps.*;
+import static java.lang.String.format;
+
+/***
+ * Writes the graph created by StationsAndLinksGraphBuilder, StagedTransportGraphBuilder and AddNeighboursGraphBuilder
+ * straight from TransportData into the CSV format of neo4j-admin database import, so a full graph can be created
+ * offline instead of via transactional writes. Must be kept in step with those builders.
+ * Interchanges and diversions are found from the graph itself, so all boards and departs are written as BOARD and
+ * DEPART here and then updated by BulkImportedGraphCompletion.
+ * See GraphDatabaseBulkImport
+ */
+@LazySingleton
+public class GraphBulkImportFiles {
+    private static final Logger logger = LoggerFactory.getLogger(GraphBulkImportFiles.class);
+
+    private static final String NODES_FILENAME = "nodes.csv";
+    private static final String RELATIONSHIPS_FILENAME = "relationships.csv";
+    private static final char ARRAY_DELIMITER = ';';
+
+    private static final GraphPropertyKey[] propertyKeys = GraphPropertyKey.values();
+    private static final Set<String> propertyNames = Arrays.stream(propertyKeys).
+            map(GraphPropertyKey::getText).collect(Collectors.toSet());
+
+    private final TransportData transportData;
+    private final GraphFilter graphFilter;
+    private final StopCallRepository stopCallRepository;
+    private final NeighboursRepository neighboursRepository;
+    private final TramchesterConfig config;
+
+    @Inject
+    public GraphBulkImportFiles(TransportData transportData, GraphFilter graphFilter, StopCallRepository stopCallRepository,
+                                NeighboursRepository neighboursRepository, TramchesterConfig config) {
+        this.transportData = transportData;
+        this.graphFilter = graphFilter;
+        this.stopCallRepository = stopCallRepository;
+        this.neighboursRepository = neighboursRepository;
+        this.config = config;
+    }
+
+    /***
+     * @param directory where to write the node and relationship files, created if needed
+     * @return the files written
+     */
+    public ImportFiles writeTo(Path directory) {
+        logger.info("Writing import files to " + directory.toAbsolutePath());
+        if (graphFilter.isFiltered()) {
+            logger.warn("Graph is filtered " + graphFilter);
+        }
+
+        final Path nodesFile = directory.resolve(NODES_FILENAME);
+        final Path relationshipsFile = directory.resolve(RELATIONSHIPS_FILENAME);
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create directory for import files " + directory.toAbsolutePath(), e);
+        }
+
+        try (Timing ignored = new Timing(logger, "Write import files");
+             ImportFile nodes = ImportFile.forNodes(nodesFile);
+             ImportFile relationships = ImportFile.forRelationships(relationshipsFile)) {
+
+            final Build build = new Build(nodes, relationships);
+            build.addStationsAndLinks();
+            build.addTimetable();
+            final boolean neighboursAdded = build.addNeighbours();
+
+            logger.info(format("Wrote %s nodes to %s and %s relationships to %s", nodes.getCount(), nodesFile,
+                    relationships.getCount(), relationshipsFile));
+            return new ImportFiles(nodesFile, relationshipsFile, neighboursAdded);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write import files to " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /***
+     * @return agencies to include, in id order so files are the same each time
+     */
+    private List<Agency> getAgenciesToBuild() {
+        return transportData.getAgencies().stream().
+                filter(graphFilter::shouldIncludeAgency).
+                filter(agency -> !getRoutesForAgency(agency).isEmpty()).
+                sorted(Comparator.comparing(Agency::getId)).
+                collect(Collectors.toList());
+    }
+
+    private List<Route> getRoutesForAgency(Agency agency) {
+        return agency.getRoutes().stream().
+                filter(graphFilter::shouldIncludeRoute).
+                sorted(Comparator.comparing(Route::getId)).
+                collect(Collectors.toList());
+    }
+
+    private static List<Trip> getTripsInOrder(Route route) {
+        return route.getTrips().stream().
+                sorted(Comparator.comparing(Trip::getId)).
+                collect(Collectors.toList());
+    }
+
+    private boolean includeBothStops(StopCalls.StopLeg leg) {
+        return graphFilter.shouldInclude(leg.getFirst()) && graphFilter.shouldInclude(leg.getSecond());
+    }
+
+    /***
+     * State for a single write of the files, ids here are those of the import and not the eventual node ids in the DB
+     */
+    private class Build {
+        private final ImportFile nodes;
+        private final ImportFile relationships;
+
+        private final Map<IdFor<Station>, Long> stations;
+        private final Map<IdFor<Platform>, Long> platforms;
+        private final Map<IdFor<RouteStation>, Long> routeStations;
+        private final Map<String, Long> serviceNodes;
+        private final Map<String, Long> hourNodes;
+        private final Map<StationIdPair, EnumSet<TransportMode>> links;
+
+        private final Map<Long, Set<Long>> onRoutes;
+        private final Map<Long, Set<Long>> boardings;
+        private final Map<Long, Set<Long>> departs;
+        private final Map<Long, Set<Long>> neighbours;
+
+        private long nextId;
+
+        private Build(ImportFile nodes, ImportFile relationships) {
+            this.nodes = nodes;
+            this.relationships = relationships;
+            stations = new HashMap<>();
+            platforms = new HashMap<>();
+            routeStations = new HashMap<>();
+            serviceNodes = new HashMap<>();
+            hourNodes = new HashMap<>();
+            links = new LinkedHashMap<>();
+            onRoutes = new HashMap<>();
+            boardings = new HashMap<>();
+            departs = new HashMap<>();
+            neighbours = new HashMap<>();
+            nextId = 0;
+        }
+
+        ///
+        // As StationsAndLinksGraphBuilder
+        ///
+
+        private void addStationsAndLinks() throws IOException {
+            for (Station station : transportData.getStations()) {
+                if (graphFilter.shouldInclude(station)) {
+                    if (station.getTransportModes().isEmpty()) {
+                        logger.info("Skipping " + station.getId() + " as no transport modes are set, non stopping station");
+                    } else {
+                        addStation(station);
+                        addPlatformsForStation(station);
+                    }
+                }
+            }
+
+            final Set<Station> filteredStations = transportData.getActiveStationStream().
+                    filter(graphFilter::shouldInclude).
+                    collect(Collectors.toSet());
+
+            for (Agency agency : getAgenciesToBuild()) {
+                for (Route route : getRoutesForAgency(agency)) {
+                    addRouteStationsFor(route, filteredStations);
+                    collectLinks(route);
+                }
+            }
+
+            for (Map.Entry<StationIdPair, EnumSet<TransportMode>> link : links.entrySet()) {
+                final ImportRecord linked = new ImportRecord();
+                link.getValue().forEach(mode -> addTransportMode(linked, mode));
+                addRelationship(getStation(link.getKey().getBeginId()), getStation(link.getKey().getEndId()), LINKED, linked);
+            }
+            links.clear();
+        }
+
+        private void addStation(Station station) throws IOException {
+            final Set<GraphLabel> labels = GraphLabel.forMode(station.getTransportModes());
+            labels.add(GraphLabel.STATION);
+            if (station.hasPlatforms()) {
+                labels.add(GraphLabel.HAS_PLATFORMS);
+            }
+            final ImportRecord record = new ImportRecord();
+            setProperty(record, station);
+            stations.put(station.getId(), addNode(labels, record));
+        }
+
+        private void addPlatformsForStation(Station station) throws IOException {
+            for (Platform platform : station.getPlatforms()) {
+                final ImportRecord record = new ImportRecord();
+                setProperty(record, platform);
+                setProperty(record, station);
+
+                final Set<TransportMode> modes = station.getTransportModes();
+                if (modes.size()==1) {
+                    setProperty(record, modes.iterator().next());
+                } else {
+                    logger.error(format("Unable to set transportmode property, more than one mode (%s) for %s",
+                            modes, station.getId()));
+                }
+
+                platforms.put(platform.getId(), addNode(EnumSet.of(GraphLabel.PLATFORM), record));
+            }
+        }
+
+        private void addRouteStationsFor(Route route, Set<Station> filteredStations) throws IOException {
+            final TransportMode mode = route.getTransportMode();
+
+            final List<Station> calledAt = filteredStations.stream().
+                    filter(station -> station.servesRouteDropOff(route) || station.servesRoutePickup(route)).
+                    sorted(Comparator.comparing(Station::getId)).
+                    collect(Collectors.toList());
+
+            for (Station station : calledAt) {
+                final RouteStation routeStation = transportData.getRouteStation(station, route);
+                if (routeStations.containsKey(routeStation.getId())) {
+                    final String msg = "Existing route station node for " + routeStation + " with id " + routeStation.getId();
+                    logger.error(msg);
+                    throw new RuntimeException(msg);
+                }
+
+                final Set<GraphLabel> labels = EnumSet.of(GraphLabel.ROUTE_STATION, GraphLabel.forMode(mode));
+
+                final ImportRecord record = new ImportRecord();
+                setProperty(record, routeStation);
+                setProperty(record, station);
+                setProperty(record, route);
+                setProperty(record, mode);
+                final long routeStationNode = addNode(labels, record);
+                routeStations.put(routeStation.getId(), routeStationNode);
+
+                final long stationNode = getStation(station.getId());
+                final Duration minimumChangeCost = station.getMinChangeDuration();
+
+                final ImportRecord stationToRoute = new ImportRecord();
+                setCostProp(stationToRoute, minimumChangeCost);
+                setProperty(stationToRoute, mode);
+                setMaxCostProp(stationToRoute, minimumChangeCost);
+                addRelationship(stationNode, routeStationNode, STATION_TO_ROUTE, stationToRoute);
+
+                final ImportRecord routeToStation = new ImportRecord();
+                setCostProp(routeToStation, Duration.ZERO);
+                setProperty(routeToStation, mode);
+                setMaxCostProp(routeToStation, Duration.ZERO);
+                addRelationship(routeStationNode, stationNode, ROUTE_TO_STATION, routeToStation);
+            }
+        }
+
+        private void collectLinks(Route route) {
+            route.getTrips().forEach(trip -> trip.getStopCalls().getLegs(graphFilter.isFiltered()).forEach(leg -> {
+                if (includeBothStops(leg)) {
+                    GTFSPickupDropoffType pickup = leg.getFirst().getPickupType();
+                    GTFSPickupDropoffType dropOff = leg.getSecond().getDropoffType();
+                    if (pickup==Regular && dropOff==Regular) {
+                        links.computeIfAbsent(leg.getStations(), unused -> EnumSet.noneOf(TransportMode.class)).
+                                add(route.getTransportMode());
+                    }
+                }
+            }));
+        }
+
+        ///
+        // As StagedTransportGraphBuilder
+        ///
+
+        private void addTimetable() throws IOException {
+            final List<Station> withPlatforms = transportData.getActiveStationStream().
+                    filter(Station::hasPlatforms).
+                    filter(graphFilter::shouldInclude).
+                    sorted(Comparator.comparing(Station::getId)).
+                    collect(Collectors.toList());
+            for (Station station : withPlatforms) {
+                linkStationAndPlatforms(station);
+            }
+
+            for (Agency agency : getAgenciesToBuild()) {
+                final List<Route> routes = getRoutesForAgency(agency);
+                for (Route route : routes) {
+                    addOnRoute(route);
+                    addServicesAndHours(route);
+                    addMinutesAndGoesTo(route);
+                    addBoardsAndDeparts(route);
+                }
+                // service and hour nodes are per route, only needed while adding them
+                serviceNodes.clear();
+                hourNodes.clear();
+            }
+        }
+
+        private void linkStationAndPlatforms(Station station) throws IOException {
+            if (!stations.containsKey(station.getId())) {
+                throw new RuntimeException("Missing station node for " + station);
+            }
+            final long stationNode = stations.get(station.getId());
+            for (Platform platform : station.getPlatforms()) {
+                final long platformNode = getPlatform(platform.getId());
+
+                final ImportRecord enter = new ImportRecord();
+                setCostProp(enter, station.getMinChangeDuration());
+                setProperty(enter, platform);
+                addRelationship(stationNode, platformNode, ENTER_PLATFORM, enter);
+
+                final ImportRecord leave = new ImportRecord();
+                setCostProp(leave, Duration.ZERO);
+                setProperty(leave, station);
+                addRelationship(platformNode, stationNode, LEAVE_PLATFORM, leave);
+            }
+        }
+
+        private void addOnRoute(Route route) throws IOException {
+            final Set<StopCalls.StopLeg> legs = new LinkedHashSet<>();
+            getTripsInOrder(route).forEach(trip -> trip.getStopCalls().getLegs(graphFilter.isFiltered()).stream().
+                    filter(GraphBulkImportFiles.this::includeBothStops).
+                    forEach(legs::add));
+
+            for (StopCalls.StopLeg leg : legs) {
+                final long startNode = getRouteStation(route, leg.getFirstStation());
+                final long endNode = getRouteStation(route, leg.getSecondStation());
+
+                if (addIfAbsent(onRoutes, startNode, endNode)) {
+                    final StopCallRepository.Costs costs = stopCallRepository.getCostsBetween(route, leg.getFirstStation(),
+                            leg.getSecondStation());
+                    final ImportRecord onRoute = new ImportRecord();
+                    setProperty(onRoute, route);
+                    setCostProp(onRoute, costs.average());
+                    setMaxCostProp(onRoute, costs.max());
+                    setProperty(onRoute, route.getTransportMode());
+                    addRelationship(startNode, endNode, ON_ROUTE, onRoute);
+                }
+            }
+        }
+
+        private void addServicesAndHours(Route route) throws IOException {
+            for (Trip trip : getTripsInOrder(route)) {
+                for (StopCalls.StopLeg leg : trip.getStopCalls().getLegs(graphFilter.isFiltered())) {
+                    if (includeBothStops(leg)) {
+                        if (!leg.getDepartureTime().isValid()) {
+                            throw new RuntimeException("Invalid dept time for " + leg);
+                        }
+                        final IdFor<Station> beginId = leg.getFirstStation().getId();
+                        final IdFor<Station> endId = leg.getSecondStation().getId();
+                        final Service service = trip.getService();
+
+                        final long serviceNode = addServiceNode(route, service, leg.getFirstStation(), endId);
+                        addHourNode(route, service, beginId, leg.getDepartureTime().getHourOfDay(), serviceNode);
+                    }
+                }
+            }
+        }
+
+        private long addServiceNode(Route route, Service service, Station begin, IdFor<Station> endId) throws IOException {
+            final String key = getServiceKey(route, service, begin.getId(), endId);
+            if (serviceNodes.containsKey(key)) {
+                return serviceNodes.get(key);
+            }
+
+            final ImportRecord record = new ImportRecord();
+            setProperty(record, service);
+            setProperty(record, route);
+            record.setProperty(GraphPropertyKey.TOWARDS_STATION_ID.getText(), endId.getGraphId());
+            final long serviceNode = addNode(EnumSet.of(GraphLabel.SERVICE), record);
+            serviceNodes.put(key, serviceNode);
+
+            final ImportRecord toService = new ImportRecord();
+            setProperty(toService, service);
+            setCostProp(toService, Duration.ZERO);
+            setProperty(toService, route);
+            addRelationship(getRouteStation(route, begin), serviceNode, TO_SERVICE, toService);
+
+            return serviceNode;
+        }
+
+        private void addHourNode(Route route, Service service, IdFor<Station> startId, int hour, long serviceNode) throws IOException {
+            final String key = getHourKey(route, service, startId, hour);
+            if (hourNodes.containsKey(key)) {
+                return;
+            }
+
+            final ImportRecord record = new ImportRecord();
+            setHourProp(record, hour);
+            final long hourNode = addNode(EnumSet.of(GraphLabel.HOUR, (GraphLabel) GraphLabel.getHourLabel(hour)), record);
+            hourNodes.put(key, hourNode);
+
+            final ImportRecord toHour = new ImportRecord();
+            setCostProp(toHour, Duration.ZERO);
+            setHourProp(toHour, hour);
+            addRelationship(serviceNode, hourNode, TO_HOUR, toHour);
+        }
+
+        private void addMinutesAndGoesTo(Route route) throws IOException {
+            final TransportRelationshipTypes goesToType = TransportRelationshipTypes.forMode(route.getTransportMode());
+
+            for (Trip trip : getTripsInOrder(route)) {
+                final List<StopCalls.StopLeg> legs = trip.getStopCalls().getLegs(graphFilter.isFiltered()).stream().
+                        filter(GraphBulkImportFiles.this::includeBothStops).
+                        collect(Collectors.toList());
+
+                final Map<StationTime, Long> timeNodes = new HashMap<>();
+                for (StopCalls.StopLeg leg : legs) {
+                    final Station start = leg.getFirstStation();
+                    final TramTime departureTime = leg.getDepartureTime();
+                    timeNodes.put(StationTime.of(start, departureTime), addMinuteNode(route, trip, start, departureTime));
+                }
+
+                for (StopCalls.StopLeg leg : legs) {
+                    final StopCall beginStop = leg.getFirst();
+                    final StopCall endStop = leg.getSecond();
+                    final long timeNode = timeNodes.get(StationTime.of(beginStop.getStation(), beginStop.getDepartureTime()));
+
+                    final ImportRecord goesTo = new ImportRecord();
+                    setProperty(goesTo, trip);
+                    setCostProp(goesTo, TramTime.difference(endStop.getArrivalTime(), beginStop.getDepartureTime()));
+                    setProperty(goesTo, trip.getService());
+                    setProperty(goesTo, route);
+                    goesTo.setProperty(GraphPropertyKey.STOP_SEQ_NUM.getText(), endStop.getGetSequenceNumber());
+                    addRelationship(timeNode, getRouteStation(route, endStop.getStation()), goesToType, goesTo);
+                }
+            }
+        }
+
+        private long addMinuteNode(Route route, Trip trip, Station start, TramTime departureTime) throws IOException {
+            final ImportRecord record = new ImportRecord();
+            setTimeProp(record, departureTime);
+            setProperty(record, trip);
+            final long minuteNode = addNode(EnumSet.of(GraphLabel.MINUTE), record);
+
+            final String hourKey = getHourKey(route, trip.getService(), start.getId(), departureTime.getHourOfDay());
+            if (!hourNodes.containsKey(hourKey)) {
+                throw new RuntimeException("Missing hour node for " + hourKey);
+            }
+
+            final ImportRecord toMinute = new ImportRecord();
+            setCostProp(toMinute, Duration.ZERO);
+            setTimeProp(toMinute, departureTime);
+            setProperty(toMinute, trip);
+            addRelationship(hourNodes.get(hourKey), minuteNode, TO_MINUTE, toMinute);
+
+            return minuteNode;
+        }
+
+        private void addBoardsAndDeparts(Route route) throws IOException {
+            for (Trip trip : getTripsInOrder(route)) {
+                final List<StopCall> stopCalls = trip.getStopCalls().stream().
+                        filter(graphFilter::shouldInclude).
+                        filter(StopCall::callsAtStation).
+                        collect(Collectors.toList());
+                for (StopCall stopCall : stopCalls) {
+                    addBoardingAndDepart(stopCall, route);
+                }
+            }
+        }
+
+        private void addBoardingAndDepart(StopCall stopCall, Route route) throws IOException {
+            final boolean pickup = stopCall.getPickupType().equals(Regular);
+            final boolean dropoff = stopCall.getDropoffType().equals(Regular);
+
+            final Station station = stopCall.getStation();
+
+            // If bus we board to/from station, for trams it is from the platform
+            final long platformOrStation = station.hasPlatforms() ? getPlatform(stopCall.getPlatform().getId()) :
+                    getStation(station.getId());
+            final IdFor<RouteStation> routeStationId = RouteStation.createId(station.getId(), route.getId());
+            final long routeStationNode = getRouteStation(routeStationId);
+
+            if (pickup && addIfAbsent(boardings, platformOrStation, routeStationNode)) {
+                final ImportRecord board = new ImportRecord();
+                setCostProp(board, Duration.ZERO);
+                setRouteStationProp(board, routeStationId);
+                setProperty(board, route);
+                setProperty(board, station);
+                if (stopCall.hasPlatfrom()) {
+                    setProperty(board, stopCall.getPlatform());
+                }
+                addRelationship(platformOrStation, routeStationNode, BOARD, board);
+            }
+
+            if (dropoff && addIfAbsent(departs, platformOrStation, routeStationNode)) {
+                final ImportRecord depart = new ImportRecord();
+                setCostProp(depart, Duration.ZERO);
+                setRouteStationProp(depart, routeStationId);
+                setProperty(depart, station);
+                addRelationship(routeStationNode, platformOrStation, DEPART, depart);
+            }
+        }
+
+        ///
+        // As AddNeighboursGraphBuilder
+        ///
+
+        private boolean addNeighbours() throws IOException {
+            if (!config.hasNeighbourConfig()) {
+                logger.info("Create neighbours is disabled in configuration");
+                return false;
+            }
+
+            final List<Station> withNeighbours = transportData.getActiveStationStream().
+                    filter(graphFilter::shouldInclude).
+                    filter(station -> neighboursRepository.hasNeighbours(station.getId())).
+                    sorted(Comparator.comparing(Station::getId)).
+                    collect(Collectors.toList());
+
+            for (Station from : withNeighbours) {
+                final long fromNode = getStation(from.getId());
+                final List<StationLink> links = neighboursRepository.getNeighbourLinksFor(from.getId()).stream().
+                        filter(link -> graphFilter.shouldInclude(link.getEnd())).
+                        collect(Collectors.toList());
+                for (StationLink link : links) {
+                    final long toNode = getStation(link.getEnd().getId());
+                    if (addIfAbsent(neighbours, fromNode, toNode)) {
+                        final ImportRecord neighbour = new ImportRecord();
+                        setCostProp(neighbour, link.getWalkingTime());
+                        setMaxCostProp(neighbour, link.getWalkingTime());
+                        addRelationship(fromNode, toNode, NEIGHBOUR, neighbour);
+                    } else {
+                        logger.warn(format("Already neighbour link between %s", link));
+                    }
+                }
+            }
+            return true;
+        }
+
+        private long addNode(Set<GraphLabel> labels, ImportRecord record) throws IOException {
+            final long id = nextId++;
+            nodes.addNode(id, labels, record);
+            return id;
+        }
+
+        private void addRelationship(long start, long end, TransportRelationshipTypes type, ImportRecord record) throws IOException {
+            relationships.addRelationship(start, end, type, record);
+        }
+
+        private long getStation(IdFor<Station> stationId) {
+            if (!stations.containsKey(stationId)) {
+                throw new RuntimeException("Missing station node for " + stationId);
+            }
+            return stations.get(stationId);
+        }
+
+        private long getPlatform(IdFor<Platform> platformId) {
+            if (!platforms.containsKey(platformId)) {
+                throw new RuntimeException("Missing platform node for " + platformId);
+            }
+            return platforms.get(platformId);
+        }
+
+        private long getRouteStation(Route route, Station station) {
+            return getRouteStation(RouteStation.createId(station.getId(), route.getId()));
+        }
+
+        private long getRouteStation(IdFor<RouteStation> routeStationId) {
+            if (!routeStations.containsKey(routeStationId)) {
+                throw new RuntimeException("Missing route station node for " + routeStationId);
+            }
+            return routeStations.get(routeStationId);
+        }
+
+        private boolean addIfAbsent(Map<Long, Set<Long>> existing, long from, long to) {
+            return existing.computeIfAbsent(from, unused -> new HashSet<>()).add(to);
+        }
+
+        private String getServiceKey(Route route, Service service, IdFor<Station> begin, IdFor<Station> end) {
+            return route.getId().getGraphId()+"_"+begin.getGraphId()+"_"+end.getGraphId()+"_"+ service.getId().getGraphId();
+        }
+
+        private String getHourKey(Route route, Service service, IdFor<Station> station, int hour) {
+            return route.getId().getGraphId()+"_"+service.getId().getGraphId()+"_"+station.getGraphId()+"_"+hour;
+        }
+    }
+
+    /***
+     * A single import file, the header holds a column for every GraphPropertyKey with the neo4j-admin type
+     */
+    private static class ImportFile implements AutoCloseable {
+        private final BufferedWriter writer;
+        private long count;
+
+        private ImportFile(Path path, String prefix, String suffix) throws IOException {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            count = 0;
+
+            final StringBuilder header = new StringBuilder(prefix);
+            for (GraphPropertyKey key : propertyKeys) {
+                header.append(',').append(key.getText()).append(':').append(importTypeFor(key));
+            }
+            header.append(',').append(suffix);
+            writer.write(header.toString());
+            writer.newLine();
+        }
+
+        public static ImportFile forNodes(Path path) throws IOException {
+            return new ImportFile(path, ":ID", ":LABEL");
+        }
+
+        public static ImportFile forRelationships(Path path) throws IOException {
+            return new ImportFile(path, ":START_ID,:END_ID", ":TYPE");
+        }
+
+        public void addNode(long id, Set<GraphLabel> labels, ImportRecord record) throws IOException {
+            final String labelText = labels.stream().map(GraphLabel::name).collect(Collectors.joining(String.valueOf(ARRAY_DELIMITER)));
+            write(Long.toString(id), record, labelText);
+        }
+
+        public void addRelationship(long start, long end, TransportRelationshipTypes type, ImportRecord record) throws IOException {
+            write(start + "," + end, record, type.name());
+        }
+
+        private void write(String prefix, ImportRecord record, String suffix) throws IOException {
+            record.checkAllKnown();
+
+            final StringBuilder line = new StringBuilder(prefix);
+            for (GraphPropertyKey key : propertyKeys) {
+                line.append(',');
+                // no value gives no property for that entity
+                if (record.hasProperty(key.getText())) {
+                    line.append(asText(record.getProperty(key.getText())));
+                }
+            }
+            line.append(',').append(suffix);
+
+            writer.write(line.toString());
+            writer.newLine();
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+
+        private static String importTypeFor(GraphPropertyKey key) {
+            return switch (key) {
+                case TRANSPORT_MODE -> "short";
+                case TRANSPORT_MODES -> "short[]";
+                case COST, MAX_COST, HOUR, STOP_SEQ_NUM -> "int";
+                case TIME -> "localtime";
+                case DAY_OFFSET -> "boolean";
+                case LATITUDE, LONGITUDE -> "double";
+                case START_DATE, END_DATE -> "date";
+                default -> "string";
+            };
+        }
+
+        private static String asText(Object value) {
+            if (value instanceof String text) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            if (value instanceof short[] values) {
+                final StringBuilder result = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        result.append(ARRAY_DELIMITER);
+                    }
+                    result.append(values[i]);
+                }
+                return result.toString();
+            }
+            if (value instanceof Number || value instanceof Boolean || value instanceof LocalTime || value instanceof LocalDate) {
+                return value.toString();
+            }
+            throw new RuntimeException("Unsupported property type for import " + value.getClass());
+        }
+    }
+
+    /***
+     * Captures properties as set via GraphProps, so values match those created by the builders
+     */
+    private static class ImportRecord implements Entity {
+        private final Map<String, Object> properties;
+
+        private ImportRecord() {
+            properties = new HashMap<>();
+        }
+
+        private void checkAllKnown() {
+            properties.keySet().forEach(key -> {
+                if (!propertyNames.contains(key)) {
+                    throw new RuntimeException("Property " + key + " is not a GraphPropertyKey, cannot import");
+                }
+            });
+        }
+
+        @Override
+        public long getId() {
+            throw new UnsupportedOperationException("No id for import record");
+        }
+
+        @Override
+        public String getElementId() {
+            throw new UnsupportedOperationException("No element id for import record");
+        }
+
+        @Override
+        public boolean hasProperty(String key) {
+            return properties.containsKey(key);
+        }
+
+        @Override
+        public Object getProperty(String key) {
+            if (!properties.containsKey(key)) {
+                throw new RuntimeException("Missing property " + key);
+            }
+            return properties.get(key);
+        }
+
+        @Override
+        public Object getProperty(String key, Object defaultValue) {
+            return properties.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public void setProperty(String key, Object value) {
+            properties.put(key, value);
+        }
+
+        @Override
+        public Object removeProperty(String key) {
+            return properties.remove(key);
+        }
+
+        @Override
+        public Iterable<String> getPropertyKeys() {
+            return properties.keySet();
+        }
+
+        @Override
+        public Map<String, Object> getProperties(String... keys) {
+            final Map<String, Object> result = new HashMap<>();
+            for (String key : keys) {
+                if (properties.containsKey(key)) {
+                    result.put(key, properties.get(key));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Object> getAllProperties() {
+            return new HashMap<>(properties);
+        }
+
+        @Override
+        public void delete() {
+            throw new UnsupportedOperationException("Cannot delete import record");
+        }
+    }
+
+    public static class ImportFiles {
+        private final Path nodes;
+        private final Path relationships;
+        private final boolean neighboursAdded;
+
+        public ImportFiles(Path nodes, Path relationships, boolean neighboursAdded) {
+            this.nodes = nodes;
+            this.relationships = relationships;
+            this.neighboursAdded = neighboursAdded;
+        }
+
+        public Path getNodes() {
+            return nodes;
+        }
+
+        public Path getRelationships() {
+            return relationships;
+        }
+
+        public boolean isNeighboursAdded() {
+            return neighboursAdded;
+        }
+
+        @Override
+        public String toString() {
+            return "ImportFiles{" +
+                    "nodes=" + nodes +
+                    ", relationships=" + relationships +
+                    ", neighboursAdded=" + neighboursAdded +
+                    '}';
+        }
+    }
+}
@@ -34,7 +34,9 @@ import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.tramchester.domain.reference.TransportMode.Tram;
 import static com.tramchester.graph.TransportRelationshipTypes.*;
@@ -47,6 +49,8 @@ import static org.neo4j.graphdb.Direction.OUTGOING;
 public class StagedTransportGraphBuilder extends GraphBuilder {
     private static final Logger logger = LoggerFactory.getLogger(StagedTransportGraphBuilder.class);
 
+    private static final int ROUTES_PER_TRANSACTION = 50;
+
     ///
     // Station -[enter]-> Platform -[board]-> RouteStation -[toSvc]-> Service -> Hour-[toMinute]->
     //          -> Minute -> RouteStation-[depart]-> Platform -[leave]-> Station
@@ -115,13 +119,20 @@ public class StagedTransportGraphBuilder extends GraphBuilder {
             // just for tfgm trams currently
             linkStationsAndPlatforms(builderCache);
 
-            // TODO Agencies could be done in parallel as should be no overlap except at station level?
-            for(Agency agency : transportData.getAgencies()) {
-                if (graphFilter.shouldIncludeAgency(agency)) {
-                    try (Timing unused = new Timing(logger,"Add agency " + agency.getId() + " " + agency.getName())) {
+            // station, platform and route station nodes are all created up front by StationsAndLinksGraphBuilder,
+            // agencies have no route level nodes in common so can be built concurrently
+            final List<Agency> agencies = getAgenciesToBuild();
+            try (Timing unused = new Timing(logger, "Add " + agencies.size() + " agencies")) {
+                agencies.parallelStream().forEach(agency -> {
+                    try (Timing timing = new Timing(logger, "Add agency " + agency.getId() + " " + agency.getName())) {
                         buildForAgency(graphDatabase, agency, builderCache);
                     }
-                }
+                });
+            }
+
+            // boards and departs do link to station level nodes, so partitioned on station instead of agency
+            try (Timing unused = new Timing(logger, "boards & departs")) {
+                buildBoardsAndDeparts(agencies, builderCache);
             }
 
             // only add version node if we manage to build graph, so partial builds that fail cause a rebuild
@@ -163,20 +174,27 @@ public class StagedTransportGraphBuilder extends GraphBuilder {
         }
     }
 
+    /***
+     * @return agencies to include, in id order so graph is built the same way each time
+     */
+    private List<Agency> getAgenciesToBuild() {
+        return transportData.getAgencies().stream().
+                filter(graphFilter::shouldIncludeAgency).
+                filter(agency -> !getRoutesForAgency(agency).isEmpty()).
+                sorted(Comparator.comparing(Agency::getId)).
+                collect(Collectors.toList());
+    }
+
     private void buildForAgency(GraphDatabase graphDatabase, Agency agency, GraphBuilderCache builderCache) {
 
-        if (getRoutesForAgency(agency).findAny().isEmpty()) {
-            return;
-        }
+        final List<Route> routes = getRoutesForAgency(agency);
 
-        try (TimedTransaction timedTransaction = new TimedTransaction(graphDatabase, logger, "onRoute for " + agency.getId())) {
-            Transaction tx = timedTransaction.transaction();
-            getRoutesForAgency(agency).forEach(route -> createOnRouteRelationships(tx, route, builderCache));
-            timedTransaction.commit();
+        try (Timing ignored = new Timing(logger, "onRoute for " + agency.getId())) {
+            forRoutesInBatches(routes, (tx, route) -> createOnRouteRelationships(tx, route, builderCache));
         }
 
         try(Timing ignored = new Timing(logger,"service, hour for " + agency.getId())) {
-            getRoutesForAgency(agency).parallel().forEach(route -> {
+            routes.parallelStream().forEach(route -> {
                 try (Transaction tx = graphDatabase.beginTx()) {
                     createServiceAndHourNodesForRoute(tx, route, builderCache);
                     tx.commit();
@@ -185,7 +203,7 @@ public class StagedTransportGraphBuilder extends GraphBuilder {
         }
 
         try(Timing ignored = new Timing(logger,"time and update for trips for " + agency.getId())) {
-            getRoutesForAgency(agency).parallel().forEach(route -> {
+            routes.parallelStream().forEach(route -> {
                 try (Transaction tx = graphDatabase.beginTx()) {
                     createMinuteNodesAndRecordUpdatesForTrips(tx, route, builderCache);
                     tx.commit();
@@ -193,26 +211,80 @@ public class StagedTransportGraphBuilder extends GraphBuilder {
             });
         }
 
-        try (TimedTransaction timedTransaction = new TimedTransaction(graphDatabase, logger, "boards & departs for " + agency.getId())) {
-            Transaction tx = timedTransaction.transaction();
-            getRoutesForAgency(agency).forEach(route -> buildGraphForBoardsAndDeparts(route, builderCache, tx));
-            timedTransaction.commit();
+        // service and hour nodes only needed while adding the agency's trips
+        builderCache.routeClear(routes);
+
+    }
+
+    private void buildBoardsAndDeparts(List<Agency> agencies, GraphBuilderCache builderCache) {
+        final List<Route> routes = agencies.stream().
+                flatMap(agency -> getRoutesForAgency(agency).stream()).
+                collect(Collectors.toList());
+
+        // a platform or station, and the route stations boarded from it, all belong to the same station, so each
+        // partition writes to nodes no other partition touches
+        final int partitions = Runtime.getRuntime().availableProcessors();
+        final Map<Route, List<List<StopCall>>> stopCallsByPartition = groupStopCallsByPartition(routes, partitions);
+
+        IntStream.range(0, partitions).parallel().forEach(partition ->
+                forRoutesInBatches(routes, (tx, route) -> stopCallsByPartition.get(route).get(partition).
+                        forEach(stopCall -> createBoardingAndDepart(tx, builderCache, stopCall, route, stopCall.getTrip()))));
+    }
+
+    /***
+     * @return for each route the included stop calls of each partition, in trip order, so trips are only iterated once
+     */
+    private Map<Route, List<List<StopCall>>> groupStopCallsByPartition(List<Route> routes, int partitions) {
+        final Map<Route, List<List<StopCall>>> result = new HashMap<>();
+        for (Route route : routes) {
+            final List<List<StopCall>> forRoute = new ArrayList<>(partitions);
+            IntStream.range(0, partitions).forEach(unused -> forRoute.add(new ArrayList<>()));
+            for (Trip trip : getTripsInOrder(route)) {
+                trip.getStopCalls().stream().
+                        filter(graphFilter::shouldInclude).
+                        forEach(stopCall -> forRoute.get(partitionFor(stopCall.getStation(), partitions)).add(stopCall));
+            }
+            result.put(route, forRoute);
         }
+        return result;
+    }
 
-        builderCache.routeClear();
+    private static int partitionFor(Station station, int partitions) {
+        return Math.floorMod(station.getId().getGraphId().hashCode(), partitions);
+    }
 
+    private void forRoutesInBatches(List<Route> routes, BiConsumer<Transaction, Route> forRoute) {
+        for (int begin = 0; begin < routes.size(); begin = begin + ROUTES_PER_TRANSACTION) {
+            final List<Route> batch = routes.subList(begin, Math.min(begin + ROUTES_PER_TRANSACTION, routes.size()));
+            try (Transaction tx = graphDatabase.beginTx()) {
+                batch.forEach(route -> forRoute.accept(tx, route));
+                tx.commit();
+            }
+        }
     }
 
+    /***
+     * @return routes to include, in id order so graph is built the same way each time
+     */
     @NotNull
-    private Stream<Route> getRoutesForAgency(Agency agency) {
-        return agency.getRoutes().stream().filter(graphFilter::shouldIncludeRoute);
+    private List<Route> getRoutesForAgency(Agency agency) {
+        return agency.getRoutes().stream().
+                filter(graphFilter::shouldIncludeRoute).
+                sorted(Comparator.comparing(Route::getId)).
+                collect(Collectors.toList());
+    }
+
+    private static List<Trip> getTripsInOrder(Route route) {
+        return route.getTrips().stream().
+                sorted(Comparator.comparing(Trip::getId)).
+                collect(Collectors.toList());
     }
 
     private void createMinuteNodesAndRecordUpdatesForTrips(Transaction tx, Route route,
                                                            GraphBuilderCache routeBuilderCache) {
 
         // time nodes and relationships for trips
-        for (Trip trip : route.getTrips()) {
+        for (Trip trip : getTripsInOrder(route)) {
             Map<StationTime, Node> timeNodes = createMinuteNodes(tx, trip, routeBuilderCache);
             createTripRelationships(tx, route, trip, routeBuilderCache, timeNodes);
             timeNodes.clear();
@@ -232,17 +304,8 @@ public class StagedTransportGraphBuilder extends GraphBuilder {
         });
     }
 
-    private void buildGraphForBoardsAndDeparts(Route route, GraphBuilderCache routeBuilderCache,
-                                               Transaction tx) {
-        for (Trip trip : route.getTrips()) {
-            trip.getStopCalls().stream().
-                    filter(graphFilter::shouldInclude).
-                    forEach(stopCall -> createBoardingAndDepart(tx, routeBuilderCache, stopCall, route, trip));
-        }
-    }
-
     private void createServiceAndHourNodesForRoute(Transaction tx, Route route, GraphBuilderCache stationCache) {
-        route.getTrips().forEach(trip -> {
+        getTripsInOrder(route).forEach(trip -> {
                 StopCalls stops = trip.getStopCalls();
                 List<StopCalls.StopLeg> legs = stops.getLegs(graphFilter.isFiltered());
                 legs.forEach(leg -> {
@@ -311,8 +374,8 @@ public class StagedTransportGraphBuilder extends GraphBuilder {
 
     private void createOnRouteRelationships(Transaction tx, Route route, GraphBuilderCache routeBuilderCache) {
 
-        Map<StopCalls.StopLeg, Duration> pairs = new HashMap<>();
-        route.getTrips().forEach(trip -> {
+        Map<StopCalls.StopLeg, Duration> pairs = new LinkedHashMap<>();
+        getTripsInOrder(route).forEach(trip -> {
             StopCalls stops = trip.getStopCalls();
             stops.getLegs(graphFilter.isFiltered()).forEach(leg -> {
                 if (includeBothStops(leg)) {
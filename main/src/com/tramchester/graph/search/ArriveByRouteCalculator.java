@@ -0,0 +1,7 @@
+package com.tramchester.graph.search;
+
+/***
+ * Calculator for arrive by requests, the JourneyRequest time is the latest arrival rather than the departure
+ */
+public interface ArriveByRouteCalculator extends TramRouteCalculator {
+}
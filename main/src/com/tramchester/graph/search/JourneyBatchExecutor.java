@@ -0,0 +1,80 @@
+package com.tramchester.graph.search;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Worker pool for the queries in a batch journey request, see config journeyBatchThreads. Kept apart from
+ * JourneySearchExecutor as each batch query may itself wait on path requests searched by that pool.
+ */
+@LazySingleton
+public class JourneyBatchExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(JourneyBatchExecutor.class);
+
+    private final int numberOfThreads;
+    private ExecutorService executorService;
+
+    @Inject
+    public JourneyBatchExecutor(TramchesterConfig config) {
+        this.numberOfThreads = config.getJourneyBatchThreads();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting with " + numberOfThreads + " threads");
+        final AtomicInteger count = new AtomicInteger(0);
+        executorService = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "journeyBatch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+        logger.info("stopped");
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /***
+     * @return completion service on this pool, results are taken in the order they finish
+     */
+    public <T> CompletionService<T> createCompletionService() {
+        if (executorService == null) {
+            throw new RuntimeException("Batch executor was stopped");
+        }
+        return new ExecutorCompletionService<>(executorService);
+    }
+
+    public <T> T take(CompletionService<T> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for batch query", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Batch query failed", cause);
+        }
+    }
+}
@@ -5,10 +5,11 @@ import com.tramchester.domain.LocationSet;
 import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.id.IdFor;
-import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.IndexedIdSet;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
 import com.tramchester.repository.RunningRoutesAndServices;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,17 +31,20 @@ public class JourneyConstraints {
     private final TramchesterConfig config;
     private final int maxPathLength;
     private final LocationSet endStations;
-    private final IdSet<Station> closedStationsIds;
+    private final IndexedIdSet<Station> closedStationsIds;
     private final Duration maxJourneyDuration;
     private final int maxWalkingConnections;
     private final int maxNumberWalkingConnections;
     private final LowestCostsForDestRoutes lowestCostForDestinations;
+    private final LandmarkLowerBounds.ForDestinations lowerBounds;
 
     public JourneyConstraints(TramchesterConfig config, RunningRoutesAndServices.FilterForDate routesAndServicesFilter,
-                              IdSet<Station> closedStationsIds, LocationSet endStations,
-                              LowestCostsForDestRoutes lowestCostForDestinations, Duration maxJourneyDuration) {
+                              IndexedIdSet<Station> closedStationsIds, LocationSet endStations,
+                              LowestCostsForDestRoutes lowestCostForDestinations, LandmarkLowerBounds.ForDestinations lowerBounds,
+                              Duration maxJourneyDuration) {
         this.config = config;
         this.lowestCostForDestinations = lowestCostForDestinations;
+        this.lowerBounds = lowerBounds;
         this.routesAndServicesFilter = routesAndServicesFilter;
         this.maxPathLength = computeMaxPathLength();
 
@@ -98,6 +102,10 @@ public class JourneyConstraints {
         return lowestCostForDestinations;
     }
 
+    public LandmarkLowerBounds.ForDestinations getLowerBounds() {
+        return lowerBounds;
+    }
+
     @Override
     public String toString() {
         return "JourneyConstraints{" +
@@ -0,0 +1,147 @@
+package com.tramchester.graph.search;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.metrics.HasMetrics;
+import com.tramchester.metrics.RegistersMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/***
+ * Bounds the number of journey searches running at once, see config journeyMaxConcurrentSearches. Requests wait
+ * for a slot for at most journeyMaxQueueMillis, and are rejected straight away if journeyMaxQueuedSearches are
+ * already waiting, so under load callers get a quick rejection rather than a search that runs into the calc timeout.
+ * Searches still run on the calling thread as the graph transaction is owned by it.
+ */
+@LazySingleton
+public class JourneySearchAdmission implements HasMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(JourneySearchAdmission.class);
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxQueueMillis;
+
+    private final Semaphore running;
+    private final AtomicInteger queued;
+    private final AtomicInteger rejected;
+    private final Histogram waitMillis;
+
+    @Inject
+    public JourneySearchAdmission(TramchesterConfig config) {
+        maxConcurrent = config.getJourneyMaxConcurrentSearches();
+        maxQueued = config.getJourneyMaxQueuedSearches();
+        maxQueueMillis = config.getJourneyMaxQueueMillis();
+
+        running = new Semaphore(Math.max(1, maxConcurrent), true);
+        queued = new AtomicInteger(0);
+        rejected = new AtomicInteger(0);
+        waitMillis = new Histogram(new ExponentiallyDecayingReservoir());
+    }
+
+    public boolean isEnabled() {
+        return maxConcurrent > 0;
+    }
+
+    /***
+     * Wait for a search slot, up to the queue time budget
+     * @return permit to close once the search, including any streaming of results, is finished, or empty if rejected
+     */
+    public Optional<Permit> tryAdmit() {
+        if (!isEnabled()) {
+            return Optional.of(Permit.Unbounded);
+        }
+
+        if (running.tryAcquire()) {
+            waitMillis.update(0);
+            return Optional.of(new Permit(running));
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return reject("queue full");
+        }
+
+        final long begin = System.nanoTime();
+        try {
+            final boolean acquired = running.tryAcquire(maxQueueMillis, TimeUnit.MILLISECONDS);
+            waitMillis.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            if (acquired) {
+                return Optional.of(new Permit(running));
+            }
+            return reject("waited " + maxQueueMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject("interrupted");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private Optional<Permit> reject(String reason) {
+        rejected.incrementAndGet();
+        logger.warn(format("Rejected journey search, %s, running %s queued %s", reason, getNumberRunning(), queued.get()));
+        return Optional.empty();
+    }
+
+    /***
+     * @return how long a rejected caller should wait before trying again, at least one second
+     */
+    public Duration getRetryAfter() {
+        return Duration.ofSeconds(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxQueueMillis)));
+    }
+
+    public int getNumberRunning() {
+        return isEnabled() ? maxConcurrent - running.availablePermits() : 0;
+    }
+
+    public int getNumberQueued() {
+        return queued.get();
+    }
+
+    public int getNumberRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void registerMetrics(RegistersMetrics registersMetrics) {
+        registersMetrics.add(this, "admission", "running", this::getNumberRunning);
+        registersMetrics.add(this, "admission", "queued", this::getNumberQueued);
+        registersMetrics.add(this, "admission", "rejected", this::getNumberRejected);
+        registersMetrics.add(this, "admission", "waitMillisMean", () -> (int) waitMillis.getSnapshot().getMean());
+        registersMetrics.add(this, "admission", "waitMillisP99", () -> (int) waitMillis.getSnapshot().get99thPercentile());
+    }
+
+    public static class Permit implements AutoCloseable {
+        private static final Permit Unbounded = new Permit(null);
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released;
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+            this.released = new AtomicBoolean(false);
+        }
+
+        /***
+         * Release the slot, safe to call more than once
+         */
+        @Override
+        public void close() {
+            if (semaphore != null && released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tramchester.graph.search;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Optional worker pool used to search path requests for a journey in parallel, see config journeySearchThreads.
+ * Searches in flight, running or queued, are bounded by the number of threads across all requests, so requests
+ * admitted by JourneySearchAdmission share the workers rather than queueing an unbounded backlog on them.
+ */
+@LazySingleton
+public class JourneySearchExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(JourneySearchExecutor.class);
+
+    private final int numberOfThreads;
+    private final Semaphore inFlight;
+    private ExecutorService executorService;
+
+    @Inject
+    public JourneySearchExecutor(TramchesterConfig config) {
+        this.numberOfThreads = config.getJourneySearchThreads();
+        this.inFlight = new Semaphore(Math.max(1, numberOfThreads), true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (isEnabled()) {
+            logger.info("starting with " + numberOfThreads + " threads");
+            final AtomicInteger count = new AtomicInteger(0);
+            executorService = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+                final Thread thread = new Thread(runnable, "journeySearch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            logger.info("disabled, path requests will be searched sequentially");
+        }
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+        logger.info("stopped");
+    }
+
+    public boolean isEnabled() {
+        return numberOfThreads > 1;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /***
+     * Submit if a worker is free, or becomes free within waitMillis
+     * @return the submitted search, or empty if no worker became free in time
+     */
+    public <T> Optional<Future<T>> trySubmit(Callable<T> callable, long waitMillis) {
+        if (executorService == null) {
+            throw new RuntimeException("Parallel journey search is not enabled or executor was stopped");
+        }
+        try {
+            if (!inFlight.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                return Optional.empty();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting to submit journey search", e);
+        }
+
+        // released once run() returns, a search cancelled while running still holds its worker until then,
+        // or by done() when cancelled before it started, in which case run() does nothing
+        final AtomicBoolean started = new AtomicBoolean(false);
+        final FutureTask<T> task = new FutureTask<>(callable) {
+            @Override
+            public void run() {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    super.run();
+                } finally {
+                    inFlight.release();
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (started.compareAndSet(false, true)) {
+                    inFlight.release();
+                }
+            }
+        };
+        try {
+            executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+        return Optional.of(task);
+    }
+
+    public int getNumberInFlight() {
+        return Math.max(1, numberOfThreads) - inFlight.availablePermits();
+    }
+
+    public <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for journey search", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Journey search failed", cause);
+        }
+    }
+}
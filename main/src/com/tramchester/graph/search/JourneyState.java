@@ -2,7 +2,6 @@ package com.tramchester.graph.search;
 
 import com.tramchester.domain.exceptions.TramchesterException;
 import com.tramchester.domain.id.IdFor;
-import com.tramchester.domain.id.IdSet;
 import com.tramchester.domain.input.Trip;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
@@ -28,14 +27,14 @@ public class JourneyState implements ImmutableJourneyState, JourneyStateUpdate {
     private Duration journeyOffset;
     private TramTime boardingTime;
     private TraversalState traversalState;
-    private final IdSet<Trip> tripsDone;
+    private TripsDone tripsDone;
 
     public JourneyState(TramTime queryTime, TraversalState traversalState) {
         coreState = new CoreState(queryTime);
 
         this.traversalState = traversalState;
         journeyOffset = Duration.ZERO;
-        tripsDone = new IdSet<>();
+        tripsDone = TripsDone.empty();
     }
 
     public static JourneyState fromPrevious(ImmutableJourneyState previousState) {
@@ -44,12 +43,13 @@ public class JourneyState implements ImmutableJourneyState, JourneyStateUpdate {
 
     // Copy cons
     // NOTE: vital to copy any collections here, otherwise different search branches interfere with each other
+    // tripsDone is persistent so is shared, leave() replaces it rather than updating
     private JourneyState(JourneyState previousState) {
         this.coreState = new CoreState(previousState.coreState);
 
         this.journeyOffset = previousState.journeyOffset;
         this.traversalState = previousState.traversalState;
-        this.tripsDone = IdSet.copy(previousState.tripsDone);
+        this.tripsDone = previousState.tripsDone;
         if (coreState.onBoard()) {
             this.boardingTime = previousState.boardingTime;
         }
@@ -128,7 +128,7 @@ public class JourneyState implements ImmutableJourneyState, JourneyStateUpdate {
             throw new TramchesterException("Not currently on " +mode+ " was " + coreState.currentMode);
         }
         leave(totalDuration);
-        tripsDone.add(tripId);
+        tripsDone = tripsDone.add(tripId);
         coreState.leaveVehicle();
     }
 
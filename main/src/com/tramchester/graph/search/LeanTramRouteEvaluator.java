@@ -0,0 +1,37 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.SearchCancellation;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.graph.caches.LowestCostSeen;
+import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.PreviousVisits;
+import com.tramchester.graph.search.diagnostics.HowIGotHere;
+import com.tramchester.graph.search.diagnostics.ServiceReasons;
+import org.neo4j.graphdb.Path;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+/***
+ * Same heuristics as TramRouteEvaluator but does not record how each path was reached, the reasons are then shared
+ * per reason code and ServiceReasons only counts them. Used unless diagnostics are enabled for the request.
+ */
+public class LeanTramRouteEvaluator extends TramRouteEvaluator {
+
+    public LeanTramRouteEvaluator(ServiceHeuristics serviceHeuristics, Set<Long> destinationNodeIds,
+                                  NodeContentsRepository nodeContentsRepository, ServiceReasons reasons,
+                                  PreviousVisits previousVisits, LowestCostSeen bestResultSoFar, TramchesterConfig config,
+                                  long startNodeId, Instant begin, ProvidesNow providesNow, Set<TransportMode> requestedModes,
+                                  Duration maxInitialWait, SearchCancellation cancellation) {
+        super(serviceHeuristics, destinationNodeIds, nodeContentsRepository, reasons, previousVisits, bestResultSoFar, config,
+                startNodeId, begin, providesNow, requestedModes, maxInitialWait, cancellation);
+    }
+
+    @Override
+    protected HowIGotHere createHowIGotHere(final Path path, final ImmutableJourneyState journeyState) {
+        return HowIGotHere.NotRecorded;
+    }
+}
@@ -132,6 +132,11 @@ class MapStatesToStages implements JourneyStateUpdate {
         return actualTime.plus(totalCost.minus(costOffsetAtActual));
     }
 
+    @Override
+    public TramTime getJourneyClock() {
+        return getActualClock();
+    }
+
     @Override
     public void beginTrip(IdFor<Trip> newTripId) {
         logger.debug("Begin trip:" + newTripId);
@@ -4,7 +4,7 @@ import com.netflix.governator.guice.lazy.LazySingleton;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.*;
 import com.tramchester.domain.dates.TramDate;
-import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.IndexedIdSet;
 import com.tramchester.domain.places.Location;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.places.StationWalk;
@@ -15,12 +15,19 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.GraphDatabase;
 import com.tramchester.graph.GraphQuery;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
 import com.tramchester.graph.caches.LowestCostSeen;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.OutboundAdjacency;
+import com.tramchester.graph.caches.PreviousVisitsPool;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
 import com.tramchester.graph.search.diagnostics.ReasonsToGraphViz;
+import com.tramchester.graph.search.diagnostics.SearchStatistics;
 import com.tramchester.graph.search.stateMachine.states.TraversalStateFactory;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import com.tramchester.metrics.CacheMetrics;
 import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.IdRegistry;
 import com.tramchester.repository.RouteInterchangeRepository;
 import com.tramchester.repository.RunningRoutesAndServices;
 import com.tramchester.repository.TransportData;
@@ -32,12 +39,13 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.time.Duration;
-import java.util.Collections;
-import java.util.EnumSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.String.format;
 
@@ -49,6 +57,10 @@ public class RouteCalculator extends RouteCalculatorSupport implements TramRoute
     private final ClosedStationsRepository closedStationsRepository;
     private final RunningRoutesAndServices runningRoutesAndServices;
     private final CacheMetrics cacheMetrics;
+    private final GraphDatabase graphDatabaseService;
+    private final JourneySearchExecutor journeySearchExecutor;
+    private final LandmarkLowerBounds landmarkLowerBounds;
+    private final IdRegistry idRegistry;
 
     @Inject
     public RouteCalculator(TransportData transportData, NodeContentsRepository nodeOperations, PathToStages pathToStages,
@@ -58,15 +70,24 @@ public class RouteCalculator extends RouteCalculatorSupport implements TramRoute
                            SortsPositions sortsPosition, MapPathToLocations mapPathToLocations,
                            BetweenRoutesCostRepository routeToRouteCosts, ReasonsToGraphViz reasonToGraphViz,
                            ClosedStationsRepository closedStationsRepository, RunningRoutesAndServices runningRoutesAndServices,
-                           RouteInterchangeRepository routeInterchanges, CacheMetrics cacheMetrics) {
+                           RouteInterchangeRepository routeInterchanges, CacheMetrics cacheMetrics,
+                           PreviousVisitsPool previousVisitsPool, JourneySearchExecutor journeySearchExecutor,
+                           SearchStatistics searchStatistics, TimeOrderedAdjacency timeOrderedAdjacency,
+                           OutboundAdjacency outboundAdjacency, LandmarkLowerBounds landmarkLowerBounds,
+                           IdRegistry idRegistry) {
         super(graphQuery, pathToStages, nodeOperations, graphDatabaseService,
                 traversalStateFactory, providesNow, sortsPosition, mapPathToLocations,
-                transportData, config, transportData, routeToRouteCosts, reasonToGraphViz, routeInterchanges);
+                transportData, config, transportData, routeToRouteCosts, reasonToGraphViz, routeInterchanges, previousVisitsPool,
+                searchStatistics, timeOrderedAdjacency, outboundAdjacency);
         this.config = config;
         this.createQueryTimes = createQueryTimes;
         this.closedStationsRepository = closedStationsRepository;
         this.runningRoutesAndServices = runningRoutesAndServices;
         this.cacheMetrics = cacheMetrics;
+        this.graphDatabaseService = graphDatabaseService;
+        this.journeySearchExecutor = journeySearchExecutor;
+        this.landmarkLowerBounds = landmarkLowerBounds;
+        this.idRegistry = idRegistry;
     }
 
     @Override
@@ -79,7 +100,7 @@ public class RouteCalculator extends RouteCalculatorSupport implements TramRoute
 
         LocationSet destinations = LocationSet.singleton(destination);
 
-        final List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getOriginalTime());
+        final List<TramTime> queryTimes = getQueryTimes(journeyRequest);
 
         TramDate date = journeyRequest.getDate();
 
@@ -98,50 +119,69 @@ public class RouteCalculator extends RouteCalculatorSupport implements TramRoute
         }
 
         Duration maxInitialWait = getMaxInitialWaitFor(start, config);
-        return getJourneyStream(txn, startNode, endNode, journeyRequest, destinations, queryTimes, numberOfChanges, maxInitialWait).
+        return getJourneyStream(txn, startNode, endNode, VirtualWalks.none(), VirtualWalks.Bound.empty(), journeyRequest,
+                destinations, queryTimes, numberOfChanges, maxInitialWait).
                 limit(journeyRequest.getMaxNumberOfJourneys());
     }
 
-    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Location<?> start, Node endOfWalk, LocationSet destinations,
+    @Override
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Location<?> start, VirtualWalks walks, LocationSet destinations,
                                                    JourneyRequest journeyRequest, NumberOfChanges numberOfChanges)
     {
         Node startNode = getLocationNodeSafe(txn, start);
-        final List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getOriginalTime());
+        final VirtualWalks.Bound walkNodes = bindWalks(txn, walks);
+        final List<TramTime> queryTimes = getQueryTimes(journeyRequest);
 
         Duration maxInitialWait = getMaxInitialWaitFor(start, config);
 
-        return getJourneyStream(txn, startNode, endOfWalk, journeyRequest, destinations, queryTimes, numberOfChanges, maxInitialWait).
+        return getJourneyStream(txn, startNode, walkNodes.getEndNode(), walks, walkNodes, journeyRequest, destinations, queryTimes,
+                numberOfChanges, maxInitialWait).
                 limit(journeyRequest.getMaxNumberOfJourneys());
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, Set<StationWalk> stationWalks, Node startOfWalkNode, Location<?> destination,
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, VirtualWalks walks, Location<?> destination,
                                                      JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        final Set<StationWalk> stationWalks = walks.getWalksAtStart();
 
         final InitialWalksFinished finished = new InitialWalksFinished(journeyRequest, stationWalks);
+        final VirtualWalks.Bound walkNodes = bindWalks(txn, walks);
         Node endNode = getLocationNodeSafe(txn, destination);
         LocationSet destinations = LocationSet.singleton(destination);
-        final List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getOriginalTime(), stationWalks);
+        final List<TramTime> queryTimes = getQueryTimes(journeyRequest);
 
         Duration maxInitialWait = getMaxInitialWaitFor(stationWalks, config);
 
-        return getJourneyStream(txn, startOfWalkNode, endNode, journeyRequest, destinations, queryTimes, numberOfChanges, maxInitialWait).
+        return getJourneyStream(txn, walkNodes.getStartNode(), endNode, walks, walkNodes, journeyRequest, destinations, queryTimes,
+                numberOfChanges, maxInitialWait).
                 takeWhile(finished::notDoneYet);
     }
 
-    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, Set<StationWalk> stationWalks, Node startNode, Node endNode,
-                                                           LocationSet destinationStations, JourneyRequest journeyRequest,
-                                                           NumberOfChanges numberOfChanges) {
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, VirtualWalks walks, LocationSet destinationStations,
+                                                           JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        final Set<StationWalk> stationWalks = walks.getWalksAtStart();
 
         final InitialWalksFinished finished = new InitialWalksFinished(journeyRequest, stationWalks);
-        final List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getOriginalTime(), stationWalks);
+        final VirtualWalks.Bound walkNodes = bindWalks(txn, walks);
+        final List<TramTime> queryTimes = getQueryTimes(journeyRequest);
 
         Duration maxInitialWait = getMaxInitialWaitFor(stationWalks, config);
-        return getJourneyStream(txn, startNode, endNode, journeyRequest, destinationStations, queryTimes, numberOfChanges, maxInitialWait).
+        return getJourneyStream(txn, walkNodes.getStartNode(), walkNodes.getEndNode(), walks, walkNodes, journeyRequest,
+                destinationStations, queryTimes, numberOfChanges, maxInitialWait).
                 takeWhile(finished::notDoneYet);
     }
 
-    private Stream<Journey> getJourneyStream(Transaction txn, Node startNode, Node endNode, JourneyRequest journeyRequest,
+    private List<TramTime> getQueryTimes(JourneyRequest journeyRequest) {
+        if (journeyRequest.hasDepartureWindow()) {
+            // would need a search per query time across the window, see ConnectionScanRouteCalculator
+            logger.warn("Departure window is not supported, searching from query time only for " + journeyRequest);
+        }
+        return createQueryTimes.generate(journeyRequest.getOriginalTime());
+    }
+
+    private Stream<Journey> getJourneyStream(Transaction txn, Node startNode, Node endNode, VirtualWalks walks,
+                                             VirtualWalks.Bound walkNodes, JourneyRequest journeyRequest,
                                              LocationSet destinations, List<TramTime> queryTimes, NumberOfChanges numberOfChanges,
                                              Duration maxInitialWait) {
 
@@ -166,26 +206,36 @@ public class RouteCalculator extends RouteCalculatorSupport implements TramRoute
                 journeyRequest.getTimeRange(), requestedModes);
         final Duration maxJourneyDuration = getMaxDurationFor(journeyRequest);
 
-        final IdSet<Station> closedStations = closedStationsRepository.getFullyClosedStationsFor(tramDate).stream().
-                map(ClosedStation::getStationId).collect(IdSet.idCollector());
+        final IndexedIdSet<Station> closedStations = idRegistry.stations().setOf(closedStationsRepository.
+                getFullyClosedStationsFor(tramDate).stream().map(ClosedStation::getStationId));
 
         final JourneyConstraints journeyConstraints = new JourneyConstraints(config, runningRoutesAndServices.getFor(tramDate),
-                closedStations, destinations, lowestCostsForRoutes, maxJourneyDuration);
+                closedStations, destinations, lowestCostsForRoutes, landmarkLowerBounds.forDestinations(destinationNodeIds),
+                maxJourneyDuration);
 
         logger.info("Journey Constraints: " + journeyConstraints);
         logger.info("Query times: " + queryTimes);
 
+        // shared by all the path requests, so later searches prune against arrivals found by earlier ones
         final LowestCostSeen lowestCostSeen = new LowestCostSeen();
 
         final AtomicInteger journeyIndex = new AtomicInteger(0);
 
-        final Stream<Journey> results = numChangesRange(journeyRequest, numberOfChanges).
-                flatMap(numChanges -> queryTimes.stream().
-                        map(queryTime -> createPathRequest(startNode, tramDate, queryTime, requestedModes, numChanges, journeyConstraints, maxInitialWait))).
-                flatMap(pathRequest -> findShortestPath(txn, destinationNodeIds, destinations,
-                        createServiceReasons(journeyRequest, pathRequest), pathRequest, lowestCostsForRoutes, createPreviousVisits(),
-                        lowestCostSeen)).
-                map(path -> createJourney(journeyRequest, path, destinations, lowestCostsForRoutes, journeyIndex));
+        final Stream<Journey> results;
+        if (journeySearchExecutor.isEnabled()) {
+            results = getJourneysInParallel(startNode, walks, journeyRequest, destinations, queryTimes, numberOfChanges, maxInitialWait,
+                    destinationNodeIds, lowestCostsForRoutes, journeyConstraints, lowestCostSeen, journeyIndex);
+        } else {
+            results = numChangesRange(journeyRequest, numberOfChanges).
+                    flatMap(numChanges -> queryTimes.stream().
+                            map(queryTime -> createPathRequest(startNode, walkNodes, tramDate, queryTime, requestedModes, numChanges,
+                                    journeyConstraints, maxInitialWait))).
+                    takeWhile(pathRequest -> !journeyRequest.getCancellation().isCancelled()).
+                    flatMap(pathRequest -> findShortestPath(txn, destinationNodeIds, destinations,
+                            createServiceReasons(journeyRequest, pathRequest), pathRequest, lowestCostsForRoutes, createPreviousVisits(),
+                            lowestCostSeen)).
+                    map(path -> createJourney(journeyRequest, path, destinations, lowestCostsForRoutes, journeyIndex));
+        }
 
         //noinspection ResultOfMethodCallIgnored
         results.onClose(() -> {
@@ -196,6 +246,143 @@ public class RouteCalculator extends RouteCalculatorSupport implements TramRoute
         return results;
     }
 
+    /***
+     * Each (numChanges, queryTime) path request is searched by a worker with its own transaction, results are returned
+     * in the same order as the sequential search. At most one path request per worker thread is in flight, the rest
+     * are submitted as results are consumed. Closing the stream cancels the searches still running, so limit() and
+     * takeWhile() on the returned stream still cut the search short. The LowestCostSeen is shared between workers, so
+     * pruning depends on which arrivals were found first, the quickest journeys are the same as the sequential search.
+     */
+    private Stream<Journey> getJourneysInParallel(Node startNode, VirtualWalks walks, JourneyRequest journeyRequest, LocationSet destinations,
+                                                  List<TramTime> queryTimes, NumberOfChanges numberOfChanges, Duration maxInitialWait,
+                                                  Set<Long> destinationNodeIds, LowestCostsForDestRoutes lowestCostsForRoutes,
+                                                  JourneyConstraints journeyConstraints, LowestCostSeen lowestCostSeen,
+                                                  AtomicInteger journeyIndex) {
+        final long startNodeId = startNode.getId();
+
+        // cancelled along with the request, or once the results are no longer wanted
+        final SearchCancellation parentCancellation = journeyRequest.getCancellation();
+        final SearchCancellation cancellation = parentCancellation.createChild(parentCancellation.getDeadline());
+
+        final Iterator<Callable<List<Journey>>> searches = numChangesRange(journeyRequest, numberOfChanges).
+                flatMap(numChanges -> queryTimes.stream().
+                        map(queryTime -> (Callable<List<Journey>>) () ->
+                                findJourneysFor(startNodeId, walks, journeyRequest, destinations, queryTime, numChanges, maxInitialWait,
+                                        destinationNodeIds, lowestCostsForRoutes, journeyConstraints, lowestCostSeen, cancellation))).
+                iterator();
+
+        final InOrderSearches inOrderSearches = new InOrderSearches(searches, cancellation,
+                journeySearchExecutor.getNumberOfThreads());
+
+        // numbered here, as found, so indexes match those of the sequential search
+        final Stream<Journey> results = StreamSupport.stream(Spliterators.spliteratorUnknownSize(inOrderSearches,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false).
+                flatMap(List::stream).
+                map(journey -> journey.withJourneyIndex(journeyIndex.getAndIncrement()));
+
+        //noinspection ResultOfMethodCallIgnored
+        results.onClose(inOrderSearches::close);
+
+        return results;
+    }
+
+    private List<Journey> findJourneysFor(long startNodeId, VirtualWalks walks, JourneyRequest journeyRequest, LocationSet destinations, TramTime queryTime,
+                                          int numChanges, Duration maxInitialWait, Set<Long> destinationNodeIds,
+                                          LowestCostsForDestRoutes lowestCostsForRoutes, JourneyConstraints journeyConstraints,
+                                          LowestCostSeen lowestCostSeen, SearchCancellation cancellation) {
+        if (cancellation.isCancelled()) {
+            return Collections.emptyList();
+        }
+        final AtomicInteger unnumbered = new AtomicInteger(0);
+
+        // nodes are bound to the transaction they were loaded in, so look up start again for this worker
+        try (Transaction workerTxn = graphDatabaseService.beginTx()) {
+            // walks are not in the graph, so bind them again for this worker
+            final VirtualWalks.Bound walkNodes = bindWalks(workerTxn, walks);
+            final Node startNode = walkNodes.hasStart() ? walkNodes.getStartNode() : workerTxn.getNodeById(startNodeId);
+            final PathRequest pathRequest = createPathRequest(startNode, walkNodes, journeyRequest.getDate(), queryTime,
+                    journeyRequest.getRequestedModes(), numChanges, journeyConstraints, maxInitialWait);
+
+            try (Stream<RouteCalculator.TimedPath> paths = findShortestPath(workerTxn, destinationNodeIds, destinations,
+                    createServiceReasons(journeyRequest, pathRequest, cancellation), pathRequest, lowestCostsForRoutes,
+                    createPreviousVisits(), lowestCostSeen)) {
+                return paths.map(path -> createJourney(journeyRequest, path, destinations, lowestCostsForRoutes, unnumbered)).
+                        collect(Collectors.toList());
+            }
+        }
+    }
+
+    /***
+     * Submits searches to the executor as results are taken, keeping a bounded number in flight, and gives the results
+     * back in submission order. Workers are shared with other requests, so only waits for a free one when nothing is
+     * in flight for this request, and then only up to the request deadline.
+     */
+    private class InOrderSearches implements Iterator<List<Journey>>, AutoCloseable {
+        private final Iterator<Callable<List<Journey>>> searches;
+        private final SearchCancellation cancellation;
+        private final int maxInFlight;
+        private final Deque<Future<List<Journey>>> inFlight;
+        private Callable<List<Journey>> notSubmitted;
+
+        private InOrderSearches(Iterator<Callable<List<Journey>>> searches, SearchCancellation cancellation, int maxInFlight) {
+            this.searches = searches;
+            this.cancellation = cancellation;
+            this.maxInFlight = maxInFlight;
+            inFlight = new ArrayDeque<>(maxInFlight);
+        }
+
+        private void submitUpToLimit() {
+            while (inFlight.size() < maxInFlight && (notSubmitted != null || searches.hasNext()) && !cancellation.isCancelled()) {
+                final Callable<List<Journey>> search = notSubmitted != null ? notSubmitted : searches.next();
+                final long waitMillis = inFlight.isEmpty() ? millisUntilDeadline() : 0;
+                final Optional<Future<List<Journey>>> submitted = journeySearchExecutor.trySubmit(search, waitMillis);
+                if (submitted.isPresent()) {
+                    notSubmitted = null;
+                    inFlight.add(submitted.get());
+                } else if (inFlight.isEmpty()) {
+                    logger.warn("No worker free before deadline, cancelling search");
+                    cancellation.cancel();
+                    notSubmitted = null;
+                } else {
+                    // try again once the next result is taken
+                    notSubmitted = search;
+                    return;
+                }
+            }
+        }
+
+        private long millisUntilDeadline() {
+            if (!cancellation.hasDeadline()) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, Duration.between(providesNow.getInstant(), cancellation.getDeadline()).toMillis());
+        }
+
+        @Override
+        public boolean hasNext() {
+            submitUpToLimit();
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public List<Journey> next() {
+            submitUpToLimit();
+            final Future<List<Journey>> next = inFlight.poll();
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            return journeySearchExecutor.get(next);
+        }
+
+        @Override
+        public void close() {
+            // searches already running see this and prune the rest of their traversal
+            cancellation.cancel();
+            inFlight.forEach(future -> future.cancel(false));
+            inFlight.clear();
+        }
+    }
+
     public static class TimedPath {
         private final Path path;
         private final TramTime queryTime;
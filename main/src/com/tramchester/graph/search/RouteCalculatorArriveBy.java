@@ -7,24 +7,26 @@ import com.tramchester.domain.JourneyRequest;
 import com.tramchester.domain.LocationSet;
 import com.tramchester.domain.NumberOfChanges;
 import com.tramchester.domain.places.Location;
-import com.tramchester.domain.places.StationWalk;
 import com.tramchester.domain.time.InvalidDurationException;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.RouteCostCalculator;
-import org.neo4j.graphdb.Node;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.time.Duration;
-import java.util.Set;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
+/***
+ * Arrive by via the graph, estimates a departure time from the average cost between start and destination and then
+ * searches forwards from it. See ConnectionScanArriveByCalculator for a single backwards search.
+ */
 @LazySingleton
-public class RouteCalculatorArriveBy implements TramRouteCalculator {
+public class RouteCalculatorArriveBy implements ArriveByRouteCalculator {
     private static final Logger logger = LoggerFactory.getLogger(RouteCalculatorArriveBy.class);
 
     private final RouteCostCalculator costCalculator;
@@ -55,50 +57,48 @@ public class RouteCalculatorArriveBy implements TramRouteCalculator {
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Location<?> start, Node endOfWalk, LocationSet  destStations,
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Location<?> start, VirtualWalks walks, LocationSet  destStations,
                                                    JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
         try {
-            Duration costToDest = costCalculator.getAverageCostBetween(txn, start, endOfWalk, journeyRequest.getDate(), journeyRequest.getRequestedModes());
+            Duration costToDest = costCalculator.getAverageCostBetween(txn, start, walks, journeyRequest.getDate(), journeyRequest.getRequestedModes());
             Duration maxInitialWait = RouteCalculatorSupport.getMaxInitialWaitFor(start, config);
             JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest, maxInitialWait);
             logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
-            return routeCalculator.calculateRouteWalkAtEnd(txn, start, endOfWalk, destStations, departureTime, numberOfChanges);
+            return routeCalculator.calculateRouteWalkAtEnd(txn, start, walks, destStations, departureTime, numberOfChanges);
         } catch (InvalidDurationException invalidDurationException) {
-            logger.error("Unable to compute cost from %s to node %s for %s".formatted(start.getId(), endOfWalk.getId(), journeyRequest),
+            logger.error("Unable to compute cost from %s to %s for %s".formatted(start.getId(), walks, journeyRequest),
                     invalidDurationException);
             return Stream.empty();
         }
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, Set<StationWalk> stationWalks, Node origin, Location<?> destination,
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, VirtualWalks walks, Location<?> destination,
                                                      JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
         try {
-            Duration costToDest = costCalculator.getAverageCostBetween(txn, origin, destination, journeyRequest.getDate(), journeyRequest.getRequestedModes());
-            Duration maxInitialWait = RouteCalculatorSupport.getMaxInitialWaitFor(stationWalks, config);
+            Duration costToDest = costCalculator.getAverageCostBetween(txn, walks, destination, journeyRequest.getDate(), journeyRequest.getRequestedModes());
+            Duration maxInitialWait = RouteCalculatorSupport.getMaxInitialWaitFor(walks.getWalksAtStart(), config);
             JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest, maxInitialWait);
             logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
-            return routeCalculator.calculateRouteWalkAtStart(txn, stationWalks, origin, destination, departureTime, numberOfChanges);
+            return routeCalculator.calculateRouteWalkAtStart(txn, walks, destination, departureTime, numberOfChanges);
         } catch (InvalidDurationException invalidDurationException) {
-            logger.error("Unable to compute cost from node %s to %s for %s".formatted(origin.getId(), destination.getId(), journeyRequest),
+            logger.error("Unable to compute cost from %s to %s for %s".formatted(walks, destination.getId(), journeyRequest),
                     invalidDurationException);
             return Stream.empty();
         }
     }
 
     @Override
-    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, Set<StationWalk> stationWalks, Node startNode,
-                                                           Node endNode, LocationSet destinationStations,
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, VirtualWalks walks, LocationSet destinationStations,
                                                            JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
         try {
-            Duration costToDest = costCalculator.getAverageCostBetween(txn, startNode, endNode, journeyRequest.getDate(), journeyRequest.getRequestedModes());
-            Duration maxInitialWait = RouteCalculatorSupport.getMaxInitialWaitFor(stationWalks, config);
+            Duration costToDest = costCalculator.getAverageCostBetween(txn, walks, journeyRequest.getDate(), journeyRequest.getRequestedModes());
+            Duration maxInitialWait = RouteCalculatorSupport.getMaxInitialWaitFor(walks.getWalksAtStart(), config);
             JourneyRequest departureTime = calcDepartTime(journeyRequest, costToDest, maxInitialWait);
             logger.info(format("Plan journey, arrive by %s so depart by %s", journeyRequest, departureTime));
-            return routeCalculator.calculateRouteWalkAtStartAndEnd(txn, stationWalks, startNode, endNode, destinationStations, departureTime, numberOfChanges);
+            return routeCalculator.calculateRouteWalkAtStartAndEnd(txn, walks, destinationStations, departureTime, numberOfChanges);
         } catch (InvalidDurationException invalidDurationException) {
-            logger.error("Unable to compute cost from node %s to node %s [walks:%s] for %s".formatted(
-                    startNode.getId(), endNode.getId(), stationWalks, journeyRequest), invalidDurationException);
+            logger.error("Unable to compute cost for %s for %s".formatted(walks, journeyRequest), invalidDurationException);
             return Stream.empty();
         }
     }
@@ -4,7 +4,7 @@ import com.netflix.governator.guice.lazy.LazySingleton;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.*;
 import com.tramchester.domain.dates.TramDate;
-import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.IndexedIdSet;
 import com.tramchester.domain.places.Location;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
@@ -16,11 +16,17 @@ import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.GraphDatabase;
 import com.tramchester.graph.GraphQuery;
 import com.tramchester.graph.RouteCostCalculator;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
 import com.tramchester.graph.caches.LowestCostSeen;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.OutboundAdjacency;
+import com.tramchester.graph.caches.PreviousVisitsPool;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
 import com.tramchester.graph.search.diagnostics.ReasonsToGraphViz;
+import com.tramchester.graph.search.diagnostics.SearchStatistics;
 import com.tramchester.graph.search.stateMachine.states.TraversalStateFactory;
 import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.IdRegistry;
 import com.tramchester.repository.RouteInterchangeRepository;
 import com.tramchester.repository.RunningRoutesAndServices;
 import com.tramchester.repository.TransportData;
@@ -48,6 +54,8 @@ public class RouteCalculatorForBoxes extends RouteCalculatorSupport {
     private final GraphDatabase graphDatabaseService;
     private final ClosedStationsRepository closedStationsRepository;
     private final RunningRoutesAndServices runningRoutesAndService;
+    private final LandmarkLowerBounds landmarkLowerBounds;
+    private final IdRegistry idRegistry;
 
     @Inject
     public RouteCalculatorForBoxes(TramchesterConfig config,
@@ -59,14 +67,20 @@ public class RouteCalculatorForBoxes extends RouteCalculatorSupport {
                                    SortsPositions sortsPosition, MapPathToLocations mapPathToLocations,
                                    BetweenRoutesCostRepository routeToRouteCosts, ReasonsToGraphViz reasonToGraphViz,
                                    ClosedStationsRepository closedStationsRepository, RunningRoutesAndServices runningRoutesAndService,
-                                   RouteInterchangeRepository routeInterchanges, RouteCostCalculator routeCostCalculator) {
+                                   RouteInterchangeRepository routeInterchanges, RouteCostCalculator routeCostCalculator,
+                                   PreviousVisitsPool previousVisitsPool, SearchStatistics searchStatistics,
+                                   TimeOrderedAdjacency timeOrderedAdjacency, OutboundAdjacency outboundAdjacency,
+                                   LandmarkLowerBounds landmarkLowerBounds, IdRegistry idRegistry) {
         super(graphQuery, pathToStages, nodeContentsRepository, graphDatabaseService,
                 traversalStateFactory, providesNow, sortsPosition, mapPathToLocations,
-                transportData, config, transportData, routeToRouteCosts, reasonToGraphViz, routeInterchanges);
+                transportData, config, transportData, routeToRouteCosts, reasonToGraphViz, routeInterchanges, previousVisitsPool,
+                searchStatistics, timeOrderedAdjacency, outboundAdjacency);
         this.config = config;
         this.graphDatabaseService = graphDatabaseService;
         this.closedStationsRepository = closedStationsRepository;
         this.runningRoutesAndService = runningRoutesAndService;
+        this.landmarkLowerBounds = landmarkLowerBounds;
+        this.idRegistry = idRegistry;
     }
 
     public Stream<JourneysForBox> calculateRoutes(LocationSet destinations, JourneyRequest journeyRequest,
@@ -83,14 +97,14 @@ public class RouteCalculatorForBoxes extends RouteCalculatorSupport {
                 journeyRequest.getTimeRange(), requestedModes);
         final RunningRoutesAndServices.FilterForDate routeAndServicesFilter = runningRoutesAndService.getFor(date);
 
-        final IdSet<Station> closedStations = closedStationsRepository.getFullyClosedStationsFor(date).stream().
-                map(ClosedStation::getStationId).collect(IdSet.idCollector());
+        final IndexedIdSet<Station> closedStations = idRegistry.stations().setOf(closedStationsRepository.
+                getFullyClosedStationsFor(date).stream().map(ClosedStation::getStationId));
+
+        final Set<Long> destinationNodeIds = getDestinationNodeIds(destinations);
 
         final Duration maxJourneyDuration = journeyRequest.getMaxJourneyDuration();
         final JourneyConstraints journeyConstraints = new JourneyConstraints(config, routeAndServicesFilter, closedStations,
-                destinations, lowestCostForDestinations, maxJourneyDuration);
-
-        final Set<Long> destinationNodeIds = getDestinationNodeIds(destinations);
+                destinations, lowestCostForDestinations, landmarkLowerBounds.forDestinations(destinationNodeIds), maxJourneyDuration);
 
         return grouped.parallelStream().map(box -> {
 
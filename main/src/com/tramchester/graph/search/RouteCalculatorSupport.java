@@ -15,9 +15,14 @@ import com.tramchester.graph.GraphQuery;
 import com.tramchester.graph.caches.LowestCostSeen;
 import com.tramchester.graph.caches.NodeContentsRepository;
 import com.tramchester.graph.caches.PreviousVisits;
+import com.tramchester.graph.caches.OutboundAdjacency;
+import com.tramchester.graph.caches.PreviousVisitsPool;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
 import com.tramchester.graph.search.diagnostics.ReasonsToGraphViz;
+import com.tramchester.graph.search.diagnostics.SearchStatistics;
 import com.tramchester.graph.search.diagnostics.ServiceReasons;
 import com.tramchester.graph.search.stateMachine.states.TraversalStateFactory;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import com.tramchester.repository.RouteInterchangeRepository;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.repository.TripRepository;
@@ -55,13 +60,19 @@ public class RouteCalculatorSupport {
     private final NodeContentsRepository nodeContentsRepository;
     private final ReasonsToGraphViz reasonToGraphViz;
     private final RouteInterchangeRepository routeInterchanges;
+    private final PreviousVisitsPool previousVisitsPool;
+    private final SearchStatistics searchStatistics;
+    private final TimeOrderedAdjacency timeOrderedAdjacency;
+    private final OutboundAdjacency outboundAdjacency;
 
     protected RouteCalculatorSupport(GraphQuery graphQuery, PathToStages pathToStages, NodeContentsRepository nodeContentsRepository,
                                      GraphDatabase graphDatabaseService, TraversalStateFactory traversalStateFactory,
                                      ProvidesNow providesNow, SortsPositions sortsPosition, MapPathToLocations mapPathToLocations,
                                      StationRepository stationRepository, TramchesterConfig config, TripRepository tripRepository,
                                      BetweenRoutesCostRepository routeToRouteCosts, ReasonsToGraphViz reasonToGraphViz,
-                                     RouteInterchangeRepository routeInterchanges) {
+                                     RouteInterchangeRepository routeInterchanges, PreviousVisitsPool previousVisitsPool,
+                                     SearchStatistics searchStatistics, TimeOrderedAdjacency timeOrderedAdjacency,
+                                     OutboundAdjacency outboundAdjacency) {
         this.graphQuery = graphQuery;
         this.pathToStages = pathToStages;
         this.nodeContentsRepository = nodeContentsRepository;
@@ -76,6 +87,10 @@ public class RouteCalculatorSupport {
         this.routeToRouteCosts = routeToRouteCosts;
         this.reasonToGraphViz = reasonToGraphViz;
         this.routeInterchanges = routeInterchanges;
+        this.previousVisitsPool = previousVisitsPool;
+        this.searchStatistics = searchStatistics;
+        this.timeOrderedAdjacency = timeOrderedAdjacency;
+        this.outboundAdjacency = outboundAdjacency;
     }
 
 
@@ -89,6 +104,10 @@ public class RouteCalculatorSupport {
         return stationNode;
     }
 
+    protected VirtualWalks.Bound bindWalks(Transaction txn, VirtualWalks walks) {
+        return walks.bind(txn, graphQuery);
+    }
+
     @NotNull
     public Set<Long> getDestinationNodeIds(LocationSet destinations) {
         Set<Long> destinationNodeIds;
@@ -141,13 +160,14 @@ public class RouteCalculatorSupport {
         TramNetworkTraverser tramNetworkTraverser = new TramNetworkTraverser(
                 pathRequest, sortsPosition, nodeContentsRepository,
                 tripRepository, traversalStateFactory, endStations, config, destinationNodeIds,
-                reasons, reasonToGraphViz, providesNow);
+                reasons, reasonToGraphViz, searchStatistics, providesNow, timeOrderedAdjacency, outboundAdjacency);
 
         logger.info("Traverse for " + pathRequest);
 
         return tramNetworkTraverser.
                 findPaths(txn, pathRequest.startNode, previousSuccessfulVisit, lowestCostSeen, lowestCostsForRoutes).
-                map(path -> new RouteCalculator.TimedPath(path, pathRequest.queryTime, pathRequest.numChanges));
+                map(path -> new RouteCalculator.TimedPath(path, pathRequest.queryTime, pathRequest.numChanges)).
+                onClose(() -> previousVisitsPool.release(previousSuccessfulVisit));
     }
 
     @NotNull
@@ -187,8 +207,9 @@ public class RouteCalculatorSupport {
         }
     }
 
+    // returned to the pool when the stream from findShortestPath is closed
     protected PreviousVisits createPreviousVisits() {
-        return new PreviousVisits();
+        return previousVisitsPool.acquire();
     }
 
     @NotNull
@@ -201,6 +222,12 @@ public class RouteCalculatorSupport {
         return new ServiceReasons(journeyRequest, pathRequest.queryTime, providesNow);
     }
 
+    @NotNull
+    protected ServiceReasons createServiceReasons(JourneyRequest journeyRequest, PathRequest pathRequest,
+                                                  SearchCancellation cancellation) {
+        return new ServiceReasons(journeyRequest, pathRequest.queryTime, providesNow, cancellation);
+    }
+
     protected Duration getMaxDurationFor(JourneyRequest journeyRequest) {
         return journeyRequest.getMaxJourneyDuration();
 
@@ -216,12 +243,20 @@ public class RouteCalculatorSupport {
 
     public PathRequest createPathRequest(Node startNode, TramDate queryDate, TramTime actualQueryTime, Set<TransportMode>
             requestedModes, int numChanges, JourneyConstraints journeyConstraints, Duration maxInitialWait) {
+        return createPathRequest(startNode, VirtualWalks.Bound.empty(), queryDate, actualQueryTime, requestedModes, numChanges,
+                journeyConstraints, maxInitialWait);
+    }
+
+    public PathRequest createPathRequest(Node startNode, VirtualWalks.Bound walks, TramDate queryDate, TramTime actualQueryTime,
+                                         Set<TransportMode> requestedModes, int numChanges, JourneyConstraints journeyConstraints,
+                                         Duration maxInitialWait) {
         ServiceHeuristics serviceHeuristics = createHeuristics(actualQueryTime, journeyConstraints, numChanges);
-        return new PathRequest(startNode, queryDate, actualQueryTime, numChanges, serviceHeuristics, requestedModes, maxInitialWait);
+        return new PathRequest(startNode, walks, queryDate, actualQueryTime, numChanges, serviceHeuristics, requestedModes, maxInitialWait);
     }
 
     public static class PathRequest {
         private final Node startNode;
+        private final VirtualWalks.Bound walks;
         private final TramTime queryTime;
         private final int numChanges;
         private final ServiceHeuristics serviceHeuristics;
@@ -229,9 +264,10 @@ public class RouteCalculatorSupport {
         private final Set<TransportMode> requestedModes;
         private final Duration maxInitialWait;
 
-        public PathRequest(Node startNode, TramDate queryDate, TramTime queryTime, int numChanges,
+        public PathRequest(Node startNode, VirtualWalks.Bound walks, TramDate queryDate, TramTime queryTime, int numChanges,
                            ServiceHeuristics serviceHeuristics, Set<TransportMode> requestedModes, Duration maxInitialWait) {
             this.startNode = startNode;
+            this.walks = walks;
             this.queryDate = queryDate;
             this.queryTime = queryTime;
             this.numChanges = numChanges;
@@ -276,6 +312,10 @@ public class RouteCalculatorSupport {
         public Duration getMaxInitialWait() {
             return maxInitialWait;
         }
+
+        public VirtualWalks.Bound getWalks() {
+            return walks;
+        }
     }
 
     public static Duration getMaxInitialWaitFor(Location<?> location, TramchesterConfig config) {
@@ -10,6 +10,7 @@ import com.tramchester.domain.places.Station;
 import com.tramchester.domain.time.Durations;
 import com.tramchester.domain.time.TimeRange;
 import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
 import com.tramchester.graph.caches.LowestCostSeen;
 import com.tramchester.graph.caches.NodeContentsRepository;
 import com.tramchester.graph.graphbuild.GraphLabel;
@@ -235,6 +236,22 @@ public class ServiceHeuristics {
         return valid(ReasonCode.Reachable, howIGotHere, reasons);
     }
 
+    public HeuristicsReason lowerBoundUnderLowestCost(Node nextNode, Duration totalCostSoFar, LowestCostSeen bestSoFar,
+                                                     HowIGotHere howIGotHere, ServiceReasons reasons) {
+        reasons.incrementTotalChecked();
+
+        final LandmarkLowerBounds.ForDestinations lowerBounds = journeyConstraints.getLowerBounds();
+        if (lowerBounds.isActive() && bestSoFar.everArrived()) {
+            // time to reach the nearest destination from here cannot be less than the landmark lower bound
+            final Duration atLeast = totalCostSoFar.plus(lowerBounds.getLowerBound(nextNode));
+            if (Durations.greaterThan(atLeast, bestSoFar.getLowestDuration())) {
+                return reasons.recordReason(ServiceReason.LongerThanLowerBound(howIGotHere));
+            }
+        }
+
+        return valid(ReasonCode.LowerBoundOk, howIGotHere, reasons);
+    }
+
     public HeuristicsReason journeyDurationUnderLimit(final Duration totalDuration, final HowIGotHere howIGotHere, ServiceReasons reasons) {
         reasons.incrementTotalChecked();
 
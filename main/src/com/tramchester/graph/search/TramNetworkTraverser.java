@@ -2,6 +2,7 @@ package com.tramchester.graph.search;
 
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.LocationSet;
+import com.tramchester.domain.SearchCancellation;
 import com.tramchester.domain.presentation.LatLong;
 import com.tramchester.domain.time.Durations;
 import com.tramchester.domain.time.ProvidesNow;
@@ -9,9 +10,12 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.SortsPositions;
 import com.tramchester.graph.caches.LowestCostSeen;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.OutboundAdjacency;
 import com.tramchester.graph.caches.PreviousVisits;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
 import com.tramchester.graph.graphbuild.GraphLabel;
 import com.tramchester.graph.search.diagnostics.ReasonsToGraphViz;
+import com.tramchester.graph.search.diagnostics.SearchStatistics;
 import com.tramchester.graph.search.diagnostics.ServiceReasons;
 import com.tramchester.graph.search.stateMachine.TraversalOps;
 import com.tramchester.graph.search.stateMachine.states.ImmuatableTraversalState;
@@ -52,13 +56,17 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
     private final TraversalStateFactory traversalStateFactory;
     private final RouteCalculatorSupport.PathRequest pathRequest;
     private final ReasonsToGraphViz reasonToGraphViz;
+    private final SearchStatistics searchStatistics;
     private final ProvidesNow providesNow;
+    private final TimeOrderedAdjacency timeOrderedAdjacency;
+    private final OutboundAdjacency outboundAdjacency;
 
     public TramNetworkTraverser(RouteCalculatorSupport.PathRequest pathRequest,
                                 SortsPositions sortsPosition, NodeContentsRepository nodeContentsRepository, TripRepository tripRespository,
                                 TraversalStateFactory traversalStateFactory, LocationSet destinations, TramchesterConfig config,
                                 Set<Long> destinationNodeIds, ServiceReasons reasons,
-                                ReasonsToGraphViz reasonToGraphViz, ProvidesNow providesNow) {
+                                ReasonsToGraphViz reasonToGraphViz, SearchStatistics searchStatistics, ProvidesNow providesNow,
+                                TimeOrderedAdjacency timeOrderedAdjacency, OutboundAdjacency outboundAdjacency) {
         this.sortsPosition = sortsPosition;
         this.nodeContentsRepository = nodeContentsRepository;
         this.tripRespository = tripRespository;
@@ -71,7 +79,10 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
 
         this.actualQueryTime = pathRequest.getActualQueryTime();
         this.reasonToGraphViz = reasonToGraphViz;
+        this.searchStatistics = searchStatistics;
         this.providesNow = providesNow;
+        this.timeOrderedAdjacency = timeOrderedAdjacency;
+        this.outboundAdjacency = outboundAdjacency;
     }
 
     public Stream<Path> findPaths(Transaction txn, Node startNode, PreviousVisits previousSuccessfulVisit, LowestCostSeen lowestCostSeen,
@@ -85,14 +96,27 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
 
         Instant begin = providesNow.getInstant();
         Duration maxInitialWait = pathRequest.getMaxInitialWait();
-        final TramRouteEvaluator tramRouteEvaluator = new TramRouteEvaluator(pathRequest.getServiceHeuristics(),
-                destinationNodeIds, nodeContentsRepository, reasons, previousSuccessfulVisit, lowestCostSeen, config,
-                startNode.getId(), begin, providesNow, pathRequest.getRequestedModes(), maxInitialWait);
+        SearchCancellation cancellation = reasons.getCancellation();
+        final TramRouteEvaluator tramRouteEvaluator;
+        if (reasons.getDiagnosticsEnabled()) {
+            tramRouteEvaluator = new TramRouteEvaluator(pathRequest.getServiceHeuristics(),
+                    destinationNodeIds, nodeContentsRepository, reasons, previousSuccessfulVisit, lowestCostSeen, config,
+                    startNode.getId(), begin, providesNow, pathRequest.getRequestedModes(), maxInitialWait, cancellation);
+        } else {
+            tramRouteEvaluator = new LeanTramRouteEvaluator(pathRequest.getServiceHeuristics(),
+                    destinationNodeIds, nodeContentsRepository, reasons, previousSuccessfulVisit, lowestCostSeen, config,
+                    startNode.getId(), begin, providesNow, pathRequest.getRequestedModes(), maxInitialWait, cancellation);
+        }
 
         LatLong destinationLatLon = sortsPosition.midPointFrom(destinations);
 
+        // longest wait the evaluator will accept at a minute node, initial or otherwise
+        final int maxWaitMinutes = Math.max(config.getMaxWait(), Math.toIntExact(maxInitialWait.toMinutes()));
+        final TimeOrderedAdjacency.Bound timeOrdered = timeOrderedAdjacency.bindTo(txn, maxWaitMinutes);
+
         TraversalOps traversalOps = new TraversalOps(nodeContentsRepository, tripRespository, sortsPosition, destinations,
-                destinationLatLon, lowestCostsForRoutes, pathRequest.getQueryDate());
+                destinationLatLon, lowestCostsForRoutes, pathRequest.getQueryDate(), pathRequest.getWalks(), timeOrdered,
+                outboundAdjacency.bindTo(txn));
 
         final NotStartedState traversalState = new NotStartedState(traversalOps, traversalStateFactory, pathRequest.getRequestedModes());
         final InitialBranchState<JourneyState> initialJourneyState = JourneyState.initialState(actualQueryTime, traversalState);
@@ -116,6 +140,7 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
 
         //noinspection ResultOfMethodCallIgnored
         stream.onClose(() -> {
+            searchStatistics.record(reasons);
             reasons.reportReasons(txn, pathRequest, reasonToGraphViz);
             previousSuccessfulVisit.reportStats();
             traversalState.dispose();
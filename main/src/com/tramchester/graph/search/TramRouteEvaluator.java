@@ -1,6 +1,7 @@
 package com.tramchester.graph.search;
 
 import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.SearchCancellation;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.Durations;
 import com.tramchester.domain.time.ProvidesNow;
@@ -30,9 +31,15 @@ import java.util.Set;
 import static com.tramchester.graph.TransportRelationshipTypes.WALKS_TO_STATION;
 import static java.lang.String.format;
 
+/***
+ * Records how each path was reached for every reason, use only when diagnostics are enabled, see LeanTramRouteEvaluator
+ */
 public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
     private static final Logger logger = LoggerFactory.getLogger(TramRouteEvaluator.class);
 
+    // reading the clock for every evaluation is costly, so only check the deadline every N evaluations
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
     private final ServiceHeuristics serviceHeuristics;
     private final NodeContentsRepository nodeContentsRepository;
     private final ProvidesNow providesNow;
@@ -48,11 +55,16 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
     private final Instant begin;
     private final long timeout;
     private final Set<GraphLabel> requestedLabels;
+    private final SearchCancellation cancellation;
+    private final boolean hasDeadline;
+
+    private int evaluations;
 
     public TramRouteEvaluator(ServiceHeuristics serviceHeuristics, Set<Long> destinationNodeIds,
                               NodeContentsRepository nodeContentsRepository, ServiceReasons reasons,
                               PreviousVisits previousVisits, LowestCostSeen bestResultSoFar, TramchesterConfig config,
-                              long startNodeId, Instant begin, ProvidesNow providesNow, Set<TransportMode> requestedModes, Duration maxInitialWait) {
+                              long startNodeId, Instant begin, ProvidesNow providesNow, Set<TransportMode> requestedModes, Duration maxInitialWait,
+                              SearchCancellation cancellation) {
         this.serviceHeuristics = serviceHeuristics;
         this.destinationNodeIds = destinationNodeIds;
         this.nodeContentsRepository = nodeContentsRepository;
@@ -66,6 +78,9 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         this.providesNow = providesNow;
         this.requestedLabels = GraphLabel.forMode(requestedModes);
         this.maxInitialWaitMins = Math.toIntExact(maxInitialWait.toMinutes());
+        this.cancellation = cancellation;
+        this.hasDeadline = cancellation.hasDeadline();
+        this.evaluations = 0;
     }
 
     @Override
@@ -76,6 +91,13 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
     @Override
     public Evaluation evaluate(Path path, BranchState<JourneyState> state) {
         final ImmutableJourneyState journeyState = state.getState();
+
+        // client has gone away or past the deadline, prune everything so the traversal finishes quickly
+        if (isCancelled()) {
+            reasons.recordReason(ServiceReason.Cancelled(createHowIGotHere(path, journeyState)));
+            return Evaluation.EXCLUDE_AND_PRUNE;
+        }
+
         final Node nextNode = path.endNode();
 
         final EnumSet<GraphLabel> labels = nodeContentsRepository.getLabels(nextNode);
@@ -83,7 +105,7 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         // NOTE: This makes a significant impact on performance, without it algo explore the same
         // path again and again for the same time in the case where it is a valid time.
         final ReasonCode previousResult = previousVisits.getPreviousResult(nextNode, journeyState, labels);
-        final HowIGotHere howIGotHere = new HowIGotHere(path, journeyState);
+        final HowIGotHere howIGotHere = createHowIGotHere(path, journeyState);
         if (previousResult != ReasonCode.PreviousCacheMiss) {
             final TramTime journeyClock = journeyState.getJourneyClock();
             reasons.recordReason(ServiceReason.Cached(previousResult, journeyClock, howIGotHere));
@@ -92,7 +114,7 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
             reasons.recordReason(ServiceReason.CacheMiss(howIGotHere));
         }
 
-        final ReasonCode reasonCode = doEvaluate(path, journeyState, nextNode, labels);
+        final ReasonCode reasonCode = doEvaluate(path, journeyState, nextNode, labels, howIGotHere);
         final Evaluation result = reasonCode.getEvaluationAction();
 
         previousVisits.recordVisitIfUseful(reasonCode, nextNode, journeyState, labels);
@@ -100,14 +122,28 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         return result;
     }
 
+    private boolean isCancelled() {
+        if (cancellation.isCancelled()) {
+            return true;
+        }
+        if (hasDeadline && (evaluations++ % DEADLINE_CHECK_INTERVAL) == 0) {
+            if (cancellation.checkDeadline(providesNow.getInstant())) {
+                logger.warn("Search past deadline " + cancellation.getDeadline() + " after " + evaluations + " evaluations");
+                return true;
+            }
+        }
+        return false;
+    }
 
+    protected HowIGotHere createHowIGotHere(final Path path, final ImmutableJourneyState journeyState) {
+        return new HowIGotHere(path, journeyState);
+    }
 
     private ReasonCode doEvaluate(final Path thePath, final ImmutableJourneyState journeyState, final Node nextNode,
-                                  final EnumSet<GraphLabel> nodeLabels) {
+                                  final EnumSet<GraphLabel> nodeLabels, final HowIGotHere howIGotHere) {
 
         final long nextNodeId = nextNode.getId();
 
-        final HowIGotHere howIGotHere = new HowIGotHere(thePath, journeyState);
         final Duration totalCostSoFar = journeyState.getTotalDurationSoFar();
         final int numberChanges = journeyState.getNumberChanges();
 
@@ -126,7 +162,7 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
             if (durationMillis > timeout) {
                 Map<String, Object> allProps = nextNode.getAllProperties();
                 logger.warn(format("Timed out %s ms, current cost %s, changes %s, path len %s, state: %s, labels %s, best %s",
-                        durationMillis, totalCostSoFar, numberChanges, thePath.length(), howIGotHere.getTraversalStateName(),
+                        durationMillis, totalCostSoFar, numberChanges, thePath.length(), journeyState.getTraversalStateName(),
                         nodeLabels, bestResultSoFar));
                 logger.warn(format("Timed out: Props for node %s were %s", nextNodeId, allProps));
                 reasons.recordReason(ServiceReason.TimedOut(howIGotHere));
@@ -239,6 +275,12 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
                 return serviceReason.getReasonCode();
             }
 
+            final HeuristicsReason lowerBoundReason = serviceHeuristics.lowerBoundUnderLowestCost(nextNode,
+                    journeyState.getTotalDurationSoFar(), bestResultSoFar, howIGotHere, reasons);
+            if (!lowerBoundReason.isValid()) {
+                return lowerBoundReason.getReasonCode();
+            }
+
         }
 
         // TODO is this still needed, should drop through via continue anyway?
@@ -0,0 +1,63 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.input.Trip;
+
+/***
+ * Persistent list of trips already taken, adding returns a new list sharing the existing entries so states can
+ * be copied for each branch of a traversal without copying. Length is bounded by the number of changes.
+ */
+public final class TripsDone {
+    private static final TripsDone EMPTY = new TripsDone(null, null, 0);
+
+    private final IdFor<Trip> tripId;
+    private final TripsDone previous;
+    private final int size;
+
+    private TripsDone(IdFor<Trip> tripId, TripsDone previous, int size) {
+        this.tripId = tripId;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    public static TripsDone empty() {
+        return EMPTY;
+    }
+
+    public TripsDone add(final IdFor<Trip> tripId) {
+        return new TripsDone(tripId, this, size + 1);
+    }
+
+    public boolean contains(final IdFor<Trip> tripId) {
+        TripsDone current = this;
+        while (current.size > 0) {
+            if (current.tripId.equals(tripId)) {
+                return true;
+            }
+            current = current.previous;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("TripsDone{");
+        TripsDone current = this;
+        while (current.size > 0) {
+            result.append(current.tripId);
+            current = current.previous;
+            if (current.size > 0) {
+                result.append(", ");
+            }
+        }
+        return result.append('}').toString();
+    }
+}
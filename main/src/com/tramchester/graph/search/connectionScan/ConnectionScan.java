@@ -0,0 +1,306 @@
+package com.tramchester.graph.search.connectionScan;
+
+import com.tramchester.domain.reference.TransportMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/***
+ * Connection scan (CSA) over the ConnectionTimetable, tracking the earliest arrival at each station for each
+ * number of legs, so gives a pareto set of (arrival time, number of changes) for the destination.
+ * Holds per query state in flat arrays sized for up to capacityLegs, reused via reset() for each query time and,
+ * through ConnectionScanPool, across requests. Not thread safe.
+ */
+public class ConnectionScan {
+
+    private static final int NOT_REACHED = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+
+    private final ConnectionTimetable timetable;
+    private final int capacityLegs;
+    private final int numStations;
+    private final int numTrips;
+    private final int numConnections;
+
+    // per request, see forRequest
+    private int maxLegs;
+    private ScanFilter filter;
+    private EnumSet<TransportMode> modes;
+
+    // indexed by (legs * numStations) + station
+    private final int[] arrival;
+    private final int[] boardedAt;
+    private final int[] alightedAt;
+    private final int[] legsUsed;
+
+    // indexed by trip, or trip + numTrips for a trip from the previous day running past midnight
+    private final int[] tripLegs;
+    private final int[] tripBoardedAt;
+
+    public ConnectionScan(ConnectionTimetable timetable, int capacityLegs) {
+        this.timetable = timetable;
+        this.capacityLegs = capacityLegs;
+
+        numStations = timetable.numberOfStations();
+        numTrips = timetable.numberOfTrips();
+        numConnections = timetable.numberOfConnections();
+
+        final int levels = (capacityLegs + 1) * numStations;
+        arrival = new int[levels];
+        boardedAt = new int[levels];
+        alightedAt = new int[levels];
+        legsUsed = new int[levels];
+
+        tripLegs = new int[numTrips * 2];
+        tripBoardedAt = new int[numTrips * 2];
+    }
+
+    public int getCapacityLegs() {
+        return capacityLegs;
+    }
+
+    /***
+     * Set up for the scans of one request
+     * @param maxLegs no more than the capacity this scan was created with
+     * @param filter services running and stations closed on the date of the request
+     * @param modes transport modes requested
+     * @return this
+     */
+    public ConnectionScan forRequest(int maxLegs, ScanFilter filter, EnumSet<TransportMode> modes) {
+        if (maxLegs > capacityLegs) {
+            throw new RuntimeException("Scan created for " + capacityLegs + " legs but " + maxLegs + " requested");
+        }
+        this.maxLegs = maxLegs;
+        this.filter = filter;
+        this.modes = modes;
+        return this;
+    }
+
+    private void reset() {
+        // only levels for the legs of the current request are read
+        final int levels = (maxLegs + 1) * numStations;
+        Arrays.fill(arrival, 0, levels, NOT_REACHED);
+        Arrays.fill(boardedAt, 0, levels, NONE);
+        Arrays.fill(alightedAt, 0, levels, NONE);
+        Arrays.fill(legsUsed, 0, levels, 0);
+        Arrays.fill(tripLegs, NOT_REACHED);
+        Arrays.fill(tripBoardedAt, NONE);
+    }
+
+    /***
+     * @param origins station indexes for the start
+     * @param queryTime as minutes, see ConnectionTimetable.asMinutes
+     * @param maxInitialWait longest wait allowed for the first vehicle
+     * @param latestArrival no arrivals after this time, also no departures considered after it
+     */
+    public void scan(int[] origins, int queryTime, int maxInitialWait, int latestArrival) {
+        reset();
+
+        for (int origin : origins) {
+            arrival[origin] = queryTime;
+        }
+
+        final int numberOvernight = timetable.numberOfOvernight();
+
+        int today = timetable.firstDepartingAtOrAfter(queryTime);
+        int previousDay = timetable.firstOvernightDepartingAtOrAfter(queryTime + ConnectionTimetable.MINS_IN_DAY);
+
+        // merge connections for today with those from the previous day that run past midnight, in departure order
+        while (true) {
+            final int departsToday = today < numConnections ? timetable.getDepartureTime(today) : NOT_REACHED;
+            final int departsPreviousDay = previousDay < numberOvernight ?
+                    timetable.getDepartureTime(timetable.getOvernight(previousDay)) - ConnectionTimetable.MINS_IN_DAY : NOT_REACHED;
+
+            if (departsToday <= departsPreviousDay) {
+                if (departsToday > latestArrival) {
+                    break;
+                }
+                process(today, false, queryTime, maxInitialWait, latestArrival);
+                today++;
+            } else {
+                if (departsPreviousDay > latestArrival) {
+                    break;
+                }
+                process(timetable.getOvernight(previousDay), true, queryTime, maxInitialWait, latestArrival);
+                previousDay++;
+            }
+        }
+    }
+
+    private void process(final int connection, final boolean fromPreviousDay, final int queryTime, final int maxInitialWait,
+                         final int latestArrival) {
+        final int trip = timetable.getTripIndex(connection);
+        final int service = timetable.getServiceIndexForTrip(trip);
+
+        if (fromPreviousDay) {
+            if (!filter.isRunningFromPreviousDay(service)) {
+                return;
+            }
+        } else if (!filter.isRunningToday(service)) {
+            return;
+        }
+
+        if (!modes.contains(timetable.getTransportModeForTrip(trip))) {
+            return;
+        }
+
+        final int offset = fromPreviousDay ? ConnectionTimetable.MINS_IN_DAY : 0;
+        final int slot = fromPreviousDay ? trip + numTrips : trip;
+        final int reference = fromPreviousDay ? connection + numConnections : connection;
+
+        final int departs = timetable.getDepartureTime(connection) - offset;
+        final int departStation = timetable.getDepartureStation(connection);
+
+        if (timetable.canBoard(connection) && !filter.isClosed(departStation)) {
+            // can we get onto this trip with fewer legs than currently recorded for it
+            final int limit = Math.min(tripLegs[slot] - 1, maxLegs);
+            for (int legs = 0; legs < limit; legs++) {
+                final int reached = arrival[(legs * numStations) + departStation];
+                if (reached == NOT_REACHED) {
+                    continue;
+                }
+                final boolean canBoard;
+                if (legs == 0) {
+                    canBoard = reached <= departs && (departs - queryTime) <= maxInitialWait;
+                } else {
+                    canBoard = timetable.canChangeAt(departStation) &&
+                            (reached + timetable.getMinChangeMinutes(departStation)) <= departs;
+                }
+                if (canBoard) {
+                    tripLegs[slot] = legs + 1;
+                    tripBoardedAt[slot] = reference;
+                    break;
+                }
+            }
+        }
+
+        final int onTripLegs = tripLegs[slot];
+        if (onTripLegs == NOT_REACHED || !timetable.canAlight(connection)) {
+            return;
+        }
+
+        final int arrives = timetable.getArrivalTime(connection) - offset;
+        final int arriveStation = timetable.getArrivalStation(connection);
+        if (arrives > latestArrival || filter.isClosed(arriveStation)) {
+            return;
+        }
+
+        // record for this number of legs, and any higher number of legs it is also better for
+        for (int legs = onTripLegs; legs <= maxLegs; legs++) {
+            final int index = (legs * numStations) + arriveStation;
+            if (arrives < arrival[index]) {
+                arrival[index] = arrives;
+                boardedAt[index] = tripBoardedAt[slot];
+                alightedAt[index] = reference;
+                legsUsed[index] = onTripLegs;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /***
+     * Pareto set of results for the destinations, each one either arrives earlier or uses fewer legs than the others
+     * @param destinations station indexes
+     * @return each result is the list of legs, as pairs of connection references (boarded, alighted)
+     */
+    public List<List<Leg>> getResults(int[] destinations) {
+        final List<List<Leg>> results = new ArrayList<>();
+        int bestSoFar = NOT_REACHED;
+        for (int legs = 1; legs <= maxLegs; legs++) {
+            int bestForLegs = NOT_REACHED;
+            int bestStation = NONE;
+            for (int destination : destinations) {
+                final int arrives = arrival[(legs * numStations) + destination];
+                if (arrives < bestForLegs) {
+                    bestForLegs = arrives;
+                    bestStation = destination;
+                }
+            }
+            if (bestForLegs < bestSoFar) {
+                results.add(reconstruct(legs, bestStation));
+                bestSoFar = bestForLegs;
+            }
+        }
+        return results;
+    }
+
+    private List<Leg> reconstruct(final int legs, final int destination) {
+        final List<Leg> result = new ArrayList<>(legs);
+        int index = (legs * numStations) + destination;
+        for (int i = 0; i < legs; i++) {
+            final int boarded = boardedAt[index];
+            final int alighted = alightedAt[index];
+            final int used = legsUsed[index];
+            result.add(0, new Leg(boarded, alighted, numConnections));
+            if (used <= 1) {
+                return result;
+            }
+            final int departStation = timetable.getDepartureStation(connectionFor(boarded));
+            index = ((used - 1) * numStations) + departStation;
+        }
+        throw new RuntimeException("Unable to reconstruct journey with " + legs + " legs to station index " + destination);
+    }
+
+    private int connectionFor(int reference) {
+        return reference >= numConnections ? reference - numConnections : reference;
+    }
+
+    /***
+     * A ride on a single trip, connection references are offset by the number of connections when the trip
+     * is from the previous day
+     */
+    public static class Leg {
+        private final int boarded;
+        private final int alighted;
+        private final int numConnections;
+
+        Leg(int boarded, int alighted, int numConnections) {
+            this.boarded = boarded;
+            this.alighted = alighted;
+            this.numConnections = numConnections;
+        }
+
+        public int getBoardConnection() {
+            return connectionFor(boarded);
+        }
+
+        public int getAlightConnection() {
+            return connectionFor(alighted);
+        }
+
+        private int connectionFor(int reference) {
+            return reference >= numConnections ? reference - numConnections : reference;
+        }
+
+        /***
+         * @return offset to apply to timetable times, non-zero when trip was from the previous day
+         */
+        public int getTimeOffset() {
+            return boarded >= numConnections ? ConnectionTimetable.MINS_IN_DAY : 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Leg leg = (Leg) o;
+            return boarded == leg.boarded && alighted == leg.alighted;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * boarded + alighted;
+        }
+
+        @Override
+        public String toString() {
+            return "Leg{" +
+                    "boarded=" + boarded +
+                    ", alighted=" + alighted +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tramchester.graph.search.connectionScan;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.LocationSet;
+import com.tramchester.domain.NumberOfChanges;
+import com.tramchester.domain.places.Location;
+import com.tramchester.graph.search.ArriveByRouteCalculator;
+import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.graph.search.walks.VirtualWalks;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/***
+ * Arrive by for station to station journeys via a backwards scan of the in memory timetable from the arrival time,
+ * so finds the latest departures in one pass. Journeys that start or end with a walk are delegated to the graph based
+ * RouteCalculatorArriveBy.
+ */
+@LazySingleton
+public class ConnectionScanArriveByCalculator implements ArriveByRouteCalculator {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionScanArriveByCalculator.class);
+
+    private final ConnectionScanRouteCalculator scanCalculator;
+    private final RouteCalculatorArriveBy graphArriveBy;
+
+    @Inject
+    public ConnectionScanArriveByCalculator(ConnectionScanRouteCalculator scanCalculator, RouteCalculatorArriveBy graphArriveBy) {
+        this.scanCalculator = scanCalculator;
+        this.graphArriveBy = graphArriveBy;
+    }
+
+    @Override
+    public Stream<Journey> calculateRoute(Transaction txn, Location<?> start, Location<?> destination, JourneyRequest journeyRequest) {
+        if (!journeyRequest.getArriveBy()) {
+            throw new RuntimeException("Expected an arrive by request " + journeyRequest);
+        }
+        if (!scanCalculator.isScannable(start) || !scanCalculator.isScannable(destination)) {
+            logger.info(format("Cannot scan for %s to %s, use graph instead", start.getId(), destination.getId()));
+            return graphArriveBy.calculateRoute(txn, start, destination, journeyRequest);
+        }
+        return scanCalculator.calculateRouteArriveBy(start, destination, journeyRequest);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Location<?> start, VirtualWalks walks, LocationSet destStations,
+                                                   JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        return graphArriveBy.calculateRouteWalkAtEnd(txn, start, walks, destStations, journeyRequest, numberOfChanges);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, VirtualWalks walks, Location<?> destination,
+                                                     JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        return graphArriveBy.calculateRouteWalkAtStart(txn, walks, destination, journeyRequest, numberOfChanges);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, VirtualWalks walks, LocationSet destinationStations,
+                                                           JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        return graphArriveBy.calculateRouteWalkAtStartAndEnd(txn, walks, destinationStations, journeyRequest, numberOfChanges);
+    }
+}
@@ -0,0 +1,85 @@
+package com.tramchester.graph.search.connectionScan;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * Pools of ConnectionScan and ProfileConnectionScan, avoids allocating the per station and per trip arrays for
+ * every query. Never waits, a new instance is created when none with enough capacity are available, only the
+ * number kept for reuse is bounded.
+ */
+@LazySingleton
+public class ConnectionScanPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionScanPool.class);
+
+    // upper limit on number of idle instances retained of each kind
+    private static final int MAX_POOLED = 16;
+
+    private final ConnectionTimetable timetable;
+    private final ConcurrentLinkedQueue<ConnectionScan> scans;
+    private final ConcurrentLinkedQueue<ProfileConnectionScan> profileScans;
+    private final AtomicInteger created;
+
+    @Inject
+    public ConnectionScanPool(ConnectionTimetable timetable) {
+        this.timetable = timetable;
+        scans = new ConcurrentLinkedQueue<>();
+        profileScans = new ConcurrentLinkedQueue<>();
+        created = new AtomicInteger(0);
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping, created " + created.get());
+        scans.clear();
+        profileScans.clear();
+        logger.info("stopped");
+    }
+
+    /***
+     * @return scan with capacity for at least maxLegs, must be passed to release once results are retrieved
+     */
+    public ConnectionScan acquireScan(int maxLegs) {
+        final ConnectionScan pooled = scans.poll();
+        if (pooled != null && pooled.getCapacityLegs() >= maxLegs) {
+            return pooled;
+        }
+        created.incrementAndGet();
+        return new ConnectionScan(timetable, maxLegs);
+    }
+
+    public void release(ConnectionScan scan) {
+        if (scans.size() < MAX_POOLED) {
+            scans.offer(scan);
+        }
+    }
+
+    /***
+     * @return scan with capacity for at least maxLegs, must be passed to release once results are retrieved
+     */
+    public ProfileConnectionScan acquireProfileScan(int maxLegs) {
+        final ProfileConnectionScan pooled = profileScans.poll();
+        if (pooled != null && pooled.getCapacityLegs() >= maxLegs) {
+            return pooled;
+        }
+        created.incrementAndGet();
+        return new ProfileConnectionScan(timetable, maxLegs);
+    }
+
+    public void release(ProfileConnectionScan scan) {
+        if (profileScans.size() < MAX_POOLED) {
+            profileScans.offer(scan);
+        }
+    }
+
+    public int getNumberCreated() {
+        return created.get();
+    }
+
+}
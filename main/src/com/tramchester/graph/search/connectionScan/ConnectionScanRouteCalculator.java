@@ -0,0 +1,352 @@
+package com.tramchester.graph.search.connectionScan;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.*;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.LocationType;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationGroup;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.domain.transportStages.VehicleStage;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.RouteCalculatorSupport;
+import com.tramchester.graph.search.TramRouteCalculator;
+import com.tramchester.graph.search.walks.VirtualWalks;
+import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.RunningRoutesAndServices;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/***
+ * Station to station journeys via a connection scan of the in memory timetable, no graph traversal required.
+ * Requests with a departure window use a single profile scan instead of one scan per query time.
+ * Journeys that start or end with a walk are delegated to the graph based RouteCalculator.
+ * Running services and closed stations are cached per date, scan state is reused via the ConnectionScanPool.
+ */
+@LazySingleton
+public class ConnectionScanRouteCalculator implements TramRouteCalculator {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionScanRouteCalculator.class);
+
+    // a few weeks of dates in use at any one time
+    private static final int FILTERS_SIZE = 31;
+
+    private final ConnectionTimetable timetable;
+    private final RunningRoutesAndServices runningRoutesAndServices;
+    private final ClosedStationsRepository closedStationsRepository;
+    private final CreateQueryTimes createQueryTimes;
+    private final TramchesterConfig config;
+    private final RouteCalculator graphRouteCalculator;
+    private final ConnectionScanPool scanPool;
+    private final Cache<TramDate, ScanFilter> filters;
+
+    @Inject
+    public ConnectionScanRouteCalculator(ConnectionTimetable timetable, RunningRoutesAndServices runningRoutesAndServices,
+                                         ClosedStationsRepository closedStationsRepository, CreateQueryTimes createQueryTimes,
+                                         TramchesterConfig config, RouteCalculator graphRouteCalculator,
+                                         ConnectionScanPool scanPool) {
+        this.timetable = timetable;
+        this.runningRoutesAndServices = runningRoutesAndServices;
+        this.closedStationsRepository = closedStationsRepository;
+        this.createQueryTimes = createQueryTimes;
+        this.config = config;
+        this.graphRouteCalculator = graphRouteCalculator;
+        this.scanPool = scanPool;
+        filters = Caffeine.newBuilder().maximumSize(FILTERS_SIZE).expireAfterAccess(30, TimeUnit.MINUTES).build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        filters.invalidateAll();
+        logger.info("stopped");
+    }
+
+    @Override
+    public Stream<Journey> calculateRoute(Transaction txn, Location<?> start, Location<?> destination, JourneyRequest journeyRequest) {
+        if (!isScannable(start) || !isScannable(destination)) {
+            logger.info(format("Cannot scan for %s to %s, use graph instead", start.getId(), destination.getId()));
+            return graphRouteCalculator.calculateRoute(txn, start, destination, journeyRequest);
+        }
+
+        logger.info(format("Scan for %s (%s) --> %s (%s) for %s",
+                start.getName(), start.getId(), destination.getName(), destination.getId(), journeyRequest));
+
+        final int[] origins = indexesFor(start);
+        final int[] destinations = indexesFor(destination);
+        if (origins.length==0 || destinations.length==0) {
+            logger.warn(format("No connections for %s or %s", start.getId(), destination.getId()));
+            return Stream.empty();
+        }
+
+        if (journeyRequest.hasDepartureWindow()) {
+            return profileScan(start, destination, origins, destinations, journeyRequest);
+        }
+
+        final int maxLegs = journeyRequest.getMaxChanges() + 1;
+        final ConnectionScan scan = scanPool.acquireScan(maxLegs).
+                forRequest(maxLegs, filterFor(journeyRequest.getDate()), journeyRequest.getRequestedModes());
+
+        final int maxInitialWait = Math.toIntExact(RouteCalculatorSupport.getMaxInitialWaitFor(start, config).toMinutes());
+        final int maxDuration = Math.toIntExact(journeyRequest.getMaxJourneyDuration().toMinutes());
+
+        final AtomicInteger journeyIndex = new AtomicInteger(0);
+        final Set<List<ConnectionScan.Leg>> seen = new HashSet<>();
+        final List<Journey> journeys = new ArrayList<>();
+
+        final List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getOriginalTime());
+        try {
+            for (TramTime queryTime : queryTimes) {
+                final int queryMinutes = ConnectionTimetable.asMinutes(queryTime);
+                scan.scan(origins, queryMinutes, maxInitialWait, queryMinutes + maxDuration);
+                scan.getResults(destinations).stream().
+                        filter(seen::add).
+                        map(legs -> createJourney(legs, queryTime, journeyIndex)).
+                        forEach(journeys::add);
+            }
+        } finally {
+            scanPool.release(scan);
+        }
+
+        if (journeys.isEmpty() && journeyRequest.getWarnIfNoResults()) {
+            logger.warn(format("No journeys found for %s to %s for %s", start.getId(), destination.getId(), journeyRequest));
+        }
+
+        return journeys.stream().limit(journeyRequest.getMaxNumberOfJourneys());
+    }
+
+    private Stream<Journey> profileScan(Location<?> start, Location<?> destination, int[] origins, int[] destinations,
+                                        JourneyRequest journeyRequest) {
+        final int windowStart = ConnectionTimetable.asMinutes(journeyRequest.getOriginalTime());
+        final int windowEnd = windowStart + Math.toIntExact(journeyRequest.getDepartureWindow().toMinutes());
+        final int maxDuration = Math.toIntExact(journeyRequest.getMaxJourneyDuration().toMinutes());
+
+        final List<Journey> journeys = profileScan(origins, destinations, journeyRequest, windowStart, windowEnd,
+                windowEnd + maxDuration);
+
+        logger.info(format("Profile scan found %s journeys for %s to %s departing from %s for %s", journeys.size(),
+                start.getId(), destination.getId(), journeyRequest.getOriginalTime(), journeyRequest.getDepartureWindow()));
+
+        if (journeys.isEmpty() && journeyRequest.getWarnIfNoResults()) {
+            logger.warn(format("No journeys found for %s to %s for %s", start.getId(), destination.getId(), journeyRequest));
+        }
+
+        // all the journeys for the window were asked for, the size of the window bounds the number of them
+        return journeys.stream();
+    }
+
+    /***
+     * Arrive by as a single backwards scan from the arrival time, gives the latest departures directly rather than
+     * guessing a departure time and searching forwards
+     * @return journeys arriving by the original query time, latest departure first
+     */
+    Stream<Journey> calculateRouteArriveBy(Location<?> start, Location<?> destination, JourneyRequest journeyRequest) {
+        logger.info(format("Reverse scan for %s (%s) --> %s (%s) for %s",
+                start.getName(), start.getId(), destination.getName(), destination.getId(), journeyRequest));
+
+        final int[] origins = indexesFor(start);
+        final int[] destinations = indexesFor(destination);
+        if (origins.length==0 || destinations.length==0) {
+            logger.warn(format("No connections for %s or %s", start.getId(), destination.getId()));
+            return Stream.empty();
+        }
+
+        final int arriveBy = ConnectionTimetable.asMinutes(journeyRequest.getOriginalTime());
+        final int maxDuration = Math.toIntExact(journeyRequest.getMaxJourneyDuration().toMinutes());
+
+        // journey times are not represented before the start of the day
+        final int earliestDeparture = Math.max(0, arriveBy - maxDuration);
+
+        final List<Journey> journeys = profileScan(origins, destinations, journeyRequest, earliestDeparture, arriveBy,
+                arriveBy);
+        Collections.reverse(journeys);
+
+        if (journeys.isEmpty() && journeyRequest.getWarnIfNoResults()) {
+            logger.warn(format("No journeys found for %s to %s for %s", start.getId(), destination.getId(), journeyRequest));
+        }
+
+        return journeys.stream().limit(journeyRequest.getMaxNumberOfJourneys());
+    }
+
+    /***
+     * @return pareto set of journeys departing within the window and arriving by latestArrival, in departure order
+     */
+    private List<Journey> profileScan(int[] origins, int[] destinations, JourneyRequest journeyRequest, int windowStart,
+                                      int windowEnd, int latestArrival) {
+        final int maxLegs = journeyRequest.getMaxChanges() + 1;
+        final ProfileConnectionScan scan = scanPool.acquireProfileScan(maxLegs).
+                forRequest(maxLegs, filterFor(journeyRequest.getDate()), journeyRequest.getRequestedModes());
+
+        final int maxDuration = Math.toIntExact(journeyRequest.getMaxJourneyDuration().toMinutes());
+
+        final List<List<ConnectionScan.Leg>> results;
+        try {
+            scan.scan(destinations, windowStart, latestArrival);
+            results = scan.getResults(origins, windowStart, windowEnd, maxDuration);
+        } finally {
+            scanPool.release(scan);
+        }
+
+        final TramTime queryTime = journeyRequest.getOriginalTime();
+        final AtomicInteger journeyIndex = new AtomicInteger(0);
+        return results.stream().
+                map(legs -> createJourney(legs, queryTime, journeyIndex)).
+                collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtEnd(Transaction txn, Location<?> start, VirtualWalks walks, LocationSet destStations,
+                                                   JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        return graphRouteCalculator.calculateRouteWalkAtEnd(txn, start, walks, destStations, journeyRequest, numberOfChanges);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStart(Transaction txn, VirtualWalks walks, Location<?> destination,
+                                                     JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        return graphRouteCalculator.calculateRouteWalkAtStart(txn, walks, destination, journeyRequest, numberOfChanges);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Transaction txn, VirtualWalks walks, LocationSet destinationStations,
+                                                           JourneyRequest journeyRequest, NumberOfChanges numberOfChanges) {
+        return graphRouteCalculator.calculateRouteWalkAtStartAndEnd(txn, walks, destinationStations, journeyRequest,
+                numberOfChanges);
+    }
+
+    boolean isScannable(Location<?> location) {
+        final LocationType locationType = location.getLocationType();
+        return locationType == LocationType.Station || locationType == LocationType.StationGroup;
+    }
+
+    private int[] indexesFor(Location<?> location) {
+        final Set<Station> stations;
+        if (location.getLocationType() == LocationType.StationGroup) {
+            stations = ((StationGroup) location).getContained();
+        } else {
+            stations = Collections.singleton((Station) location);
+        }
+        return stations.stream().
+                map(Station::getId).
+                filter(timetable::hasStation).
+                mapToInt(timetable::indexOf).
+                toArray();
+    }
+
+    private ScanFilter filterFor(TramDate date) {
+        return filters.get(date, unused -> new ScanFilter(servicesRunningToday(date), servicesRunningFromPreviousDay(date),
+                closedStations(date)));
+    }
+
+    private boolean[] servicesRunningToday(TramDate date) {
+        final RunningRoutesAndServices.FilterForDate filter = runningRoutesAndServices.getFor(date);
+        final boolean[] running = new boolean[timetable.numberOfServices()];
+        for (int i = 0; i < running.length; i++) {
+            running[i] = filter.isServiceRunningToday(timetable.getService(i).getId());
+        }
+        return running;
+    }
+
+    private boolean[] servicesRunningFromPreviousDay(TramDate date) {
+        final RunningRoutesAndServices.FilterForDate filter = runningRoutesAndServices.getFor(date);
+        final boolean[] running = new boolean[timetable.numberOfServices()];
+        for (int i = 0; i < running.length; i++) {
+            running[i] = filter.isServiceRunningFromPreviousDay(timetable.getService(i).getId());
+        }
+        return running;
+    }
+
+    private boolean[] closedStations(TramDate date) {
+        final boolean[] closed = new boolean[timetable.numberOfStations()];
+        closedStationsRepository.getFullyClosedStationsFor(date).stream().
+                map(ClosedStation::getStationId).
+                filter(timetable::hasStation).
+                forEach(stationId -> closed[timetable.indexOf(stationId)] = true);
+        return closed;
+    }
+
+    private Journey createJourney(List<ConnectionScan.Leg> legs, TramTime queryTime, AtomicInteger journeyIndex) {
+        final List<TransportStage<?, ?>> stages = new ArrayList<>(legs.size());
+        final List<Location<?>> path = new ArrayList<>();
+
+        for (ConnectionScan.Leg leg : legs) {
+            final VehicleStage stage = createStage(leg);
+            stages.add(stage);
+            addToPath(path, stage);
+        }
+
+        final ConnectionScan.Leg firstLeg = legs.get(0);
+        final ConnectionScan.Leg lastLeg = legs.get(legs.size() - 1);
+        final TramTime departTime = ConnectionTimetable.asTramTime(
+                timetable.getDepartureTime(firstLeg.getBoardConnection()) - firstLeg.getTimeOffset());
+        final TramTime arrivalTime = ConnectionTimetable.asTramTime(
+                timetable.getArrivalTime(lastLeg.getAlightConnection()) - lastLeg.getTimeOffset());
+
+        return new Journey(departTime, queryTime, arrivalTime, stages, path, legs.size() - 1, journeyIndex.getAndIncrement());
+    }
+
+    private VehicleStage createStage(ConnectionScan.Leg leg) {
+        final int board = leg.getBoardConnection();
+        final int alight = leg.getAlightConnection();
+        final int offset = leg.getTimeOffset();
+
+        final Trip trip = timetable.getTrip(timetable.getTripIndex(board));
+        final StopCalls stopCalls = trip.getStopCalls();
+
+        final Station firstStation = timetable.getStation(timetable.getDepartureStation(board));
+        final Station lastStation = timetable.getStation(timetable.getArrivalStation(alight));
+
+        final int boardSequence = timetable.getDepartureSequenceNumber(board);
+        final int alightSequence = timetable.getArrivalSequenceNumber(alight);
+
+        final List<Integer> passedStops = stopCalls.stream().
+                filter(StopCall::callsAtStation).
+                map(StopCall::getGetSequenceNumber).
+                filter(sequence -> sequence > boardSequence && sequence < alightSequence).
+                sorted().
+                collect(Collectors.toList());
+
+        final int departs = timetable.getDepartureTime(board) - offset;
+        final int arrives = timetable.getArrivalTime(alight) - offset;
+
+        final VehicleStage stage = new VehicleStage(firstStation, trip.getRoute(), trip.getTransportMode(), trip,
+                ConnectionTimetable.asTramTime(departs), lastStation, passedStops);
+        stage.setCost(Duration.ofMinutes(arrives - departs));
+
+        final StopCall boardingCall = stopCalls.getStopBySequenceNumber(boardSequence);
+        if (boardingCall.hasPlatfrom() && firstStation.hasPlatforms()) {
+            stage.setBoardingPlatform(boardingCall.getPlatform());
+        }
+
+        return stage;
+    }
+
+    private void addToPath(List<Location<?>> path, VehicleStage stage) {
+        final Station first = stage.getFirstStation();
+        if (path.isEmpty() || !path.get(path.size() - 1).equals(first)) {
+            path.add(first);
+        }
+        stage.getCallingPoints().forEach(stopCall -> path.add(stopCall.getStation()));
+        path.add(stage.getLastStation());
+    }
+
+}
@@ -0,0 +1,348 @@
+package com.tramchester.graph.search.connectionScan;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.filters.GraphFilter;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.TransportData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.*;
+
+/***
+ * Flattened, array based, view of the timetable: every leg of every trip as a 'connection' ordered by departure
+ * time, plus dense integer indexes for stations, trips and services. Used by the connection scan calculator which
+ * avoids the graph entirely.
+ */
+@LazySingleton
+public class ConnectionTimetable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionTimetable.class);
+
+    public static final int MINS_IN_DAY = TramTime.HOURS_IN_DAY * TramTime.MINS_IN_HOUR;
+
+    private final TransportData transportData;
+    private final InterchangeRepository interchangeRepository;
+    private final GraphFilter graphFilter;
+    private final TramchesterConfig config;
+
+    private final Map<IdFor<Station>, Integer> stationIndexes;
+    private final Map<IdFor<Service>, Integer> serviceIndexes;
+
+    private Station[] stations;
+    private Trip[] trips;
+    private Service[] services;
+
+    private int[] tripServiceIndex;
+    private TransportMode[] tripModes;
+    private int[] stationMinChangeMinutes;
+    private boolean[] stationCanChange;
+
+    // per connection, ordered by departure time
+    private int[] depStation;
+    private int[] arrStation;
+    private int[] depTime;
+    private int[] arrTime;
+    private int[] tripIndex;
+    private int[] depSequenceNumber;
+    private int[] arrSequenceNumber;
+    private boolean[] canBoard;
+    private boolean[] canAlight;
+
+    // connections that depart after midnight, in departure order, for services running over from the previous day
+    private int[] overnight;
+
+    @Inject
+    public ConnectionTimetable(TransportData transportData, InterchangeRepository interchangeRepository,
+                               GraphFilter graphFilter, TramchesterConfig config) {
+        this.transportData = transportData;
+        this.interchangeRepository = interchangeRepository;
+        this.graphFilter = graphFilter;
+        this.config = config;
+        stationIndexes = new HashMap<>();
+        serviceIndexes = new HashMap<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        createStations();
+        createServices();
+        createConnections();
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        stationIndexes.clear();
+        serviceIndexes.clear();
+        stations = null;
+        trips = null;
+        services = null;
+        logger.info("stopped");
+    }
+
+    private void createStations() {
+        List<Station> stationList = new ArrayList<>(transportData.getStations());
+        stationList.sort(Comparator.comparing(Station::getId));
+
+        final boolean changeAtInterchangeOnly = config.getChangeAtInterchangeOnly();
+
+        stations = new Station[stationList.size()];
+        stationMinChangeMinutes = new int[stationList.size()];
+        stationCanChange = new boolean[stationList.size()];
+        for (int i = 0; i < stationList.size(); i++) {
+            final Station station = stationList.get(i);
+            stations[i] = station;
+            stationIndexes.put(station.getId(), i);
+            stationMinChangeMinutes[i] = Math.toIntExact(station.getMinChangeDuration().toMinutes());
+            stationCanChange[i] = !changeAtInterchangeOnly || interchangeRepository.isInterchange(station);
+        }
+        logger.info("Indexed " + stations.length + " stations");
+    }
+
+    private void createServices() {
+        List<Service> serviceList = new ArrayList<>(transportData.getServices());
+        serviceList.sort(Comparator.comparing(Service::getId));
+        services = serviceList.toArray(new Service[0]);
+        for (int i = 0; i < services.length; i++) {
+            serviceIndexes.put(services[i].getId(), i);
+        }
+        logger.info("Indexed " + services.length + " services");
+    }
+
+    private void createConnections() {
+        List<Trip> tripList = transportData.getTrips().stream().
+                filter(trip -> graphFilter.shouldIncludeRoute(trip.getRoute())).
+                filter(trip -> serviceIndexes.containsKey(trip.getService().getId())).
+                sorted(Comparator.comparing(Trip::getId)).
+                toList();
+
+        trips = tripList.toArray(new Trip[0]);
+        tripServiceIndex = new int[trips.length];
+        tripModes = new TransportMode[trips.length];
+
+        final List<StopCalls.StopLeg> allLegs = new ArrayList<>();
+        final List<Integer> legTrips = new ArrayList<>();
+
+        for (int i = 0; i < trips.length; i++) {
+            final Trip trip = trips[i];
+            tripServiceIndex[i] = serviceIndexes.get(trip.getService().getId());
+            tripModes[i] = trip.getTransportMode();
+            if (trip.hasStops()) {
+                for (StopCalls.StopLeg leg : trip.getStopCalls().getLegs(graphFilter.isFiltered())) {
+                    if (graphFilter.shouldInclude(leg.getFirst()) && graphFilter.shouldInclude(leg.getSecond())) {
+                        allLegs.add(leg);
+                        legTrips.add(i);
+                    }
+                }
+            }
+        }
+
+        final int size = allLegs.size();
+
+        // sort on departure time, keeping the original position in the lower bits, avoids boxing during the sort
+        final long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            long departs = asMinutes(allLegs.get(i).getDepartureTime());
+            order[i] = (departs << 32) | i;
+        }
+        Arrays.sort(order);
+
+        depStation = new int[size];
+        arrStation = new int[size];
+        depTime = new int[size];
+        arrTime = new int[size];
+        tripIndex = new int[size];
+        depSequenceNumber = new int[size];
+        arrSequenceNumber = new int[size];
+        canBoard = new boolean[size];
+        canAlight = new boolean[size];
+
+        int numberOvernight = 0;
+        for (int position = 0; position < size; position++) {
+            final int original = (int) (order[position] & 0xFFFFFFFFL);
+            final StopCalls.StopLeg leg = allLegs.get(original);
+            final StopCall first = leg.getFirst();
+            final StopCall second = leg.getSecond();
+
+            depStation[position] = stationIndexes.get(first.getStationId());
+            arrStation[position] = stationIndexes.get(second.getStationId());
+            depTime[position] = asMinutes(first.getDepartureTime());
+            arrTime[position] = asMinutes(second.getArrivalTime());
+            tripIndex[position] = legTrips.get(original);
+            depSequenceNumber[position] = first.getGetSequenceNumber();
+            arrSequenceNumber[position] = second.getGetSequenceNumber();
+            canBoard[position] = first.getPickupType().isPickup();
+            canAlight[position] = second.getDropoffType().isDropOff();
+
+            if (depTime[position] >= MINS_IN_DAY) {
+                numberOvernight++;
+            }
+        }
+
+        overnight = new int[numberOvernight];
+        int overnightPosition = 0;
+        for (int position = 0; position < size; position++) {
+            if (depTime[position] >= MINS_IN_DAY) {
+                overnight[overnightPosition++] = position;
+            }
+        }
+
+        logger.info(String.format("Created %s connections (%s overnight) for %s trips", size, numberOvernight, trips.length));
+    }
+
+    public static int asMinutes(TramTime time) {
+        final int minutes = (time.getHourOfDay() * TramTime.MINS_IN_HOUR) + time.getMinuteOfHour();
+        return time.isNextDay() ? minutes + MINS_IN_DAY : minutes;
+    }
+
+    public static TramTime asTramTime(int minutes) {
+        final int withinDay = minutes % MINS_IN_DAY;
+        final int hour = withinDay / TramTime.MINS_IN_HOUR;
+        final int minute = withinDay % TramTime.MINS_IN_HOUR;
+        return minutes >= MINS_IN_DAY ? TramTime.nextDay(hour, minute) : TramTime.of(hour, minute);
+    }
+
+    /***
+     * @return position of first connection departing at or after the given time
+     */
+    public int firstDepartingAtOrAfter(int minutes) {
+        int low = 0;
+        int high = depTime.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (depTime[mid] < minutes) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /***
+     * @return position within the overnight connections of the first departing at or after given (next day) time
+     */
+    public int firstOvernightDepartingAtOrAfter(int minutes) {
+        int low = 0;
+        int high = overnight.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (depTime[overnight[mid]] < minutes) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public boolean hasStation(IdFor<Station> stationId) {
+        return stationIndexes.containsKey(stationId);
+    }
+
+    public int indexOf(IdFor<Station> stationId) {
+        return stationIndexes.get(stationId);
+    }
+
+    public int numberOfStations() {
+        return stations.length;
+    }
+
+    public int numberOfTrips() {
+        return trips.length;
+    }
+
+    public int numberOfServices() {
+        return services.length;
+    }
+
+    public int numberOfConnections() {
+        return depTime.length;
+    }
+
+    public int numberOfOvernight() {
+        return overnight.length;
+    }
+
+    public Station getStation(int index) {
+        return stations[index];
+    }
+
+    public Trip getTrip(int index) {
+        return trips[index];
+    }
+
+    public Service getService(int index) {
+        return services[index];
+    }
+
+    public int getServiceIndexForTrip(int trip) {
+        return tripServiceIndex[trip];
+    }
+
+    public TransportMode getTransportModeForTrip(int trip) {
+        return tripModes[trip];
+    }
+
+    public int getMinChangeMinutes(int station) {
+        return stationMinChangeMinutes[station];
+    }
+
+    public boolean canChangeAt(int station) {
+        return stationCanChange[station];
+    }
+
+    public int getOvernight(int position) {
+        return overnight[position];
+    }
+
+    public int getDepartureStation(int connection) {
+        return depStation[connection];
+    }
+
+    public int getArrivalStation(int connection) {
+        return arrStation[connection];
+    }
+
+    public int getDepartureTime(int connection) {
+        return depTime[connection];
+    }
+
+    public int getArrivalTime(int connection) {
+        return arrTime[connection];
+    }
+
+    public int getTripIndex(int connection) {
+        return tripIndex[connection];
+    }
+
+    public int getDepartureSequenceNumber(int connection) {
+        return depSequenceNumber[connection];
+    }
+
+    public int getArrivalSequenceNumber(int connection) {
+        return arrSequenceNumber[connection];
+    }
+
+    public boolean canBoard(int connection) {
+        return canBoard[connection];
+    }
+
+    public boolean canAlight(int connection) {
+        return canAlight[connection];
+    }
+}
@@ -0,0 +1,337 @@
+package com.tramchester.graph.search.connectionScan;
+
+import com.tramchester.domain.reference.TransportMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/***
+ * Profile variant of the connection scan, a single backwards scan over the connections gives, for each station and
+ * number of legs, the pareto set of (departure time, arrival time at the destination). Reading the profiles at the
+ * origins gives every useful journey for a whole departure window, rather than one forward scan per query time.
+ * Holds per query state in flat arrays sized for up to capacityLegs, reused across requests through
+ * ConnectionScanPool. Not thread safe.
+ */
+public class ProfileConnectionScan {
+
+    private static final int NOT_REACHED = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+    private static final int INITIAL_PROFILE_SIZE = 4;
+
+    private final ConnectionTimetable timetable;
+    private final int capacityLegs;
+    private final int numStations;
+    private final int numTrips;
+    private final int numConnections;
+
+    // per request, see forRequest
+    private int maxLegs;
+    private ScanFilter filter;
+    private EnumSet<TransportMode> modes;
+
+    private final boolean[] isDestination;
+
+    // indexed by ((legs-1) * numTrips * 2) + slot, slot is trip or trip + numTrips for trip from the previous day
+    private final int[] tripArrival;
+    private final int[] tripExit;
+
+    // indexed by ((legs-1) * numStations) + station, entries in decreasing departure (and arrival) time order
+    private final int[][] profileDeparts;
+    private final int[][] profileArrives;
+    private final int[][] profileBoarded;
+    private final int[][] profileAlighted;
+    private final int[] profileSize;
+
+    public ProfileConnectionScan(ConnectionTimetable timetable, int capacityLegs) {
+        this.timetable = timetable;
+        this.capacityLegs = capacityLegs;
+
+        numStations = timetable.numberOfStations();
+        numTrips = timetable.numberOfTrips();
+        numConnections = timetable.numberOfConnections();
+
+        isDestination = new boolean[numStations];
+
+        tripArrival = new int[capacityLegs * numTrips * 2];
+        tripExit = new int[capacityLegs * numTrips * 2];
+
+        final int levels = capacityLegs * numStations;
+        profileDeparts = new int[levels][];
+        profileArrives = new int[levels][];
+        profileBoarded = new int[levels][];
+        profileAlighted = new int[levels][];
+        profileSize = new int[levels];
+    }
+
+    public int getCapacityLegs() {
+        return capacityLegs;
+    }
+
+    /***
+     * Set up for the scan of one request
+     * @param maxLegs no more than the capacity this scan was created with
+     * @param filter services running and stations closed on the date of the request
+     * @param modes transport modes requested
+     * @return this
+     */
+    public ProfileConnectionScan forRequest(int maxLegs, ScanFilter filter, EnumSet<TransportMode> modes) {
+        if (maxLegs > capacityLegs) {
+            throw new RuntimeException("Scan created for " + capacityLegs + " legs but " + maxLegs + " requested");
+        }
+        this.maxLegs = maxLegs;
+        this.filter = filter;
+        this.modes = modes;
+        return this;
+    }
+
+    private void reset(int[] destinations) {
+        Arrays.fill(isDestination, false);
+        for (int destination : destinations) {
+            isDestination[destination] = true;
+        }
+        // only levels for the legs of the current request are read, profile arrays are kept for reuse
+        Arrays.fill(tripArrival, 0, maxLegs * numTrips * 2, NOT_REACHED);
+        Arrays.fill(tripExit, 0, maxLegs * numTrips * 2, NONE);
+        Arrays.fill(profileSize, 0, maxLegs * numStations, 0);
+    }
+
+    /***
+     * @param destinations station indexes for the destination
+     * @param earliestDeparture as minutes, see ConnectionTimetable.asMinutes
+     * @param latestArrival no connections after this time are considered
+     */
+    public void scan(int[] destinations, int earliestDeparture, int latestArrival) {
+        reset(destinations);
+
+        // positions of the last connections departing at or before the latest arrival
+        int today = timetable.firstDepartingAtOrAfter(latestArrival + 1) - 1;
+        int previousDay = timetable.firstOvernightDepartingAtOrAfter(latestArrival + 1 + ConnectionTimetable.MINS_IN_DAY) - 1;
+
+        // merge, in decreasing departure order, connections for today with those from the previous day
+        while (true) {
+            final int departsToday = today >= 0 ? timetable.getDepartureTime(today) : Integer.MIN_VALUE;
+            final int departsPreviousDay = previousDay >= 0 ?
+                    timetable.getDepartureTime(timetable.getOvernight(previousDay)) - ConnectionTimetable.MINS_IN_DAY : Integer.MIN_VALUE;
+
+            if (departsToday >= departsPreviousDay) {
+                if (departsToday < earliestDeparture) {
+                    break;
+                }
+                process(today, false, latestArrival);
+                today--;
+            } else {
+                if (departsPreviousDay < earliestDeparture) {
+                    break;
+                }
+                process(timetable.getOvernight(previousDay), true, latestArrival);
+                previousDay--;
+            }
+        }
+    }
+
+    private void process(final int connection, final boolean fromPreviousDay, final int latestArrival) {
+        final int trip = timetable.getTripIndex(connection);
+        final int service = timetable.getServiceIndexForTrip(trip);
+
+        if (fromPreviousDay) {
+            if (!filter.isRunningFromPreviousDay(service)) {
+                return;
+            }
+        } else if (!filter.isRunningToday(service)) {
+            return;
+        }
+
+        if (!modes.contains(timetable.getTransportModeForTrip(trip))) {
+            return;
+        }
+
+        final int offset = fromPreviousDay ? ConnectionTimetable.MINS_IN_DAY : 0;
+        final int slot = fromPreviousDay ? trip + numTrips : trip;
+        final int reference = fromPreviousDay ? connection + numConnections : connection;
+
+        final int arrives = timetable.getArrivalTime(connection) - offset;
+        if (arrives > latestArrival) {
+            return;
+        }
+
+        final int departs = timetable.getDepartureTime(connection) - offset;
+        final int departStation = timetable.getDepartureStation(connection);
+        final int arriveStation = timetable.getArrivalStation(connection);
+
+        final boolean canAlight = timetable.canAlight(connection) && !filter.isClosed(arriveStation);
+        final boolean canChange = canAlight && timetable.canChangeAt(arriveStation);
+        final int readyToDepart = arrives + timetable.getMinChangeMinutes(arriveStation);
+        final boolean canBoard = timetable.canBoard(connection) && !filter.isClosed(departStation);
+
+        for (int legs = 1; legs <= maxLegs; legs++) {
+            final int tripIndex = ((legs - 1) * numTrips * 2) + slot;
+
+            // remain on the trip
+            int best = tripArrival[tripIndex];
+            int exit = tripExit[tripIndex];
+
+            if (canAlight && isDestination[arriveStation] && arrives < best) {
+                best = arrives;
+                exit = reference;
+            }
+
+            if (canChange && legs > 1 && !isDestination[arriveStation]) {
+                final int viaChange = earliestArrival(legs - 1, arriveStation, readyToDepart);
+                if (viaChange < best) {
+                    best = viaChange;
+                    exit = reference;
+                }
+            }
+
+            if (best == NOT_REACHED) {
+                continue;
+            }
+
+            tripArrival[tripIndex] = best;
+            tripExit[tripIndex] = exit;
+
+            if (canBoard) {
+                addToProfile((legs - 1) * numStations + departStation, departs, best, reference, exit);
+            }
+        }
+    }
+
+    private void addToProfile(final int index, final int departs, final int arrives, final int boarded, final int alighted) {
+        final int size = profileSize[index];
+        if (size == 0) {
+            if (profileDeparts[index] == null) {
+                profileDeparts[index] = new int[INITIAL_PROFILE_SIZE];
+                profileArrives[index] = new int[INITIAL_PROFILE_SIZE];
+                profileBoarded[index] = new int[INITIAL_PROFILE_SIZE];
+                profileAlighted[index] = new int[INITIAL_PROFILE_SIZE];
+            }
+        } else {
+            final int last = size - 1;
+            if (arrives >= profileArrives[index][last]) {
+                // dominated, the existing entry departs at the same time or later and arrives no later
+                return;
+            }
+            if (departs == profileDeparts[index][last]) {
+                profileArrives[index][last] = arrives;
+                profileBoarded[index][last] = boarded;
+                profileAlighted[index][last] = alighted;
+                return;
+            }
+        }
+
+        if (size == profileDeparts[index].length) {
+            final int newSize = size * 2;
+            profileDeparts[index] = Arrays.copyOf(profileDeparts[index], newSize);
+            profileArrives[index] = Arrays.copyOf(profileArrives[index], newSize);
+            profileBoarded[index] = Arrays.copyOf(profileBoarded[index], newSize);
+            profileAlighted[index] = Arrays.copyOf(profileAlighted[index], newSize);
+        }
+
+        profileDeparts[index][size] = departs;
+        profileArrives[index][size] = arrives;
+        profileBoarded[index][size] = boarded;
+        profileAlighted[index][size] = alighted;
+        profileSize[index] = size + 1;
+    }
+
+    private int earliestArrival(final int legs, final int station, final int notBefore) {
+        final int index = (legs - 1) * numStations + station;
+        final int entry = entryFor(index, notBefore);
+        return entry == NONE ? NOT_REACHED : profileArrives[index][entry];
+    }
+
+    /***
+     * @return entry departing at or after notBefore with the earliest arrival, i.e. the last such entry
+     */
+    private int entryFor(final int index, final int notBefore) {
+        int low = 0;
+        int high = profileSize[index];
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (profileDeparts[index][mid] >= notBefore) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /***
+     * Pareto set of results from the origins, each result departs later, arrives earlier or uses fewer legs
+     * than all the others
+     * @param origins station indexes
+     * @param windowStart earliest departure, as minutes
+     * @param windowEnd latest departure, as minutes
+     * @param maxDuration longest journey, in minutes
+     * @return each result is the list of legs, ordered by departure time
+     */
+    public List<List<ConnectionScan.Leg>> getResults(int[] origins, int windowStart, int windowEnd, int maxDuration) {
+        final List<int[]> candidates = new ArrayList<>();
+        for (int legs = 1; legs <= maxLegs; legs++) {
+            for (int origin : origins) {
+                final int index = (legs - 1) * numStations + origin;
+                for (int entry = 0; entry < profileSize[index]; entry++) {
+                    final int departs = profileDeparts[index][entry];
+                    final int arrives = profileArrives[index][entry];
+                    if (departs >= windowStart && departs <= windowEnd && (arrives - departs) <= maxDuration) {
+                        candidates.add(new int[]{departs, arrives, legs, index, entry});
+                    }
+                }
+            }
+        }
+
+        // latest departure first, then earliest arrival, then fewest legs, so an entry can only be dominated
+        // by one already kept
+        candidates.sort((a, b) -> {
+            if (a[0] != b[0]) return Integer.compare(b[0], a[0]);
+            if (a[1] != b[1]) return Integer.compare(a[1], b[1]);
+            return Integer.compare(a[2], b[2]);
+        });
+
+        final List<int[]> kept = new ArrayList<>();
+        for (int[] candidate : candidates) {
+            final boolean dominated = kept.stream().anyMatch(other -> other[1] <= candidate[1] && other[2] <= candidate[2]);
+            if (!dominated) {
+                kept.add(candidate);
+            }
+        }
+
+        final List<List<ConnectionScan.Leg>> results = new ArrayList<>(kept.size());
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            final int[] result = kept.get(i);
+            results.add(reconstruct(result[2], result[3], result[4]));
+        }
+        return results;
+    }
+
+    private List<ConnectionScan.Leg> reconstruct(int legs, int index, int entry) {
+        final List<ConnectionScan.Leg> result = new ArrayList<>(legs);
+        while (true) {
+            final int boarded = profileBoarded[index][entry];
+            final int alighted = profileAlighted[index][entry];
+            result.add(new ConnectionScan.Leg(boarded, alighted, numConnections));
+
+            final int connection = alighted >= numConnections ? alighted - numConnections : alighted;
+            final int offset = alighted >= numConnections ? ConnectionTimetable.MINS_IN_DAY : 0;
+            final int station = timetable.getArrivalStation(connection);
+            if (isDestination[station]) {
+                return result;
+            }
+
+            legs--;
+            if (legs == 0) {
+                break;
+            }
+            final int readyToDepart = timetable.getArrivalTime(connection) - offset + timetable.getMinChangeMinutes(station);
+            index = (legs - 1) * numStations + station;
+            entry = entryFor(index, readyToDepart);
+            if (entry == NONE) {
+                break;
+            }
+        }
+        throw new RuntimeException("Unable to reconstruct journey from profile, legs so far " + result);
+    }
+}
@@ -0,0 +1,29 @@
+package com.tramchester.graph.search.connectionScan;
+
+/***
+ * Services running and stations closed on one date, indexed as per the ConnectionTimetable. Immutable so shared
+ * between all the scans for that date.
+ */
+public class ScanFilter {
+    private final boolean[] runningToday;
+    private final boolean[] runningFromPreviousDay;
+    private final boolean[] closed;
+
+    public ScanFilter(boolean[] runningToday, boolean[] runningFromPreviousDay, boolean[] closed) {
+        this.runningToday = runningToday;
+        this.runningFromPreviousDay = runningFromPreviousDay;
+        this.closed = closed;
+    }
+
+    public boolean isRunningToday(int service) {
+        return runningToday[service];
+    }
+
+    public boolean isRunningFromPreviousDay(int service) {
+        return runningFromPreviousDay[service];
+    }
+
+    public boolean isClosed(int station) {
+        return closed[station];
+    }
+}
@@ -6,6 +6,10 @@ import org.neo4j.graphdb.Path;
 public class HowIGotHere {
 
     private static final long AT_START = Long.MIN_VALUE;
+
+    // used by the lean evaluator, where reasons are only counted
+    public static final HowIGotHere NotRecorded = new HowIGotHere(Long.MIN_VALUE, AT_START, "NotRecorded");
+
     private final long relationshipId;
     private final long nodeId;
     private final String traversalStateName;
@@ -32,6 +36,10 @@ public class HowIGotHere {
         return relationshipId==AT_START;
     }
 
+    public boolean isRecorded() {
+        return this != NotRecorded;
+    }
+
     public String getTraversalStateName() {
         return traversalStateName;
     }
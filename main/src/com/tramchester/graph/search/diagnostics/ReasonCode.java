@@ -6,7 +6,7 @@ public enum ReasonCode {
 
     ServiceDateOk, ServiceTimeOk, NumChangesOK, TimeOk, HourOk, Reachable, ReachableNoCheck, DurationOk,
     WalkOk, StationOpen, Continue, NumConnectionsOk, NumWalkingConnectionsOk, NeighbourConnectionsOk,
-    ReachableSameRoute, TransportModeOk,
+    ReachableSameRoute, TransportModeOk, LowerBoundOk,
 
     NotOnQueryDate,
     RouteNotOnQueryDate,
@@ -19,6 +19,7 @@ public enum ReasonCode {
     AlreadyDeparted,
     HigherCost,
     HigherCostViaExchange,
+    HigherCostViaLowerBound,
     PathTooLong,
     AlreadySeenStation,
     TransportModeWrong,
@@ -31,6 +32,7 @@ public enum ReasonCode {
     TooManyNeighbourConnections,
     StationClosed,
     TimedOut,
+    Cancelled,
     TooManyRouteChangesRequired,
     TooManyInterchangesRequired,
 
@@ -57,15 +59,15 @@ public enum ReasonCode {
     private static Evaluation decideEvaluationAction(ReasonCode code) {
         return switch (code) {
             case ServiceDateOk, ServiceTimeOk, NumChangesOK, NumConnectionsOk, TimeOk, HourOk, Reachable, ReachableNoCheck,
-                    DurationOk, WalkOk, StationOpen, Continue, ReachableSameRoute, TransportModeOk
+                    DurationOk, WalkOk, StationOpen, Continue, ReachableSameRoute, TransportModeOk, LowerBoundOk
                     -> Evaluation.INCLUDE_AND_CONTINUE;
             case Arrived
                     -> Evaluation.INCLUDE_AND_PRUNE;
             case HigherCost, ReturnedToStart, PathTooLong, TooManyChanges, TooManyWalkingConnections, NotReachable,
                     TookTooLong, ServiceNotRunningAtTime, NotAtHour, DoesNotOperateOnTime, NotOnQueryDate, MoreChanges,
-                    AlreadyDeparted, StationClosed, TooManyNeighbourConnections, TimedOut, RouteNotOnQueryDate, HigherCostViaExchange,
+                    AlreadyDeparted, StationClosed, TooManyNeighbourConnections, TimedOut, Cancelled, RouteNotOnQueryDate, HigherCostViaExchange,
                     ExchangeNotReachable, TooManyRouteChangesRequired, TooManyInterchangesRequired, AlreadySeenStation,
-                    TransportModeWrong, SameTrip
+                    TransportModeWrong, SameTrip, HigherCostViaLowerBound
                     -> Evaluation.EXCLUDE_AND_PRUNE;
             case OnTram, OnBus, OnTrain, NotOnVehicle, CachedUNKNOWN, PreviousCacheMiss, NumWalkingConnectionsOk,
                     NeighbourConnectionsOk, OnShip, OnSubway, OnWalk, CachedNotAtHour,
@@ -8,6 +8,7 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.caches.NodeContentsRepository;
 import com.tramchester.graph.graphbuild.GraphLabel;
 import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.repository.naptan.NaptanRepository;
 import org.apache.commons.lang3.tuple.Pair;
@@ -51,6 +52,10 @@ public class ReasonsToGraphViz {
         HowIGotHere howIGotHere = reason.getHowIGotHere();
 
         long endNodeId = howIGotHere.getEndNodeId();
+        if (VirtualWalks.isVirtual(endNodeId)) {
+            // walks for a query are not in the graph
+            return;
+        }
         String reasonId = reason.getReasonCode().name() + endNodeId;
         String stateName = howIGotHere.getTraversalStateName();
         Node currentNode = transaction.getNodeById(endNodeId);
@@ -71,7 +76,7 @@ public class ReasonsToGraphViz {
             }
         }
 
-        if (!howIGotHere.atStart()) {
+        if (!howIGotHere.atStart() && !VirtualWalks.isVirtual(howIGotHere.getRelationshipId())) {
             Relationship relationship = transaction.getRelationshipById(howIGotHere.getRelationshipId());
             Node fromNode = relationship.getStartNode();
             addNodeToDiagram(fromNode, builder, diagramState, stateName);
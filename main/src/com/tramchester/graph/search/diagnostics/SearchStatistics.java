@@ -0,0 +1,80 @@
+package com.tramchester.graph.search.diagnostics;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.metrics.CacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+/***
+ * Counters from ServiceReasons for each path request, held as histograms so the lean evaluator still gives
+ * an idea of how much work a search did without recording the reasons for every node
+ */
+@LazySingleton
+public class SearchStatistics {
+    private static final Logger logger = LoggerFactory.getLogger(SearchStatistics.class);
+
+    private final CacheMetrics cacheMetrics;
+
+    private final Histogram evaluated;
+    private final Histogram cached;
+    private final Histogram checked;
+    private final Histogram arrived;
+
+    @Inject
+    public SearchStatistics(CacheMetrics cacheMetrics) {
+        this.cacheMetrics = cacheMetrics;
+        evaluated = createHistogram();
+        cached = createHistogram();
+        checked = createHistogram();
+        arrived = createHistogram();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        register("evaluated", evaluated);
+        register("cached", cached);
+        register("checked", checked);
+        register("arrived", arrived);
+        logger.info("started");
+    }
+
+    public void record(ServiceReasons reasons) {
+        evaluated.update(reasons.getNumberEvaluated());
+        cached.update(reasons.getNumberCached());
+        checked.update(reasons.getTotalChecked());
+        arrived.update(reasons.getCount(ReasonCode.Arrived));
+    }
+
+    public Histogram getEvaluated() {
+        return evaluated;
+    }
+
+    public Histogram getCached() {
+        return cached;
+    }
+
+    public Histogram getChecked() {
+        return checked;
+    }
+
+    public Histogram getArrived() {
+        return arrived;
+    }
+
+    private void register(String category, Histogram histogram) {
+        cacheMetrics.register(SearchStatistics.class, category, "count", histogram::getCount);
+        cacheMetrics.register(SearchStatistics.class, category, "mean", () -> histogram.getSnapshot().getMean());
+        cacheMetrics.register(SearchStatistics.class, category, "p99", () -> histogram.getSnapshot().get99thPercentile());
+        cacheMetrics.register(SearchStatistics.class, category, "max", () -> histogram.getSnapshot().getMax());
+    }
+
+    private static Histogram createHistogram() {
+        return new Histogram(new ExponentiallyDecayingReservoir());
+    }
+}
@@ -11,6 +11,41 @@ import static java.lang.String.format;
 
 public abstract class ServiceReason {
 
+    // the lean evaluator does not record how it got to a node, so share one reason per code instead of allocating
+    private static final HeuristicsReason[] notRecordedValid = createNotRecorded(true);
+    private static final HeuristicsReason[] notRecordedInvalid = createNotRecorded(false);
+
+    private static class NotRecorded extends HeuristicsReason {
+        private final boolean valid;
+
+        private NotRecorded(ReasonCode code, boolean valid) {
+            super(code, HowIGotHere.NotRecorded);
+            this.valid = valid;
+        }
+
+        @Override
+        public boolean isValid() {
+            return valid;
+        }
+    }
+
+    private static HeuristicsReason[] createNotRecorded(boolean valid) {
+        final ReasonCode[] codes = ReasonCode.values();
+        final HeuristicsReason[] result = new HeuristicsReason[codes.length];
+        for (ReasonCode code : codes) {
+            result[code.ordinal()] = new NotRecorded(code, valid);
+        }
+        return result;
+    }
+
+    private static HeuristicsReason valid(ReasonCode code) {
+        return notRecordedValid[code.ordinal()];
+    }
+
+    private static HeuristicsReason invalid(ReasonCode code) {
+        return notRecordedInvalid[code.ordinal()];
+    }
+
     private static class Unreachable extends HeuristicsReason {
 
         protected Unreachable(ReasonCode code, HowIGotHere path) {
@@ -99,6 +134,12 @@ public abstract class ServiceReason {
         }
     }
 
+    private static class Cancelled extends HeuristicsReason {
+        protected Cancelled(HowIGotHere path) {
+            super(ReasonCode.Cancelled, path);
+        }
+    }
+
     private static class TooManyWalkingConnections extends HeuristicsReasonWithCount {
         protected TooManyWalkingConnections(HowIGotHere path, int count) {
             super(ReasonCode.TooManyWalkingConnections, path, count);
@@ -173,111 +214,177 @@ public abstract class ServiceReason {
     ///////////////////////////////////
     /// convenience methods
 
-    public static IsValid IsValid(ReasonCode code, HowIGotHere path) { return new IsValid( code, path);}
+    public static HeuristicsReason IsValid(ReasonCode code, HowIGotHere path) {
+        if (!path.isRecorded()) {
+            return valid(code);
+        }
+        return new IsValid(code, path);
+    }
 
     public static HeuristicsReason Continue(HowIGotHere path) {
+        if (!path.isRecorded()) {
+            return valid(ReasonCode.Continue);
+        }
         return new Continue(path);
     }
 
     public static HeuristicsReason DoesNotRunOnQueryDate(HowIGotHere path, IdFor<Service> nodeServiceId) {
+        if (!path.isRecorded()) {
+            return invalid(ReasonCode.NotOnQueryDate);
+        }
         return new DoesNotRunOnQueryDate(path, nodeServiceId);
     }
 
     public static HeuristicsReason ServiceNotRunningAtTime(HowIGotHere path, IdFor<Service> serviceId, TramTime time) {
+        if (!path.isRecorded()) {
+            return invalid(ReasonCode.ServiceNotRunningAtTime);
+        }
         return new ServiceDoesNotOperateOnTime(ReasonCode.ServiceNotRunningAtTime, time, path, serviceId);
     }
 
     public static HeuristicsReason StationNotReachable(HowIGotHere path, ReasonCode code) {
+        if (!path.isRecorded()) {
+            return invalid(code);
+        }
         return new Unreachable(code, path);
     }
 
     public static HeuristicsReason InterchangeNotReachable(HowIGotHere path) {
-        return new Unreachable(ReasonCode.ExchangeNotReachable, path);
+        return StationNotReachable(path, ReasonCode.ExchangeNotReachable);
     }
 
     public static HeuristicsReason DoesNotOperateOnTime(TramTime currentElapsed, HowIGotHere path) {
-        return new DoesNotOperateOnTime(ReasonCode.DoesNotOperateOnTime, currentElapsed, path);
+        return doesNotOperateOnTime(ReasonCode.DoesNotOperateOnTime, currentElapsed, path);
     }
 
     public static HeuristicsReason TooManyChanges(HowIGotHere path, int number) {
+        if (!path.isRecorded()) {
+            return invalid(ReasonCode.TooManyChanges);
+        }
         return new TooManyChanges(path, number);
     }
 
     public static HeuristicsReason TooManyWalkingConnections(HowIGotHere path, int count) {
+        if (!path.isRecorded()) {
+            return invalid(ReasonCode.TooManyWalkingConnections);
+        }
         return new TooManyWalkingConnections(path, count);
     }
 
     public static HeuristicsReason TooManyNeighbourConnections(HowIGotHere path, int count) {
+        if (!path.isRecorded()) {
+            return invalid(ReasonCode.TooManyNeighbourConnections);
+        }
         return new TooManyNeighbourConnections(path, count);
     }
 
     public static HeuristicsReason TookTooLong(TramTime currentElapsed, HowIGotHere path) {
-        return new DoesNotOperateOnTime(ReasonCode.TookTooLong, currentElapsed, path);
+        return doesNotOperateOnTime(ReasonCode.TookTooLong, currentElapsed, path);
     }
 
     public static HeuristicsReason DoesNotOperateAtHour(TramTime currentElapsed, HowIGotHere path) {
-        return new DoesNotOperateOnTime(ReasonCode.NotAtHour, currentElapsed, path);
+        return doesNotOperateOnTime(ReasonCode.NotAtHour, currentElapsed, path);
     }
 
     public static HeuristicsReason AlreadyDeparted(TramTime currentElapsed, HowIGotHere path) {
-        return new DoesNotOperateOnTime(ReasonCode.AlreadyDeparted, currentElapsed, path);
+        return doesNotOperateOnTime(ReasonCode.AlreadyDeparted, currentElapsed, path);
     }
 
     public static HeuristicsReason Cached(ReasonCode code, TramTime currentElapsed, HowIGotHere path) {
 
-        return switch (code) {
-            case NotAtHour -> new DoesNotOperateOnTime(ReasonCode.CachedNotAtHour, currentElapsed, path);
-            case DoesNotOperateOnTime -> new DoesNotOperateOnTime(ReasonCode.CachedDoesNotOperateOnTime, currentElapsed, path);
-            case TooManyRouteChangesRequired -> new DoesNotOperateOnTime(ReasonCode.CachedTooManyRouteChangesRequired, currentElapsed, path);
-            case RouteNotOnQueryDate -> new DoesNotOperateOnTime(ReasonCode.CachedRouteNotOnQueryDate, currentElapsed, path);
-            case NotOnQueryDate -> new DoesNotOperateOnTime(ReasonCode.CachedNotOnQueryDate, currentElapsed, path);
-            case TooManyInterchangesRequired -> new DoesNotOperateOnTime(ReasonCode.CachedTooManyInterchangesRequired, currentElapsed, path);
-            default -> new DoesNotOperateOnTime(ReasonCode.CachedUNKNOWN, currentElapsed, path);
+        final ReasonCode cachedCode = switch (code) {
+            case NotAtHour -> ReasonCode.CachedNotAtHour;
+            case DoesNotOperateOnTime -> ReasonCode.CachedDoesNotOperateOnTime;
+            case TooManyRouteChangesRequired -> ReasonCode.CachedTooManyRouteChangesRequired;
+            case RouteNotOnQueryDate -> ReasonCode.CachedRouteNotOnQueryDate;
+            case NotOnQueryDate -> ReasonCode.CachedNotOnQueryDate;
+            case TooManyInterchangesRequired -> ReasonCode.CachedTooManyInterchangesRequired;
+            default -> ReasonCode.CachedUNKNOWN;
         };
+        return doesNotOperateOnTime(cachedCode, currentElapsed, path);
+    }
+
+    private static HeuristicsReason doesNotOperateOnTime(ReasonCode code, TramTime currentElapsed, HowIGotHere path) {
+        if (!path.isRecorded()) {
+            return invalid(code);
+        }
+        return new DoesNotOperateOnTime(code, currentElapsed, path);
     }
 
     public static HeuristicsReason HigherCost(HowIGotHere howIGotHere) {
-        return new ServiceReason.Unreachable(ReasonCode.HigherCost, howIGotHere);
+        return StationNotReachable(howIGotHere, ReasonCode.HigherCost);
     }
 
     public static HeuristicsReason LongerViaInterchange(HowIGotHere howIGotHere) {
-        return new ServiceReason.Unreachable(ReasonCode.HigherCostViaExchange, howIGotHere);
+        return StationNotReachable(howIGotHere, ReasonCode.HigherCostViaExchange);
+    }
+
+    public static HeuristicsReason LongerThanLowerBound(HowIGotHere howIGotHere) {
+        return StationNotReachable(howIGotHere, ReasonCode.HigherCostViaLowerBound);
     }
 
     public static HeuristicsReason PathToLong(HowIGotHere path) {
-        return new ServiceReason.Unreachable(ReasonCode.PathTooLong, path);
+        return StationNotReachable(path, ReasonCode.PathTooLong);
     }
 
     public static HeuristicsReason ReturnedToStart(HowIGotHere path) {
+        if (!path.isRecorded()) {
+            return invalid(ReasonCode.ReturnedToStart);
+        }
         return new ReturnedToStart(path);
     }
 
     public static HeuristicsReason StationClosed(HowIGotHere howIGotHere, IdFor<Station> closed) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.StationClosed);
+        }
         return new StationClosed(howIGotHere, closed);
     }
 
     public static HeuristicsReason TimedOut(HowIGotHere howIGotHere) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.TimedOut);
+        }
         return new TimedOut(howIGotHere);
     }
 
+    public static HeuristicsReason Cancelled(HowIGotHere howIGotHere) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.Cancelled);
+        }
+        return new Cancelled(howIGotHere);
+    }
+
 
     public static HeuristicsReason TransportModeWrong(HowIGotHere howIGotHere) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.TransportModeWrong);
+        }
         return new ServiceReason.TransportModeWrong(howIGotHere);
     }
 
     public static HeuristicsReason RouteNotToday(HowIGotHere howIGotHere, IdFor<Route> id) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.RouteNotOnQueryDate);
+        }
         return new ServiceReason.RouteNotAvailableOnQueryDate(howIGotHere, id);
     }
 
     public static HeuristicsReason CacheMiss(HowIGotHere howIGotHere) {
-        return new IsValid(ReasonCode.PreviousCacheMiss, howIGotHere);
+        return IsValid(ReasonCode.PreviousCacheMiss, howIGotHere);
     }
 
     public static HeuristicsReason AlreadySeenStation(IdFor<Station> stationId, HowIGotHere howIGotHere) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.AlreadySeenStation);
+        }
         return new AlreadySeenStation(stationId, howIGotHere);
     }
 
     public static HeuristicsReason SameTrip(IdFor<Trip> tripId, HowIGotHere howIGotHere) {
+        if (!howIGotHere.isRecorded()) {
+            return invalid(ReasonCode.SameTrip);
+        }
         return new SameTrip(tripId, howIGotHere);
     }
 
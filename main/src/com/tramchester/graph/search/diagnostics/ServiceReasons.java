@@ -1,12 +1,14 @@
 package com.tramchester.graph.search.diagnostics;
 
 import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.SearchCancellation;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.ProvidesNow;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.search.ImmutableJourneyState;
 import com.tramchester.graph.search.RouteCalculatorSupport;
 import com.tramchester.graph.search.stateMachine.states.TraversalStateType;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import org.apache.commons.lang3.tuple.Pair;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
@@ -21,6 +23,10 @@ import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
+/***
+ * Counts reasons and states in primitive arrays for every query, the reasons themselves and the visits to each node
+ * are only kept when diagnostics are enabled for the request
+ */
 public class ServiceReasons {
 
     private static final Logger logger;
@@ -34,37 +40,53 @@ public class ServiceReasons {
     private final TramTime queryTime;
     private final ProvidesNow providesLocalNow;
     private final JourneyRequest journeyRequest;
+    private final SearchCancellation cancellation;
     private final List<HeuristicsReason> reasons;
     // stats
-    private final Map<ReasonCode, AtomicInteger> reasonCodeStats; // reason -> count
-    private final Map<TraversalStateType, AtomicInteger> stateStats; // State -> num visits
-    private final Map<Long, AtomicInteger> nodeVisits; // count of visits to nodes
-    private final AtomicInteger totalChecked = new AtomicInteger(0);
+    private final int[] reasonCodeStats; // reason ordinal -> count
+    private final int[] stateStats; // State ordinal -> num visits
+    private final Map<Long, AtomicInteger> nodeVisits; // count of visits to nodes, diagnostics only
+    private int totalChecked;
     private final boolean diagnosticsEnabled;
 
     private boolean success;
 
     public ServiceReasons(JourneyRequest journeyRequest, TramTime queryTime, ProvidesNow providesLocalNow) {
+        this(journeyRequest, queryTime, providesLocalNow, journeyRequest.getCancellation());
+    }
+
+    /***
+     * @param cancellation for a search made on behalf of the request, such as one of several running in parallel
+     */
+    public ServiceReasons(JourneyRequest journeyRequest, TramTime queryTime, ProvidesNow providesLocalNow,
+                          SearchCancellation cancellation) {
         this.queryTime = queryTime;
         this.providesLocalNow = providesLocalNow;
         this.journeyRequest = journeyRequest;
+        this.cancellation = cancellation;
         reasons = new ArrayList<>();
         success = false;
         diagnosticsEnabled = journeyRequest.getDiagnosticsEnabled();
 
-        reasonCodeStats = new EnumMap<>(ReasonCode.class);
-        Arrays.asList(ReasonCode.values()).forEach(code -> reasonCodeStats.put(code, new AtomicInteger(0)));
-
-        stateStats = new EnumMap<>(TraversalStateType.class);
+        reasonCodeStats = new int[ReasonCode.values().length];
+        stateStats = new int[TraversalStateType.values().length];
         nodeVisits = new HashMap<>();
     }
 
     private void reset() {
         reasons.clear();
-        reasonCodeStats.clear();
-        stateStats.clear();
+        Arrays.fill(reasonCodeStats, 0);
+        Arrays.fill(stateStats, 0);
         nodeVisits.clear();
-        Arrays.asList(ReasonCode.values()).forEach(code -> reasonCodeStats.put(code, new AtomicInteger(0)));
+        totalChecked = 0;
+    }
+
+    public boolean getDiagnosticsEnabled() {
+        return diagnosticsEnabled;
+    }
+
+    public SearchCancellation getCancellation() {
+        return cancellation;
     }
 
     public void reportReasons(Transaction transaction, RouteCalculatorSupport.PathRequest pathRequest, ReasonsToGraphViz reasonToGraphViz) {
@@ -84,10 +106,6 @@ public class ServiceReasons {
         if (diagnosticsEnabled) {
             reasons.add(serviceReason);
             recordEndNodeVisit(serviceReason.getHowIGotHere());
-        } else {
-            if (!serviceReason.isValid()) {
-                recordEndNodeVisit(serviceReason.getHowIGotHere());
-            }
         }
 
         incrementStat(serviceReason.getReasonCode());
@@ -104,11 +122,37 @@ public class ServiceReasons {
     }
 
     public void incrementTotalChecked() {
-        totalChecked.incrementAndGet();
+        totalChecked++;
     }
 
     private void incrementStat(ReasonCode reasonCode) {
-        reasonCodeStats.get(reasonCode).incrementAndGet();
+        reasonCodeStats[reasonCode.ordinal()]++;
+    }
+
+    public int getTotalChecked() {
+        return totalChecked;
+    }
+
+    public int getCount(ReasonCode reasonCode) {
+        return reasonCodeStats[reasonCode.ordinal()];
+    }
+
+    public int getCount(TraversalStateType stateType) {
+        return stateStats[stateType.ordinal()];
+    }
+
+    /***
+     * @return number of paths evaluated, each is either a previous visit cache hit or a miss
+     */
+    public int getNumberEvaluated() {
+        return getNumberCached() + getCount(ReasonCode.PreviousCacheMiss);
+    }
+
+    public int getNumberCached() {
+        return getCount(ReasonCode.CachedUNKNOWN) + getCount(ReasonCode.CachedNotAtHour) +
+                getCount(ReasonCode.CachedDoesNotOperateOnTime) + getCount(ReasonCode.CachedTooManyRouteChangesRequired) +
+                getCount(ReasonCode.CachedRouteNotOnQueryDate) + getCount(ReasonCode.CachedNotOnQueryDate) +
+                getCount(ReasonCode.CachedTooManyInterchangesRequired);
     }
 
     public void recordSuccess() {
@@ -121,11 +165,7 @@ public class ServiceReasons {
         incrementStat(reason);
 
         final TraversalStateType stateType = journeyState.getTraversalState().getStateType();
-        if (stateStats.containsKey(stateType)) {
-            stateStats.get(stateType).incrementAndGet();
-        } else {
-            stateStats.put(stateType, new AtomicInteger(1));
-        }
+        stateStats[stateType.ordinal()]++;
     }
 
     private ReasonCode getReasonCode(TransportMode transportMode) {
@@ -142,14 +182,19 @@ public class ServiceReasons {
     }
 
     private void reportStats(Transaction txn, RouteCalculatorSupport.PathRequest pathRequest) {
-        if ((!success) && journeyRequest.getWarnIfNoResults()) {
+        if ((!success) && journeyRequest.getWarnIfNoResults() && !getCancellation().isCancelled()) {
             logger.warn("No result found for at " + pathRequest.getActualQueryTime() + " changes " + pathRequest.getNumChanges() +
                     " for " + journeyRequest );
         }
         logger.info("Service reasons for query time: " + queryTime);
-        logger.info("Total checked: " + totalChecked.get() + " for " + journeyRequest.toString());
-        logStats("reasoncodes", reasonCodeStats);
-        logStats("states", stateStats);
+        logger.info("Total checked: " + totalChecked + " for " + journeyRequest.toString());
+        final int prunedByLowerBound = getCount(ReasonCode.HigherCostViaLowerBound);
+        if (prunedByLowerBound > 0) {
+            logger.info(format("Pruned via landmark lower bound: %s of %s route stations checked", prunedByLowerBound,
+                    prunedByLowerBound + getCount(ReasonCode.LowerBoundOk)));
+        }
+        logStats("reasoncodes", ReasonCode.values(), reasonCodeStats);
+        logStats("states", TraversalStateType.values(), stateStats);
         if (diagnosticsEnabled) {
             logVisits(txn);
         }
@@ -164,6 +209,7 @@ public class ServiceReasons {
         // Pair<Node, Number of Visits>
         Set<Pair<Node, Integer>> topVisits = nodeVisits.entrySet().stream().
                 filter(entry -> haveInvalidReasonCode.contains(entry.getKey())).
+                filter(entry -> !VirtualWalks.isVirtual(entry.getKey())).
                 map(entry -> Pair.of(entry.getKey(), entry.getValue().get())).
                 //filter(entry -> entry.getValue() > THRESHHOLD_FOR_NUMBER_VISITS_DIAGS).
                 sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).
@@ -215,11 +261,11 @@ public class ServiceReasons {
         return labels + " " + node.getAllProperties().toString();
     }
 
-    private void logStats(String prefix, Map<?, AtomicInteger> stats) {
-        stats.entrySet().stream().
-                filter(entry -> entry.getValue().get() > 0).
-                sorted(Comparator.comparingInt(a -> a.getValue().get())).
-                forEach(entry -> logger.info(format("%s => %s: %s", prefix, entry.getKey(), entry.getValue().get())));
+    private void logStats(String prefix, Enum<?>[] keys, int[] stats) {
+        Arrays.stream(keys).
+                filter(key -> stats[key.ordinal()] > 0).
+                sorted(Comparator.comparingInt(key -> stats[key.ordinal()])).
+                forEach(key -> logger.info(format("%s => %s: %s", prefix, key, stats[key.ordinal()])));
     }
 
     private void createGraphFile(Transaction txn, ReasonsToGraphViz reasonsToGraphViz, RouteCalculatorSupport.PathRequest pathRequest) {
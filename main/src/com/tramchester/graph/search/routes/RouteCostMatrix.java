@@ -12,6 +12,7 @@ import com.tramchester.domain.id.HasId;
 import com.tramchester.domain.places.InterchangeStation;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.graph.filters.GraphFilterActive;
+import com.tramchester.metrics.CacheMetrics;
 import com.tramchester.repository.InterchangeRepository;
 import com.tramchester.repository.NumberOfRoutes;
 import org.apache.commons.lang3.tuple.Pair;
@@ -22,11 +23,15 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.text.MessageFormat;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -42,6 +47,8 @@ public class RouteCostMatrix  {
 
     public static final int MAX_DEPTH = 5;
 
+    public static final String BINARY_CACHE_FILENAME = "route_cost_matrix.bin";
+
     private final InterchangeRepository interchangeRepository;
     private final FileDataCache dataCache;
     private final GraphFilterActive graphFilter;
@@ -51,10 +58,14 @@ public class RouteCostMatrix  {
     private final int numRoutes;
 
     private final ConnectingLinks connectingLinks;
+    private final BinaryCache binaryCache;
+    private final BuildProgress buildProgress;
+    private final CacheMetrics cacheMetrics;
 
     @Inject
     public RouteCostMatrix(NumberOfRoutes numberOfRoutes, InterchangeRepository interchangeRepository, FileDataCache dataCache,
-                    GraphFilterActive graphFilter, RouteIndexPairFactory pairFactory, RouteIndex routeIndex) {
+                    GraphFilterActive graphFilter, RouteIndexPairFactory pairFactory, RouteIndex routeIndex,
+                    CacheMetrics cacheMetrics) {
         this.interchangeRepository = interchangeRepository;
         this.dataCache = dataCache;
         this.graphFilter = graphFilter;
@@ -63,11 +74,15 @@ public class RouteCostMatrix  {
 
         costsForDegree = new CostsPerDegree();
         connectingLinks = new ConnectingLinks(pairFactory,numRoutes, routeIndex, interchangeRepository, this);
+        binaryCache = new BinaryCache();
+        this.cacheMetrics = cacheMetrics;
+        buildProgress = new BuildProgress();
 
     }
 
     @PostConstruct
     public void start() {
+        buildProgress.registerWith(cacheMetrics);
 
         RouteDateAndDayOverlap routeDateAndDayOverlap = new RouteDateAndDayOverlap(routeIndex, numRoutes);
         routeDateAndDayOverlap.populateFor();
@@ -77,6 +92,9 @@ public class RouteCostMatrix  {
         if (graphFilter.isActive()) {
             logger.warn("Filtering is enabled, skipping all caching");
             createCostMatrix(routeDateAndDayOverlap);
+            createBacktracking(routeDateAndDayOverlap);
+        } else if (dataCache.hasBinary(binaryCache) && loadBinaryCache()) {
+            logger.info("Loaded costs and backtracking from binary cache");
         } else {
             if (dataCache.has(costsForDegree)) {
                 logger.info("Loading from cache");
@@ -86,17 +104,19 @@ public class RouteCostMatrix  {
                 createCostMatrix(routeDateAndDayOverlap);
                 dataCache.save(costsForDegree, CostsPerDegreeData.class);
             }
+            createBacktracking(routeDateAndDayOverlap);
+            dataCache.saveBinary(binaryCache);
         }
 
         logger.info("CostsPerDegree bits set: " + costsForDegree.numberOfBitsSet());
 
-        createBacktracking(routeDateAndDayOverlap);
-
     }
 
     private void createCostMatrix(final RouteDateAndDayOverlap routeDateAndDayOverlap) {
+        final Instant startTime = Instant.now();
         final IndexedBitSet forDegreeOne = costsForDegree.getDegreeMutable(1);
         addInitialConnectionsFromInterchanges(routeDateAndDayOverlap, forDegreeOne);
+        buildProgress.costFinished(1, forDegreeOne.numberOfBitsSet(), Duration.between(startTime, Instant.now()).toMillis());
         populateCosts(routeDateAndDayOverlap);
     }
 
@@ -105,6 +125,17 @@ public class RouteCostMatrix  {
         costsForDegree.clear();
     }
 
+    private boolean loadBinaryCache() {
+        logger.info("Loading costs and backtracking from binary cache");
+        if (dataCache.loadBinary(binaryCache)) {
+            return true;
+        }
+        logger.warn("Binary cache was invalid, discard anything partially loaded and rebuild");
+        clear();
+        connectingLinks.reset();
+        return false;
+    }
+
     private void addInitialConnectionsFromInterchanges(RouteDateAndDayOverlap routeDateAndDayOverlap, IndexedBitSet forDegreeOne) {
         final Set<InterchangeStation> interchanges = interchangeRepository.getAllInterchanges();
         logger.info("Pre-populate route to route costs from " + interchanges.size() + " interchanges ");
@@ -145,24 +176,16 @@ public class RouteCostMatrix  {
 
             final Instant startTime = Instant.now();
 
-            for (short currentRoute = 0; currentRoute < numRoutes; currentRoute++) {
-                final short currentRouteIndex = currentRoute;
-
-                final SimpleImmutableBitmap dateOverlapsForRoute = routeDateAndDayOverlap.overlapsFor(currentRouteIndex);
-
-                final SimpleImmutableBitmap currentConnections = matrixForDegree.getBitSetForRow(currentRouteIndex);
-
-                currentConnections.getBitIndexes().
-                        filter(dateOverlapsForRoute::get). // true if route runs on date
-                        forEach(connectedRoute -> {
-                            final SimpleImmutableBitmap dateOverlapsForConnectedRoute = routeDateAndDayOverlap.overlapsFor(connectedRoute);
-                            final SimpleImmutableBitmap intermediates = matrixForDegree.getBitSetForRow(connectedRoute);
-                            routeConnectingLinks.addLinksBetween(currentRouteIndex, connectedRoute, intermediates,
-                                    dateOverlapsForRoute, dateOverlapsForConnectedRoute);
-                });
-            }
+            // rows only read the matrix for this degree, so compute links per row in parallel, each row is merged
+            // as soon as it is done so only the rows in progress are held
+            IntStream.range(0, numRoutes).parallel().forEach(currentRoute -> {
+                final Map<Short, BitSet> linksForRow = createBacktrackingFor(routeDateAndDayOverlap, matrixForDegree, (short) currentRoute);
+                routeConnectingLinks.addLinksFor((short) currentRoute, linksForRow);
+                buildProgress.backtrackRowDone(currentDegree);
+            });
 
             final long took = Duration.between(startTime, Instant.now()).toMillis();
+            buildProgress.backtrackFinished(currentDegree, took);
             final int added = routeConnectingLinks.numberOfLinks();
             double percentage = ((double)added)/((double)totalSize) * 100D;
             logger.info(String.format("Added backtrack pairs %s (%s %%) Degree %s in %s ms",
@@ -174,6 +197,26 @@ public class RouteCostMatrix  {
     }
 
 
+    private Map<Short, BitSet> createBacktrackingFor(final RouteDateAndDayOverlap routeDateAndDayOverlap,
+                                                     final ImmutableIndexedBitSet matrixForDegree, final short currentRouteIndex) {
+        final Map<Short, BitSet> linksForRow = new HashMap<>();
+
+        final SimpleImmutableBitmap dateOverlapsForRoute = routeDateAndDayOverlap.overlapsFor(currentRouteIndex);
+
+        final SimpleImmutableBitmap currentConnections = matrixForDegree.getBitSetForRow(currentRouteIndex);
+
+        currentConnections.getBitIndexes().
+                filter(dateOverlapsForRoute::get). // true if route runs on date
+                forEach(connectedRoute -> {
+                    final SimpleImmutableBitmap dateOverlapsForConnectedRoute = routeDateAndDayOverlap.overlapsFor(connectedRoute);
+                    final SimpleImmutableBitmap intermediates = matrixForDegree.getBitSetForRow(connectedRoute);
+                    RouteConnectingLinks.collectLinksBetween(linksForRow, connectedRoute, intermediates,
+                            dateOverlapsForRoute, dateOverlapsForConnectedRoute);
+                });
+
+        return linksForRow;
+    }
+
     public int getNumberBacktrackFor(int depth) {
         return connectingLinks.forDegree(depth).numberOfLinks();
     }
@@ -303,30 +346,44 @@ public class RouteCostMatrix  {
         final ImmutableIndexedBitSet currentMatrix = costsForDegree.getDegree(currentDegree);
         final IndexedBitSet newMatrix = costsForDegree.getDegreeMutable(nextDegree);
 
+        // rows only depend on the previous degrees, so build each in parallel and then insert, IndexedBitSet
+        // is not safe for concurrent updates
+        final SimpleBitmap[] rows = new SimpleBitmap[numRoutes];
+        IntStream.range(0, numRoutes).parallel().forEach(route -> {
+            rows[route] = createConnectionsFor(routeDateAndDayOverlap, currentMatrix, route, currentDegree);
+            buildProgress.costRowDone(nextDegree);
+        });
+
         for (int route = 0; route < numRoutes; route++) {
-            final SimpleBitmap resultForForRoute = SimpleBitmap.create(numRoutes);
-            final SimpleImmutableBitmap currentConnectionsForRoute = currentMatrix.getBitSetForRow(route);
-
-            currentConnectionsForRoute.getBitIndexes().forEach(connectedRoute -> {
-                // if current route is connected to another route, then for next degree include that other route's connections
-                final SimpleImmutableBitmap otherRoutesConnections = currentMatrix.getBitSetForRow(connectedRoute);
-                //otherRoutesConnections.applyOrTo(resultForForRoute);
-                resultForForRoute.or(otherRoutesConnections);
-            });
+            newMatrix.insert(route, rows[route]);
+        }
 
-            final SimpleImmutableBitmap dateOverlapMask = routeDateAndDayOverlap.overlapsFor(route);  // only those routes whose dates overlap
-            resultForForRoute.and(dateOverlapMask);
+        final long took = Duration.between(startTime, Instant.now()).toMillis();
+        buildProgress.costFinished(nextDegree, newMatrix.numberOfBitsSet(), took);
+        logger.info("Added " + newMatrix.numberOfBitsSet() + " connections for  degree " + nextDegree + " in " + took + " ms");
+    }
 
-            final SimpleImmutableBitmap allExistingConnectionsForRoute = getExistingBitSetsForRoute(route, currentDegree);
+    private SimpleBitmap createConnectionsFor(final RouteDateAndDayOverlap routeDateAndDayOverlap, final ImmutableIndexedBitSet currentMatrix,
+                                              final int route, final byte currentDegree) {
+        final SimpleBitmap resultForForRoute = SimpleBitmap.create(numRoutes);
+        final SimpleImmutableBitmap currentConnectionsForRoute = currentMatrix.getBitSetForRow(route);
 
-            resultForForRoute.andNot(allExistingConnectionsForRoute);
-            //allExistingConnectionsForRoute.applyAndNotTo(resultForForRoute);  // don't include any current connections for this route
+        currentConnectionsForRoute.getBitIndexes().forEach(connectedRoute -> {
+            // if current route is connected to another route, then for next degree include that other route's connections
+            final SimpleImmutableBitmap otherRoutesConnections = currentMatrix.getBitSetForRow(connectedRoute);
+            //otherRoutesConnections.applyOrTo(resultForForRoute);
+            resultForForRoute.or(otherRoutesConnections);
+        });
 
-            newMatrix.insert(route, resultForForRoute);
-        }
+        final SimpleImmutableBitmap dateOverlapMask = routeDateAndDayOverlap.overlapsFor(route);  // only those routes whose dates overlap
+        resultForForRoute.and(dateOverlapMask);
 
-        final long took = Duration.between(startTime, Instant.now()).toMillis();
-        logger.info("Added " + newMatrix.numberOfBitsSet() + " connections for  degree " + nextDegree + " in " + took + " ms");
+        final SimpleImmutableBitmap allExistingConnectionsForRoute = getExistingBitSetsForRoute(route, currentDegree);
+
+        resultForForRoute.andNot(allExistingConnectionsForRoute);
+        //allExistingConnectionsForRoute.applyAndNotTo(resultForForRoute);  // don't include any current connections for this route
+
+        return resultForForRoute;
     }
 
     public SimpleImmutableBitmap getExistingBitSetsForRoute(final int routeIndex, final int startingDegree) {
@@ -508,15 +565,26 @@ public class RouteCostMatrix  {
             return bitSetForIndex.size();
         }
 
-        public void addLinksBetween(final short routeIndexA, final short routeIndexB, final SimpleImmutableBitmap links,
-                                    final SimpleImmutableBitmap dateOverlapsForRoute,
-                                    final SimpleImmutableBitmap dateOverlapsForConnectedRoute) {
+        /***
+         * Collect links for a single row, does not modify the shared links so can be used from multiple threads
+         * @param linksForRow link index to connecting routes, for the row being built
+         */
+        public static void collectLinksBetween(final Map<Short, BitSet> linksForRow, final short routeIndexB, final SimpleImmutableBitmap links,
+                                               final SimpleImmutableBitmap dateOverlapsForRoute,
+                                               final SimpleImmutableBitmap dateOverlapsForConnectedRoute) {
             links.getBitIndexes().
                     filter(linkIndex -> dateOverlapsForRoute.get(linkIndex) && dateOverlapsForConnectedRoute.get(linkIndex)).
-                    map(linkIndex -> getBitSetForPair(routeIndexA, linkIndex)).
+                    map(linkIndex -> linksForRow.computeIfAbsent(linkIndex, unused -> new BitSet())).
                     forEach(bitSet -> bitSet.set(routeIndexB));
         }
 
+        /***
+         * Merge the links collected for one row, synchronized as rows are merged from the worker threads
+         */
+        public synchronized void addLinksFor(final short routeIndexA, final Map<Short, BitSet> linksForRow) {
+            linksForRow.forEach((linkIndex, connecting) -> getBitSetForPair(routeIndexA, linkIndex).or(connecting));
+        }
+
         private BitSet getBitSetForPair(short routeIndexA, short linkIndex) {
             int position = getPosition(routeIndexA, linkIndex);
             if (seen[routeIndexA][linkIndex]) {
@@ -552,6 +620,31 @@ public class RouteCostMatrix  {
             return seen[indexPair.first()][indexPair.second()];
         }
 
+        public void writeTo(final DataOutput output) throws IOException {
+            output.writeInt(bitSetForIndex.size());
+            for (final Map.Entry<Integer, BitSet> entry : bitSetForIndex.entrySet()) {
+                final long[] words = entry.getValue().toLongArray();
+                output.writeInt(entry.getKey());
+                output.writeInt(words.length);
+                for (final long word : words) {
+                    output.writeLong(word);
+                }
+            }
+        }
+
+        public void readFrom(final MappedByteBuffer buffer) {
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final int position = buffer.getInt();
+                final long[] words = new long[buffer.getInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = buffer.getLong();
+                }
+                bitSetForIndex.put(position, BitSet.valueOf(words));
+                seen[position / numRoutes][position % numRoutes] = true;
+            }
+        }
+
     }
 
     private static class ConnectingLinks {
@@ -582,6 +675,11 @@ public class RouteCostMatrix  {
             }
         }
 
+        public void reset() {
+            links.clear();
+            start();
+        }
+
         private RouteConnectingLinks forDepth(int depth) {
             guardDepth(depth);
             return links.get(depth);
@@ -648,6 +746,10 @@ public class RouteCostMatrix  {
             return bitSets[degree-1];
         }
 
+        public void replace(int depth, IndexedBitSet bitSet) {
+            bitSets[depth] = bitSet;
+        }
+
         public void clear() {
             for (int depth = 0; depth < MAX_DEPTH; depth++) {
                 bitSets[depth].clear();
@@ -708,5 +810,131 @@ public class RouteCostMatrix  {
 
     }
 
+    /***
+     * Progress of building each degree, rows are updated from the worker threads
+     */
+    private static class BuildProgress {
+        private final AtomicInteger[] costRows;
+        private final AtomicLong[] connections;
+        private final AtomicLong[] costMillis;
+        private final AtomicInteger[] backtrackRows;
+        private final AtomicLong[] backtrackMillis;
+
+        // indexed by degree, 1 to MAX_DEPTH
+        private BuildProgress() {
+            costRows = new AtomicInteger[MAX_DEPTH + 1];
+            connections = new AtomicLong[MAX_DEPTH + 1];
+            costMillis = new AtomicLong[MAX_DEPTH + 1];
+            backtrackRows = new AtomicInteger[MAX_DEPTH + 1];
+            backtrackMillis = new AtomicLong[MAX_DEPTH + 1];
+            for (int degree = 0; degree <= MAX_DEPTH; degree++) {
+                costRows[degree] = new AtomicInteger(0);
+                connections[degree] = new AtomicLong(0);
+                costMillis[degree] = new AtomicLong(0);
+                backtrackRows[degree] = new AtomicInteger(0);
+                backtrackMillis[degree] = new AtomicLong(0);
+            }
+        }
+
+        public void registerWith(CacheMetrics cacheMetrics) {
+            for (int degree = 1; degree <= MAX_DEPTH; degree++) {
+                final String category = "degree" + degree;
+                final int index = degree;
+                cacheMetrics.register(RouteCostMatrix.class, category, "costRows", () -> costRows[index].get());
+                cacheMetrics.register(RouteCostMatrix.class, category, "connections", () -> connections[index].get());
+                cacheMetrics.register(RouteCostMatrix.class, category, "costMillis", () -> costMillis[index].get());
+                cacheMetrics.register(RouteCostMatrix.class, category, "backtrackRows", () -> backtrackRows[index].get());
+                cacheMetrics.register(RouteCostMatrix.class, category, "backtrackMillis", () -> backtrackMillis[index].get());
+            }
+        }
+
+        public void costRowDone(int degree) {
+            costRows[degree].incrementAndGet();
+        }
+
+        public void costFinished(int degree, long numberOfConnections, long millis) {
+            connections[degree].set(numberOfConnections);
+            costMillis[degree].set(millis);
+        }
+
+        public void backtrackRowDone(int degree) {
+            backtrackRows[degree].incrementAndGet();
+        }
+
+        public void backtrackFinished(int degree, long millis) {
+            backtrackMillis[degree].set(millis);
+        }
+    }
+
+    /***
+     * Costs per degree and the backtracking links in roaring/long word form, loaded from a memory mapped file so
+     * avoids both the parsing of the csv and recomputing the backtracking on startup. The header includes a hash of
+     * the route ids in index order, a cache file for a different set or order of routes is discarded and rebuilt.
+     */
+    private class BinaryCache implements FileDataCache.CachesBinaryData {
+        private static final int MAGIC = 0x52434d58; // RCMX
+        private static final int VERSION = 2;
+
+        @Override
+        public void cacheTo(final DataOutput output) throws IOException {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(numRoutes);
+            output.writeInt(MAX_DEPTH);
+            output.writeLong(routesStamp());
+
+            for (int degree = 1; degree <= MAX_DEPTH; degree++) {
+                costsForDegree.getDegreeMutable(degree).serialize(output);
+            }
+            for (int degree = 1; degree <= MAX_DEPTH; degree++) {
+                connectingLinks.forDegree(degree).writeTo(output);
+            }
+        }
+
+        @Override
+        public String getFilename() {
+            return BINARY_CACHE_FILENAME;
+        }
+
+        @Override
+        public void loadFrom(final MappedByteBuffer buffer) throws IOException, FileDataCache.CacheLoadException {
+            checkHeader(buffer.getInt(), MAGIC, "magic");
+            checkHeader(buffer.getInt(), VERSION, "version");
+            checkHeader(buffer.getInt(), numRoutes, "number of routes");
+            checkHeader(buffer.getInt(), MAX_DEPTH, "max depth");
+            checkHeader(buffer.getLong(), routesStamp(), "route ids");
+
+            for (int depth = 0; depth < MAX_DEPTH; depth++) {
+                costsForDegree.replace(depth, IndexedBitSet.deserialize(buffer));
+            }
+            for (int degree = 1; degree <= MAX_DEPTH; degree++) {
+                connectingLinks.forDegree(degree).readFrom(buffer);
+            }
+            logger.info("Loaded " + costsForDegree.numberOfBitsSet() + " costs from binary cache");
+        }
+
+        /***
+         * @return FNV-1a hash of the route ids in index order
+         */
+        private long routesStamp() {
+            long hash = 0xcbf29ce484222325L;
+            for (short index = 0; index < numRoutes; index++) {
+                final String routeId = routeIndex.getRouteFor(index).getId().getGraphId();
+                for (int i = 0; i < routeId.length(); i++) {
+                    hash = (hash ^ routeId.charAt(i)) * 0x100000001b3L;
+                }
+                // separator, so boundaries between ids are part of the hash
+                hash = (hash ^ 0xff) * 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private void checkHeader(long actual, long expected, String name) throws FileDataCache.CacheLoadException {
+            if (actual != expected) {
+                throw new FileDataCache.CacheLoadException(format("Mismatch on %s, expected %s got %s", name, expected, actual));
+            }
+        }
+    }
+
 
 }
@@ -20,8 +20,10 @@ import com.tramchester.domain.places.Station;
 import com.tramchester.domain.places.StationGroup;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.TimeRange;
+import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.search.BetweenRoutesCostRepository;
 import com.tramchester.graph.search.LowestCostsForDestRoutes;
+import com.tramchester.metrics.CacheMetrics;
 import com.tramchester.repository.ClosedStationsRepository;
 import com.tramchester.repository.NeighboursRepository;
 import com.tramchester.repository.ReportsCacheStats;
@@ -35,17 +37,21 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
 @LazySingleton
-public class RouteToRouteCosts implements BetweenRoutesCostRepository {
+public class RouteToRouteCosts implements BetweenRoutesCostRepository, ReportsCacheStats {
     private static final Logger logger = LoggerFactory.getLogger(RouteToRouteCosts.class);
 
     public final static String INDEX_FILE = "route_index.json";
 
+    // time ranges are widened to multiples of this so that requests close together in time share cache entries
+    public final static int TIME_BUCKET_MINS = 15;
+
     private final NeighboursRepository neighboursRepository;
     private final StationAvailabilityRepository availabilityRepository;
     private final ClosedStationsRepository closedStationsRepository;
@@ -53,11 +59,16 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
     private final RouteCostMatrix costs;
     private final RouteIndexPairFactory pairFactory;
 
+    private final Cache<ChangesKey, NumberOfChanges> numberOfChangesCache;
+    private final Cache<ChangesKey, LowestCostsForDestRoutes> lowestCostsCache;
+    private final Cache<Pair<TramDate, EnumSet<TransportMode>>, IndexedBitSet> overlapsCache;
+
     @Inject
     public RouteToRouteCosts(NeighboursRepository neighboursRepository,
                              StationAvailabilityRepository availabilityRepository,
                              ClosedStationsRepository closedStationsRepository,
-                             RouteIndex index, RouteCostMatrix costs, RouteIndexPairFactory pairFactory) {
+                             RouteIndex index, RouteCostMatrix costs, RouteIndexPairFactory pairFactory,
+                             CacheMetrics cacheMetrics) {
         this.neighboursRepository = neighboursRepository;
         this.availabilityRepository = availabilityRepository;
         this.closedStationsRepository = closedStationsRepository;
@@ -65,6 +76,14 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
         this.costs = costs;
 
         this.pairFactory = pairFactory;
+
+        numberOfChangesCache = Caffeine.newBuilder().maximumSize(20000).expireAfterAccess(30, TimeUnit.MINUTES).
+                recordStats().build();
+        lowestCostsCache = Caffeine.newBuilder().maximumSize(2000).expireAfterAccess(30, TimeUnit.MINUTES).
+                recordStats().build();
+        overlapsCache = Caffeine.newBuilder().maximumSize(50).expireAfterAccess(30, TimeUnit.MINUTES).
+                recordStats().build();
+        cacheMetrics.register(this);
     }
 
     @PostConstruct
@@ -76,9 +95,19 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
     @PreDestroy
     public void stop() {
         logger.info("stopping");
+        numberOfChangesCache.invalidateAll();
+        lowestCostsCache.invalidateAll();
+        overlapsCache.invalidateAll();
         logger.info("stopped");
     }
 
+    @Override
+    public List<Pair<String, CacheStats>> stats() {
+        return Arrays.asList(Pair.of("NumberOfChanges", numberOfChangesCache.stats()),
+                Pair.of("LowestCostsForDestRoutes", lowestCostsCache.stats()),
+                Pair.of("DateAndModeOverlaps", overlapsCache.stats()));
+    }
+
     private int getNumberChangesFor(RoutePair routePair, TramDate date, StationAvailabilityFacade changeStationOperating,
                                     IndexedBitSet dateAndModeOverlaps) {
         if (routePair.areSame()) {
@@ -133,6 +162,16 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
     @Override
     public NumberOfChanges getNumberOfChanges(LocationSet starts, LocationSet destinations, TramDate date, TimeRange timeRange,
                                               EnumSet<TransportMode> requestedModes) {
+        final TimeRange bucketed = timeRange.roundOutwards(TIME_BUCKET_MINS);
+        final ChangesKey key = new ChangesKey(idsFor(starts), idsFor(destinations), date, bucketed, requestedModes, false);
+
+        final NumberOfChanges result = numberOfChangesCache.get(key,
+                unused -> computeNumberOfChanges(starts, destinations, date, bucketed, requestedModes));
+        return copyOf(result);
+    }
+
+    private NumberOfChanges computeNumberOfChanges(LocationSet starts, LocationSet destinations, TramDate date, TimeRange timeRange,
+                                                   EnumSet<TransportMode> requestedModes) {
 
         Set<Route> startRoutes = pickupRoutesFor(starts, date, timeRange, requestedModes);
         Set<Route> endRoutes = dropoffRoutesFor(destinations, date, timeRange, requestedModes);
@@ -169,6 +208,18 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
             throw new RuntimeException("Must provide preferredModes");
         }
 
+        final TimeRange bucketed = timeRange.roundOutwards(TIME_BUCKET_MINS);
+        final ChangesKey key = new ChangesKey(Collections.<IdFor<?>>singleton(startStation.getId()), Collections.<IdFor<?>>singleton(destination.getId()),
+                date, bucketed, preferredModes, true);
+
+        final NumberOfChanges result = numberOfChangesCache.get(key,
+                unused -> computeNumberOfChanges(startStation, destination, preferredModes, date, bucketed));
+        return copyOf(result);
+    }
+
+    private NumberOfChanges computeNumberOfChanges(Location<?> startStation, Location<?> destination,
+                                                   EnumSet<TransportMode> preferredModes, TramDate date, TimeRange timeRange) {
+
         // should be captured correctly in the route matrix, but if filtering routes by transport mode/date/time-range
         // might miss a direct walk incorrectly at the start
         if (neighboursRepository.areNeighbours(startStation, destination)) {
@@ -221,6 +272,14 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
     @Override
     public LowestCostsForDestRoutes getLowestCostCalcutatorFor(LocationSet destinations, TramDate date, TimeRange timeRange,
                                                                EnumSet<TransportMode> requestedModes) {
+        final TimeRange bucketed = timeRange.roundOutwards(TIME_BUCKET_MINS);
+        final ChangesKey key = new ChangesKey(Collections.emptySet(), idsFor(destinations), date, bucketed, requestedModes, false);
+
+        return lowestCostsCache.get(key, unused -> createLowestCostCalculatorFor(destinations, date, bucketed, requestedModes));
+    }
+
+    private LowestCostsForDestRoutes createLowestCostCalculatorFor(LocationSet destinations, TramDate date, TimeRange timeRange,
+                                                                   EnumSet<TransportMode> requestedModes) {
         final Set<Route> destinationRoutes = destinations.stream().
                 map(dest -> availabilityRepository.getDropoffRoutesFor(dest, date, timeRange, requestedModes)).
                 flatMap(Collection::stream).
@@ -238,7 +297,7 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
                     HasId.asIds(startRoutes), HasId.asIds(destinationRoutes), date));
         }
 
-        IndexedBitSet dateAndModeOverlaps = costs.createOverlapMatrixFor(date, requestedModes);
+        IndexedBitSet dateAndModeOverlaps = getOverlapsFor(date, requestedModes);
 
         Set<RoutePair> routePairs = getRoutePairs(startRoutes, destinationRoutes);
 
@@ -274,6 +333,23 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
         return numberOfChanges;
     }
 
+    /***
+     * Overlaps only depend on date and modes, so shared between requests, treated as read only
+     */
+    private IndexedBitSet getOverlapsFor(TramDate date, EnumSet<TransportMode> requestedModes) {
+        return overlapsCache.get(Pair.of(date, EnumSet.copyOf(requestedModes)),
+                unused -> costs.createOverlapMatrixFor(date, requestedModes));
+    }
+
+    // NumberOfChanges max can be overridden by callers, so don't hand out the cached instance
+    private static NumberOfChanges copyOf(NumberOfChanges numberOfChanges) {
+        return new NumberOfChanges(numberOfChanges.getMin(), numberOfChanges.getMax());
+    }
+
+    private static Set<IdFor<?>> idsFor(LocationSet locations) {
+        return locations.stream().<IdFor<?>>map(Location::getId).collect(Collectors.toUnmodifiableSet());
+    }
+
     private int maxHops(Set<Integer> numberOfChangesForRoutes) {
         final Optional<Integer> query = numberOfChangesForRoutes.stream().
                 filter(result -> result != Integer.MAX_VALUE).
@@ -334,7 +410,7 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
                     collect(Collectors.toUnmodifiableSet());
 
             changeStationOperating = getAvailabilityFacade(availabilityRepository, date, time, requestedModes);
-            dateOverlaps = ((RouteToRouteCosts) routeToRouteCosts).costs.createOverlapMatrixFor(date, requestedModes);
+            dateOverlaps = this.routeToRouteCosts.getOverlapsFor(date, requestedModes);
 
         }
 
@@ -386,6 +462,44 @@ public class RouteToRouteCosts implements BetweenRoutesCostRepository {
 
     }
 
+    /***
+     * Key for results that depend on start and destination locations, date, time range and modes
+     */
+    private static class ChangesKey {
+        private final Set<IdFor<?>> starts;
+        private final Set<IdFor<?>> destinations;
+        private final TramDate date;
+        private final TramTime begin;
+        private final TramTime end;
+        private final EnumSet<TransportMode> modes;
+        private final boolean applyClosures;
+
+        private ChangesKey(Set<IdFor<?>> starts, Set<IdFor<?>> destinations, TramDate date, TimeRange timeRange,
+                           EnumSet<TransportMode> modes, boolean applyClosures) {
+            this.starts = starts;
+            this.destinations = destinations;
+            this.date = date;
+            this.begin = timeRange.getBegin();
+            this.end = timeRange.getEnd();
+            this.modes = EnumSet.copyOf(modes);
+            this.applyClosures = applyClosures;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ChangesKey that = (ChangesKey) o;
+            return applyClosures == that.applyClosures && starts.equals(that.starts) && destinations.equals(that.destinations)
+                    && date.equals(that.date) && begin.equals(that.begin) && end.equals(that.end) && modes.equals(that.modes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(starts, destinations, date, begin, end, modes, applyClosures);
+        }
+    }
+
     /***
      * Needed for rail performance, significant
      */
@@ -25,22 +25,22 @@ public abstract class TowardsRouteStation<T extends RouteStationState> implement
     }
 
     protected OptionalResourceIterator<Relationship> getTowardsDestination(TraversalOps traversalOps, Node node, TramDate date) {
-        Stream<Relationship> relationships = Streams.stream(node.getRelationships(OUTGOING, DEPART, INTERCHANGE_DEPART, DIVERSION_DEPART));
-        return traversalOps.getTowardsDestination(Stream.concat(relationships, getActiveDiversions(node,date).stream()));
+        Stream<Relationship> relationships = Streams.stream(traversalOps.getOutbound(node, DEPART, INTERCHANGE_DEPART, DIVERSION_DEPART));
+        return traversalOps.getTowardsDestination(Stream.concat(relationships, getActiveDiversions(traversalOps, node, date).stream()));
     }
 
     // TODO When to follow diversion departs? Should these be (also) INTERCHANGE_DEPART ?
-    protected Stream<Relationship> getOutboundsToFollow(Node node, boolean isInterchange, TramDate date) {
+    protected Stream<Relationship> getOutboundsToFollow(TraversalOps traversalOps, Node node, boolean isInterchange, TramDate date) {
         Stream<Relationship> outboundsToFollow = Stream.empty();
         if (interchangesOnly) {
             if (isInterchange) {
-                outboundsToFollow = Streams.stream(node.getRelationships(OUTGOING, INTERCHANGE_DEPART));
+                outboundsToFollow = Streams.stream(traversalOps.getOutbound(node, INTERCHANGE_DEPART));
             }
         } else {
-            outboundsToFollow = Streams.stream(node.getRelationships(OUTGOING, DEPART, INTERCHANGE_DEPART));
+            outboundsToFollow = Streams.stream(traversalOps.getOutbound(node, DEPART, INTERCHANGE_DEPART));
         }
 
-        List<Relationship> diversions = getActiveDiversions(node, date);
+        List<Relationship> diversions = getActiveDiversions(traversalOps, node, date);
         if (diversions.isEmpty()) {
             return outboundsToFollow;
         } else {
@@ -48,9 +48,9 @@ public abstract class TowardsRouteStation<T extends RouteStationState> implement
         }
     }
 
-    private List<Relationship> getActiveDiversions(Node node, TramDate date) {
+    private List<Relationship> getActiveDiversions(TraversalOps traversalOps, Node node, TramDate date) {
         Set<Relationship> diversions = Streams.
-                stream(node.getRelationships(OUTGOING, DIVERSION_DEPART)).
+                stream(traversalOps.getOutbound(node, DIVERSION_DEPART)).
                 collect(Collectors.toSet());
         List<Relationship> collect = diversions.stream().
                 filter(relationship -> GraphProps.validOn(date, relationship)).
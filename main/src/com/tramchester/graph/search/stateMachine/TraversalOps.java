@@ -13,10 +13,14 @@ import com.tramchester.domain.places.Station;
 import com.tramchester.domain.presentation.LatLong;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.geo.SortsPositions;
+import com.tramchester.graph.TransportRelationshipTypes;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.OutboundAdjacency;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
 import com.tramchester.graph.graphbuild.GraphProps;
 import com.tramchester.graph.search.LowestCostsForDestRoutes;
 import com.tramchester.graph.search.RelationshipWithRoute;
+import com.tramchester.graph.search.walks.VirtualWalks;
 import com.tramchester.repository.TripRepository;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
@@ -24,9 +28,7 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.ResourceIterable;
 import org.neo4j.internal.helpers.collection.Iterables;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -41,12 +43,35 @@ public class TraversalOps {
     private final SortsPositions sortsPositions;
     private final LowestCostsForDestRoutes lowestCostsForRoutes;
     private final TramDate queryDate;
+    private final VirtualWalks.Bound walks;
+    private final TimeOrderedAdjacency.Bound timeOrdered;
+    private final OutboundAdjacency.Bound outbound;
+
+    // route station node id -> TO_SERVICE relationships ordered by route connections, fixed for the query
+    private final Map<Long, List<Relationship>> servicesByRouteConnections;
 
-    // TODO Split into fixed and journey specific, inject fixed direct into builders
     public TraversalOps(NodeContentsRepository nodeOperations, TripRepository tripRepository,
                         SortsPositions sortsPositions, LocationSet destinations,
                         LatLong destinationLatLon, LowestCostsForDestRoutes lowestCostsForRoutes,
                         TramDate queryDate) {
+        this(nodeOperations, tripRepository, sortsPositions, destinations, destinationLatLon, lowestCostsForRoutes, queryDate,
+                VirtualWalks.Bound.empty());
+    }
+
+    public TraversalOps(NodeContentsRepository nodeOperations, TripRepository tripRepository,
+                        SortsPositions sortsPositions, LocationSet destinations,
+                        LatLong destinationLatLon, LowestCostsForDestRoutes lowestCostsForRoutes,
+                        TramDate queryDate, VirtualWalks.Bound walks) {
+        this(nodeOperations, tripRepository, sortsPositions, destinations, destinationLatLon, lowestCostsForRoutes, queryDate,
+                walks, TimeOrderedAdjacency.Bound.empty(), OutboundAdjacency.Bound.empty());
+    }
+
+    // TODO Split into fixed and journey specific, inject fixed direct into builders
+    public TraversalOps(NodeContentsRepository nodeOperations, TripRepository tripRepository,
+                        SortsPositions sortsPositions, LocationSet destinations,
+                        LatLong destinationLatLon, LowestCostsForDestRoutes lowestCostsForRoutes,
+                        TramDate queryDate, VirtualWalks.Bound walks, TimeOrderedAdjacency.Bound timeOrdered,
+                        OutboundAdjacency.Bound outbound) {
         this.tripRepository = tripRepository;
         this.nodeOperations = nodeOperations;
         this.sortsPositions = sortsPositions;
@@ -57,6 +82,10 @@ public class TraversalOps {
         this.destinationLatLon = destinationLatLon;
         this.lowestCostsForRoutes = lowestCostsForRoutes;
         this.queryDate = queryDate;
+        this.walks = walks;
+        this.timeOrdered = timeOrdered;
+        this.outbound = outbound;
+        this.servicesByRouteConnections = new HashMap<>();
     }
 
     public OptionalResourceIterator<Relationship> getTowardsDestination(ResourceIterable<Relationship> outgoing) {
@@ -96,6 +125,23 @@ public class TraversalOps {
                 map(RelationshipWithRoute::getRelationship);
     }
 
+    /***
+     * TO_SERVICE relationships from a route station ordered as orderBoardingRelationsByRouteConnections, the order
+     * only depends on the destinations so is kept for the rest of the query
+     * @param routeStationNode the route station
+     * @return ordered by least number routes interconnects first
+     */
+    public Stream<Relationship> getServicesOrderedByRouteConnections(Node routeStationNode) {
+        final long nodeId = routeStationNode.getId();
+        List<Relationship> ordered = servicesByRouteConnections.get(nodeId);
+        if (ordered == null) {
+            ordered = orderBoardingRelationsByRouteConnections(getOutbound(routeStationNode, TO_SERVICE)).
+                    collect(Collectors.toList());
+            servicesByRouteConnections.put(nodeId, ordered);
+        }
+        return ordered.stream();
+    }
+
     public Stream<Relationship> orderBoardingRelationsByRouteConnections(Iterable<Relationship> toServices) {
         Stream<RelationshipWithRoute> withRouteId = Streams.stream(toServices).map(RelationshipWithRoute::new);
         Stream<RelationshipWithRoute> sorted = lowestCostsForRoutes.sortByDestinations(withRouteId);
@@ -118,14 +164,68 @@ public class TraversalOps {
     }
 
     public boolean hasOutboundFor(Node node, IdFor<Service> serviceId) {
-        return Streams.stream(node.getRelationships(Direction.OUTGOING, TO_SERVICE)).
-                anyMatch(relationship -> serviceNodeMatches(relationship, serviceId));
+        for (final Relationship relationship : getOutbound(node, TO_SERVICE)) {
+            if (serviceNodeMatches(relationship, serviceId)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public TramDate getQueryDate() {
         return queryDate;
     }
 
+    /***
+     * Walks to the destination are not in the graph, they are supplied for the current query only
+     * @param stationNode current station
+     * @return WALKS_FROM_STATION relationships for the station, if any
+     */
+    public Stream<Relationship> getWalksFromStation(Node stationNode) {
+        return walks.getWalksFrom(stationNode);
+    }
+
+    /***
+     * @return time ordered hour and minute relationships for the current query, empty if not enabled
+     */
+    public TimeOrderedAdjacency.Bound getTimeOrdered() {
+        return timeOrdered;
+    }
+
+    /***
+     * Outgoing relationships of the given types, via the outbound adjacency if enabled and otherwise the graph
+     * @param node start node
+     * @param types relationship types to include
+     * @return matching outgoing relationships
+     */
+    public ResourceIterable<Relationship> getOutbound(Node node, TransportRelationshipTypes... types) {
+        if (outbound.contains(node)) {
+            return outbound.getOutbound(node, OutboundAdjacency.maskFor(types));
+        }
+        return node.getRelationships(Direction.OUTGOING, types);
+    }
+
+    /***
+     * As getOutbound, leaving out those relationships that lead back to the given node
+     * @param node start node
+     * @param excluded end node to leave out
+     * @param types relationship types to include
+     * @return matching outgoing relationships
+     */
+    public ResourceIterable<Relationship> getOutboundExcludingEnd(Node node, NodeId excluded, TransportRelationshipTypes... types) {
+        final long excludedNodeId = excluded.nodeId();
+        if (outbound.contains(node)) {
+            return outbound.getOutbound(node, OutboundAdjacency.maskFor(types), excludedNodeId);
+        }
+        final List<Relationship> filtered = new ArrayList<>();
+        for (final Relationship relationship : node.getRelationships(Direction.OUTGOING, types)) {
+            if (relationship.getEndNode().getId() != excludedNodeId) {
+                filtered.add(relationship);
+            }
+        }
+        return Iterables.asResourceIterable(filtered);
+    }
+
     private static class RelationshipFacade implements SortsPositions.HasStationId<Relationship> {
         private final Relationship relationship;
         private final Long id;
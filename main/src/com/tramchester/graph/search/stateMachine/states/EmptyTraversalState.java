@@ -51,7 +51,7 @@ public abstract class EmptyTraversalState {
         throw new RuntimeException("No such transition at " + stateType);
     }
 
-    protected HourState toHour(HourState.Builder towardsHour, Node node, Duration cost) {
+    protected HourState toHour(HourState.Builder towardsHour, Node node, Duration cost, JourneyStateUpdate journeyState) {
         throw new RuntimeException("No such transition at " + stateType);
     }
 
@@ -4,6 +4,7 @@ import com.tramchester.domain.exceptions.TramchesterException;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.TransportRelationshipTypes;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
 import com.tramchester.graph.search.JourneyStateUpdate;
 import com.tramchester.graph.search.stateMachine.ExistingTrip;
 import com.tramchester.graph.search.stateMachine.RegistersFromState;
@@ -29,8 +30,16 @@ public class HourState extends TraversalState {
             this.nodeContents = nodeContents;
         }
 
-        public HourState fromService(ServiceState serviceState, Node node, Duration cost, ExistingTrip maybeExistingTrip) {
-            Stream<Relationship> relationships = getMinuteRelationships(node);
+        public HourState fromService(ServiceState serviceState, Node node, Duration cost, ExistingTrip maybeExistingTrip,
+                                     TramTime journeyClock) {
+            final TimeOrderedAdjacency.Bound timeOrdered = serviceState.traversalOps.getTimeOrdered();
+            final Stream<Relationship> relationships;
+            if (timeOrdered.hasOrderFor(node)) {
+                // departures before the journey clock, or beyond the max wait, would be excluded on evaluation
+                relationships = timeOrdered.getMinutesFrom(node, journeyClock);
+            } else {
+                relationships = getMinuteRelationships(node);
+            }
             return new HourState(serviceState, relationships, maybeExistingTrip, cost, this);
         }
 
@@ -38,22 +38,22 @@ public class JustBoardedState extends RouteStationState {
         public JustBoardedState fromPlatformState(PlatformState platformState, Node node, Duration cost) {
             // does this ever happen? Get on one route station only to go back to a whole different
             // platform?
-            Stream<Relationship> otherPlatforms = filterExcludingEndNode(node.getRelationships(OUTGOING, ENTER_PLATFORM),
-                    platformState);
+            Stream<Relationship> otherPlatforms = Streams.stream(platformState.traversalOps.getOutboundExcludingEnd(node,
+                    platformState, ENTER_PLATFORM));
 
             Stream<Relationship> services;
             if (depthFirst) {
                 services = orderServicesByRouteMetric(node, platformState.traversalOps);
             } else {
-                services = Streams.stream(node.getRelationships(OUTGOING, TO_SERVICE));
+                services = Streams.stream(platformState.traversalOps.getOutbound(node, TO_SERVICE));
             }
 
             return new JustBoardedState(platformState, Stream.concat(services, otherPlatforms), cost, this);
         }
 
         public JustBoardedState fromNoPlatformStation(NoPlatformStationState noPlatformStation, Node node, Duration cost) {
-            Stream<Relationship> filteredDeparts = filterExcludingEndNode(node.getRelationships(OUTGOING, DEPART, INTERCHANGE_DEPART, DIVERSION_DEPART),
-                    noPlatformStation);
+            Stream<Relationship> filteredDeparts = Streams.stream(noPlatformStation.traversalOps.getOutboundExcludingEnd(node,
+                    noPlatformStation, DEPART, INTERCHANGE_DEPART, DIVERSION_DEPART));
             Stream<Relationship> services = orderServicesByRouteMetric(node, noPlatformStation.traversalOps);
             return new JustBoardedState(noPlatformStation, Stream.concat(filteredDeparts, services), cost, this);
         }
@@ -65,8 +65,7 @@ public class JustBoardedState extends RouteStationState {
          * @return ordered by least number routes interconnects first
          */
         private Stream<Relationship> orderServicesByRouteMetric(Node node, TraversalOps traversalOps) {
-            Iterable<Relationship> toServices = node.getRelationships(OUTGOING, TO_SERVICE);
-            return traversalOps.orderBoardingRelationsByRouteConnections(toServices);
+            return traversalOps.getServicesOrderedByRouteConnections(node);
         }
 
         /***
@@ -1,6 +1,5 @@
 package com.tramchester.graph.search.stateMachine.states;
 
-import com.google.common.collect.Streams;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.id.IdFor;
 import com.tramchester.domain.id.InvalidId;
@@ -18,8 +17,8 @@ import org.neo4j.graphdb.ResourceIterable;
 import org.neo4j.internal.helpers.collection.Iterables;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.tramchester.graph.GraphPropertyKey.TRIP_ID;
 import static org.neo4j.graphdb.Direction.OUTGOING;
@@ -49,7 +48,7 @@ public class MinuteState extends TraversalState {
         public TraversalState fromHour(HourState hourState, Node node, Duration cost, ExistingTrip existingTrip,
                                        JourneyStateUpdate journeyState, TransportRelationshipTypes[] currentModes) {
 
-            ResourceIterable<Relationship> relationships = node.getRelationships(OUTGOING, currentModes);
+            ResourceIterable<Relationship> relationships = hourState.traversalOps.getOutbound(node, currentModes);
 
             if (existingTrip.isOnTrip()) {
                 IdFor<Trip> existingTripId = existingTrip.getTripId();
@@ -64,9 +63,13 @@ public class MinuteState extends TraversalState {
         }
 
         private ResourceIterable<Relationship> filterBySingleTripId(ResourceIterable<Relationship> relationships, IdFor<Trip> existingTripId) {
-            List<Relationship> filtered = Streams.stream(relationships).
-                    filter(relationship -> nodeContents.getTripId(relationship).equals(existingTripId)).
-                    collect(Collectors.toList());
+            // usually only one or two outbound, avoid the overhead of a stream
+            final List<Relationship> filtered = new ArrayList<>(1);
+            for (final Relationship relationship : relationships) {
+                if (nodeContents.getTripId(relationship).equals(existingTripId)) {
+                    filtered.add(relationship);
+                }
+            }
             return Iterables.asResourceIterable(filtered);
 
         }
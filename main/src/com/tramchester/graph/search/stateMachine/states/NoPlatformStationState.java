@@ -47,7 +47,7 @@ public class NoPlatformStationState extends StationState {
         public NoPlatformStationState fromStart(NotStartedState notStartedState, Node node, Duration cost,
                                                 JourneyStateUpdate journeyState, boolean alreadyOnDiversion, boolean onDiversion) {
             final Stream<Relationship> neighbours = getRelationships(node, OUTGOING, NEIGHBOUR);
-            final Stream<Relationship> initial = boardRelationshipsPlus(node, WALKS_FROM_STATION, GROUPED_TO_PARENT);
+            final Stream<Relationship> initial = addWalksToDest(node, boardRelationshipsPlus(node, GROUPED_TO_PARENT), notStartedState);
             Stream<Relationship> relationships = addValidDiversions(node, initial, notStartedState, alreadyOnDiversion);
 
             return new NoPlatformStationState(notStartedState, Stream.concat(neighbours, relationships), cost, node, journeyState, this);
@@ -56,14 +56,14 @@ public class NoPlatformStationState extends StationState {
         public TraversalState fromRouteStation(RouteStationStateEndTrip routeStationState, Node node, Duration cost,
                                                JourneyStateUpdate journeyState, boolean alreadyOnDiversion) {
             // end of a trip, may need to go back to this route station to catch new service
-            final Stream<Relationship> initial = boardRelationshipsPlus(node, WALKS_FROM_STATION, NEIGHBOUR, GROUPED_TO_PARENT);
+            final Stream<Relationship> initial = addWalksToDest(node, boardRelationshipsPlus(node, NEIGHBOUR, GROUPED_TO_PARENT), routeStationState);
             Stream<Relationship> relationships = addValidDiversions(node, initial, routeStationState, alreadyOnDiversion);
             return new NoPlatformStationState(routeStationState, relationships, cost, node, journeyState, this);
         }
 
         public TraversalState fromRouteStation(RouteStationStateOnTrip onTrip, Node node, Duration cost, JourneyStateUpdate journeyState) {
             // filter so we don't just get straight back on tram if just boarded, or if we are on an existing trip
-            final Stream<Relationship> relationships = boardRelationshipsPlus(node, WALKS_FROM_STATION, NEIGHBOUR, GROUPED_TO_PARENT);
+            final Stream<Relationship> relationships = addWalksToDest(node, boardRelationshipsPlus(node, NEIGHBOUR, GROUPED_TO_PARENT), onTrip);
             Stream<Relationship> stationRelationships = filterExcludingEndNode(relationships, onTrip);
             return new NoPlatformStationState(onTrip, stationRelationships, cost, node, journeyState, this);
         }
@@ -34,7 +34,7 @@ public class PlatformState extends TraversalState implements NodeId {
         public PlatformState from(PlatformStationState platformStationState, Node node, Duration cost) {
             // inc. board here since might be starting journey
             return new PlatformState(platformStationState,
-                    node.getRelationships(OUTGOING, INTERCHANGE_BOARD, BOARD), node, cost, this);
+                    platformStationState.traversalOps.getOutbound(node, INTERCHANGE_BOARD, BOARD), node, cost, this);
         }
 
         public TraversalState fromRouteStationOnTrip(RouteStationStateOnTrip routeStationStateOnTrip, Node node, Duration cost) {
@@ -46,7 +46,7 @@ public class PlatformState extends TraversalState implements NodeId {
             }
 
             // inc. board here since might be starting journey
-            ResourceIterable<Relationship> platformRelationships = node.getRelationships(OUTGOING,
+            ResourceIterable<Relationship> platformRelationships = routeStationStateOnTrip.traversalOps.getOutbound(node,
                     BOARD, INTERCHANGE_BOARD, LEAVE_PLATFORM);
 
             // Cannot filter here as might be starting a new trip from this point, so need to 'go back' to the route station
@@ -61,14 +61,14 @@ public class PlatformState extends TraversalState implements NodeId {
                 return new PlatformState(routeStationState, towardsDest, node, cost, this);
             }
 
-            ResourceIterable<Relationship> platformRelationships = node.getRelationships(OUTGOING,
+            ResourceIterable<Relationship> platformRelationships = routeStationState.traversalOps.getOutbound(node,
                     BOARD, INTERCHANGE_BOARD, LEAVE_PLATFORM);
             // end of a trip, may need to go back to this route station to catch new service
             return new PlatformState(routeStationState, platformRelationships, node, cost, this);
         }
 
         private OptionalResourceIterator<Relationship> getTowardsDestination(TraversalOps traversalOps, Node node) {
-            return traversalOps.getTowardsDestination(node.getRelationships(OUTGOING, LEAVE_PLATFORM));
+            return traversalOps.getTowardsDestination(traversalOps.getOutbound(node, LEAVE_PLATFORM));
         }
 
     }
@@ -1,5 +1,6 @@
 package com.tramchester.graph.search.stateMachine.states;
 
+import com.google.common.collect.Streams;
 import com.tramchester.graph.search.JourneyStateUpdate;
 import com.tramchester.graph.search.stateMachine.RegistersFromState;
 import com.tramchester.graph.search.stateMachine.TowardsStation;
@@ -40,8 +41,8 @@ public class PlatformStationState extends StationState {
 
         public PlatformStationState fromPlatform(PlatformState platformState, Node stationNode, Duration cost,
                                                  JourneyStateUpdate journeyState, boolean onDiversion) {
-            final Iterable<Relationship> initial = stationNode.getRelationships(OUTGOING, WALKS_FROM_STATION, ENTER_PLATFORM,
-                    NEIGHBOUR, GROUPED_TO_PARENT);
+            final Stream<Relationship> initial = addWalksToDest(stationNode, Streams.stream(stationNode.getRelationships(OUTGOING,
+                    ENTER_PLATFORM, NEIGHBOUR, GROUPED_TO_PARENT)), platformState);
             Stream<Relationship> relationships = addValidDiversions(stationNode, initial, platformState, onDiversion);
             return new PlatformStationState(platformState, filterExcludingEndNode(relationships, platformState), cost,
                     stationNode, journeyState, this);
@@ -50,8 +51,8 @@ public class PlatformStationState extends StationState {
         public PlatformStationState fromStart(NotStartedState notStartedState, Node stationNode, Duration cost,
                                               JourneyStateUpdate journeyState, boolean alreadyOnDiversion, boolean onDiversion) {
             final Stream<Relationship> neighbours = TraversalState.getRelationships(stationNode, OUTGOING, NEIGHBOUR);
-            final Iterable<Relationship> initial = stationNode.getRelationships(OUTGOING, WALKS_FROM_STATION,
-                    GROUPED_TO_PARENT, ENTER_PLATFORM);
+            final Stream<Relationship> initial = addWalksToDest(stationNode, Streams.stream(stationNode.getRelationships(OUTGOING,
+                    GROUPED_TO_PARENT, ENTER_PLATFORM)), notStartedState);
             Stream<Relationship> relationships = addValidDiversions(stationNode, initial, notStartedState, onDiversion);
 
             return new PlatformStationState(notStartedState, Stream.concat(neighbours,relationships), cost, stationNode, journeyState, this);
@@ -53,7 +53,7 @@ public class RouteStationStateEndTrip extends RouteStationState {
                 return new RouteStationStateEndTrip(minuteState, towardsDestination.stream(), cost, transportMode, node, trip, this);
             }
 
-            Stream<Relationship> outboundsToFollow = getOutboundsToFollow(node, isInterchange, date);
+            Stream<Relationship> outboundsToFollow = getOutboundsToFollow(minuteState.traversalOps, node, isInterchange, date);
 
             return new RouteStationStateEndTrip(minuteState, outboundsToFollow, cost, transportMode, node, trip, this);
         }
@@ -64,10 +64,10 @@ public class RouteStationStateOnTrip extends RouteStationState implements NodeId
             }
 
             // outbound service relationships that continue the current trip
-            Stream<Relationship> towardsServiceForTrip = filterByTripId(node.getRelationships(OUTGOING, TO_SERVICE), trip);
+            Stream<Relationship> towardsServiceForTrip = filterByTripId(minuteState.traversalOps.getOutbound(node, TO_SERVICE), trip);
 
             // now add outgoing to platforms/stations
-            Stream<Relationship> outboundsToFollow = getOutboundsToFollow(node, isInterchange, date);
+            Stream<Relationship> outboundsToFollow = getOutboundsToFollow(minuteState.traversalOps, node, isInterchange, date);
 
             // NOTE: order of the concatenation matters here for depth first, need to do departs first to
             // explore routes including changes over continuing on possibly much longer trip
@@ -4,6 +4,8 @@ import com.google.common.collect.Streams;
 import com.tramchester.domain.id.IdFor;
 import com.tramchester.domain.input.Trip;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
+import com.tramchester.graph.search.JourneyStateUpdate;
 import com.tramchester.graph.search.stateMachine.ExistingTrip;
 import com.tramchester.graph.search.stateMachine.RegistersFromState;
 import com.tramchester.graph.search.stateMachine.Towards;
@@ -42,21 +44,26 @@ public class ServiceState extends TraversalState {
         }
 
         public TraversalState fromRouteStation(RouteStationStateOnTrip state, IdFor<Trip> tripId, Node node, Duration cost) {
-            Stream<Relationship> serviceRelationships = getHourRelationships(node);
+            Stream<Relationship> serviceRelationships = getHourRelationships(state, node);
             return new ServiceState(state, serviceRelationships, ExistingTrip.onTrip(tripId), cost, this);
         }
 
         public TraversalState fromRouteStation(RouteStationStateEndTrip endTrip, Node node, Duration cost) {
-            Stream<Relationship> serviceRelationships = getHourRelationships(node);
+            Stream<Relationship> serviceRelationships = getHourRelationships(endTrip, node);
             return new ServiceState(endTrip, serviceRelationships, cost, this);
         }
 
         public TraversalState fromRouteStation(JustBoardedState justBoarded, Node node, Duration cost) {
-            Stream<Relationship> serviceRelationships = getHourRelationships(node);
+            Stream<Relationship> serviceRelationships = getHourRelationships(justBoarded, node);
             return new ServiceState(justBoarded, serviceRelationships, cost, this);
         }
 
-        private Stream<Relationship> getHourRelationships(Node node) {
+        private Stream<Relationship> getHourRelationships(TraversalState from, Node node) {
+            final TimeOrderedAdjacency.Bound timeOrdered = from.traversalOps.getTimeOrdered();
+            if (timeOrdered.hasOrderFor(node)) {
+                // already in hour order
+                return timeOrdered.getHoursInOrder(node);
+            }
             Stream<Relationship> relationships = Streams.stream(node.getRelationships(OUTGOING, TO_HOUR));
             if (depthFirst) {
                 // todo is the gain here worth the overhead of computing the hour for the end node?
@@ -89,8 +96,8 @@ public class ServiceState extends TraversalState {
     }
 
     @Override
-    protected HourState toHour(HourState.Builder towardsHour, Node node, Duration cost) {
-        return towardsHour.fromService(this, node, cost, maybeExistingTrip);
+    protected HourState toHour(HourState.Builder towardsHour, Node node, Duration cost, JourneyStateUpdate journeyState) {
+        return towardsHour.fromService(this, node, cost, maybeExistingTrip, journeyState.getJourneyClock());
     }
 
     @Override
@@ -40,5 +40,9 @@ public abstract class StationStateBuilder {
         return relationships;
     }
 
+    protected Stream<Relationship> addWalksToDest(Node stationNode, Stream<Relationship> relationships, TraversalState traversalState) {
+        // explore walks first
+        return Stream.concat(traversalState.traversalOps.getWalksFromStation(stationNode), relationships);
+    }
 
 }
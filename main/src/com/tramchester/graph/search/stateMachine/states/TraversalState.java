@@ -109,7 +109,7 @@ public abstract class TraversalState extends EmptyTraversalState implements Immu
                 return toMinute(builders.getTowardsMinute(stateType), node, cost, journeyState, requestedRelationshipTypes);
             }
             case HourState -> {
-                return toHour(builders.getTowardsHour(stateType), node, cost);
+                return toHour(builders.getTowardsHour(stateType), node, cost, journeyState);
             }
             case GroupedStationState -> {
                 return toGrouped(builders.getTowardsGroup(stateType), node, cost, journeyState);
@@ -0,0 +1,100 @@
+package com.tramchester.graph.search.walks;
+
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.NotFoundException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * Node or relationship that only exists in memory for a single query, ids are negative so never clash with the graph
+ */
+abstract class VirtualEntity implements Entity {
+    private final long id;
+    private final Map<String, Object> properties;
+
+    VirtualEntity(long id) {
+        if (id >= 0) {
+            throw new RuntimeException("Virtual ids must be negative, got " + id);
+        }
+        this.id = id;
+        this.properties = new HashMap<>();
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String getElementId() {
+        return "virtual:" + id;
+    }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        final Object value = properties.get(key);
+        if (value == null) {
+            throw new NotFoundException("No property " + key + " for " + this);
+        }
+        return value;
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return properties.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        properties.put(key, value);
+    }
+
+    @Override
+    public Object removeProperty(String key) {
+        return properties.remove(key);
+    }
+
+    @Override
+    public Iterable<String> getPropertyKeys() {
+        return properties.keySet();
+    }
+
+    @Override
+    public Map<String, Object> getProperties(String... keys) {
+        final Map<String, Object> result = new HashMap<>();
+        Arrays.stream(keys).filter(properties::containsKey).forEach(key -> result.put(key, properties.get(key)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getAllProperties() {
+        return new HashMap<>(properties);
+    }
+
+    @Override
+    public void delete() {
+        throw new UnsupportedOperationException("Virtual entities are not stored in the graph " + this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        VirtualEntity that = (VirtualEntity) o;
+
+        return id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+}
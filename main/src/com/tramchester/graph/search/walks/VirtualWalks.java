@@ -0,0 +1,214 @@
+package com.tramchester.graph.search.walks;
+
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.graph.GraphQuery;
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.tramchester.graph.TransportRelationshipTypes.WALKS_FROM_STATION;
+import static com.tramchester.graph.TransportRelationshipTypes.WALKS_TO_STATION;
+import static java.lang.String.format;
+
+/***
+ * Walks between a location and the nearby stations for a single query. Held in memory and added to a traversal by
+ * the state machine instead of being written into the graph, so location based queries only read from the graph
+ * and can run concurrently. Nodes and relationships are bound to a transaction, see bind()
+ */
+public class VirtualWalks {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualWalks.class);
+
+    private static final long START_NODE_ID = -1;
+    private static final long END_NODE_ID = -2;
+    private static final long FIRST_RELATIONSHIP_ID = -3;
+
+    private static final VirtualWalks NONE = new VirtualWalks(null, Collections.emptySet(), null, Collections.emptySet());
+
+    private final Location<?> start;
+    private final Set<StationWalk> walksAtStart;
+    private final Location<?> end;
+    private final Set<StationWalk> walksAtEnd;
+
+    private VirtualWalks(Location<?> start, Set<StationWalk> walksAtStart, Location<?> end, Set<StationWalk> walksAtEnd) {
+        this.start = start;
+        this.walksAtStart = walksAtStart;
+        this.end = end;
+        this.walksAtEnd = walksAtEnd;
+    }
+
+    public static VirtualWalks none() {
+        return NONE;
+    }
+
+    public static VirtualWalks atStart(Location<?> start, Set<StationWalk> walksAtStart) {
+        return new VirtualWalks(start, walksAtStart, null, Collections.emptySet());
+    }
+
+    public static VirtualWalks atEnd(Location<?> end, Set<StationWalk> walksAtEnd) {
+        return new VirtualWalks(null, Collections.emptySet(), end, walksAtEnd);
+    }
+
+    public static VirtualWalks atStartAndEnd(Location<?> start, Set<StationWalk> walksAtStart, Location<?> end, Set<StationWalk> walksAtEnd) {
+        return new VirtualWalks(start, walksAtStart, end, walksAtEnd);
+    }
+
+    public static boolean isVirtual(Entity entity) {
+        return isVirtual(entity.getId());
+    }
+
+    public static boolean isVirtual(long id) {
+        return id < 0;
+    }
+
+    public boolean hasStart() {
+        return start != null;
+    }
+
+    public boolean hasEnd() {
+        return end != null;
+    }
+
+    public Set<StationWalk> getWalksAtStart() {
+        return walksAtStart;
+    }
+
+    public Set<StationWalk> getWalksAtEnd() {
+        return walksAtEnd;
+    }
+
+    /***
+     * @param txn transaction the traversal will run in, station nodes are looked up in this transaction
+     * @param graphQuery to find the station nodes
+     * @return walking nodes and relationships for use in txn only
+     */
+    public Bound bind(Transaction txn, GraphQuery graphQuery) {
+        long nextRelationshipId = FIRST_RELATIONSHIP_ID;
+
+        WalkingNode startNode = null;
+        final Map<Long, List<Relationship>> walksToStations = new HashMap<>();
+        if (hasStart()) {
+            startNode = WalkingNode.create(START_NODE_ID, start.getLatLong());
+            for (StationWalk walk : walksAtStart) {
+                final Node stationNode = getStationNode(txn, graphQuery, walk.getStation());
+                final WalkingRelationship walkTo = WalkingRelationship.create(nextRelationshipId--, startNode, stationNode,
+                        WALKS_TO_STATION, walk);
+                startNode.addOutgoing(walkTo);
+                walksToStations.computeIfAbsent(stationNode.getId(), id -> new ArrayList<>()).add(walkTo);
+            }
+        }
+
+        WalkingNode endNode = null;
+        final Map<Long, List<Relationship>> walksFromStations = new HashMap<>();
+        if (hasEnd()) {
+            endNode = WalkingNode.create(END_NODE_ID, end.getLatLong());
+            for (StationWalk walk : walksAtEnd) {
+                final Node stationNode = getStationNode(txn, graphQuery, walk.getStation());
+                final WalkingRelationship walkFrom = WalkingRelationship.create(nextRelationshipId--, stationNode, endNode,
+                        WALKS_FROM_STATION, walk);
+                endNode.addIncoming(walkFrom);
+                walksFromStations.computeIfAbsent(stationNode.getId(), id -> new ArrayList<>()).add(walkFrom);
+            }
+        }
+
+        logger.debug(format("Bound %s walks at start and %s walks at end", walksAtStart.size(), walksAtEnd.size()));
+
+        return new Bound(startNode, endNode, walksToStations, walksFromStations);
+    }
+
+    private Node getStationNode(Transaction txn, GraphQuery graphQuery, Station station) {
+        final Node stationNode = graphQuery.getStationNode(txn, station);
+        if (stationNode == null) {
+            throw new RuntimeException("Could not find node for " + station);
+        }
+        return stationNode;
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualWalks{" +
+                "start=" + (hasStart() ? start.getId() : "none") +
+                ", walksAtStart=" + walksAtStart +
+                ", end=" + (hasEnd() ? end.getId() : "none") +
+                ", walksAtEnd=" + walksAtEnd +
+                '}';
+    }
+
+    public static class Bound {
+        private static final Bound EMPTY = new Bound(null, null, Collections.emptyMap(), Collections.emptyMap());
+
+        private final WalkingNode startNode;
+        private final WalkingNode endNode;
+
+        // station node id -> walks from the start node to that station
+        private final Map<Long, List<Relationship>> walksToStations;
+
+        // station node id -> walks from that station to the end node
+        private final Map<Long, List<Relationship>> walksFromStations;
+
+        private Bound(WalkingNode startNode, WalkingNode endNode, Map<Long, List<Relationship>> walksToStations,
+                      Map<Long, List<Relationship>> walksFromStations) {
+            this.startNode = startNode;
+            this.endNode = endNode;
+            this.walksToStations = walksToStations;
+            this.walksFromStations = walksFromStations;
+        }
+
+        public static Bound empty() {
+            return EMPTY;
+        }
+
+        public boolean hasStart() {
+            return startNode != null;
+        }
+
+        public boolean hasEnd() {
+            return endNode != null;
+        }
+
+        public Node getStartNode() {
+            if (startNode == null) {
+                throw new RuntimeException("No walks at start");
+            }
+            return startNode;
+        }
+
+        public Node getEndNode() {
+            if (endNode == null) {
+                throw new RuntimeException("No walks at end");
+            }
+            return endNode;
+        }
+
+        /***
+         * @param stationNode a station node
+         * @return outgoing walks from the station to the end node, if any
+         */
+        public Stream<Relationship> getWalksFrom(Node stationNode) {
+            return walksFor(walksFromStations, stationNode);
+        }
+
+        /***
+         * @param stationNode a station node
+         * @return incoming walks from the start node to the station, if any
+         */
+        public Stream<Relationship> getWalksTo(Node stationNode) {
+            return walksFor(walksToStations, stationNode);
+        }
+
+        private static Stream<Relationship> walksFor(Map<Long, List<Relationship>> walksForStations, Node stationNode) {
+            if (walksForStations.isEmpty()) {
+                return Stream.empty();
+            }
+            final List<Relationship> walks = walksForStations.get(stationNode.getId());
+            return walks == null ? Stream.empty() : walks.stream();
+        }
+    }
+}
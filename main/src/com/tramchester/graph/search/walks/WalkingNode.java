@@ -0,0 +1,163 @@
+package com.tramchester.graph.search.walks;
+
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.GraphProps;
+import org.neo4j.graphdb.*;
+import org.neo4j.internal.helpers.collection.Iterables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/***
+ * In memory equivalent of a QUERY_NODE, the start or end of walks for a single query
+ */
+public class WalkingNode extends VirtualEntity implements Node {
+    private final List<Relationship> outgoing;
+    private final List<Relationship> incoming;
+
+    private WalkingNode(long id) {
+        super(id);
+        outgoing = new ArrayList<>();
+        incoming = new ArrayList<>();
+    }
+
+    static WalkingNode create(long id, LatLong latLong) {
+        final WalkingNode node = new WalkingNode(id);
+        GraphProps.setLatLong(node, latLong);
+        return node;
+    }
+
+    void addOutgoing(Relationship relationship) {
+        outgoing.add(relationship);
+    }
+
+    void addIncoming(Relationship relationship) {
+        incoming.add(relationship);
+    }
+
+    @Override
+    public ResourceIterable<Relationship> getRelationships() {
+        return getRelationships(Direction.BOTH);
+    }
+
+    @Override
+    public boolean hasRelationship() {
+        return !(outgoing.isEmpty() && incoming.isEmpty());
+    }
+
+    @Override
+    public ResourceIterable<Relationship> getRelationships(RelationshipType... types) {
+        return getRelationships(Direction.BOTH, types);
+    }
+
+    @Override
+    public ResourceIterable<Relationship> getRelationships(Direction direction, RelationshipType... types) {
+        final List<Relationship> matching = forDirection(direction).
+                filter(relationship -> types.length == 0 || Arrays.stream(types).anyMatch(relationship::isType)).
+                collect(Collectors.toList());
+        return Iterables.asResourceIterable(matching);
+    }
+
+    @Override
+    public boolean hasRelationship(RelationshipType... types) {
+        return hasRelationship(Direction.BOTH, types);
+    }
+
+    @Override
+    public boolean hasRelationship(Direction direction, RelationshipType... types) {
+        return forDirection(direction).anyMatch(relationship -> types.length == 0 || Arrays.stream(types).anyMatch(relationship::isType));
+    }
+
+    @Override
+    public ResourceIterable<Relationship> getRelationships(Direction direction) {
+        return Iterables.asResourceIterable(forDirection(direction).collect(Collectors.toList()));
+    }
+
+    @Override
+    public boolean hasRelationship(Direction direction) {
+        return forDirection(direction).findAny().isPresent();
+    }
+
+    @Override
+    public Relationship getSingleRelationship(RelationshipType type, Direction direction) {
+        final List<Relationship> matching = forDirection(direction).
+                filter(relationship -> relationship.isType(type)).
+                collect(Collectors.toList());
+        if (matching.size() > 1) {
+            throw new RuntimeException("More than one " + type + " relationship for " + this);
+        }
+        return matching.isEmpty() ? null : matching.get(0);
+    }
+
+    @Override
+    public Relationship createRelationshipTo(Node otherNode, RelationshipType type) {
+        throw new UnsupportedOperationException("Cannot add relationships to " + this);
+    }
+
+    @Override
+    public Iterable<RelationshipType> getRelationshipTypes() {
+        return forDirection(Direction.BOTH).map(Relationship::getType).distinct().collect(Collectors.toList());
+    }
+
+    @Override
+    public int getDegree() {
+        return outgoing.size() + incoming.size();
+    }
+
+    @Override
+    public int getDegree(RelationshipType type) {
+        return getDegree(type, Direction.BOTH);
+    }
+
+    @Override
+    public int getDegree(Direction direction) {
+        return (int) forDirection(direction).count();
+    }
+
+    @Override
+    public int getDegree(RelationshipType type, Direction direction) {
+        return (int) forDirection(direction).filter(relationship -> relationship.isType(type)).count();
+    }
+
+    @Override
+    public void addLabel(Label label) {
+        throw new UnsupportedOperationException("Cannot change labels for " + this);
+    }
+
+    @Override
+    public void removeLabel(Label label) {
+        throw new UnsupportedOperationException("Cannot change labels for " + this);
+    }
+
+    @Override
+    public boolean hasLabel(Label label) {
+        return GraphLabel.QUERY_NODE.name().equals(label.name());
+    }
+
+    @Override
+    public Iterable<Label> getLabels() {
+        return Collections.singletonList(GraphLabel.QUERY_NODE);
+    }
+
+    private Stream<Relationship> forDirection(Direction direction) {
+        return switch (direction) {
+            case OUTGOING -> outgoing.stream();
+            case INCOMING -> incoming.stream();
+            case BOTH -> Stream.concat(outgoing.stream(), incoming.stream());
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "WalkingNode{" +
+                "id=" + getId() +
+                ", outgoing=" + outgoing.size() +
+                ", incoming=" + incoming.size() +
+                '}';
+    }
+}
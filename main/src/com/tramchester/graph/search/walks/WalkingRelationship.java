@@ -0,0 +1,82 @@
+package com.tramchester.graph.search.walks;
+
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.GraphProps;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+/***
+ * In memory WALKS_TO_STATION or WALKS_FROM_STATION between a walking node and a station node
+ */
+public class WalkingRelationship extends VirtualEntity implements Relationship {
+    private final Node start;
+    private final Node end;
+    private final TransportRelationshipTypes type;
+
+    private WalkingRelationship(long id, Node start, Node end, TransportRelationshipTypes type) {
+        super(id);
+        this.start = start;
+        this.end = end;
+        this.type = type;
+    }
+
+    static WalkingRelationship create(long id, Node start, Node end, TransportRelationshipTypes type, StationWalk stationWalk) {
+        final WalkingRelationship relationship = new WalkingRelationship(id, start, end, type);
+        final Station station = stationWalk.getStation();
+        GraphProps.setCostProp(relationship, stationWalk.getCost());
+        GraphProps.setMaxCostProp(relationship, stationWalk.getCost());
+        GraphProps.setProperty(relationship, station);
+        return relationship;
+    }
+
+    @Override
+    public Node getStartNode() {
+        return start;
+    }
+
+    @Override
+    public Node getEndNode() {
+        return end;
+    }
+
+    @Override
+    public Node getOtherNode(Node node) {
+        // compare ids, node could be a different instance for the same station
+        if (node.getId() == start.getId()) {
+            return end;
+        }
+        if (node.getId() == end.getId()) {
+            return start;
+        }
+        throw new RuntimeException("Node " + node.getId() + " is not part of " + this);
+    }
+
+    @Override
+    public Node[] getNodes() {
+        return new Node[]{start, end};
+    }
+
+    @Override
+    public RelationshipType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isType(RelationshipType relationshipType) {
+        return type.name().equals(relationshipType.name());
+    }
+
+    @Override
+    public String toString() {
+        return "WalkingRelationship{" +
+                "id=" + getId() +
+                ", type=" + type +
+                ", start=" + start.getId() +
+                ", end=" + end.getId() +
+                ", props=" + getAllProperties() +
+                '}';
+    }
+}
@@ -51,6 +51,13 @@ public class CacheMetrics {
         registered.add(reportsCacheStats);
     }
 
+    /***
+     * Register a gauge not backed by cache stats, for example progress of building a cache
+     */
+    public <T> void register(Class<?> owningClass, String category, String name, Gauge<T> gauge) {
+        registry.register(MetricRegistry.name(owningClass, category, name), gauge);
+    }
+
     private void register(RegistersCacheMetrics registry, ReportsCacheStats reportsCacheStats) {
         List<Pair<String, CacheStats>> cacheStats = reportsCacheStats.stats();
         cacheStats.forEach(cacheStat -> register(reportsCacheStats, cacheStat, registry));
@@ -1,11 +1,21 @@
 package com.tramchester.modules;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
+import com.netflix.governator.guice.lazy.LazySingleton;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.time.ProvidesLocalNow;
 import com.tramchester.domain.time.ProvidesNow;
 import com.tramchester.graph.caches.CachedNodeOperations;
 import com.tramchester.graph.caches.NodeContentsRepository;
+import com.tramchester.graph.caches.NodeContentsSnapshot;
+import com.tramchester.graph.search.ArriveByRouteCalculator;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.graph.search.TramRouteCalculator;
+import com.tramchester.graph.search.connectionScan.ConnectionScanArriveByCalculator;
+import com.tramchester.graph.search.connectionScan.ConnectionScanRouteCalculator;
 import com.tramchester.metrics.CacheMetrics;
 
 public class MappersAndConfigurationModule extends AbstractModule {
@@ -23,7 +33,36 @@ public class MappersAndConfigurationModule extends AbstractModule {
         bind(CacheMetrics.RegistersCacheMetrics.class).toInstance(registersCacheMetrics);
 
         bind(ProvidesNow.class).to(ProvidesLocalNow.class);
-        bind(NodeContentsRepository.class).to(CachedNodeOperations.class);
+    }
+
+    @SuppressWarnings("unused")
+    @Provides
+    @LazySingleton
+    NodeContentsRepository providesNodeContents(Provider<CachedNodeOperations> cachedNodeOperations,
+                                                Provider<NodeContentsSnapshot> nodeContentsSnapshot) {
+        return config.getNodeContentsSnapshot() ? nodeContentsSnapshot.get() : cachedNodeOperations.get();
+    }
+
+    @SuppressWarnings("unused")
+    @Provides
+    @LazySingleton
+    TramRouteCalculator providesRouteCalculator(Provider<RouteCalculator> graphCalculator,
+                                                Provider<ConnectionScanRouteCalculator> connectionScanCalculator) {
+        return switch (config.getRouteCalculatorType()) {
+            case Graph -> graphCalculator.get();
+            case ConnectionScan -> connectionScanCalculator.get();
+        };
+    }
+
+    @SuppressWarnings("unused")
+    @Provides
+    @LazySingleton
+    ArriveByRouteCalculator providesArriveByCalculator(Provider<RouteCalculatorArriveBy> graphCalculator,
+                                                       Provider<ConnectionScanArriveByCalculator> connectionScanCalculator) {
+        return switch (config.getRouteCalculatorType()) {
+            case Graph -> graphCalculator.get();
+            case ConnectionScan -> connectionScanCalculator.get();
+        };
     }
 
 }
@@ -23,6 +23,7 @@ import javax.inject.Inject;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -37,6 +38,9 @@ public class ClosedStationsRepository {
     private final StationLocations stationLocations;
     private final GraphFilter filter;
 
+    // changes whenever the closures do, so anything derived from them can tell when to refresh
+    private final AtomicInteger version;
+
     @Inject
     public ClosedStationsRepository(TramchesterConfig config, StationRepository stationRepository, StationLocations stationLocations,
                                     GraphFilter filter) {
@@ -47,6 +51,7 @@ public class ClosedStationsRepository {
         this.filter = filter;
         closed = new HashSet<>();
         hasAClosure = new IdSet<>();
+        version = new AtomicInteger(0);
     }
 
     @PostConstruct
@@ -75,6 +80,7 @@ public class ClosedStationsRepository {
                     collect(Collectors.toSet());
             closed.addAll(closedStations);
         });
+        version.incrementAndGet();
     }
 
     private ClosedStation createClosedStation(IdFor<Station> stationId, DateRange dateRange, boolean fullyClosed, MarginInMeters range) {
@@ -103,9 +109,14 @@ public class ClosedStationsRepository {
         logger.info("Stopping");
         closed.clear();
         hasAClosure.clear();
+        version.incrementAndGet();
         logger.info("Stopped");
     }
 
+    public int getVersion() {
+        return version.get();
+    }
+
     public Set<ClosedStation> getFullyClosedStationsFor(TramDate date) {
         return getClosures(date, true).collect(Collectors.toSet());
     }
@@ -0,0 +1,47 @@
+package com.tramchester.repository;
+
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.domain.id.IdIndex;
+import com.tramchester.domain.places.Station;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+/***
+ * Dense indexes for ids of loaded data, created once at start up from the repositories, so sets of those ids can be
+ * held as bitmaps. Ids derived from requests are never added.
+ */
+@LazySingleton
+public class IdRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(IdRegistry.class);
+
+    private final StationRepository stationRepository;
+
+    private IdIndex<Station> stations;
+
+    @Inject
+    public IdRegistry(StationRepository stationRepository) {
+        this.stationRepository = stationRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        stations = IdIndex.of(stationRepository.getStations());
+        logger.info("started, indexed " + stations.size() + " stations");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        stations = null;
+        logger.info("stopped");
+    }
+
+    public IdIndex<Station> stations() {
+        return stations;
+    }
+}
@@ -1,104 +1,232 @@
 package com.tramchester.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.CoreDomain;
 import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
+import com.tramchester.domain.collections.SimpleBitmap;
+import com.tramchester.domain.collections.SimpleImmutableBitmap;
+import com.tramchester.domain.dates.DateRange;
 import com.tramchester.domain.dates.TramDate;
 import com.tramchester.domain.id.HasId;
 import com.tramchester.domain.id.IdFor;
-import com.tramchester.domain.id.IdMap;
+import com.tramchester.domain.id.IdIndex;
 import com.tramchester.domain.time.CrossesDay;
+import com.tramchester.domain.time.ProvidesNow;
 import com.tramchester.domain.time.TimeRange;
 import com.tramchester.domain.time.TramTime;
-import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.time.Duration;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/***
+ * Services and routes running on a date, held as bitmaps over a fixed index of all services and routes. Filters for
+ * the timetable dates within config precomputeRunningDays of today are created at start up, other dates are created
+ * on first use and only a limited number of those are kept.
+ */
 @LazySingleton
 public class RunningRoutesAndServices {
     private static final Logger logger = LoggerFactory.getLogger(RunningRoutesAndServices.class);
 
+    private static final int OTHER_DATES_SIZE = 31;
+    // only needed while creating filters, which share the running on for adjacent dates
+    private static final int RUNNING_ON_SIZE = 7;
+
     private final ServiceRepository serviceRepository;
     private final RouteRepository routeRepository;
+    private final ProvidesNow providesNow;
+    private final TramchesterConfig config;
+
+    private final Cache<TramDate, RunningOnDate> runningOnDates;
+    private final Cache<TramDate, RunningOnDate> intoNextDayForDates;
+    private final Map<TramDate, FilterForDate> filters;
+    private final Cache<TramDate, FilterForDate> otherDateFilters;
+
+    private volatile Optional<DateRange> precomputedDates;
+
+    // created on first use
+    private volatile IdIndex<Service> servicePositions;
+    private volatile IdIndex<Route> routePositions;
 
     @Inject
-    public RunningRoutesAndServices(ServiceRepository serviceRepository, RouteRepository routeRepository) {
+    public RunningRoutesAndServices(ServiceRepository serviceRepository, RouteRepository routeRepository,
+                                    ProvidesNow providesNow, TramchesterConfig config) {
         this.serviceRepository = serviceRepository;
         this.routeRepository = routeRepository;
+        this.providesNow = providesNow;
+        this.config = config;
+        runningOnDates = Caffeine.newBuilder().maximumSize(RUNNING_ON_SIZE).build();
+        intoNextDayForDates = Caffeine.newBuilder().maximumSize(RUNNING_ON_SIZE).build();
+        filters = new ConcurrentHashMap<>();
+        otherDateFilters = Caffeine.newBuilder().maximumSize(OTHER_DATES_SIZE).
+                expireAfterAccess(30, TimeUnit.MINUTES).build();
+        precomputedDates = Optional.empty();
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        precomputedDates = getPrecomputeDates();
+        if (precomputedDates.isPresent()) {
+            DateRange range = precomputedDates.get();
+            logger.info("Create filters for " + range);
+            range.stream().forEach(this::getFor);
+            logger.info("Created " + filters.size() + " filters for " + servicePositions.size() + " services and "
+                    + routePositions.size() + " routes");
+        } else {
+            logger.warn("No timetable dates within " + config.getPrecomputeRunningDays() + " days of today, no filters created");
+        }
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        filters.clear();
+        otherDateFilters.invalidateAll();
+        runningOnDates.invalidateAll();
+        intoNextDayForDates.invalidateAll();
+        precomputedDates = Optional.empty();
+        logger.info("stopped");
+    }
+
+    /***
+     * @return dates of the timetable within the configured number of days from today
+     */
+    private Optional<DateRange> getPrecomputeDates() {
+        final int days = config.getPrecomputeRunningDays();
+        if (days <= 0) {
+            return Optional.empty();
+        }
+        final Set<Route> routes = routeRepository.getRoutes();
+        final Optional<TramDate> first = routes.stream().map(route -> route.getDateRange().getStartDate()).min(TramDate::compareTo);
+        final Optional<TramDate> last = routes.stream().map(route -> route.getDateRange().getEndDate()).max(TramDate::compareTo);
+        if (first.isEmpty() || last.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final TramDate today = providesNow.getTramDate();
+        final TramDate horizon = today.plusDays(days - 1);
+        final TramDate start = today.compareTo(first.get()) > 0 ? today : first.get();
+        final TramDate end = horizon.compareTo(last.get()) < 0 ? horizon : last.get();
+        if (start.compareTo(end) > 0) {
+            return Optional.empty();
+        }
+        return Optional.of(DateRange.of(start, end));
     }
 
     public FilterForDate getFor(TramDate date) {
-        IdMap<Service> serviceIds = getServicesFor(date);
-        IdMap<Route> routeIds = getRoutesFor(date);
+        if (precomputedDates.isPresent() && precomputedDates.get().contains(date)) {
+            return filters.computeIfAbsent(date, this::createFilterFor);
+        }
+        // dates come from queries, so keep only a few beyond those precomputed
+        return otherDateFilters.get(date, this::createFilterFor);
+    }
 
-        TramDate nextDay = date.plusDays(1);
-        IdMap<Service> runningServicesNextDay = getServicesFor(nextDay);
-        IdMap<Route> runningRoutesNextDay = getRoutesFor(nextDay);
+    private synchronized void createPositionsIfNeeded() {
+        if (servicePositions == null) {
+            servicePositions = IdIndex.of(serviceRepository.getServices());
+            routePositions = IdIndex.of(routeRepository.getRoutes());
+        }
+    }
 
-        TramDate previousDay = date.minusDays(1);
-        IdMap<Service> previousDaySvcs = servicesIntoNextDay(previousDay);
-        IdMap<Route> previousDayRoutes = routesIntoNextDayFor(previousDay);
+    private FilterForDate createFilterFor(TramDate date) {
+        createPositionsIfNeeded();
+        RunningOnDate today = runningOn(date);
+        RunningOnDate nextDay = runningOn(date.plusDays(1));
+        RunningOnDate previousDay = intoNextDayFor(date.minusDays(1));
 
-        return new FilterForDate(date, serviceIds, routeIds, runningServicesNextDay, runningRoutesNextDay,
-                previousDaySvcs, previousDayRoutes);
+        return new FilterForDate(date, servicePositions, routePositions,
+                today.services, today.routes,
+                nextDay.services, nextDay.routes,
+                previousDay.services, previousDay.routes);
     }
 
-    private IdMap<Route> routesIntoNextDayFor(TramDate date) {
-        return intoNextDay(routeRepository.getRoutesRunningOn(date));
+    private RunningOnDate runningOn(TramDate date) {
+        return runningOnDates.get(date, this::createRunningOn);
     }
 
-    private IdMap<Service> servicesIntoNextDay(TramDate date) {
-        return intoNextDay(serviceRepository.getServicesOnDate(date));
+    private RunningOnDate intoNextDayFor(TramDate date) {
+        return intoNextDayForDates.get(date, this::createIntoNextDay);
+    }
+
+    private RunningOnDate createIntoNextDay(TramDate date) {
+        Set<Service> services = serviceRepository.getServicesOnDate(date);
+        Set<Route> routes = routeRepository.getRoutesRunningOn(date);
+
+        return new RunningOnDate(bitmapFor(servicePositions, intoNextDay(services)),
+                bitmapFor(routePositions, intoNextDay(routes)));
     }
 
-    private <T extends HasId<T> & CoreDomain & CrossesDay> IdMap<T> intoNextDay(Set<T> items) {
+    private <T extends CrossesDay> Set<T> intoNextDay(Set<T> items) {
         return items.stream().
                 filter(CrossesDay::intoNextDay).
-                collect(IdMap.collector());
+                collect(Collectors.toSet());
     }
 
-    @NotNull
-    private IdMap<Route> getRoutesFor(TramDate date) {
+    private RunningOnDate createRunningOn(TramDate date) {
+        Set<Service> services = serviceRepository.getServicesOnDate(date);
         Set<Route> routes = routeRepository.getRoutesRunningOn(date);
-        if (routes.size()>0) {
-            logger.info("Found " + routes.size() + " running routes for " + date);
-        } else
-        {
+
+        if (services.isEmpty()) {
+            logger.warn("No running services found on " + date);
+        }
+        if (routes.isEmpty()) {
             logger.warn("No running routes found on " + date);
         }
-        return new IdMap<>(routes);
+        logger.debug("Found " + services.size() + " running services and " + routes.size() + " routes for " + date);
+
+        return new RunningOnDate(bitmapFor(servicePositions, services), bitmapFor(routePositions, routes));
     }
 
-    @NotNull
-    private IdMap<Service> getServicesFor(TramDate date) {
-        Set<Service> services = serviceRepository.getServicesOnDate(date);
-        if (services.size()>0) {
-            logger.info("Found " + services.size() + " running services for " + date);
-        } else
-        {
-            logger.warn("No running services found on " + date);
+    private static <T extends HasId<T> & CoreDomain> SimpleImmutableBitmap bitmapFor(IdIndex<T> positions, Set<T> running) {
+        SimpleBitmap bitmap = SimpleBitmap.create(positions.size());
+        running.stream().
+                mapToInt(item -> positions.indexOf(item.getId())).
+                filter(position -> position >= 0).
+                forEach(bitmap::set);
+        return bitmap;
+    }
+
+    private static class RunningOnDate {
+        private final SimpleImmutableBitmap services;
+        private final SimpleImmutableBitmap routes;
+
+        private RunningOnDate(SimpleImmutableBitmap services, SimpleImmutableBitmap routes) {
+            this.services = services;
+            this.routes = routes;
         }
-        return new IdMap<>(services);
     }
 
     public static class FilterForDate {
         private final TramDate date;
-        private final IdMap<Service> servicesPreviousDay;
-        private final IdMap<Route> routesPreviousDay;
-        private final IdMap<Service> servicesToday;
-        private final IdMap<Route> routesToday;
-        private final IdMap<Service> servicesNextDay;
-        private final IdMap<Route> routesNextDay;
-
-        private FilterForDate(TramDate date, IdMap<Service> servicesToday, IdMap<Route> routesToday,
-                              IdMap<Service> servicesNextDay, IdMap<Route> routesNextDay,
-                              IdMap<Service> servicesPreviousDay, IdMap<Route> routesPreviousDay) {
+        private final IdIndex<Service> servicePositions;
+        private final IdIndex<Route> routePositions;
+        private final SimpleImmutableBitmap servicesPreviousDay;
+        private final SimpleImmutableBitmap routesPreviousDay;
+        private final SimpleImmutableBitmap servicesToday;
+        private final SimpleImmutableBitmap routesToday;
+        private final SimpleImmutableBitmap servicesNextDay;
+        private final SimpleImmutableBitmap routesNextDay;
+
+        private FilterForDate(TramDate date, IdIndex<Service> servicePositions, IdIndex<Route> routePositions,
+                              SimpleImmutableBitmap servicesToday, SimpleImmutableBitmap routesToday,
+                              SimpleImmutableBitmap servicesNextDay, SimpleImmutableBitmap routesNextDay,
+                              SimpleImmutableBitmap servicesPreviousDay, SimpleImmutableBitmap routesPreviousDay) {
             this.date = date;
+            this.servicePositions = servicePositions;
+            this.routePositions = routePositions;
             this.servicesToday = servicesToday;
             this.routesToday = routesToday;
             this.servicesNextDay = servicesNextDay;
@@ -108,26 +236,48 @@ public class RunningRoutesAndServices {
         }
 
         public boolean isServiceRunningByDate(IdFor<Service> serviceId, boolean nextDay) {
-            if (servicesToday.hasId(serviceId)) {
+            final int position = servicePositions.indexOf(serviceId);
+            if (position < 0) {
+                return false;
+            }
+
+            if (servicesToday.get(position)) {
                 return true;
             }
 
             if (nextDay) {
-                return servicesNextDay.hasId(serviceId);
+                return servicesNextDay.get(position);
             } else {
-                return servicesPreviousDay.hasId(serviceId);
+                return servicesPreviousDay.get(position);
             }
         }
 
+        // running on the date itself, excludes services from the previous day that run past midnight
+        public boolean isServiceRunningToday(IdFor<Service> serviceId) {
+            final int position = servicePositions.indexOf(serviceId);
+            return position >= 0 && servicesToday.get(position);
+        }
+
+        // services from the previous day that run past midnight into the date
+        public boolean isServiceRunningFromPreviousDay(IdFor<Service> serviceId) {
+            final int position = servicePositions.indexOf(serviceId);
+            return position >= 0 && servicesPreviousDay.get(position);
+        }
+
         public boolean isRouteRunning(IdFor<Route> routeId, boolean nextDay) {
-            if (routesToday.hasId(routeId)) {
+            final int position = routePositions.indexOf(routeId);
+            if (position < 0) {
+                return false;
+            }
+
+            if (routesToday.get(position)) {
                 return true;
             }
 
             if (nextDay) {
-                return routesNextDay.hasId(routeId);
+                return routesNextDay.get(position);
             } else {
-                return routesPreviousDay.hasId(routeId);
+                return routesPreviousDay.get(position);
             }
         }
 
@@ -135,20 +285,24 @@ public class RunningRoutesAndServices {
         public String toString() {
             return "FilterForDate{" +
                     "date=" + date +
-                    ", servicesPreviousDay=" + servicesPreviousDay.size() +
-                    ", routesPreviousDay=" + routesPreviousDay.size() +
-                    ", servicesToday=" + servicesToday.size() +
-                    ", routesToday=" + routesToday.size() +
-                    ", servicesNextDay=" + servicesNextDay.size() +
-                    ", routesNextDay=" + routesNextDay.size() +
+                    ", servicesPreviousDay=" + servicesPreviousDay.cardinality() +
+                    ", routesPreviousDay=" + routesPreviousDay.cardinality() +
+                    ", servicesToday=" + servicesToday.cardinality() +
+                    ", routesToday=" + routesToday.cardinality() +
+                    ", servicesNextDay=" + servicesNextDay.cardinality() +
+                    ", routesNextDay=" + routesNextDay.cardinality() +
                     '}';
         }
 
         public boolean isServiceRunningByTime(IdFor<Service> serviceId, TramTime time, int maxWait) {
+            final int position = servicePositions.indexOf(serviceId);
+            if (position < 0) {
+                return false;
+            }
+            final Service service = servicePositions.get(position);
 
-            if (servicesToday.hasId(serviceId)) {
-                Service todaySvc = servicesToday.get(serviceId);
-                if (serviceOperatingWithin(todaySvc, time, maxWait)) {
+            if (servicesToday.get(position)) {
+                if (serviceOperatingWithin(service, time, maxWait)) {
                     return true;
                 }
             }
@@ -157,18 +311,16 @@ public class RunningRoutesAndServices {
             int minuteOfHour = time.getMinuteOfHour();
 
             if (time.isNextDay()) {
-                if (servicesNextDay.hasId(serviceId)) {
+                if (servicesNextDay.get(position)) {
                     // remove next day offset to get time for the following day
                     TramTime timeForNextDay = TramTime.of(hourOfDay, minuteOfHour);
-                    Service nextDaySvc = servicesNextDay.get(serviceId);
-                    return serviceOperatingWithin(nextDaySvc, timeForNextDay, maxWait);
+                    return serviceOperatingWithin(service, timeForNextDay, maxWait);
                 }
             } else {
-                if (servicesPreviousDay.hasId(serviceId)) {
+                if (servicesPreviousDay.get(position)) {
                     // use next day time, do any of previous days services run into today
                     TramTime timeForPreviousDay = TramTime.nextDay(hourOfDay, minuteOfHour);
-                    Service previousDayService = servicesPreviousDay.get(serviceId);
-                    return serviceOperatingWithin(previousDayService, timeForPreviousDay, maxWait);
+                    return serviceOperatingWithin(service, timeForPreviousDay, maxWait);
                 }
             }
 
@@ -4,11 +4,14 @@ import com.codahale.metrics.annotation.Timed;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.inject.Inject;
 import com.tramchester.RedirectToHttpsUsingELBProtoHeader;
+import com.tramchester.config.RouteCalculatorType;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.SearchCancellation;
 import com.tramchester.domain.UpdateRecentJourneys;
 import com.tramchester.domain.dates.TramDate;
 import com.tramchester.domain.places.Location;
+import com.tramchester.domain.presentation.DTO.JourneyBatchResultDTO;
 import com.tramchester.domain.presentation.DTO.JourneyDTO;
 import com.tramchester.domain.presentation.DTO.JourneyPlanRepresentation;
 import com.tramchester.domain.presentation.DTO.JourneyQueryDTO;
@@ -16,9 +19,12 @@ import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.ProvidesNow;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyBatchExecutor;
+import com.tramchester.graph.search.JourneySearchAdmission;
 import com.tramchester.mappers.JourneyDTODuplicateFilter;
 import com.tramchester.mappers.JourneyToDTOMapper;
 import com.tramchester.repository.LocationRepository;
+import com.tramchester.repository.RunningRoutesAndServices;
 import io.dropwizard.jersey.caching.CacheControl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -32,11 +38,21 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -46,18 +62,27 @@ import static java.lang.String.format;
 public class JourneyPlannerResource extends UsesRecentCookie implements APIResource, GraphDatabaseDependencyMarker {
     private static final Logger logger = LoggerFactory.getLogger(JourneyPlannerResource.class);
 
+    public static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final LocationJourneyPlanner locToLocPlanner;
     private final JourneyToDTOMapper journeyToDTOMapper;
     private final GraphDatabase graphDatabaseService;
     private final TramchesterConfig config;
     private final JourneyDTODuplicateFilter duplicateFilter;
     private final LocationRepository locationRepository;
+    private final JourneySearchAdmission admission;
+    private final JourneyResultCache resultCache;
+    private final JourneyBatchExecutor batchExecutor;
+    private final RunningRoutesAndServices runningRoutesAndServices;
 
     @Inject
     public JourneyPlannerResource(UpdateRecentJourneys updateRecentJourneys,
                                   GraphDatabase graphDatabaseService,
                                   ProvidesNow providesNow, LocationJourneyPlanner locToLocPlanner, JourneyToDTOMapper journeyToDTOMapper, TramchesterConfig config,
-                                  JourneyDTODuplicateFilter duplicateFilter, LocationRepository locationRepository) {
+                                  JourneyDTODuplicateFilter duplicateFilter, LocationRepository locationRepository,
+                                  JourneySearchAdmission admission, JourneyResultCache resultCache,
+                                  JourneyBatchExecutor batchExecutor, RunningRoutesAndServices runningRoutesAndServices) {
         super(updateRecentJourneys, providesNow);
         this.locToLocPlanner = locToLocPlanner;
         this.journeyToDTOMapper = journeyToDTOMapper;
@@ -65,6 +90,10 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
         this.locationRepository = locationRepository;
         this.graphDatabaseService = graphDatabaseService;
         this.config = config;
+        this.admission = admission;
+        this.resultCache = resultCache;
+        this.batchExecutor = batchExecutor;
+        this.runningRoutesAndServices = runningRoutesAndServices;
     }
 
     // Content-Type header in the POST request with a value of application/json
@@ -87,7 +116,7 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
             return Response.serverError().build();
         }
 
-        if (!query.valid()) {
+        if (!query.valid() || !departureWindowSupported(query)) {
             logger.error("Problem with received: " + query);
             return Response.serverError().build();
         }
@@ -98,35 +127,69 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
         Location<?> start = locationRepository.getLocation(query.getStartType(), query.getStartId());
         Location<?> dest = locationRepository.getLocation(query.getDestType(), query.getDestId());
 
-        try(Transaction tx = graphDatabaseService.beginTx() ) {
+        JourneyResultCache.Key cacheKey = JourneyResultCache.keyFor(start, dest, query.getTramDate(), query.getTime(),
+                query.isArriveBy(), query.getMaxChanges(), modes, query.getDepartureWindow());
 
-            Stream<JourneyDTO> dtoStream = getJourneyDTOStream(tx, query.getTramDate(), query.getTime(),
-                    start, dest, query.isArriveBy(), query.getMaxChanges(), modes);
+        try {
+            List<JourneyDTO> journeyDTOS = findJourneys(cacheKey, query, start, dest, modes, createCancellation());
 
-            // duplicates where same path and timings, just different change points
-            Set<JourneyDTO> journeyDTOS = dtoStream.collect(Collectors.toSet());
-            Set<JourneyDTO> filtered = duplicateFilter.apply(journeyDTOS);
-            int diff = journeyDTOS.size()-filtered.size();
-            if (diff!=0) {
-                logger.info(format("Filtered out %s of %s journeys", diff, journeyDTOS.size()));
-            }
+            return planResponse(journeyDTOS, query, start, dest, cookie, forwardedHeader, uriInfo);
 
-            JourneyPlanRepresentation planRepresentation = new JourneyPlanRepresentation(filtered);
-            dtoStream.close();
+        } catch (JourneyResultCache.SearchUnavailableException unavailable) {
+            logger.warn("Search unavailable: " + unavailable.getMessage());
+            return serviceUnavailable();
+        } catch(Exception exception) {
+            logger.error("Problem processing response", exception);
+            return Response.serverError().build();
+        }
+    }
 
-            if (planRepresentation.getJourneys().size()==0) {
-                logger.warn(format("No journeys found from %s to %s at %s on %s",
-                        start.getId(), dest.getId() , query.getTime(), query.getDate()));
+    /***
+     * Results from the cache, or from a search by another request for the same query, need neither a search slot
+     * nor a transaction, so those are only taken when this request runs the search
+     * @throws JourneyResultCache.SearchUnavailableException when no search slot is available, or the results of
+     * a shared search were not ready before the deadline
+     */
+    private List<JourneyDTO> findJourneys(JourneyResultCache.Key cacheKey, JourneyQueryDTO query, Location<?> start,
+                                          Location<?> dest, EnumSet<TransportMode> modes, SearchCancellation cancellation) {
+        return resultCache.get(cacheKey, cancellation, () -> {
+            Optional<JourneySearchAdmission.Permit> admitted = admission.tryAdmit();
+            if (admitted.isEmpty()) {
+                throw new JourneyResultCache.SearchUnavailableException("No search slot for " + cacheKey);
+            }
+            try (JourneySearchAdmission.Permit ignored = admitted.get(); Transaction tx = graphDatabaseService.beginTx();
+                 Stream<JourneyDTO> dtoStream = getJourneyDTOStream(tx, query.getTramDate(), query.getTime(),
+                    start, dest, query.isArriveBy(), query.getMaxChanges(), modes, query.getDepartureWindow(), cancellation)) {
+                return dtoStream.collect(Collectors.toList());
             }
+        });
+    }
 
-            boolean secure = isHttps(forwardedHeader);
+    private Set<JourneyDTO> removeDuplicates(List<JourneyDTO> results) {
+        // duplicates where same path and timings, just different change points
+        Set<JourneyDTO> journeyDTOS = new HashSet<>(results);
+        Set<JourneyDTO> filtered = duplicateFilter.apply(journeyDTOS);
+        int diff = journeyDTOS.size()-filtered.size();
+        if (diff!=0) {
+            logger.info(format("Filtered out %s of %s journeys", diff, journeyDTOS.size()));
+        }
+        return filtered;
+    }
 
-            return buildResponse(Response.ok(planRepresentation), start, dest, cookie, uriInfo, secure);
+    private Response planResponse(List<JourneyDTO> results, JourneyQueryDTO query, Location<?> start, Location<?> dest,
+                                  Cookie cookie, String forwardedHeader, UriInfo uriInfo) throws JsonProcessingException {
+        Set<JourneyDTO> filtered = removeDuplicates(results);
 
-        } catch(Exception exception) {
-            logger.error("Problem processing response", exception);
-            return Response.serverError().build();
+        JourneyPlanRepresentation planRepresentation = new JourneyPlanRepresentation(filtered);
+
+        if (planRepresentation.getJourneys().size()==0) {
+            logger.warn(format("No journeys found from %s to %s at %s on %s",
+                    start.getId(), dest.getId() , query.getTime(), query.getDate()));
         }
+
+        boolean secure = isHttps(forwardedHeader);
+
+        return buildResponse(Response.ok(planRepresentation), start, dest, cookie, uriInfo, secure);
     }
 
     @POST
@@ -147,7 +210,7 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
             return Response.serverError().build();
         }
 
-        if (!query.valid()) {
+        if (!query.valid() || !departureWindowSupported(query)) {
             logger.error("Problem with received: " + query);
             return Response.serverError().build();
         }
@@ -156,23 +219,173 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
         Location<?> start = locationRepository.getLocation(query.getStartType(), query.getStartId());
         Location<?> dest = locationRepository.getLocation(query.getDestType(), query.getDestId());
 
+        // only use cached results if already there, otherwise stream results as they are found
+        Optional<List<JourneyDTO>> cached = resultCache.getIfPresent(JourneyResultCache.keyFor(start, dest, query.getTramDate(),
+                query.getTime(), query.isArriveBy(), query.getMaxChanges(), modes, query.getDepartureWindow()));
+        if (cached.isPresent()) {
+            try {
+                JsonStreamingOutput<JourneyDTO> jsonStreamingOutput = new JsonStreamingOutput<>(cached.get().stream(), super.mapper);
+                return buildResponse(Response.ok(jsonStreamingOutput), start, dest, cookie, uriInfo, isHttps(forwardedHeader));
+            } catch (JsonProcessingException exception) {
+                logger.error("Problem processing response", exception);
+                return Response.serverError().build();
+            }
+        }
+
+        Optional<JourneySearchAdmission.Permit> admitted = admission.tryAdmit();
+        if (admitted.isEmpty()) {
+            return serviceUnavailable();
+        }
+        JourneySearchAdmission.Permit permit = admitted.get();
+
         Transaction tx = graphDatabaseService.beginTx();
 
         try {
+            // cancelled by the streaming output if the client goes away, so the search stops early
+            SearchCancellation cancellation = createCancellation();
+
+            // results are streamed after this method returns, so hold the permit until the stream is closed
             Stream<JourneyDTO> dtoStream = getJourneyDTOStream(tx, query.getTramDate(), query.getTime(), start, dest, query.isArriveBy(),
-                    query.getMaxChanges(), modes);
+                    query.getMaxChanges(), modes, query.getDepartureWindow(), cancellation).onClose(permit::close);
 
-            JsonStreamingOutput<JourneyDTO> jsonStreamingOutput = new JsonStreamingOutput<>(tx, dtoStream, super.mapper);
+            JsonStreamingOutput<JourneyDTO> jsonStreamingOutput = new JsonStreamingOutput<>(tx, dtoStream, super.mapper, cancellation);
 
             boolean secure = isHttps(forwardedHeader);
             return buildResponse(Response.ok(jsonStreamingOutput), start, dest, cookie, uriInfo, secure);
 
         } catch(Exception exception) {
             logger.error("Problem processing response", exception);
+            permit.close();
             return Response.serverError().build();
         }
     }
 
+    @POST
+    @Timed
+    @Path("/batch")
+    @Operation(description = "Find quickest routes for many queries, one line of json per query in the order they complete")
+    @ApiResponse(content = @Content(schema = @Schema(implementation = JourneyBatchResultDTO.class)))
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({NDJSON, MediaType.APPLICATION_JSON})
+    public Response quickestRoutesBatch(List<JourneyQueryDTO> queries) {
+        if (queries==null || queries.isEmpty()) {
+            logger.warn("Got empty batch");
+            return Response.serverError().build();
+        }
+
+        if (queries.size() > MAX_BATCH_SIZE) {
+            logger.error(format("Batch of %s queries is more than max of %s", queries.size(), MAX_BATCH_SIZE));
+            return Response.serverError().build();
+        }
+
+        logger.info("Got batch of " + queries.size() + " journey queries");
+
+        try {
+            // cancelled by the streaming output if the client goes away, each query also gets its own deadline
+            SearchCancellation batchCancellation = SearchCancellation.none();
+
+            // each query is admitted on its own, see planForBatch
+            Stream<JourneyBatchResultDTO> results = planBatch(queries, batchCancellation);
+
+            return Response.ok(JsonStreamingOutput.newlineDelimited(results, super.mapper, batchCancellation)).build();
+        } catch(Exception exception) {
+            logger.error("Problem processing batch", exception);
+            return Response.serverError().build();
+        }
+    }
+
+    private Stream<JourneyBatchResultDTO> planBatch(List<JourneyQueryDTO> queries, SearchCancellation batchCancellation) {
+        // per date filters are shared by all the queries for that date, create them up front rather than in every worker
+        queries.stream().
+                filter(JourneyQueryDTO::valid).
+                map(JourneyQueryDTO::getTramDate).
+                distinct().
+                forEach(runningRoutesAndServices::getFor);
+
+        final CompletionService<JourneyBatchResultDTO> completionService = batchExecutor.createCompletionService();
+        final Queue<Future<JourneyBatchResultDTO>> submitted = new ConcurrentLinkedQueue<>();
+        final AtomicInteger nextIndex = new AtomicInteger(0);
+        final Runnable submitNext = () -> {
+            final int index = nextIndex.getAndIncrement();
+            if (index < queries.size()) {
+                submitted.add(completionService.submit(() -> planForBatch(index, queries.get(index), batchCancellation)));
+            }
+        };
+
+        // at most one query per batch thread in flight, the next is submitted as each result is taken
+        IntStream.range(0, Math.min(batchExecutor.getNumberOfThreads(), queries.size())).forEach(unused -> submitNext.run());
+
+        return IntStream.range(0, queries.size()).
+                mapToObj(unused -> {
+                    final JourneyBatchResultDTO result = batchExecutor.take(completionService);
+                    submitNext.run();
+                    return result;
+                }).
+                onClose(() -> submitted.forEach(future -> future.cancel(false)));
+    }
+
+    /***
+     * Departure windows need the single profile scan of the connection scan calculator, the graph calculator would
+     * need a search per query time across the window
+     */
+    private boolean departureWindowSupported(JourneyQueryDTO query) {
+        if (query.getDepartureWindow()==0) {
+            return true;
+        }
+        if (config.getRouteCalculatorType()==RouteCalculatorType.ConnectionScan) {
+            return true;
+        }
+        logger.warn("Departure window not supported for " + config.getRouteCalculatorType() + " calculator " + query);
+        return false;
+    }
+
+    private JourneyBatchResultDTO planForBatch(int index, JourneyQueryDTO query, SearchCancellation batchCancellation) {
+        if (batchCancellation.isCancelled()) {
+            return JourneyBatchResultDTO.failed(index, "cancelled");
+        }
+        if (query==null || !query.valid() || !departureWindowSupported(query)) {
+            logger.error("Problem with batch query " + index + ": " + query);
+            return JourneyBatchResultDTO.failed(index, "invalid query");
+        }
+
+        EnumSet<TransportMode> modes = query.getModes().isEmpty() ? config.getTransportModes() : EnumSet.copyOf(query.getModes());
+
+        try {
+            Location<?> start = locationRepository.getLocation(query.getStartType(), query.getStartId());
+            Location<?> dest = locationRepository.getLocation(query.getDestType(), query.getDestId());
+
+            JourneyResultCache.Key cacheKey = JourneyResultCache.keyFor(start, dest, query.getTramDate(), query.getTime(),
+                    query.isArriveBy(), query.getMaxChanges(), modes, query.getDepartureWindow());
+
+            // admitted per query, same as single requests, so a batch gets no more than its share of search slots
+            List<JourneyDTO> journeyDTOS = findJourneys(cacheKey, query, start, dest, modes,
+                    batchCancellation.createChild(getDeadline()));
+
+            return new JourneyBatchResultDTO(index, removeDuplicates(journeyDTOS));
+        } catch (JourneyResultCache.SearchUnavailableException unavailable) {
+            logger.warn("Batch query " + index + " unavailable: " + unavailable.getMessage());
+            return JourneyBatchResultDTO.failed(index, "busy");
+        } catch (Exception exception) {
+            logger.error("Problem processing batch query " + index + ": " + query, exception);
+            return JourneyBatchResultDTO.failed(index, "failed");
+        }
+    }
+
+    private SearchCancellation createCancellation() {
+        return SearchCancellation.withDeadline(getDeadline());
+    }
+
+    private Instant getDeadline() {
+        final long deadlineMillis = config.getJourneyDeadlineMillis();
+        return deadlineMillis > 0 ? providesNow.getInstant().plusMillis(deadlineMillis) : Instant.MAX;
+    }
+
+    private Response serviceUnavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).
+                header(HttpHeaders.RETRY_AFTER, admission.getRetryAfter().toSeconds()).
+                build();
+    }
+
     private Response buildResponse(Response.ResponseBuilder responseBuilder, Location<?> start, Location<?> dest, Cookie cookie,
                                    UriInfo uriInfo, boolean secure) throws JsonProcessingException {
         URI baseUri = uriInfo.getBaseUri();
@@ -181,13 +394,16 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
     }
 
     private Stream<JourneyDTO> getJourneyDTOStream(Transaction tx, TramDate date, LocalTime time, Location<?> start,
-                                                   Location<?> dest, boolean arriveBy, int maxChanges, EnumSet<TransportMode> modes) {
+                                                   Location<?> dest, boolean arriveBy, int maxChanges, EnumSet<TransportMode> modes,
+                                                   int departureWindow, SearchCancellation cancellation) {
 
         TramTime queryTime = TramTime.ofHourMins(time);
         final Duration maxJourneyDuration = Duration.ofMinutes(config.getMaxJourneyDuration());
 
         JourneyRequest journeyRequest = new JourneyRequest(date, queryTime, arriveBy, maxChanges,
                 maxJourneyDuration,  config.getMaxNumResults(), modes);
+        journeyRequest.setDepartureWindow(Duration.ofMinutes(departureWindow));
+        journeyRequest.setCancellation(cancellation);
 
         logger.info(format("Plan journey from %s to %s on %s", start, dest, journeyRequest));
 
@@ -0,0 +1,296 @@
+package com.tramchester.resources;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.netflix.governator.guice.lazy.LazySingleton;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.DataSourceInfo;
+import com.tramchester.domain.SearchCancellation;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.LocationType;
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.ProvidesNow;
+import com.tramchester.metrics.CacheMetrics;
+import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.DataSourceRepository;
+import com.tramchester.repository.ReportsCacheStats;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/***
+ * Server side cache of journey plans, see config journeyResultCacheSize and journeyResultCacheSeconds. Concurrent
+ * requests for the same key share one search, the first request runs it on its own thread and the rest wait for
+ * the result, up to the deadline of their own request. Results of a cancelled search are neither kept nor shared.
+ * The search supplier is only invoked for the request that runs it, so callers take any search slot or graph
+ * transaction inside it and waiting requests hold neither. Everything is dropped when the closures or the version
+ * of the loaded data change.
+ */
+@LazySingleton
+public class JourneyResultCache implements ReportsCacheStats {
+    private static final Logger logger = LoggerFactory.getLogger(JourneyResultCache.class);
+
+    private final ClosedStationsRepository closedStationsRepository;
+    private final DataSourceRepository dataSourceRepository;
+    private final CacheMetrics cacheMetrics;
+    private final ProvidesNow providesNow;
+    private final long maximumSize;
+
+    private final AsyncCache<Key, List<JourneyDTO>> cache;
+    private final AtomicReference<String> dataStamp;
+
+    @Inject
+    public JourneyResultCache(TramchesterConfig config, ClosedStationsRepository closedStationsRepository,
+                              DataSourceRepository dataSourceRepository, CacheMetrics cacheMetrics, ProvidesNow providesNow) {
+        this.closedStationsRepository = closedStationsRepository;
+        this.dataSourceRepository = dataSourceRepository;
+        this.cacheMetrics = cacheMetrics;
+        this.providesNow = providesNow;
+        maximumSize = config.getJourneyResultCacheSize();
+
+        cache = Caffeine.newBuilder().
+                maximumSize(maximumSize).
+                expireAfterWrite(config.getJourneyResultCacheSeconds(), TimeUnit.SECONDS).
+                recordStats().buildAsync();
+        dataStamp = new AtomicReference<>("");
+    }
+
+    @PostConstruct
+    public void start() {
+        logger.info("starting");
+        if (isEnabled()) {
+            dataStamp.set(createDataStamp());
+            cacheMetrics.register(this);
+        } else {
+            logger.info("Disabled");
+        }
+        logger.info("started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stopping");
+        cache.synchronous().invalidateAll();
+        logger.info("stopped");
+    }
+
+    public boolean isEnabled() {
+        return maximumSize > 0;
+    }
+
+    /***
+     * @return results if already computed and still valid, does not wait for a search in progress
+     */
+    public Optional<List<JourneyDTO>> getIfPresent(Key key) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        checkDataStamp();
+
+        final CompletableFuture<List<JourneyDTO>> existing = cache.getIfPresent(key);
+        if (existing == null || !existing.isDone() || existing.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.of(existing.join());
+    }
+
+    /***
+     * Get results for key, running the search on the calling thread if no other request is already doing so
+     * @param key the journey query
+     * @param cancellation for the request, results are not kept or shared if it was cancelled, the deadline bounds
+     *                     any wait for another request's search
+     * @param search finds the journeys, only invoked on a miss, may throw SearchUnavailableException if it cannot run
+     * @return the results
+     * @throws SearchUnavailableException if the search could not run, or its results were not ready by the deadline
+     */
+    public List<JourneyDTO> get(Key key, SearchCancellation cancellation, Supplier<List<JourneyDTO>> search) {
+        if (!isEnabled()) {
+            return search.get();
+        }
+        checkDataStamp();
+
+        final CompletableFuture<List<JourneyDTO>> pending = new CompletableFuture<>();
+        final CompletableFuture<List<JourneyDTO>> future = cache.get(key, (unused, executor) -> pending);
+
+        if (future != pending) {
+            final Optional<List<JourneyDTO>> shared = waitFor(key, future, cancellation);
+            // shared search was cancelled, entry is gone so try again
+            return shared.orElseGet(() -> get(key, cancellation, search));
+        }
+
+        try {
+            final List<JourneyDTO> results = Collections.unmodifiableList(search.get());
+            if (cancellation.isCancelled()) {
+                // incomplete, only for this request, remove first so no new request waits on it
+                logger.info("Not caching or sharing results for cancelled search " + key);
+                cache.asMap().remove(key, pending);
+                pending.completeExceptionally(new CancelledSearchException(key));
+            } else {
+                pending.complete(results);
+            }
+            return results;
+        } catch (Throwable throwable) {
+            // failed futures are removed by the cache
+            pending.completeExceptionally(throwable);
+            throw throwable;
+        }
+    }
+
+    /***
+     * @return results of the other search, empty if it was cancelled
+     */
+    private Optional<List<JourneyDTO>> waitFor(Key key, CompletableFuture<List<JourneyDTO>> future, SearchCancellation cancellation) {
+        try {
+            if (cancellation.hasDeadline()) {
+                final long remaining = Duration.between(providesNow.getInstant(), cancellation.getDeadline()).toMillis();
+                return Optional.of(future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS));
+            }
+            return Optional.of(future.get());
+        } catch (ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof CancelledSearchException) {
+                return Optional.empty();
+            }
+            if (cause instanceof SearchUnavailableException) {
+                throw new SearchUnavailableException("Shared search could not run for " + key);
+            }
+            throw new RuntimeException("Shared search failed for " + key, cause);
+        } catch (TimeoutException exception) {
+            cancellation.cancel();
+            throw new SearchUnavailableException("Deadline reached waiting for shared search for " + key);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for shared search for " + key, exception);
+        }
+    }
+
+    private void checkDataStamp() {
+        final String current = createDataStamp();
+        final String previous = dataStamp.getAndSet(current);
+        if (!current.equals(previous)) {
+            logger.warn(format("Data changed from '%s' to '%s', invalidate all", previous, current));
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    private String createDataStamp() {
+        final String versions = dataSourceRepository.getDataSourceInfo().stream().
+                map(JourneyResultCache::stampFor).
+                sorted().
+                collect(Collectors.joining(","));
+        return "closures=" + closedStationsRepository.getVersion() + ";data=" + versions;
+    }
+
+    private static String stampFor(DataSourceInfo info) {
+        return info.getID() + ":" + info.getVersion() + ":" + info.getLastModTime();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    @Override
+    public List<Pair<String, CacheStats>> stats() {
+        return Collections.singletonList(Pair.of("journeyResultCache", cache.synchronous().stats()));
+    }
+
+    public static Key keyFor(Location<?> start, Location<?> dest, TramDate date, LocalTime time, boolean arriveBy,
+                             int maxChanges, EnumSet<TransportMode> modes, int departureWindow) {
+        return new Key(start.getLocationType(), start.getId(), dest.getLocationType(), dest.getId(), date,
+                time.truncatedTo(ChronoUnit.MINUTES), arriveBy, maxChanges, modes, departureWindow);
+    }
+
+    private static class CancelledSearchException extends RuntimeException {
+        private CancelledSearchException(Key key) {
+            super("Search was cancelled for " + key);
+        }
+    }
+
+    /***
+     * No results as the search could not run now, or not in time, so the request can be retried later
+     */
+    public static class SearchUnavailableException extends RuntimeException {
+        public SearchUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    public static class Key {
+        private final LocationType startType;
+        private final IdFor<?> startId;
+        private final LocationType destType;
+        private final IdFor<?> destId;
+        private final TramDate date;
+        private final LocalTime time;
+        private final boolean arriveBy;
+        private final int maxChanges;
+        private final EnumSet<TransportMode> modes;
+        private final int departureWindow;
+
+        private Key(LocationType startType, IdFor<?> startId, LocationType destType, IdFor<?> destId, TramDate date,
+                    LocalTime time, boolean arriveBy, int maxChanges, EnumSet<TransportMode> modes, int departureWindow) {
+            this.startType = startType;
+            this.startId = startId;
+            this.destType = destType;
+            this.destId = destId;
+            this.date = date;
+            this.time = time;
+            this.arriveBy = arriveBy;
+            this.maxChanges = maxChanges;
+            this.modes = EnumSet.copyOf(modes);
+            this.departureWindow = departureWindow;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return arriveBy == key.arriveBy && maxChanges == key.maxChanges && departureWindow == key.departureWindow &&
+                    startType == key.startType && startId.equals(key.startId) && destType == key.destType &&
+                    destId.equals(key.destId) && date.equals(key.date) && time.equals(key.time) && modes.equals(key.modes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startType, startId, destType, destId, date, time, arriveBy, maxChanges, modes, departureWindow);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "startType=" + startType +
+                    ", startId=" + startId +
+                    ", destType=" + destType +
+                    ", destId=" + destId +
+                    ", date=" + date +
+                    ", time=" + time +
+                    ", arriveBy=" + arriveBy +
+                    ", maxChanges=" + maxChanges +
+                    ", modes=" + modes +
+                    ", departureWindow=" + departureWindow +
+                    '}';
+        }
+    }
+}
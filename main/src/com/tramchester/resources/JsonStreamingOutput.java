@@ -3,6 +3,7 @@ package com.tramchester.resources;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.domain.SearchCancellation;
 import jakarta.ws.rs.core.StreamingOutput;
 import org.neo4j.graphdb.Transaction;
 import org.slf4j.Logger;
@@ -10,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.stream.Stream;
 
 class JsonStreamingOutput<T> implements StreamingOutput {
@@ -17,21 +19,42 @@ class JsonStreamingOutput<T> implements StreamingOutput {
 
     private final Stream<T> theStream;
     private final Transaction txn;
+    private final SearchCancellation cancellation;
+    private final boolean newlineDelimited;
 
     private final JsonFactory jsonFactory ;
 
-    JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper) {
+    private JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper, SearchCancellation cancellation,
+                                boolean newlineDelimited) {
         this.txn = txn;
         this.theStream = theStream;
+        this.cancellation = cancellation;
+        this.newlineDelimited = newlineDelimited;
         jsonFactory = mapper.getFactory();
     }
 
+    JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper, SearchCancellation cancellation) {
+        this(txn, theStream, mapper, cancellation, false);
+    }
+
+    JsonStreamingOutput(Transaction txn, Stream<T> theStream, ObjectMapper mapper) {
+        this(txn, theStream, mapper, SearchCancellation.none());
+    }
+
     JsonStreamingOutput(Stream<T> theStream, ObjectMapper mapper) {
         this(null, theStream, mapper);
     }
 
+    /***
+     * Each item written as a single line of json (NDJSON) rather than as an element of a json array
+     */
+    static <T> JsonStreamingOutput<T> newlineDelimited(Stream<T> theStream, ObjectMapper mapper, SearchCancellation cancellation) {
+        return new JsonStreamingOutput<>(null, theStream, mapper, cancellation, true);
+    }
+
     /**
-     * Writes theStream to outputStream, closes theStream and the txn (if present)
+     * Writes theStream to outputStream, closes theStream and the txn (if present). If writing fails, usually
+     * because the client has gone away, the cancellation is cancelled and no more items are pulled from theStream
      * @param outputStream the stream being written to
      */
     @Override
@@ -50,20 +73,34 @@ class JsonStreamingOutput<T> implements StreamingOutput {
 
 
         try (final JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream)) {
-            jsonGenerator.writeStartArray();
-            theStream.forEach(item -> {
+            if (newlineDelimited) {
+                jsonGenerator.setRootValueSeparator(null);
+            } else {
+                jsonGenerator.writeStartArray();
+            }
+            final Iterator<T> iterator = theStream.iterator();
+            while (iterator.hasNext()) {
+                final T item = iterator.next();
                 synchronized (outputStream) {
                     try {
                         jsonGenerator.writeObject(item);
-                        jsonGenerator.writeString(System.lineSeparator());
-                        jsonGenerator.writeString(System.lineSeparator());
+                        if (newlineDelimited) {
+                            jsonGenerator.writeRaw('\n');
+                        } else {
+                            jsonGenerator.writeString(System.lineSeparator());
+                            jsonGenerator.writeString(System.lineSeparator());
+                        }
                         jsonGenerator.flush();
                     } catch (IOException innerException) {
-                        logger.error("Exception during streaming item " + item.toString(), innerException);
+                        logger.warn("Exception during streaming item " + item.toString() + ", cancelling", innerException);
+                        cancellation.cancel();
+                        return;
                     }
                 }
-            });
-            jsonGenerator.writeEndArray();
+            }
+            if (!newlineDelimited) {
+                jsonGenerator.writeEndArray();
+            }
             jsonGenerator.flush();
         }
         catch (IOException ioException) {
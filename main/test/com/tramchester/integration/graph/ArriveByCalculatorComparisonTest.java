@@ -0,0 +1,157 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.StationIdPair;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.graph.search.connectionScan.ConnectionScanArriveByCalculator;
+import com.tramchester.integration.testSupport.ConfigParameterResolver;
+import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.TransportData;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.testTags.DualTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.tramchester.domain.reference.TransportMode.Tram;
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/***
+ * Compare the backwards connection scan for arrive by with the graph based estimate then search forwards approach
+ * for the latest departure found. Time taken by each is logged only, not asserted
+ */
+@ExtendWith(ConfigParameterResolver.class)
+@DualTest
+class ArriveByCalculatorComparisonTest {
+    private static final Logger logger = LoggerFactory.getLogger(ArriveByCalculatorComparisonTest.class);
+
+    private static final int NUMBER_OF_PAIRS = 200;
+
+    private static ComponentContainer componentContainer;
+    private static TramchesterConfig testConfig;
+
+    private TramDate when;
+    private EnumSet<TransportMode> modes;
+    private ClosedStationsRepository closedRepository;
+    private RouteCalculatorArriveBy graphCalculator;
+    private ConnectionScanArriveByCalculator scanCalculator;
+    private GraphDatabase database;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun(TramchesterConfig config) {
+        testConfig = config;
+        componentContainer = new ComponentsBuilder().create(testConfig, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        when = TestEnv.testDay();
+        modes = TramsOnly;
+        closedRepository = componentContainer.get(ClosedStationsRepository.class);
+        graphCalculator = componentContainer.get(RouteCalculatorArriveBy.class);
+        scanCalculator = componentContainer.get(ConnectionScanArriveByCalculator.class);
+        database = componentContainer.get(GraphDatabase.class);
+    }
+
+    @Test
+    void shouldFindSameOrLaterDeparturesThanGraph() {
+        TransportData data = componentContainer.get(TransportData.class);
+
+        List<Station> haveServices = data.getStationsServing(Tram).stream().
+                filter(station -> !closedRepository.isClosed(station, when)).
+                sorted(Comparator.comparing(Station::getId)).
+                collect(Collectors.toList());
+
+        Random random = new Random(42);
+        Set<StationIdPair> stationIdPairs = new HashSet<>();
+        while (stationIdPairs.size() < NUMBER_OF_PAIRS) {
+            Station start = haveServices.get(random.nextInt(haveServices.size()));
+            Station dest = haveServices.get(random.nextInt(haveServices.size()));
+            if (!start.equals(dest)) {
+                stationIdPairs.add(StationIdPair.of(start, dest));
+            }
+        }
+
+        TramTime arriveBy = TramTime.of(9, 30);
+        JourneyRequest journeyRequest = new JourneyRequest(when, arriveBy, true, 2,
+                Duration.ofMinutes(testConfig.getMaxJourneyDuration()), 3, modes);
+
+        // warm up, the first use of each builds its caches
+        StationIdPair first = stationIdPairs.iterator().next();
+        try (Transaction txn = database.beginTx()) {
+            Station start = data.getStationById(first.getBeginId());
+            Station dest = data.getStationById(first.getEndId());
+            graphCalculator.calculateRoute(txn, start, dest, journeyRequest).toList();
+            scanCalculator.calculateRoute(txn, start, dest, journeyRequest).toList();
+        }
+
+        List<String> failed = new ArrayList<>();
+        long graphNanos = 0;
+        long scanNanos = 0;
+
+        try (Transaction txn = database.beginTx()) {
+            for (StationIdPair pair : stationIdPairs) {
+                Station start = data.getStationById(pair.getBeginId());
+                Station dest = data.getStationById(pair.getEndId());
+
+                long begin = System.nanoTime();
+                Optional<TramTime> fromGraph = latestDeparture(graphCalculator.calculateRoute(txn, start, dest, journeyRequest).toList(),
+                        arriveBy);
+                graphNanos = graphNanos + (System.nanoTime() - begin);
+
+                begin = System.nanoTime();
+                Optional<TramTime> fromScan = latestDeparture(scanCalculator.calculateRoute(txn, start, dest, journeyRequest).toList(),
+                        arriveBy);
+                scanNanos = scanNanos + (System.nanoTime() - begin);
+
+                if (fromGraph.isPresent()) {
+                    if (fromScan.isEmpty()) {
+                        failed.add(format("%s no scan result, graph departs %s", pair, fromGraph.get()));
+                    } else if (fromScan.get().isBefore(fromGraph.get())) {
+                        failed.add(format("%s scan departs %s, graph departs %s", pair, fromScan.get(), fromGraph.get()));
+                    }
+                }
+            }
+        }
+
+        logger.info(format("For %s pairs graph arrive by took %s ms, reverse scan took %s ms", stationIdPairs.size(),
+                Duration.ofNanos(graphNanos).toMillis(), Duration.ofNanos(scanNanos).toMillis()));
+
+        assertTrue(failed.isEmpty(), format("For %s failed %s of %s pairs %s", journeyRequest, failed.size(),
+                stationIdPairs.size(), failed));
+    }
+
+    private Optional<TramTime> latestDeparture(List<Journey> journeys, TramTime arriveBy) {
+        return journeys.stream().
+                filter(journey -> !journey.getArrivalTime().isAfter(arriveBy)).
+                map(Journey::getDepartTime).
+                max(TramTime::compareTo);
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphPropertyKey;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.BulkImportedGraphCompletion;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.*;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImportedGraphCompletionTest {
+    private static ComponentContainer componentContainer;
+    private static IntegrationTramTestConfig config;
+
+    private static final List<TransportRelationshipTypes> boardsAndDeparts = List.of(BOARD, DEPART, INTERCHANGE_BOARD,
+            INTERCHANGE_DEPART, DIVERSION_DEPART);
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() throws IOException {
+        // graph is modified by the test, so use own DB
+        config = new IntegrationTramTestConfig("bulkImportedGraphCompletionTest.db", Collections.emptyList());
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+
+        componentContainer.get(StagedTransportGraphBuilder.Ready.class);
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() throws IOException {
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    @Test
+    void shouldRetypeBoardsAndDepartsAsTransactionalBuild() {
+        GraphDatabase graphDatabase = componentContainer.get(GraphDatabase.class);
+
+        List<String> built;
+        try (Transaction txn = graphDatabase.beginTx()) {
+            built = boardsAndDepartsFor(txn);
+        }
+        assertTrue(built.stream().anyMatch(text -> text.startsWith(INTERCHANGE_BOARD.name())));
+
+        // as written by GraphBulkImportFiles
+        try (Transaction txn = graphDatabase.beginTx()) {
+            retypeAsImported(txn);
+            txn.commit();
+        }
+        try (Transaction txn = graphDatabase.beginTx()) {
+            List<String> imported = boardsAndDepartsFor(txn);
+            assertTrue(imported.stream().noneMatch(text -> text.startsWith("INTERCHANGE") || text.startsWith("DIVERSION")));
+            assertEquals(built.size(), imported.size());
+        }
+
+        componentContainer.get(BulkImportedGraphCompletion.class).complete();
+
+        try (Transaction txn = graphDatabase.beginTx()) {
+            assertEquals(built, boardsAndDepartsFor(txn));
+        }
+    }
+
+    private void retypeAsImported(Transaction txn) {
+        collect(txn, INTERCHANGE_BOARD).forEach(board -> {
+            board.getEndNode().removeLabel(GraphLabel.INTERCHANGE);
+            replace(board, BOARD);
+        });
+        collect(txn, INTERCHANGE_DEPART).forEach(depart -> {
+            depart.getStartNode().removeLabel(GraphLabel.INTERCHANGE);
+            replace(depart, DEPART);
+        });
+        collect(txn, DIVERSION_DEPART).forEach(depart -> {
+            Relationship replacement = replace(depart, DEPART);
+            replacement.removeProperty(GraphPropertyKey.START_DATE.getText());
+            replacement.removeProperty(GraphPropertyKey.END_DATE.getText());
+        });
+    }
+
+    private Relationship replace(Relationship existing, TransportRelationshipTypes type) {
+        Relationship replacement = existing.getStartNode().createRelationshipTo(existing.getEndNode(), type);
+        existing.getAllProperties().forEach(replacement::setProperty);
+        existing.delete();
+        return replacement;
+    }
+
+    private List<Relationship> collect(Transaction txn, TransportRelationshipTypes type) {
+        List<Relationship> result = new ArrayList<>();
+        try (ResourceIterator<Relationship> relationships = txn.findRelationships(type)) {
+            relationships.forEachRemaining(result::add);
+        }
+        return result;
+    }
+
+    /***
+     * @return boards and departs, with ends, properties and interchange label of the route station, relationship
+     * ids change when retyped so are not included
+     */
+    private List<String> boardsAndDepartsFor(Transaction txn) {
+        List<String> result = new ArrayList<>();
+        boardsAndDeparts.forEach(type -> collect(txn, type).forEach(relationship -> {
+            Node routeStation = type.name().endsWith("BOARD") ? relationship.getEndNode() : relationship.getStartNode();
+            result.add(format("%s %s->%s %s interchange:%s", type.name(), relationship.getStartNode().getId(),
+                    relationship.getEndNode().getId(), new TreeMap<>(relationship.getAllProperties()),
+                    routeStation.hasLabel(GraphLabel.INTERCHANGE)));
+        }));
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,182 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.StationIdPair;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.connectionScan.ConnectionScanRouteCalculator;
+import com.tramchester.integration.testSupport.ConfigParameterResolver;
+import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.TransportData;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.testTags.DualTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.neo4j.graphdb.Transaction;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.tramchester.domain.reference.TransportMode.Tram;
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/***
+ * Compare results from the connection scan and graph based calculators across all tram station pairs
+ */
+@ExtendWith(ConfigParameterResolver.class)
+@DualTest
+class ConnectionScanRouteCalculatorComparisonTest {
+
+    // enough that neither calculator truncates the pareto set of results
+    private static final int MAX_JOURNEYS = 100;
+
+    private static ComponentContainer componentContainer;
+    private static TramchesterConfig testConfig;
+
+    private TramDate when;
+    private EnumSet<TransportMode> modes;
+    private ClosedStationsRepository closedRepository;
+    private RouteCalculator graphCalculator;
+    private ConnectionScanRouteCalculator scanCalculator;
+    private GraphDatabase database;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun(TramchesterConfig config) {
+        testConfig = config;
+        componentContainer = new ComponentsBuilder().create(testConfig, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        when = TestEnv.testDay();
+        modes = TramsOnly;
+        closedRepository = componentContainer.get(ClosedStationsRepository.class);
+        graphCalculator = componentContainer.get(RouteCalculator.class);
+        scanCalculator = componentContainer.get(ConnectionScanRouteCalculator.class);
+        database = componentContainer.get(GraphDatabase.class);
+    }
+
+    @Test
+    void shouldFindSameArrivalsAndChangesAsGraphForEveryStationPair() {
+        TransportData data = componentContainer.get(TransportData.class);
+
+        Set<Station> haveServices = data.getStationsServing(Tram).stream().
+                filter(station -> !closedRepository.isClosed(station, when)).
+                collect(Collectors.toSet());
+
+        JourneyRequest journeyRequest = new JourneyRequest(when, TramTime.of(8, 5), false, 2,
+                Duration.ofMinutes(testConfig.getMaxJourneyDuration()), MAX_JOURNEYS, modes);
+
+        Set<StationIdPair> stationIdPairs = haveServices.stream().flatMap(start -> haveServices.stream().
+                        map(dest -> StationIdPair.of(start, dest))).
+                filter(pair -> !pair.same()).
+                collect(Collectors.toSet());
+
+        List<String> failed = new ArrayList<>();
+
+        try (Transaction txn = database.beginTx()) {
+            for (StationIdPair pair : stationIdPairs) {
+                Station start = data.getStationById(pair.getBeginId());
+                Station dest = data.getStationById(pair.getEndId());
+
+                List<Journey> fromGraph = graphCalculator.calculateRoute(txn, start, dest, journeyRequest).toList();
+                List<Journey> fromScan = scanCalculator.calculateRoute(txn, start, dest, journeyRequest).toList();
+
+                if (fromGraph.isEmpty() && fromScan.isEmpty()) {
+                    continue;
+                }
+                if (fromGraph.isEmpty() || fromScan.isEmpty()) {
+                    failed.add(format("%s only one calculator found journeys, graph %s scan %s", pair,
+                            fromGraph.size(), fromScan.size()));
+                    continue;
+                }
+
+                Optional<TramTime> graphArrival = earliestArrival(fromGraph);
+                Optional<TramTime> scanArrival = earliestArrival(fromScan);
+                if (!graphArrival.equals(scanArrival)) {
+                    failed.add(format("%s scan arrives %s, graph arrives %s", pair, scanArrival, graphArrival));
+                    continue;
+                }
+
+                Set<ArrivalAndChanges> graphPareto = paretoSet(fromGraph);
+                Set<ArrivalAndChanges> scanPareto = paretoSet(fromScan);
+                if (!graphPareto.equals(scanPareto)) {
+                    failed.add(format("%s scan pareto %s, graph pareto %s", pair, scanPareto, graphPareto));
+                }
+            }
+        }
+
+        assertTrue(failed.isEmpty(), format("For %s failed %s of %s pairs %s", journeyRequest, failed.size(),
+                stationIdPairs.size(), failed));
+    }
+
+    private Optional<TramTime> earliestArrival(List<Journey> journeys) {
+        return journeys.stream().map(Journey::getArrivalTime).min(TramTime::compareTo);
+    }
+
+    /***
+     * @return the (arrival, changes) results not dominated by any other, i.e. none arrive as early with as few changes
+     */
+    private Set<ArrivalAndChanges> paretoSet(List<Journey> journeys) {
+        Set<ArrivalAndChanges> all = journeys.stream().
+                map(journey -> new ArrivalAndChanges(journey.getArrivalTime(), journey.getChangeStations().size())).
+                collect(Collectors.toSet());
+
+        return all.stream().
+                filter(candidate -> all.stream().noneMatch(other -> other.dominates(candidate))).
+                collect(Collectors.toSet());
+    }
+
+    private static class ArrivalAndChanges {
+        private final TramTime arrival;
+        private final int changes;
+
+        private ArrivalAndChanges(TramTime arrival, int changes) {
+            this.arrival = arrival;
+            this.changes = changes;
+        }
+
+        boolean dominates(ArrivalAndChanges other) {
+            return !equals(other) && !arrival.isAfter(other.arrival) && changes <= other.changes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ArrivalAndChanges that = (ArrivalAndChanges) o;
+            return changes == that.changes && arrival.equals(that.arrival);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(arrival, changes);
+        }
+
+        @Override
+        public String toString() {
+            return arrival + "/" + changes;
+        }
+    }
+
+}
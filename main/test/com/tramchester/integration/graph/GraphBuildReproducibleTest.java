@@ -0,0 +1,77 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/***
+ * Parts of the graph are built concurrently, two builds from the same data must still give the same graph
+ */
+class GraphBuildReproducibleTest {
+
+    @Test
+    void shouldHaveSameNodesAndRelationshipsForEachBuild() throws IOException {
+        Map<String, Long> first = countsForBuild("graphBuildReproducibleTestA.db");
+        Map<String, Long> second = countsForBuild("graphBuildReproducibleTestB.db");
+
+        assertFalse(first.isEmpty());
+        assertEquals(first, second);
+    }
+
+    private Map<String, Long> countsForBuild(String dbName) throws IOException {
+        IntegrationTramTestConfig config = new IntegrationTramTestConfig(dbName, Collections.emptyList());
+        TestEnv.deleteDBIfPresent(config);
+
+        ComponentContainer componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+
+        Map<String, Long> counts = new HashMap<>();
+        try {
+            componentContainer.get(StagedTransportGraphBuilder.Ready.class);
+
+            try (Transaction txn = componentContainer.get(GraphDatabase.class).beginTx()) {
+                for (GraphLabel label : GraphLabel.values()) {
+                    long count = count(txn, format("MATCH (n:%s) RETURN count(n) as count", label.name()));
+                    if (count > 0) {
+                        counts.put(label.name(), count);
+                    }
+                }
+                for (TransportRelationshipTypes type : TransportRelationshipTypes.values()) {
+                    long count = count(txn, format("MATCH ()-[r:%s]->() RETURN count(r) as count", type.name()));
+                    if (count > 0) {
+                        counts.put(type.name(), count);
+                    }
+                }
+            }
+        } finally {
+            componentContainer.close();
+            TestEnv.deleteDBIfPresent(config);
+        }
+        return counts;
+    }
+
+    private static long count(Transaction txn, String query) {
+        try (Result result = txn.execute(query)) {
+            ResourceIterator<Object> rows = result.columnAs("count");
+            return (long) rows.next();
+        }
+    }
+}
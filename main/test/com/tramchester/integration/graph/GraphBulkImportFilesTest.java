@@ -0,0 +1,242 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.graphbuild.GraphBulkImportFiles;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphBulkImportFilesTest {
+    private static ComponentContainer componentContainer;
+
+    private static GraphBulkImportFiles.ImportFiles importFiles;
+    private static Path importDirectory;
+
+    private static final List<GraphLabel> labels = List.of(GraphLabel.STATION, GraphLabel.PLATFORM, GraphLabel.ROUTE_STATION,
+            GraphLabel.SERVICE, GraphLabel.HOUR, GraphLabel.MINUTE);
+
+    private static final List<TransportRelationshipTypes> sameType = List.of(ENTER_PLATFORM, LEAVE_PLATFORM, STATION_TO_ROUTE,
+            ROUTE_TO_STATION, LINKED, ON_ROUTE, TO_SERVICE, TO_HOUR, TO_MINUTE, TRAM_GOES_TO);
+
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        componentContainer = new ComponentsBuilder().create(new IntegrationTramTestConfig(), TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+
+        // build the graph via transactions so can compare
+        componentContainer.get(StagedTransportGraphBuilder.Ready.class);
+
+        importDirectory = Paths.get(FileUtils.getTempDirectoryPath(), "graphBulkImportFilesTest");
+        importFiles = componentContainer.get(GraphBulkImportFiles.class).writeTo(importDirectory);
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+        FileUtils.deleteQuietly(importDirectory.toFile());
+    }
+
+    @BeforeEach
+    void onceBeforEachTestRuns() {
+        txn = componentContainer.get(GraphDatabase.class).beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldHaveHeadersForImport() throws IOException {
+        String nodesHeader = Files.readAllLines(importFiles.getNodes()).get(0);
+        assertTrue(nodesHeader.startsWith(":ID,"), nodesHeader);
+        assertTrue(nodesHeader.endsWith(",:LABEL"), nodesHeader);
+        assertTrue(nodesHeader.contains("cost:int"), nodesHeader);
+
+        String relationshipsHeader = Files.readAllLines(importFiles.getRelationships()).get(0);
+        assertTrue(relationshipsHeader.startsWith(":START_ID,:END_ID,"), relationshipsHeader);
+        assertTrue(relationshipsHeader.endsWith(",:TYPE"), relationshipsHeader);
+
+        assertFalse(importFiles.isNeighboursAdded());
+    }
+
+    @Test
+    void shouldMatchNodesInGraph() throws IOException {
+        Map<String, Long> fromFile = countColumn(importFiles.getNodes(), ":LABEL");
+
+        labels.forEach(label -> {
+            long inFile = fromFile.entrySet().stream().
+                    filter(entry -> List.of(entry.getKey().split(";")).contains(label.name())).
+                    mapToLong(Map.Entry::getValue).sum();
+            assertEquals(countNodes(label), inFile, "for " + label);
+        });
+    }
+
+    @Test
+    void shouldMatchNodePropertiesInGraph() throws IOException {
+        List<Map<String, String>> records = readRecords(importFiles.getNodes());
+
+        labels.forEach(label -> {
+            Map<Map<String, String>, Long> inFile = records.stream().
+                    filter(record -> List.of(record.get(":LABEL").split(";")).contains(label.name())).
+                    map(GraphBulkImportFilesTest::propertiesOf).
+                    collect(Collectors.groupingBy(properties -> properties, Collectors.counting()));
+
+            Map<Map<String, String>, Long> inGraph = new HashMap<>();
+            try (ResourceIterator<Node> nodes = txn.findNodes(label)) {
+                nodes.forEachRemaining(node -> inGraph.merge(asText(node.getAllProperties()), 1L, Long::sum));
+            }
+
+            assertEquals(inGraph, inFile, "for " + label);
+        });
+    }
+
+    @Test
+    void shouldMatchRelationshipPropertiesInGraph() throws IOException {
+        List<Map<String, String>> records = readRecords(importFiles.getRelationships());
+
+        sameType.forEach(type -> {
+            Map<Map<String, String>, Long> inFile = records.stream().
+                    filter(record -> record.get(":TYPE").equals(type.name())).
+                    map(GraphBulkImportFilesTest::propertiesOf).
+                    collect(Collectors.groupingBy(properties -> properties, Collectors.counting()));
+
+            Map<Map<String, String>, Long> inGraph = new HashMap<>();
+            try (ResourceIterator<Relationship> relationships = txn.findRelationships(type)) {
+                relationships.forEachRemaining(relationship -> inGraph.merge(asText(relationship.getAllProperties()), 1L, Long::sum));
+            }
+
+            assertEquals(inGraph, inFile, "for " + type);
+        });
+    }
+
+    @Test
+    void shouldMatchRelationshipsInGraph() throws IOException {
+        Map<String, Long> fromFile = countColumn(importFiles.getRelationships(), ":TYPE");
+
+        sameType.forEach(type -> assertEquals(countRelationships(type), fromFile.getOrDefault(type.name(), 0L),
+                "for " + type));
+
+        // interchanges and diversions are updated once imported
+        assertEquals(countRelationships(BOARD) + countRelationships(INTERCHANGE_BOARD),
+                fromFile.getOrDefault(BOARD.name(), 0L));
+        assertEquals(countRelationships(DEPART) + countRelationships(INTERCHANGE_DEPART) + countRelationships(DIVERSION_DEPART),
+                fromFile.getOrDefault(DEPART.name(), 0L));
+    }
+
+    private Map<String, Long> countColumn(Path file, String column) throws IOException {
+        return readRecords(file).stream().
+                map(record -> record.get(column)).
+                collect(Collectors.groupingBy(text -> text, Collectors.counting()));
+    }
+
+    /***
+     * @return each line of the file as column name to value, name is without the import type, empty values are dropped
+     */
+    private static List<Map<String, String>> readRecords(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        List<String> columns = parseLine(lines.get(0)).stream().
+                map(header -> header.startsWith(":") ? header : header.substring(0, header.indexOf(':'))).
+                collect(Collectors.toList());
+
+        return lines.stream().skip(1).map(line -> {
+            List<String> values = parseLine(line);
+            assertEquals(columns.size(), values.size(), line);
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                if (!values.get(i).isEmpty()) {
+                    record.put(columns.get(i), values.get(i));
+                }
+            }
+            return record;
+        }).collect(Collectors.toList());
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static Map<String, String> propertiesOf(Map<String, String> record) {
+        return record.entrySet().stream().
+                filter(entry -> !entry.getKey().startsWith(":")).
+                collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static Map<String, String> asText(Map<String, Object> properties) {
+        Map<String, String> result = new HashMap<>();
+        properties.forEach((key, value) -> {
+            if (value instanceof short[] values) {
+                StringJoiner joiner = new StringJoiner(";");
+                for (short item : values) {
+                    joiner.add(Short.toString(item));
+                }
+                result.put(key, joiner.toString());
+            } else {
+                result.put(key, value.toString());
+            }
+        });
+        return result;
+    }
+
+    private long countNodes(GraphLabel label) {
+        long count = 0;
+        try (ResourceIterator<?> nodes = txn.findNodes(label)) {
+            while (nodes.hasNext()) {
+                nodes.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long countRelationships(TransportRelationshipTypes type) {
+        try (Result result = txn.execute(format("MATCH ()-[r:%s]->() RETURN count(r) as count", type.name()))) {
+            ResourceIterator<Object> rows = result.columnAs("count");
+            return (long) rows.next();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.integration.testSupport.RouteCalculatorTestFacade;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramStations;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.time.Duration;
+import java.util.*;
+
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static com.tramchester.testSupport.reference.TramStations.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/***
+ * Landmark lower bounds only prune paths that cannot beat the best found so far, so must not change the quickest journeys
+ */
+class LandmarkLowerBoundsJourneysTest {
+
+    private static final List<Pair<TramStations, TramStations>> pairs = List.of(
+            Pair.of(Altrincham, Bury), Pair.of(Bury, Altrincham), Pair.of(ManAirport, Victoria),
+            Pair.of(Eccles, Ashton), Pair.of(Rochdale, EastDidsbury), Pair.of(MediaCityUK, Piccadilly),
+            Pair.of(TraffordCentre, Shudehill));
+
+    private static Map<Pair<TramStations, TramStations>, Optional<Duration>> withoutLandmarks;
+    private static Map<Pair<TramStations, TramStations>, Optional<Duration>> withLandmarks;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        // same graph for both so run one after the other
+        withoutLandmarks = quickestFor(new IntegrationTramTestConfig());
+        withLandmarks = quickestFor(new LandmarkLowerBoundsTest.LandmarksConfig(4));
+    }
+
+    @Test
+    void shouldHaveSameQuickestJourneysWithLandmarksEnabled() {
+        assertFalse(withoutLandmarks.values().stream().allMatch(Optional::isEmpty));
+
+        pairs.forEach(pair -> assertEquals(withoutLandmarks.get(pair), withLandmarks.get(pair), "for " + pair));
+    }
+
+    private static Map<Pair<TramStations, TramStations>, Optional<Duration>> quickestFor(TramchesterConfig config) {
+        final TramDate when = TestEnv.testDay();
+        final JourneyRequest journeyRequest = new JourneyRequest(when, TramTime.of(8, 0), false,
+                3, Duration.ofMinutes(config.getMaxJourneyDuration()), 3, TramsOnly);
+
+        final ComponentContainer componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+
+        final Map<Pair<TramStations, TramStations>, Optional<Duration>> results = new HashMap<>();
+        try {
+            assertEquals(config.getNumberOfLandmarks() > 0, componentContainer.get(LandmarkLowerBounds.class).isEnabled());
+
+            final GraphDatabase database = componentContainer.get(GraphDatabase.class);
+            try (Transaction txn = database.beginTx()) {
+                final RouteCalculatorTestFacade calculator = new RouteCalculatorTestFacade(componentContainer.get(RouteCalculator.class),
+                        componentContainer.get(StationRepository.class), txn);
+                pairs.forEach(pair -> {
+                    final Set<Journey> journeys = calculator.calculateRouteAsSet(pair.getLeft(), pair.getRight(), journeyRequest);
+                    results.put(pair, journeys.stream().
+                            map(journey -> TramTime.difference(journey.getDepartTime(), journey.getArrivalTime())).
+                            min(Duration::compareTo));
+                });
+            }
+        } finally {
+            componentContainer.close();
+        }
+        return results;
+    }
+}
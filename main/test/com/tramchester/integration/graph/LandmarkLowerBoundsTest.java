@@ -0,0 +1,172 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.caching.FileDataCache;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphQuery;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
+import com.tramchester.graph.databaseManagement.GraphDatabaseMetaInfo;
+import com.tramchester.graph.filters.GraphFilterActive;
+import com.tramchester.graph.graphbuild.CompositeStationGraphBuilder;
+import com.tramchester.graph.graphbuild.StagedTransportGraphBuilder;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.integration.testSupport.GraphBinaryCacheTestSupport;
+import com.tramchester.integration.testSupport.RouteCalculatorTestFacade;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static com.tramchester.testSupport.reference.TramStations.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarkLowerBoundsTest {
+    private static ComponentContainer componentContainer;
+    private static LandmarksConfig config;
+
+    private final TramDate when = TestEnv.testDay();
+
+    private LandmarkLowerBounds landmarkLowerBounds;
+    private StationRepository stationRepository;
+    private GraphQuery graphQuery;
+    private RouteCalculatorTestFacade calculator;
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        config = new LandmarksConfig(4);
+        componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void onceBeforEachTestRuns() {
+        GraphDatabase database = componentContainer.get(GraphDatabase.class);
+        txn = database.beginTx();
+        landmarkLowerBounds = componentContainer.get(LandmarkLowerBounds.class);
+        stationRepository = componentContainer.get(StationRepository.class);
+        graphQuery = componentContainer.get(GraphQuery.class);
+        calculator = new RouteCalculatorTestFacade(componentContainer.get(RouteCalculator.class), stationRepository, txn);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldBeZeroAtDestination() {
+        Node destination = graphQuery.getStationNode(txn, Bury.from(stationRepository));
+
+        LandmarkLowerBounds.ForDestinations bounds = landmarkLowerBounds.forDestinations(Collections.singleton(destination.getId()));
+
+        assertTrue(bounds.isActive());
+        assertEquals(Duration.ZERO, bounds.getLowerBound(destination));
+    }
+
+    @Test
+    void shouldNotExceedJourneyDuration() {
+        Station start = Altrincham.from(stationRepository);
+        Node destination = graphQuery.getStationNode(txn, Bury.from(stationRepository));
+
+        JourneyRequest journeyRequest = new JourneyRequest(when, TramTime.of(8, 0), false,
+                1, Duration.ofMinutes(120), 3, TramsOnly);
+        Set<Journey> journeys = calculator.calculateRouteAsSet(Altrincham, Bury, journeyRequest);
+        assertFalse(journeys.isEmpty());
+
+        Duration shortest = journeys.stream().
+                map(journey -> TramTime.difference(journey.getDepartTime(), journey.getArrivalTime())).
+                min(Duration::compareTo).orElseThrow();
+
+        LandmarkLowerBounds.ForDestinations bounds = landmarkLowerBounds.forDestinations(Collections.singleton(destination.getId()));
+
+        Set<RouteStation> routeStations = stationRepository.getRouteStationsFor(start.getId());
+        assertFalse(routeStations.isEmpty());
+
+        routeStations.forEach(routeStation -> {
+            Duration lowerBound = bounds.getLowerBound(graphQuery.getRouteStationNode(txn, routeStation));
+            assertTrue(lowerBound.compareTo(shortest) <= 0, "lower bound " + lowerBound + " for " +
+                    routeStation.getId() + " more than " + shortest);
+        });
+
+        assertTrue(routeStations.stream().
+                map(routeStation -> bounds.getLowerBound(graphQuery.getRouteStationNode(txn, routeStation))).
+                anyMatch(lowerBound -> lowerBound.compareTo(Duration.ZERO) > 0));
+    }
+
+    @Test
+    void shouldHaveNoBoundsWhenDestinationNotAStation() {
+        LandmarkLowerBounds.ForDestinations bounds = landmarkLowerBounds.forDestinations(Collections.singleton(-42L));
+
+        assertFalse(bounds.isActive());
+    }
+
+    @Test
+    void shouldRebuildWhenCacheIsForAnotherBuildOfTheGraph() throws IOException {
+        GraphBinaryCacheTestSupport.assertRebuiltWhenForAnotherBuildOfGraph(config, landmarkLowerBounds, () -> {
+            landmarkLowerBounds.stop();
+            landmarkLowerBounds.start();
+        });
+
+        Node destination = graphQuery.getStationNode(txn, Bury.from(stationRepository));
+        assertTrue(landmarkLowerBounds.forDestinations(Collections.singleton(destination.getId())).isActive());
+    }
+
+    @Test
+    void shouldRebuildWhenNumberOfLandmarksChanged() {
+        LandmarkLowerBounds fewerLandmarks = new LandmarkLowerBounds(componentContainer.get(GraphDatabase.class),
+                componentContainer.get(StagedTransportGraphBuilder.Ready.class),
+                componentContainer.get(CompositeStationGraphBuilder.Ready.class),
+                componentContainer.get(FileDataCache.class), componentContainer.get(GraphFilterActive.class),
+                componentContainer.get(GraphDatabaseMetaInfo.class), new LandmarksConfig(2));
+
+        Node destination = graphQuery.getStationNode(txn, Bury.from(stationRepository));
+
+        fewerLandmarks.start();
+        assertTrue(fewerLandmarks.forDestinations(Collections.singleton(destination.getId())).isActive());
+        fewerLandmarks.stop();
+
+        // and back again for the configured number
+        landmarkLowerBounds.stop();
+        landmarkLowerBounds.start();
+
+        LandmarkLowerBounds.ForDestinations bounds = landmarkLowerBounds.forDestinations(Collections.singleton(destination.getId()));
+        assertTrue(bounds.isActive());
+        assertTrue(stationRepository.getRouteStationsFor(Altrincham.getId()).stream().
+                map(routeStation -> bounds.getLowerBound(graphQuery.getRouteStationNode(txn, routeStation))).
+                anyMatch(lowerBound -> lowerBound.compareTo(Duration.ZERO) > 0));
+    }
+
+    static class LandmarksConfig extends IntegrationTramTestConfig {
+        private final int numberOfLandmarks;
+
+        LandmarksConfig(int numberOfLandmarks) {
+            this.numberOfLandmarks = numberOfLandmarks;
+        }
+
+        @Override
+        public int getNumberOfLandmarks() {
+            return numberOfLandmarks;
+        }
+    }
+}
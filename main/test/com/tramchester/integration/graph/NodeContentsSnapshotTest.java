@@ -0,0 +1,95 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.caches.CachedNodeOperations;
+import com.tramchester.graph.caches.NodeContentsSnapshot;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.integration.testSupport.GraphBinaryCacheTestSupport;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NodeContentsSnapshotTest {
+    private static ComponentContainer componentContainer;
+    private static IntegrationTramTestConfig config;
+
+    private NodeContentsSnapshot snapshot;
+    private CachedNodeOperations cachedNodeOperations;
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        config = new IntegrationTramTestConfig();
+        componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void onceBeforEachTestRuns() {
+        snapshot = componentContainer.get(NodeContentsSnapshot.class);
+        cachedNodeOperations = componentContainer.get(CachedNodeOperations.class);
+        GraphDatabase database = componentContainer.get(GraphDatabase.class);
+        txn = database.beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldMatchNodeContentsFromGraph() {
+        try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+            nodes.forEach(node -> {
+                EnumSet<GraphLabel> labels = cachedNodeOperations.getLabels(node);
+                assertEquals(labels, snapshot.getLabels(node), "labels for " + node.getId());
+                if (labels.contains(GraphLabel.MINUTE)) {
+                    assertEquals(cachedNodeOperations.getTime(node), snapshot.getTime(node), "time for " + node.getId());
+                }
+                if (labels.contains(GraphLabel.HOUR)) {
+                    assertEquals(cachedNodeOperations.getHour(node), snapshot.getHour(node), "hour for " + node.getId());
+                }
+            });
+        }
+    }
+
+    @Test
+    void shouldMatchRelationshipCostsFromGraph() {
+        try (ResourceIterable<Relationship> relationships = txn.getAllRelationships()) {
+            relationships.forEach(relationship -> {
+                if (TransportRelationshipTypes.hasCost(TransportRelationshipTypes.from(relationship))) {
+                    assertEquals(cachedNodeOperations.getCost(relationship), snapshot.getCost(relationship),
+                            "cost for " + relationship.getId());
+                }
+            });
+        }
+    }
+
+    @Test
+    void shouldRebuildWhenCacheIsForAnotherBuildOfTheGraph() throws IOException {
+        GraphBinaryCacheTestSupport.assertRebuiltWhenForAnotherBuildOfGraph(config, snapshot, () -> {
+            snapshot.stop();
+            snapshot.start();
+        });
+
+        shouldMatchNodeContentsFromGraph();
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.caches.OutboundAdjacency;
+import com.tramchester.integration.testSupport.GraphBinaryCacheTestSupport;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+class OutboundAdjacencyTest {
+    private static ComponentContainer componentContainer;
+    private static OutboundConfig config;
+
+    private OutboundAdjacency.Bound outbound;
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        config = new OutboundConfig();
+        componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void onceBeforEachTestRuns() {
+        GraphDatabase database = componentContainer.get(GraphDatabase.class);
+        txn = database.beginTx();
+        outbound = componentContainer.get(OutboundAdjacency.class).bindTo(txn);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldMatchOutgoingFromGraph() {
+        final long allTypes = OutboundAdjacency.maskFor(TransportRelationshipTypes.values());
+        try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+            nodes.forEach(node -> {
+                assertTrue(outbound.contains(node));
+                assertEquals(idsOf(node.getRelationships(OUTGOING)), idsOf(outbound.getOutbound(node, allTypes)),
+                        "outgoing for " + node.getId());
+            });
+        }
+    }
+
+    @Test
+    void shouldFilterByTypeAndEndNode() {
+        final TransportRelationshipTypes[] types = {BOARD, INTERCHANGE_BOARD, TO_SERVICE, TRAM_GOES_TO};
+        final long mask = OutboundAdjacency.maskFor(types);
+        try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+            nodes.forEach(node -> {
+                List<Relationship> expected = new ArrayList<>();
+                node.getRelationships(OUTGOING, types).forEach(expected::add);
+                assertEquals(idsOf(expected), idsOf(outbound.getOutbound(node, mask)), "types for " + node.getId());
+
+                if (!expected.isEmpty()) {
+                    long excluded = expected.get(0).getEndNode().getId();
+                    List<Long> remaining = new ArrayList<>();
+                    expected.stream().filter(relationship -> relationship.getEndNode().getId() != excluded).
+                            forEach(relationship -> remaining.add(relationship.getId()));
+                    assertEquals(sorted(remaining), idsOf(outbound.getOutbound(node, mask, excluded)),
+                            "excluding end node for " + node.getId());
+                }
+            });
+        }
+    }
+
+    private static List<Long> idsOf(Iterable<Relationship> relationships) {
+        List<Long> ids = new ArrayList<>();
+        relationships.forEach(relationship -> ids.add(relationship.getId()));
+        return sorted(ids);
+    }
+
+    @Test
+    void shouldRebuildWhenCacheIsForAnotherBuildOfTheGraph() throws IOException {
+        OutboundAdjacency adjacency = componentContainer.get(OutboundAdjacency.class);
+
+        GraphBinaryCacheTestSupport.assertRebuiltWhenForAnotherBuildOfGraph(config, adjacency, () -> {
+            adjacency.stop();
+            adjacency.start();
+        });
+
+        try (ResourceIterable<Node> nodes = txn.getAllNodes()) {
+            assertTrue(adjacency.bindTo(txn).contains(nodes.iterator().next()));
+        }
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        ids.sort(Long::compare);
+        return ids;
+    }
+
+    private static class OutboundConfig extends IntegrationTramTestConfig {
+        @Override
+        public boolean getOutboundAdjacency() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneySearchExecutor;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.repository.StationRepository;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramStations;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Transaction;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCalculatorParallelSearchTest {
+    private static final List<Pair<TramStations, TramStations>> pairs = List.of(
+            Pair.of(TramStations.Altrincham, TramStations.Ashton), Pair.of(TramStations.Bury, TramStations.ManAirport),
+            Pair.of(TramStations.Eccles, TramStations.Rochdale), Pair.of(TramStations.TraffordCentre, TramStations.Victoria));
+
+    // enough that the limit does not cut off the quickest journey
+    private static final long MAX_JOURNEYS = 100;
+
+    private static ComponentContainer componentContainer;
+    private static ParallelSearchConfig config;
+    private static Map<Pair<TramStations, TramStations>, Optional<TramTime>> sequentialResults;
+
+    private RouteCalculator routeCalculator;
+    private StationRepository stationRepository;
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        config = new ParallelSearchConfig();
+
+        // same graph for both so run the sequential search first
+        sequentialResults = resultsFor(new IntegrationTramTestConfig());
+
+        componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        routeCalculator = componentContainer.get(RouteCalculator.class);
+        stationRepository = componentContainer.get(StationRepository.class);
+        GraphDatabase database = componentContainer.get(GraphDatabase.class);
+        txn = database.beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldHaveParallelSearchEnabled() {
+        assertTrue(componentContainer.get(JourneySearchExecutor.class).isEnabled());
+    }
+
+    @Test
+    void shouldFindJourneysInRequestOrder() {
+        JourneyRequest journeyRequest = createRequest(TramTime.of(8, 0), 5);
+
+        List<Journey> journeys = calculate(TramStations.Altrincham, TramStations.Ashton, journeyRequest);
+        assertFalse(journeys.isEmpty());
+        assertTrue(journeys.size() <= 5);
+
+        // path requests are ordered by number of changes, then by query time
+        for (int i = 1; i < journeys.size(); i++) {
+            Journey previous = journeys.get(i - 1);
+            Journey current = journeys.get(i);
+            assertTrue(previous.getRequestedNumberChanges() <= current.getRequestedNumberChanges(),
+                    "out of order " + previous + " and " + current);
+            if (previous.getRequestedNumberChanges() == current.getRequestedNumberChanges()) {
+                assertFalse(current.getQueryTime().isBefore(previous.getQueryTime()),
+                        "out of order " + previous + " and " + current);
+            }
+        }
+
+        journeys.forEach(journey -> assertEquals(TramStations.Ashton.getId(),
+                journey.getStages().get(journey.getStages().size() - 1).getLastStation().getId()));
+    }
+
+    @Test
+    void shouldFindSameEarliestArrivalAsSequentialSearch() {
+        // lowest cost seen is shared between workers, so which other journeys are found depends on timings
+        Map<Pair<TramStations, TramStations>, Optional<TramTime>> parallelResults = new HashMap<>();
+        pairs.forEach(pair -> parallelResults.put(pair, earliestArrival(calculate(pair.getLeft(), pair.getRight(),
+                createRequest(TramTime.of(8, 0), MAX_JOURNEYS)))));
+
+        assertFalse(sequentialResults.values().stream().allMatch(Optional::isEmpty));
+        pairs.forEach(pair -> assertEquals(sequentialResults.get(pair), parallelResults.get(pair), "for " + pair));
+    }
+
+    @Test
+    void shouldRespectLimitOnNumberOfJourneys() {
+        JourneyRequest journeyRequest = createRequest(TramTime.of(10, 15), 1);
+
+        List<Journey> journeys = calculate(TramStations.Bury, TramStations.Altrincham, journeyRequest);
+        assertEquals(1, journeys.size());
+    }
+
+    private List<Journey> calculate(TramStations start, TramStations dest, JourneyRequest journeyRequest) {
+        return calculate(routeCalculator, stationRepository, txn, start, dest, journeyRequest);
+    }
+
+    private static List<Journey> calculate(RouteCalculator routeCalculator, StationRepository stationRepository, Transaction txn,
+                                           TramStations start, TramStations dest, JourneyRequest journeyRequest) {
+        Station begin = start.from(stationRepository);
+        Station end = dest.from(stationRepository);
+        try (Stream<Journey> stream = routeCalculator.calculateRoute(txn, begin, end, journeyRequest)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    private JourneyRequest createRequest(TramTime time, long maxNumberOfJourneys) {
+        return createRequest(config, time, maxNumberOfJourneys);
+    }
+
+    private static JourneyRequest createRequest(IntegrationTramTestConfig testConfig, TramTime time, long maxNumberOfJourneys) {
+        return new JourneyRequest(TestEnv.testDay(), time, false, 3,
+                Duration.ofMinutes(testConfig.getMaxJourneyDuration()), maxNumberOfJourneys, TramsOnly);
+    }
+
+    private static Map<Pair<TramStations, TramStations>, Optional<TramTime>> resultsFor(IntegrationTramTestConfig testConfig) {
+        ComponentContainer sequentialContainer = new ComponentsBuilder().create(testConfig, TestEnv.NoopRegisterMetrics());
+        sequentialContainer.initialise();
+
+        Map<Pair<TramStations, TramStations>, Optional<TramTime>> results = new HashMap<>();
+        try {
+            assertFalse(sequentialContainer.get(JourneySearchExecutor.class).isEnabled());
+
+            RouteCalculator calculator = sequentialContainer.get(RouteCalculator.class);
+            StationRepository repository = sequentialContainer.get(StationRepository.class);
+            try (Transaction transaction = sequentialContainer.get(GraphDatabase.class).beginTx()) {
+                pairs.forEach(pair -> results.put(pair, earliestArrival(calculate(calculator, repository, transaction,
+                        pair.getLeft(), pair.getRight(), createRequest(testConfig, TramTime.of(8, 0), MAX_JOURNEYS)))));
+            }
+        } finally {
+            sequentialContainer.close();
+        }
+        return results;
+    }
+
+    private static Optional<TramTime> earliestArrival(List<Journey> journeys) {
+        return journeys.stream().map(Journey::getArrivalTime).min(TramTime::compareTo);
+    }
+
+    private static class ParallelSearchConfig extends IntegrationTramTestConfig {
+        @Override
+        public int getJourneySearchThreads() {
+            return 4;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.tramchester.integration.graph;
 
 import com.tramchester.ComponentContainer;
 import com.tramchester.ComponentsBuilder;
+import com.tramchester.caching.FileDataCache;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.IdPair;
 import com.tramchester.domain.Route;
@@ -11,11 +12,13 @@ import com.tramchester.domain.dates.TramDate;
 import com.tramchester.domain.id.HasId;
 import com.tramchester.domain.places.InterchangeStation;
 import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.graph.filters.GraphFilterActive;
 import com.tramchester.graph.search.routes.PathResults;
 import com.tramchester.graph.search.routes.QueryPathsWithDepth;
 import com.tramchester.graph.search.routes.RouteCostMatrix;
 import com.tramchester.graph.search.routes.RouteIndex;
 import com.tramchester.integration.testSupport.ConfigParameterResolver;
+import com.tramchester.metrics.CacheMetrics;
 import com.tramchester.repository.InterchangeRepository;
 import com.tramchester.repository.RouteRepository;
 import com.tramchester.testSupport.TestEnv;
@@ -29,6 +32,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
@@ -46,6 +53,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @DataUpdateTest
 public class RouteCostMatrixTest {
     private static ComponentContainer componentContainer;
+    private static TramchesterConfig config;
 
     private TramRouteHelper routeHelper;
     private TramDate date;
@@ -59,6 +67,7 @@ public class RouteCostMatrixTest {
 
     @BeforeAll
     static void onceBeforeAnyTestRuns(TramchesterConfig tramchesterConfig) {
+        config = tramchesterConfig;
 
         componentContainer = new ComponentsBuilder().create(tramchesterConfig, TestEnv.NoopRegisterMetrics());
         componentContainer.initialise();
@@ -319,6 +328,71 @@ public class RouteCostMatrixTest {
 
     }
 
+    @Test
+    void shouldLoadSameCostsAndBacktrackingFromBinaryCache() throws IOException {
+        Path binaryCache = config.getCacheFolder().resolve(RouteCostMatrix.BINARY_CACHE_FILENAME);
+
+        // csv cache present but not the binary, so loads from csv and recreates backtracking
+        Files.deleteIfExists(binaryCache);
+        RouteCostMatrix fromCsv = createMatrix();
+        fromCsv.start();
+        assertTrue(Files.exists(binaryCache));
+
+        RouteCostMatrix fromBinary = createMatrix();
+        fromBinary.start();
+
+        assertEquals(routeMatrix.numberOfBitsSet(), fromBinary.numberOfBitsSet());
+
+        int numberOfRoutes = routeRepository.numberOfRoutes();
+        RouteIndexPairFactory pairFactory = componentContainer.get(RouteIndexPairFactory.class);
+
+        for (int degree = 1; degree <= RouteCostMatrix.MAX_DEPTH; degree++) {
+            assertEquals(fromCsv.getCostsPerDegree(degree), fromBinary.getCostsPerDegree(degree), "degree " + degree);
+            assertEquals(fromCsv.getNumberBacktrackFor(degree), fromBinary.getNumberBacktrackFor(degree), "degree " + degree);
+        }
+
+        for (int degree = 2; degree <= RouteCostMatrix.MAX_DEPTH; degree++) {
+            ImmutableIndexedBitSet costs = fromCsv.getCostsPerDegree(degree);
+            for (short first = 0; first < numberOfRoutes; first++) {
+                final int lowerDegree = degree - 1;
+                final short firstIndex = first;
+                costs.getBitSetForRow(first).getBitIndexes().forEach(second -> {
+                    RouteIndexPair indexPair = pairFactory.get(firstIndex, second);
+                    assertEquals(fromCsv.getBackTracksFor(lowerDegree, indexPair), fromBinary.getBackTracksFor(lowerDegree, indexPair));
+                });
+            }
+        }
+    }
+
+    @Test
+    void shouldRebuildBinaryCacheWhenRouteIdsDoNotMatch() throws IOException {
+        Path binaryCache = config.getCacheFolder().resolve(RouteCostMatrix.BINARY_CACHE_FILENAME);
+
+        Files.deleteIfExists(binaryCache);
+        RouteCostMatrix original = createMatrix();
+        original.start();
+
+        // stamp for the route ids follows magic, version, number of routes and max depth
+        final int stampOffset = 4 * Integer.BYTES;
+        byte[] contents = Files.readAllBytes(binaryCache);
+        byte[] originalStamp = Arrays.copyOfRange(contents, stampOffset, stampOffset + Long.BYTES);
+        contents[stampOffset] = (byte) ~contents[stampOffset];
+        Files.write(binaryCache, contents);
+
+        RouteCostMatrix rebuilt = createMatrix();
+        rebuilt.start();
+
+        assertEquals(routeMatrix.numberOfBitsSet(), rebuilt.numberOfBitsSet());
+        byte[] recreated = Files.readAllBytes(binaryCache);
+        assertArrayEquals(originalStamp, Arrays.copyOfRange(recreated, stampOffset, stampOffset + Long.BYTES));
+    }
+
+    private RouteCostMatrix createMatrix() {
+        return new RouteCostMatrix(routeRepository, interchangeRepository, componentContainer.get(FileDataCache.class),
+                componentContainer.get(GraphFilterActive.class), componentContainer.get(RouteIndexPairFactory.class), routeIndex,
+                componentContainer.get(CacheMetrics.class));
+    }
+
     @Test
     void shouldReproIssueWithGreenLineRoute() {
         RouteIndexPairFactory pairFactory = componentContainer.get(RouteIndexPairFactory.class);
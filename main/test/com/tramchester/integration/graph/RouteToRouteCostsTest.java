@@ -38,8 +38,7 @@ import static com.tramchester.domain.reference.TransportMode.Train;
 import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
 import static com.tramchester.testSupport.reference.KnownTramRoute.*;
 import static com.tramchester.testSupport.reference.TramStations.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(ConfigParameterResolver.class)
 @DualTest
@@ -282,6 +281,37 @@ public class RouteToRouteCostsTest {
         assertEquals(0, getMinCost(changes), "On " + nextWeek+ " " + changes);
     }
 
+    @Test
+    void shouldCacheNumberOfChangesForSameLocationsAndTimeBucket() {
+        Station altrincham = Altrincham.from(stationRepository);
+        Station bury = Bury.from(stationRepository);
+
+        TimeRange first = TimeRange.of(TramTime.of(9,31), Duration.ZERO, Duration.ofMinutes(60));
+        TimeRange second = TimeRange.of(TramTime.of(9,38), Duration.ZERO, Duration.ofMinutes(60));
+
+        NumberOfChanges changesFirst = routesCostRepository.getNumberOfChanges(altrincham, bury, modes, date, first);
+        long hitsBefore = numberOfChangesCacheHits();
+
+        NumberOfChanges changesSecond = routesCostRepository.getNumberOfChanges(altrincham, bury, modes, date, second);
+        assertEquals(hitsBefore + 1, numberOfChangesCacheHits());
+
+        assertEquals(changesFirst.getMin(), changesSecond.getMin());
+        assertEquals(changesFirst.getMax(), changesSecond.getMax());
+
+        // callers can override max, must not change the cached value
+        assertNotSame(changesFirst, changesSecond);
+        changesFirst.overrideMax(changesFirst.getMax() + 3);
+        NumberOfChanges changesThird = routesCostRepository.getNumberOfChanges(altrincham, bury, modes, date, second);
+        assertEquals(changesSecond.getMax(), changesThird.getMax());
+    }
+
+    private long numberOfChangesCacheHits() {
+        return routesCostRepository.stats().stream().
+                filter(pair -> pair.getLeft().equals("NumberOfChanges")).
+                mapToLong(pair -> pair.getRight().hitCount()).
+                findFirst().orElseThrow();
+    }
+
     private int getMinCost(NumberOfChanges routesCostRepository) {
         return routesCostRepository.getMin();
     }
@@ -0,0 +1,148 @@
+package com.tramchester.integration.graph;
+
+import com.google.common.collect.Streams;
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.caches.TimeOrderedAdjacency;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.integration.testSupport.GraphBinaryCacheTestSupport;
+import com.tramchester.integration.testSupport.tram.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.tramchester.graph.TransportRelationshipTypes.TO_HOUR;
+import static com.tramchester.graph.TransportRelationshipTypes.TO_MINUTE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+class TimeOrderedAdjacencyTest {
+    private static final int MAX_WAIT = 25;
+
+    private static ComponentContainer componentContainer;
+    private static TimeOrderedConfig config;
+
+    private TimeOrderedAdjacency.Bound timeOrdered;
+    private Transaction txn;
+
+    @BeforeAll
+    static void onceBeforeAnyTestsRun() {
+        config = new TimeOrderedConfig();
+        componentContainer = new ComponentsBuilder().create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void OnceAfterAllTestsAreFinished() {
+        componentContainer.close();
+    }
+
+    @BeforeEach
+    void onceBeforEachTestRuns() {
+        GraphDatabase database = componentContainer.get(GraphDatabase.class);
+        txn = database.beginTx();
+        timeOrdered = componentContainer.get(TimeOrderedAdjacency.class).bindTo(txn, MAX_WAIT);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        txn.close();
+    }
+
+    @Test
+    void shouldHaveHoursInOrderForEveryService() {
+        try (ResourceIterator<Node> serviceNodes = txn.findNodes(GraphLabel.SERVICE)) {
+            serviceNodes.forEachRemaining(serviceNode -> {
+                assertTrue(timeOrdered.hasOrderFor(serviceNode));
+
+                List<Relationship> ordered = timeOrdered.getHoursInOrder(serviceNode).collect(Collectors.toList());
+                assertEquals(idsOf(serviceNode.getRelationships(OUTGOING, TO_HOUR)), ordered.stream().
+                        map(Relationship::getId).collect(Collectors.toSet()));
+
+                for (int i = 1; i < ordered.size(); i++) {
+                    assertTrue(hourOf(ordered.get(i - 1)) <= hourOf(ordered.get(i)), "out of order for " + serviceNode.getId());
+                }
+            });
+        }
+    }
+
+    @Test
+    void shouldHaveMinutesFromJourneyClockWithinMaxWait() {
+        try (ResourceIterator<Node> hourNodes = txn.findNodes(GraphLabel.HOUR)) {
+            hourNodes.forEachRemaining(hourNode -> {
+                assertTrue(timeOrdered.hasOrderFor(hourNode));
+
+                List<TramTime> allTimes = Streams.stream(hourNode.getRelationships(OUTGOING, TO_MINUTE)).
+                        map(TimeOrderedAdjacencyTest::timeOf).sorted().collect(Collectors.toList());
+                if (allTimes.isEmpty()) {
+                    return;
+                }
+
+                TramTime journeyClock = allTimes.get(allTimes.size() / 2).minusMinutes(1);
+                TramTime latest = journeyClock.plusMinutes(MAX_WAIT);
+                List<TramTime> expected = allTimes.stream().
+                        filter(time -> time.between(journeyClock, latest)).
+                        collect(Collectors.toList());
+
+                List<TramTime> result = timeOrdered.getMinutesFrom(hourNode, journeyClock).
+                        map(TimeOrderedAdjacencyTest::timeOf).collect(Collectors.toList());
+
+                assertEquals(expected, result, "for " + hourNode.getId() + " at " + journeyClock);
+            });
+        }
+    }
+
+    @Test
+    void shouldNotHaveOrderForOtherNodes() {
+        try (ResourceIterator<Node> stationNodes = txn.findNodes(GraphLabel.STATION)) {
+            assertFalse(timeOrdered.hasOrderFor(stationNodes.next()));
+        }
+    }
+
+    @Test
+    void shouldRebuildWhenCacheIsForAnotherBuildOfTheGraph() throws IOException {
+        TimeOrderedAdjacency adjacency = componentContainer.get(TimeOrderedAdjacency.class);
+
+        GraphBinaryCacheTestSupport.assertRebuiltWhenForAnotherBuildOfGraph(config, adjacency, () -> {
+            adjacency.stop();
+            adjacency.start();
+        });
+
+        try (ResourceIterator<Node> serviceNodes = txn.findNodes(GraphLabel.SERVICE)) {
+            assertTrue(adjacency.bindTo(txn, MAX_WAIT).hasOrderFor(serviceNodes.next()));
+        }
+    }
+
+    private static Set<Long> idsOf(Iterable<Relationship> relationships) {
+        Set<Long> ids = new HashSet<>();
+        relationships.forEach(relationship -> ids.add(relationship.getId()));
+        return ids;
+    }
+
+    private static int hourOf(Relationship relationship) {
+        return GraphLabel.getHourFrom(GraphProps.getLabelsFor(relationship.getEndNode()));
+    }
+
+    private static TramTime timeOf(Relationship relationship) {
+        return GraphProps.getTime(relationship.getEndNode());
+    }
+
+    private static class TimeOrderedConfig extends IntegrationTramTestConfig {
+        @Override
+        public boolean getTimeOrderedAdjacency() {
+            return true;
+        }
+    }
+}
@@ -16,6 +16,7 @@ import com.tramchester.graph.search.routes.RouteCostMatrix;
 import com.tramchester.graph.search.routes.RouteIndex;
 import com.tramchester.integration.testSupport.RailAndTramGreaterManchesterConfig;
 import com.tramchester.integration.testSupport.rail.RailStationIds;
+import com.tramchester.metrics.CacheMetrics;
 import com.tramchester.repository.InterchangeRepository;
 import com.tramchester.repository.NumberOfRoutes;
 import com.tramchester.repository.RouteRepository;
@@ -239,8 +240,10 @@ public class RailAndTramRouteCostMatrixTest {
         FileDataCache dataCache = componentContainer.get(FileDataCache.class);
         GraphFilterActive graphFilter = componentContainer.get(GraphFilterActive.class);
         RouteIndexPairFactory pairFactory = componentContainer.get(RouteIndexPairFactory.class);
+        CacheMetrics cacheMetrics = componentContainer.get(CacheMetrics.class);
 
-        RouteCostMatrix secondMatrix = new RouteCostMatrix(numberOfRoutes, interchangeRepository, dataCache, graphFilter, pairFactory, routeIndex);
+        RouteCostMatrix secondMatrix = new RouteCostMatrix(numberOfRoutes, interchangeRepository, dataCache, graphFilter, pairFactory, routeIndex,
+                cacheMetrics);
 
         secondMatrix.start();
         return secondMatrix;
@@ -71,6 +71,28 @@ public class RunningRoutesAndServicesTest {
         assertEquals(routesFromTrips, routesIntoNextDay);
     }
 
+    @Test
+    void shouldReuseFilterForSameDate() {
+        TramDate when = TestEnv.testDay();
+
+        RunningRoutesAndServices.FilterForDate filter = runningRoutesAndServices.getFor(when);
+        assertSame(filter, runningRoutesAndServices.getFor(when));
+    }
+
+    @Test
+    void shouldMatchServicesAndRoutesRunningOnDate() {
+        TramDate when = TestEnv.testDay();
+
+        RunningRoutesAndServices.FilterForDate filter = runningRoutesAndServices.getFor(when);
+
+        Set<Service> running = transportData.getServicesOnDate(when);
+        transportData.getServices().forEach(service ->
+                assertEquals(running.contains(service), filter.isServiceRunningToday(service.getId()), service.getId().toString()));
+
+        Set<Route> routesRunning = transportData.getRoutesRunningOn(when);
+        routesRunning.forEach(route -> assertTrue(filter.isRouteRunning(route.getId(), false), route.getId().toString()));
+    }
+
     @Test
     void shouldConsiderServicesFromDayBeforeIfTheyAreStillRunningTheFollowingDay() {
         TramDate when = TestEnv.testDay().plusWeeks(1); // disruption week of 28/11/22
@@ -1,9 +1,13 @@
 package com.tramchester.integration.resources.journeyPlanning;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tramchester.App;
 import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.presentation.DTO.JourneyBatchResultDTO;
 import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.presentation.DTO.JourneyQueryDTO;
 import com.tramchester.domain.time.TramTime;
+import com.tramchester.integration.testSupport.APIClient;
 import com.tramchester.integration.testSupport.IntegrationAppExtension;
 import com.tramchester.integration.testSupport.JourneyResourceTestFacade;
 import com.tramchester.integration.testSupport.tram.ResourceTramTestConfig;
@@ -11,6 +15,7 @@ import com.tramchester.resources.JourneyPlannerResource;
 import com.tramchester.testSupport.TestEnv;
 import com.tramchester.testSupport.reference.TramStations;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import jakarta.ws.rs.core.Response;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,7 +23,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
 public class JourneyPlannerResourceStreamingTest {
@@ -47,4 +55,53 @@ public class JourneyPlannerResourceStreamingTest {
         journeyDTOS.forEach(journeyDTO -> Assertions.assertFalse(journeyDTO.getStages().isEmpty()));
     }
 
+    @Test
+    void shouldGetBatchResultsOnePerLine() throws IOException {
+        JourneyQueryDTO buryToAirport = journeyPlanner.getQueryDTO(when, TramTime.of(11,45),
+                TramStations.Bury, TramStations.ManAirport, false, 3);
+        JourneyQueryDTO altyToBury = journeyPlanner.getQueryDTO(when, TramTime.of(11,45),
+                TramStations.Altrincham, TramStations.Bury, false, 3);
+
+        Response response = APIClient.postAPIRequest(appExtension, "journey/batch", List.of(buryToAirport, altyToBury, buryToAirport));
+        Assertions.assertEquals(200, response.getStatus());
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<JourneyBatchResultDTO> results = new ArrayList<>();
+        for (String line : response.readEntity(String.class).split("\n")) {
+            results.add(mapper.readValue(line, JourneyBatchResultDTO.class));
+        }
+
+        Assertions.assertEquals(3, results.size());
+        Set<Integer> indexes = results.stream().map(JourneyBatchResultDTO::getIndex).collect(Collectors.toSet());
+        Assertions.assertEquals(Set.of(0, 1, 2), indexes);
+
+        results.forEach(result -> {
+            Assertions.assertNull(result.getError(), result.toString());
+            Assertions.assertFalse(result.getJourneys().isEmpty(), result.toString());
+        });
+    }
+
+    @Test
+    void shouldReportInvalidQueriesInBatch() throws IOException {
+        JourneyQueryDTO valid = journeyPlanner.getQueryDTO(when, TramTime.of(11,45),
+                TramStations.Bury, TramStations.ManAirport, false, 3);
+        JourneyQueryDTO invalid = journeyPlanner.getQueryDTO(when, TramTime.of(11,45),
+                TramStations.Bury, TramStations.ManAirport, false, 3);
+        invalid.setDepartureWindow(-5);
+
+        Response response = APIClient.postAPIRequest(appExtension, "journey/batch", List.of(valid, invalid));
+        Assertions.assertEquals(200, response.getStatus());
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<JourneyBatchResultDTO> results = new ArrayList<>();
+        for (String line : response.readEntity(String.class).split("\n")) {
+            results.add(mapper.readValue(line, JourneyBatchResultDTO.class));
+        }
+
+        Assertions.assertEquals(2, results.size());
+        JourneyBatchResultDTO invalidResult = results.stream().filter(result -> result.getIndex() == 1).findFirst().orElseThrow();
+        Assertions.assertNotNull(invalidResult.getError());
+        Assertions.assertTrue(invalidResult.getJourneys().isEmpty());
+    }
+
 }
@@ -0,0 +1,43 @@
+package com.tramchester.integration.testSupport;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.caches.GraphBinaryCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GraphBinaryCacheTestSupport {
+
+    // graph build stamp follows the magic and version
+    private static final int STAMP_START = 8;
+    private static final int STAMP_END = 16;
+
+    /***
+     * Overwrite the cache file with one for a different build of the graph, restart and check it was created again
+     * @param config config used for the cache folder
+     * @param cache the cache under test, started
+     * @param restart stop and start the cache
+     */
+    public static void assertRebuiltWhenForAnotherBuildOfGraph(TramchesterConfig config, GraphBinaryCache cache,
+                                                               Runnable restart) throws IOException {
+        Path cacheFile = config.getCacheFolder().resolve(cache.getFilename());
+        assertTrue(Files.exists(cacheFile), "missing " + cacheFile);
+
+        byte[] original = Files.readAllBytes(cacheFile);
+        byte[] stale = original.clone();
+        stale[STAMP_START] = (byte) ~stale[STAMP_START];
+        Files.write(cacheFile, stale);
+
+        restart.run();
+
+        assertTrue(Files.exists(cacheFile), "not saved again " + cacheFile);
+        byte[] rebuilt = Files.readAllBytes(cacheFile);
+        assertArrayEquals(Arrays.copyOfRange(original, STAMP_START, STAMP_END),
+                Arrays.copyOfRange(rebuilt, STAMP_START, STAMP_END));
+    }
+}
@@ -23,6 +23,10 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -160,6 +164,63 @@ public class FileDataCacheTest extends EasyMockSupport  {
         verifyAll();
     }
 
+    @Test
+    void shouldCacheBinaryToDiskAndLoad() {
+        EasyMock.expect(remoteDataRefreshed.refreshed(DataSourceID.tfgm)).andStubReturn(false);
+
+        replayAll();
+
+        dataCache.start();
+
+        TestBinaryData toSave = new TestBinaryData(TestBinaryData.VERSION, 42);
+        assertFalse(dataCache.hasBinary(toSave));
+
+        dataCache.saveBinary(toSave);
+        assertTrue(dataCache.hasBinary(toSave));
+
+        TestBinaryData toLoad = new TestBinaryData(TestBinaryData.VERSION, 0);
+        assertTrue(dataCache.loadBinary(toLoad));
+        assertEquals(42, toLoad.value);
+
+        verifyAll();
+    }
+
+    @Test
+    void shouldRemoveBinaryWhenVersionMismatch() {
+        EasyMock.expect(remoteDataRefreshed.refreshed(DataSourceID.tfgm)).andStubReturn(false);
+
+        replayAll();
+
+        dataCache.start();
+
+        dataCache.saveBinary(new TestBinaryData(TestBinaryData.VERSION - 1, 42));
+
+        TestBinaryData toLoad = new TestBinaryData(TestBinaryData.VERSION, 0);
+        assertTrue(dataCache.hasBinary(toLoad));
+
+        assertFalse(dataCache.loadBinary(toLoad));
+        assertFalse(dataCache.hasBinary(toLoad));
+
+        verifyAll();
+    }
+
+    @Test
+    void shouldRemoveBinaryWhenTruncated() throws IOException {
+        EasyMock.expect(remoteDataRefreshed.refreshed(DataSourceID.tfgm)).andStubReturn(false);
+
+        replayAll();
+
+        dataCache.start();
+
+        TestBinaryData toLoad = new TestBinaryData(TestBinaryData.VERSION, 0);
+        Files.write(cacheFolder.resolve(toLoad.getFilename()), new byte[]{1, 2});
+
+        assertFalse(dataCache.loadBinary(toLoad));
+        assertFalse(dataCache.hasBinary(toLoad));
+
+        verifyAll();
+    }
+
     private <T extends CachableData> void validateCacheClassToDisk(TestData<T> cacheableToSave,
                                                                    TestData<T> cacheableToLoad,
                                                                    Class<T> theClass,
@@ -251,6 +312,38 @@ public class FileDataCacheTest extends EasyMockSupport  {
     }
 
 
+    private static class TestBinaryData implements FileDataCache.CachesBinaryData {
+        private static final int VERSION = 2;
+
+        private final int version;
+        private int value;
+
+        private TestBinaryData(int version, int value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        @Override
+        public void cacheTo(DataOutput output) throws IOException {
+            output.writeInt(version);
+            output.writeInt(value);
+        }
+
+        @Override
+        public String getFilename() {
+            return "testBinaryData.bin";
+        }
+
+        @Override
+        public void loadFrom(MappedByteBuffer buffer) throws FileDataCache.CacheLoadException {
+            final int loadedVersion = buffer.getInt();
+            if (loadedVersion != version) {
+                throw new FileDataCache.CacheLoadException("Version mismatch " + loadedVersion);
+            }
+            value = buffer.getInt();
+        }
+    }
+
     private static class LocalTestConfig extends TestConfig {
         private final Path cacheFolder;
 
@@ -0,0 +1,349 @@
+package com.tramchester.unit.caching;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.DataSourceID;
+import com.tramchester.domain.DataSourceInfo;
+import com.tramchester.domain.SearchCancellation;
+import com.tramchester.domain.presentation.DTO.JourneyDTO;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.metrics.CacheMetrics;
+import com.tramchester.repository.ClosedStationsRepository;
+import com.tramchester.repository.DataSourceRepository;
+import com.tramchester.resources.JourneyResultCache;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramStations;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JourneyResultCacheTest extends EasyMockSupport {
+
+    private TramchesterConfig config;
+    private ClosedStationsRepository closedStationsRepository;
+    private DataSourceRepository dataSourceRepository;
+    private AtomicInteger closuresVersion;
+    private AtomicInteger searches;
+    private JourneyResultCache.Key key;
+    private List<JourneyDTO> journeys;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        config = createMock(TramchesterConfig.class);
+        closedStationsRepository = createMock(ClosedStationsRepository.class);
+        dataSourceRepository = createMock(DataSourceRepository.class);
+
+        closuresVersion = new AtomicInteger(1);
+        searches = new AtomicInteger(0);
+
+        DataSourceInfo dataSourceInfo = new DataSourceInfo(DataSourceID.tfgm, "version", LocalDateTime.of(2022, 11, 30, 10, 45),
+                Collections.singleton(TransportMode.Tram));
+
+        EasyMock.expect(closedStationsRepository.getVersion()).andStubAnswer(closuresVersion::get);
+        EasyMock.expect(dataSourceRepository.getDataSourceInfo()).andStubReturn(Collections.singleton(dataSourceInfo));
+        EasyMock.expect(config.getJourneyResultCacheSeconds()).andStubReturn(60L);
+
+        key = JourneyResultCache.keyFor(TramStations.Altrincham.fake(), TramStations.Bury.fake(), TestEnv.testDay(),
+                LocalTime.of(8, 15, 42), false, 3, TramsOnly, 0);
+        journeys = Collections.singletonList(new JourneyDTO());
+    }
+
+    private JourneyResultCache createCache(long size) {
+        EasyMock.expect(config.getJourneyResultCacheSize()).andStubReturn(size);
+
+        replayAll();
+        JourneyResultCache cache = new JourneyResultCache(config, closedStationsRepository, dataSourceRepository,
+                new CacheMetrics(TestEnv.NoopRegisterMetrics()), new ProvidesLocalNow());
+        cache.start();
+        return cache;
+    }
+
+    private List<JourneyDTO> search() {
+        searches.incrementAndGet();
+        return journeys;
+    }
+
+    @Test
+    void shouldSearchOnceForSameKey() {
+        JourneyResultCache cache = createCache(10);
+
+        assertTrue(cache.getIfPresent(key).isEmpty());
+
+        assertEquals(journeys, cache.get(key, SearchCancellation.none(), this::search));
+
+        // same minute
+        JourneyResultCache.Key sameMinute = JourneyResultCache.keyFor(TramStations.Altrincham.fake(), TramStations.Bury.fake(),
+                TestEnv.testDay(), LocalTime.of(8, 15), false, 3, TramsOnly, 0);
+        assertEquals(journeys, cache.get(sameMinute, SearchCancellation.none(), this::search));
+        assertEquals(journeys, cache.getIfPresent(key).orElseThrow());
+
+        assertEquals(1, searches.get());
+        assertEquals(2, cache.stats().get(0).getRight().hitCount());
+        verifyAll();
+    }
+
+    @Test
+    void shouldSearchAgainForDifferentKey() {
+        JourneyResultCache cache = createCache(10);
+
+        JourneyResultCache.Key arriveBy = JourneyResultCache.keyFor(TramStations.Altrincham.fake(), TramStations.Bury.fake(),
+                TestEnv.testDay(), LocalTime.of(8, 15), true, 3, TramsOnly, 0);
+
+        cache.get(key, SearchCancellation.none(), this::search);
+        cache.get(arriveBy, SearchCancellation.none(), this::search);
+
+        assertEquals(2, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldShareSearchInProgress() throws Exception {
+        JourneyResultCache cache = createCache(10);
+
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch finishSearch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<JourneyDTO>> first = executor.submit(() -> cache.get(key, SearchCancellation.none(), () -> {
+                searchStarted.countDown();
+                await(finishSearch);
+                return search();
+            }));
+
+            await(searchStarted);
+            Future<List<JourneyDTO>> second = executor.submit(() -> cache.get(key, SearchCancellation.none(), this::search));
+
+            // still in progress, so not available without waiting
+            assertTrue(cache.getIfPresent(key).isEmpty());
+
+            finishSearch.countDown();
+
+            assertEquals(journeys, first.get(5, TimeUnit.SECONDS));
+            assertEquals(journeys, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldInvalidateWhenClosuresChange() {
+        JourneyResultCache cache = createCache(10);
+
+        cache.get(key, SearchCancellation.none(), this::search);
+        closuresVersion.incrementAndGet();
+
+        assertTrue(cache.getIfPresent(key).isEmpty());
+        cache.get(key, SearchCancellation.none(), this::search);
+
+        assertEquals(2, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldNotKeepResultsOfCancelledSearch() {
+        JourneyResultCache cache = createCache(10);
+
+        SearchCancellation cancellation = SearchCancellation.none();
+        assertEquals(journeys, cache.get(key, cancellation, () -> {
+            cancellation.cancel();
+            return search();
+        }));
+
+        assertTrue(cache.getIfPresent(key).isEmpty());
+        verifyAll();
+    }
+
+    @Test
+    void shouldNotShareResultsOfCancelledSearch() throws Exception {
+        JourneyResultCache cache = createCache(10);
+
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch finishSearch = new CountDownLatch(1);
+        SearchCancellation cancellation = SearchCancellation.none();
+        List<JourneyDTO> partial = Collections.emptyList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<JourneyDTO>> first = executor.submit(() -> cache.get(key, cancellation, () -> {
+                searchStarted.countDown();
+                await(finishSearch);
+                cancellation.cancel();
+                return partial;
+            }));
+
+            await(searchStarted);
+            Future<List<JourneyDTO>> second = executor.submit(() -> cache.get(key, SearchCancellation.none(), this::search));
+            awaitWaiting(cache);
+
+            finishSearch.countDown();
+
+            assertEquals(partial, first.get(5, TimeUnit.SECONDS));
+            assertEquals(journeys, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, searches.get());
+        assertEquals(journeys, cache.getIfPresent(key).orElseThrow());
+        verifyAll();
+    }
+
+    @Test
+    void shouldOnlyWaitForSharedSearchUntilDeadline() throws Exception {
+        JourneyResultCache cache = createCache(10);
+
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch finishSearch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<JourneyDTO>> first = executor.submit(() -> cache.get(key, SearchCancellation.none(), () -> {
+                searchStarted.countDown();
+                await(finishSearch);
+                return search();
+            }));
+
+            await(searchStarted);
+            SearchCancellation waiting = SearchCancellation.withDeadline(Instant.now().plusMillis(100));
+            assertThrows(JourneyResultCache.SearchUnavailableException.class, () -> cache.get(key, waiting, this::search));
+            assertTrue(waiting.isCancelled());
+
+            finishSearch.countDown();
+            assertEquals(journeys, first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldTellWaitingRequestsWhenSearchCouldNotRun() throws Exception {
+        JourneyResultCache cache = createCache(10);
+
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch finishSearch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<JourneyDTO>> first = executor.submit(() -> cache.get(key, SearchCancellation.none(), () -> {
+                searchStarted.countDown();
+                await(finishSearch);
+                throw new JourneyResultCache.SearchUnavailableException("busy");
+            }));
+
+            await(searchStarted);
+            Future<List<JourneyDTO>> second = executor.submit(() -> cache.get(key, SearchCancellation.none(), this::search));
+            awaitWaiting(cache);
+
+            finishSearch.countDown();
+
+            ExecutionException firstFailed = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertTrue(firstFailed.getCause() instanceof JourneyResultCache.SearchUnavailableException);
+            ExecutionException secondFailed = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertTrue(secondFailed.getCause() instanceof JourneyResultCache.SearchUnavailableException);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldNotLeaveWaitingRequestsWhenSearchFailsWithError() throws Exception {
+        JourneyResultCache cache = createCache(10);
+
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch finishSearch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<JourneyDTO>> first = executor.submit(() -> cache.get(key, SearchCancellation.none(), () -> {
+                searchStarted.countDown();
+                await(finishSearch);
+                throw new StackOverflowError("failed");
+            }));
+
+            await(searchStarted);
+            Future<List<JourneyDTO>> second = executor.submit(() -> cache.get(key, SearchCancellation.none(), this::search));
+            awaitWaiting(cache);
+
+            finishSearch.countDown();
+
+            ExecutionException firstFailed = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertTrue(firstFailed.getCause() instanceof StackOverflowError);
+            ExecutionException secondFailed = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertTrue(secondFailed.getCause() instanceof RuntimeException);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldNotKeepFailedSearch() {
+        JourneyResultCache cache = createCache(10);
+
+        assertThrows(RuntimeException.class, () -> cache.get(key, SearchCancellation.none(), () -> {
+            throw new RuntimeException("failed");
+        }));
+
+        assertEquals(journeys, cache.get(key, SearchCancellation.none(), this::search));
+        assertEquals(1, searches.get());
+        verifyAll();
+    }
+
+    @Test
+    void shouldAlwaysSearchWhenDisabled() {
+        JourneyResultCache cache = createCache(0);
+
+        assertFalse(cache.isEnabled());
+        cache.get(key, SearchCancellation.none(), this::search);
+        cache.get(key, SearchCancellation.none(), this::search);
+
+        assertTrue(cache.getIfPresent(key).isEmpty());
+        assertEquals(2, searches.get());
+        verifyAll();
+    }
+
+    private static void awaitWaiting(JourneyResultCache cache) throws InterruptedException {
+        // second request has found the search in progress
+        int attempts = 0;
+        while (cache.stats().get(0).getRight().hitCount() == 0) {
+            if (attempts++ > 500) {
+                throw new RuntimeException("Timed out waiting");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new RuntimeException("Timed out waiting");
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
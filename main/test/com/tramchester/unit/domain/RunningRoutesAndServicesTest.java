@@ -1,10 +1,12 @@
 package com.tramchester.unit.domain;
 
+import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.dates.TramDate;
 import com.tramchester.domain.id.IdFor;
 import com.tramchester.domain.id.StringIdFor;
+import com.tramchester.domain.time.ProvidesNow;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.repository.RouteRepository;
 import com.tramchester.repository.RunningRoutesAndServices;
@@ -47,10 +49,16 @@ public class RunningRoutesAndServicesTest extends EasyMockSupport {
         EasyMock.expect(serviceA.getId()).andStubReturn(Service.createId("serviceAId"));
         EasyMock.expect(serviceB.getId()).andStubReturn(Service.createId("serviceBId"));
 
-        runningRoutesAndServices = new RunningRoutesAndServices(serviceRepository, routeRepository);
+        ProvidesNow providesNow = createMock(ProvidesNow.class);
+        TramchesterConfig config = createMock(TramchesterConfig.class);
+
+        runningRoutesAndServices = new RunningRoutesAndServices(serviceRepository, routeRepository, providesNow, config);
 
         routeA = TestEnv.getTramTestRoute(Route.createId("routeAId"), "route name a");
         routeB = TestEnv.getTramTestRoute(Route.createId("routeBId"), "route name b");
+
+        EasyMock.expect(serviceRepository.getServices()).andStubReturn(new HashSet<>(Arrays.asList(serviceA, serviceB)));
+        EasyMock.expect(routeRepository.getRoutes()).andStubReturn(new HashSet<>(Arrays.asList(routeA, routeB)));
     }
 
     @Test
@@ -0,0 +1,51 @@
+package com.tramchester.unit.domain.id;
+
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdIndex;
+import com.tramchester.domain.id.IndexedIdSet;
+import com.tramchester.domain.places.Station;
+import com.tramchester.testSupport.reference.TramStations;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdIndexTest {
+
+    private final IdIndex<Station> index = IdIndex.of(List.of(TramStations.Altrincham.fake(), TramStations.Bury.fake(),
+            TramStations.Cornbrook.fake()));
+
+    @Test
+    void shouldHaveDenseIndexForLoadedIdsOnly() {
+        assertEquals(3, index.size());
+
+        int altrincham = index.indexOf(TramStations.Altrincham.getId());
+        assertTrue(altrincham >= 0 && altrincham < 3);
+        assertEquals(TramStations.Altrincham.getId(), index.get(altrincham).getId());
+        assertNotEquals(altrincham, index.indexOf(TramStations.Bury.getId()));
+
+        // e.g. from a request, not loaded
+        assertEquals(IdIndex.NOT_INDEXED, index.indexOf(Station.createId("notLoaded")));
+    }
+
+    @Test
+    void shouldHoldIndexedAndOtherIdsInSet() {
+        IdFor<Station> notLoaded = Station.createId("notLoaded");
+
+        IndexedIdSet<Station> set = index.setOf(Stream.of(TramStations.Bury.getId(), notLoaded));
+
+        assertTrue(set.contains(TramStations.Bury.getId()));
+        assertTrue(set.contains(notLoaded));
+        assertFalse(set.contains(TramStations.Altrincham.getId()));
+        assertFalse(set.contains(Station.createId("other")));
+
+        assertEquals(2, set.size());
+        assertEquals(List.of(TramStations.Bury.getId(), notLoaded).stream().collect(Collectors.toSet()),
+                set.stream().collect(Collectors.toSet()));
+
+        assertTrue(index.createSet().isEmpty());
+    }
+}
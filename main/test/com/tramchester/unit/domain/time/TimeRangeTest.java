@@ -47,6 +47,30 @@ public class TimeRangeTest {
 
     }
 
+    @Test
+    void shouldRoundOutwardsToBuckets() {
+        TimeRange range = TimeRange.of(TramTime.of(10,31), TramTime.of(11,56));
+
+        TimeRange rounded = range.roundOutwards(15);
+
+        assertEquals(TramTime.of(10,30), rounded.getBegin());
+        assertEquals(TramTime.of(12,0), rounded.getEnd());
+
+        TimeRange alreadyOnBucket = TimeRange.of(TramTime.of(10,45), TramTime.of(11,0)).roundOutwards(15);
+        assertEquals(TramTime.of(10,45), alreadyOnBucket.getBegin());
+        assertEquals(TramTime.of(11,0), alreadyOnBucket.getEnd());
+    }
+
+    @Test
+    void shouldRoundOutwardsOverMidnight() {
+        TimeRange range = TimeRange.of(TramTime.of(23,55), Duration.ZERO, Duration.ofMinutes(7));
+
+        TimeRange rounded = range.roundOutwards(15);
+
+        assertEquals(TramTime.of(23,45), rounded.getBegin());
+        assertEquals(TramTime.nextDay(0,15), rounded.getEnd());
+    }
+
     @Test
     void shouldBehaveOverMidnightBasic() {
         TramTime time = TramTime.of(23,55);
@@ -0,0 +1,79 @@
+package com.tramchester.unit.geo;
+
+import com.tramchester.geo.CoordinateTransforms;
+import org.geotools.geometry.GeneralDirectPosition;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.referencing.operation.DefaultCoordinateOperationFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.RepeatedTest;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import java.util.Random;
+
+import static com.tramchester.mappers.Geography.AUTHORITY;
+import static com.tramchester.mappers.Geography.getLatLongCode;
+
+/***
+ * Compare the geotools math transform, as previously used by CoordinateTransforms, with the closed form conversion
+ */
+@Disabled("Performance Testing Only")
+public class CoordinateTransformsPerfTest {
+
+    private static final int NUMBER_OF_POSITIONS = 1000000;
+
+    private MathTransform latLongToGrid;
+    private double[] latLongs;
+
+    @BeforeEach
+    void setUp() throws FactoryException {
+        CRSAuthorityFactory authorityFactory = ReferencingFactoryFinder.getCRSAuthorityFactory(AUTHORITY, null);
+        latLongToGrid = new DefaultCoordinateOperationFactory().createOperation(
+                authorityFactory.createCoordinateReferenceSystem(getLatLongCode()),
+                authorityFactory.createCoordinateReferenceSystem("27700")).getMathTransform();
+
+        Random random = new Random(42);
+        latLongs = new double[NUMBER_OF_POSITIONS * 2];
+        for (int i = 0; i < NUMBER_OF_POSITIONS; i++) {
+            latLongs[i * 2] = 50 + (random.nextDouble() * 8);
+            latLongs[(i * 2) + 1] = -5 + (random.nextDouble() * 6);
+        }
+    }
+
+    @RepeatedTest(5)
+    void shouldMeasureGeotools() throws TransformException {
+        long begin = System.currentTimeMillis();
+        double total = 0;
+
+        for (int i = 0; i < NUMBER_OF_POSITIONS; i++) {
+            DirectPosition latLong = new GeneralDirectPosition(latLongs[i * 2], latLongs[(i * 2) + 1]);
+            DirectPosition grid = latLongToGrid.transform(latLong, null);
+            total = total + grid.getOrdinate(0);
+        }
+
+        report("Geotools", total, begin);
+    }
+
+    @RepeatedTest(5)
+    void shouldMeasureInPlace() {
+        long begin = System.currentTimeMillis();
+        double total = 0;
+
+        double[] values = latLongs.clone();
+        CoordinateTransforms.toGridInPlace(values);
+        for (int i = 0; i < NUMBER_OF_POSITIONS; i++) {
+            total = total + values[i * 2];
+        }
+
+        report("In place", total, begin);
+    }
+
+    private void report(String name, double total, long begin) {
+        long duration = System.currentTimeMillis() - begin;
+        System.out.printf("%s converted %s positions (total %s) in %s ms%n", name, NUMBER_OF_POSITIONS, total, duration);
+    }
+}
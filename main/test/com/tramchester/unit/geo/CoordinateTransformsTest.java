@@ -3,9 +3,19 @@ package com.tramchester.unit.geo;
 import com.tramchester.domain.presentation.LatLong;
 import com.tramchester.geo.CoordinateTransforms;
 import com.tramchester.geo.GridPosition;
+import com.tramchester.mappers.Geography;
+import org.geotools.geometry.GeneralDirectPosition;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.referencing.operation.DefaultCoordinateOperationFactory;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 
+import static com.tramchester.mappers.Geography.AUTHORITY;
 import static com.tramchester.testSupport.reference.KnownLocations.nearWythenshaweHosp;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,8 +50,10 @@ class CoordinateTransformsTest {
 
         double lat = 52.94018971498456;
         double lon = -1.496557148808237;
-        assertEquals(lat, result.getLat(), 0.00000000001);
-        assertEquals(lon, result.getLon(), 0.00000000001);
+        // expected values from geotools, the OS series used gives lat within ~4.5e-8 and lon within ~1e-8 degrees
+        // of those, 0.0000001 is approx 1cm
+        assertEquals(lat, result.getLat(), 0.0000001);
+        assertEquals(lon, result.getLon(), 0.0000001);
         assertTrue(result.isValid());
     }
 
@@ -81,4 +93,60 @@ class CoordinateTransformsTest {
         assertEquals(436036, grid.getEastings());
         assertEquals(335549, grid.getNorthings());
     }
+
+    @Test
+    void shouldMatchGeotoolsAcrossGreatBritain() throws FactoryException, TransformException {
+        CRSAuthorityFactory authorityFactory = ReferencingFactoryFinder.getCRSAuthorityFactory(AUTHORITY, null);
+        MathTransform latLongToGrid = new DefaultCoordinateOperationFactory().createOperation(
+                authorityFactory.createCoordinateReferenceSystem(Geography.getLatLongCode()),
+                authorityFactory.createCoordinateReferenceSystem("27700")).getMathTransform();
+        MathTransform gridToLatLong = latLongToGrid.inverse();
+
+        for (double lat = 50.0; lat <= 58.5; lat = lat + 0.25) {
+            for (double lon = -5.5; lon <= 1.5; lon = lon + 0.25) {
+                double[] values = new double[]{lat, lon};
+                CoordinateTransforms.toGridInPlace(values);
+
+                DirectPosition expectedGrid = latLongToGrid.transform(new GeneralDirectPosition(lat, lon), null);
+                String message = lat + "," + lon;
+                assertEquals(expectedGrid.getOrdinate(0), values[0], 0.5, message);
+                assertEquals(expectedGrid.getOrdinate(1), values[1], 0.5, message);
+
+                CoordinateTransforms.toLatLongInPlace(values);
+
+                DirectPosition expectedLatLong = gridToLatLong.transform(expectedGrid, null);
+                assertEquals(expectedLatLong.getOrdinate(0), values[0], 0.000005, message);
+                assertEquals(expectedLatLong.getOrdinate(1), values[1], 0.000005, message);
+            }
+        }
+    }
+
+    @Test
+    void shouldConvertInPlaceSameAsSingle() {
+        LatLong derby = new LatLong(52.9161645,-1.4655347);
+        LatLong wythenshawe = nearWythenshaweHosp.latLong();
+
+        double[] values = new double[]{derby.getLat(), derby.getLon(), wythenshawe.getLat(), wythenshawe.getLon()};
+        CoordinateTransforms.toGridInPlace(values);
+
+        GridPosition derbyGrid = CoordinateTransforms.getGridPosition(derby);
+        GridPosition wythenshaweGrid = CoordinateTransforms.getGridPosition(wythenshawe);
+
+        assertEquals(derbyGrid.getEastings(), Math.round(values[0]));
+        assertEquals(derbyGrid.getNorthings(), Math.round(values[1]));
+        assertEquals(wythenshaweGrid.getEastings(), Math.round(values[2]));
+        assertEquals(wythenshaweGrid.getNorthings(), Math.round(values[3]));
+
+        CoordinateTransforms.toLatLongInPlace(values);
+
+        assertEquals(derby.getLat(), values[0], 0.00001);
+        assertEquals(derby.getLon(), values[1], 0.00001);
+        assertEquals(wythenshawe.getLat(), values[2], 0.00001);
+        assertEquals(wythenshawe.getLon(), values[3], 0.00001);
+    }
+
+    @Test
+    void shouldRejectUnpairedValues() {
+        assertThrows(RuntimeException.class, () -> CoordinateTransforms.toGridInPlace(new double[3]));
+    }
 }
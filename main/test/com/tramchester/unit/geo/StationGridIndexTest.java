@@ -0,0 +1,116 @@
+package com.tramchester.unit.geo;
+
+import com.tramchester.domain.DataSourceID;
+import com.tramchester.domain.places.MutableStation;
+import com.tramchester.domain.places.NaptanArea;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.geo.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationGridIndexTest {
+
+    private List<Station> stations;
+    private StationGridIndex index;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        Random random = new Random(42);
+        stations = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            GridPosition position = new GridPosition(380000 + random.nextInt(20000), 390000 + random.nextInt(30000));
+            stations.add(createStation("gridIndexTest" + i, position));
+        }
+        stations.add(createStation("gridIndexTestInvalid", GridPosition.Invalid));
+
+        index = StationGridIndex.create(stations);
+    }
+
+    @Test
+    void shouldIgnoreInvalidPositions() {
+        assertEquals(2000, index.size());
+    }
+
+    @Test
+    void shouldMatchBruteForceForWithin() {
+        MarginInMeters margin = MarginInMeters.of(1500);
+
+        for (GridPosition position : queryPositions()) {
+            Set<Station> expected = validStations().
+                    filter(station -> GridPositions.withinDist(position, station.getGridPosition(), margin)).
+                    collect(Collectors.toSet());
+
+            assertEquals(expected, new HashSet<>(index.within(position, margin)), position.toString());
+            assertEquals(!expected.isEmpty(), index.anyWithin(position, margin), position.toString());
+        }
+    }
+
+    @Test
+    void shouldMatchBruteForceForNearest() {
+        MarginInMeters margin = MarginInMeters.of(5000);
+
+        for (GridPosition position : queryPositions()) {
+            List<Long> expected = validStations().
+                    map(station -> squaredDistance(position, station.getGridPosition())).
+                    filter(distance -> distance <= margin.get() * margin.get()).
+                    sorted().
+                    limit(7).
+                    collect(Collectors.toList());
+
+            List<Long> result = index.nearest(position, 7, margin).stream().
+                    map(station -> squaredDistance(position, station.getGridPosition())).
+                    collect(Collectors.toList());
+
+            assertEquals(expected, result, position.toString());
+        }
+    }
+
+    @Test
+    void shouldFindStationsInBox() {
+        BoundingBox box = new BoundingBox(385000, 395000, 388000, 401000);
+
+        Set<Station> expected = validStations().filter(box::contained).collect(Collectors.toSet());
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, index.containedIn(box));
+    }
+
+    @Test
+    void shouldHandleEmpty() {
+        StationGridIndex empty = StationGridIndex.create(Collections.emptyList());
+
+        GridPosition position = new GridPosition(380000, 390000);
+        assertTrue(empty.within(position, MarginInMeters.of(1000)).isEmpty());
+        assertFalse(empty.anyWithin(position, MarginInMeters.of(1000)));
+        assertTrue(empty.nearest(position, 3, MarginInMeters.of(1000)).isEmpty());
+    }
+
+    private List<GridPosition> queryPositions() {
+        // inside, on the edge and well outside of the indexed area
+        return Arrays.asList(new GridPosition(390000, 405000), new GridPosition(380000, 390000),
+                new GridPosition(399999, 419999), new GridPosition(377000, 404000), new GridPosition(350000, 350000));
+    }
+
+    private Stream<Station> validStations() {
+        return stations.stream().filter(station -> station.getGridPosition().isValid());
+    }
+
+    private static long squaredDistance(GridPosition a, GridPosition b) {
+        long east = a.getEastings() - b.getEastings();
+        long north = a.getNorthings() - b.getNorthings();
+        return (east * east) + (north * north);
+    }
+
+    private static Station createStation(String id, GridPosition position) {
+        return new MutableStation(Station.createId(id), NaptanArea.createId("area"), id,
+                position.isValid() ? CoordinateTransforms.getLatLong(position) : LatLong.Invalid,
+                position, DataSourceID.tfgm);
+    }
+}
@@ -1,6 +1,8 @@
 package com.tramchester.unit.geo;
 
 import com.tramchester.domain.DataSourceID;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.places.MutableStation;
 import com.tramchester.domain.places.MyLocation;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
@@ -9,6 +11,7 @@ import com.tramchester.mappers.Geography;
 import com.tramchester.repository.PlatformRepository;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.repository.naptan.NaptanRepository;
+import com.tramchester.testSupport.TestEnv;
 import com.tramchester.testSupport.reference.KnownLocations;
 import com.tramchester.testSupport.reference.StationHelper;
 import org.easymock.EasyMock;
@@ -65,7 +68,9 @@ class StationLocationsTest extends EasyMockSupport {
 
     @NotNull
     private Station createTestStation(String id, String name, KnownLocations location) {
-        return StationHelper.forTest(id, "area", name, location.latLong(), DataSourceID.tfgm);
+        MutableStation station = StationHelper.forTestMutable(id, "area", name, location.latLong(), DataSourceID.tfgm);
+        station.addRoutePickUp(TestEnv.getTramTestRoute());
+        return station;
     }
 
     @Test
@@ -80,11 +85,6 @@ class StationLocationsTest extends EasyMockSupport {
 
         MarginInMeters margin = MarginInMeters.of(1600);
 
-        EasyMock.expect(geography.getNearToUnsorted(EasyMock.isA(Geography.LocationsSource.class), EasyMock.eq(nearAltrincham.grid()),
-                EasyMock.eq(margin))).andReturn(Stream.of(stationA));
-        EasyMock.expect(geography.getNearToUnsorted(EasyMock.isA(Geography.LocationsSource.class), EasyMock.eq(nearShudehill.grid()),
-                EasyMock.eq(margin))).andReturn(Stream.of(stationA));
-
         replayAll();
         stationLocations.start();
         assertTrue(stationLocations.anyStationsWithinRangeOf(nearAltrincham.location(), margin));
@@ -103,11 +103,12 @@ class StationLocationsTest extends EasyMockSupport {
         MyLocation location = nearAltrincham.location();
         final MarginInMeters rangeInMeters = MarginInMeters.of(20000);
 
-        EasyMock.expect(geography.getNearToSorted(EasyMock.isA(Geography.LocationsSource.class), EasyMock.eq(location.getGridPosition()),
-                        EasyMock.eq(rangeInMeters))).
-                andReturn(Stream.of(stationA, stationB, stationC));
+        EasyMock.expect(naptanRespository.isEnabled()).andReturn(false);
+        EasyMock.expect(stationRepository.getActiveStationStream()).andStubAnswer(() ->
+                Stream.of(stationC, stationB, stationA));
 
         replayAll();
+        stationLocations.start();
         List<Station> results = stationLocations.nearestStationsSorted(location, 1, rangeInMeters, modes);
         verifyAll();
 
@@ -124,11 +125,12 @@ class StationLocationsTest extends EasyMockSupport {
         MyLocation location = nearAltrincham.location();
         final MarginInMeters rangeInMeters = MarginInMeters.of(20000);
 
-        EasyMock.expect(geography.getNearToSorted(EasyMock.isA(Geography.LocationsSource.class), EasyMock.eq(location.getGridPosition()),
-                        EasyMock.eq(rangeInMeters))).
-                andReturn(Stream.of(stationA, stationB, stationC));
+        EasyMock.expect(naptanRespository.isEnabled()).andReturn(false);
+        EasyMock.expect(stationRepository.getActiveStationStream()).andStubAnswer(() ->
+                Stream.of(stationC, stationB, stationA));
 
         replayAll();
+        stationLocations.start();
         List<Station> results = stationLocations.nearestStationsSorted(location, 3, rangeInMeters, modes);
         verifyAll();
 
@@ -138,6 +140,32 @@ class StationLocationsTest extends EasyMockSupport {
         assertEquals(stationC, results.get(2));
     }
 
+    @Test
+    void shouldFilterNearestByMode() {
+        Station tramStation = createTestStation("id123", "nameA", nearAltrincham);
+        MutableStation trainStation = StationHelper.forTestMutable("id456", "area", "nameB", nearPiccGardens.latLong(), DataSourceID.tfgm);
+        trainStation.addRoutePickUp(TestEnv.getTrainTestRoute(Route.createId("trainRoute"), "train route"));
+
+        MyLocation location = nearAltrincham.location();
+        final MarginInMeters rangeInMeters = MarginInMeters.of(20000);
+
+        EasyMock.expect(naptanRespository.isEnabled()).andReturn(false);
+        EasyMock.expect(stationRepository.getActiveStationStream()).andStubAnswer(() -> Stream.of(tramStation, trainStation));
+
+        replayAll();
+        stationLocations.start();
+        List<Station> trams = stationLocations.nearestStationsSorted(location, 3, rangeInMeters, EnumSet.of(TransportMode.Tram));
+        List<Station> trains = stationLocations.nearestStationsSorted(location, 3, rangeInMeters, EnumSet.of(TransportMode.Train));
+        List<Station> both = stationLocations.nearestStationsSorted(location, 3, rangeInMeters, EnumSet.of(TransportMode.Tram, TransportMode.Train));
+        List<Station> outOfRange = stationLocations.nearestStationsSorted(location, 3, MarginInMeters.of(500), EnumSet.of(TransportMode.Train));
+        verifyAll();
+
+        assertEquals(Collections.singletonList(tramStation), trams);
+        assertEquals(Collections.singletonList(trainStation), trains);
+        assertEquals(Arrays.asList(tramStation, trainStation), both);
+        assertTrue(outOfRange.isEmpty());
+    }
+
     @Test
     void shouldCaptureBoundingAreaForStations() {
         Station testStationA = createTestStation("id123", "name", nearAltrincham);
@@ -5,11 +5,13 @@ import com.tramchester.domain.LocationSet;
 import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.id.IdFor;
-import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.id.IdIndex;
+import com.tramchester.domain.id.IndexedIdSet;
 import com.tramchester.domain.id.StringIdFor;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.reference.TransportMode;
 import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.caches.LandmarkLowerBounds;
 import com.tramchester.graph.search.JourneyConstraints;
 import com.tramchester.graph.search.LowestCostsForDestRoutes;
 import com.tramchester.repository.RunningRoutesAndServices;
@@ -42,7 +44,8 @@ public class JourneyConstraintsTest extends EasyMockSupport {
     void beforeEachTestRuns() {
         config = new TestConfigWithTramMode();
 
-        IdSet<Station> closedStations = IdSet.singleton(TramStations.Cornbrook.getId());
+        IndexedIdSet<Station> closedStations = IdIndex.of(Set.of(TramStations.Cornbrook.fake(), TramStations.Anchorage.fake())).
+                createSet().add(TramStations.Cornbrook.getId());
 
         lowestCostForDest = createMock(LowestCostsForDestRoutes.class);
         filterForDate = createMock(RunningRoutesAndServices.FilterForDate.class);
@@ -51,7 +54,7 @@ public class JourneyConstraintsTest extends EasyMockSupport {
 
         final Duration maxJourneyDuration = Duration.ofMinutes(config.getMaxJourneyDuration());
         journeyConstraints = new JourneyConstraints(config, filterForDate,
-                closedStations, endStations, lowestCostForDest, maxJourneyDuration);
+                closedStations, endStations, lowestCostForDest, LandmarkLowerBounds.ForDestinations.none(), maxJourneyDuration);
     }
 
     @Test
@@ -0,0 +1,97 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.search.JourneySearchAdmission;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JourneySearchAdmissionTest extends EasyMockSupport {
+
+    private TramchesterConfig config;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        config = createMock(TramchesterConfig.class);
+    }
+
+    private JourneySearchAdmission createAdmission(int maxConcurrent, int maxQueued, long maxQueueMillis) {
+        EasyMock.expect(config.getJourneyMaxConcurrentSearches()).andStubReturn(maxConcurrent);
+        EasyMock.expect(config.getJourneyMaxQueuedSearches()).andStubReturn(maxQueued);
+        EasyMock.expect(config.getJourneyMaxQueueMillis()).andStubReturn(maxQueueMillis);
+
+        replayAll();
+        JourneySearchAdmission admission = new JourneySearchAdmission(config);
+        verifyAll();
+        return admission;
+    }
+
+    @Test
+    void shouldAlwaysAdmitWhenNoLimit() {
+        JourneySearchAdmission admission = createAdmission(0, 0, 10);
+
+        assertFalse(admission.isEnabled());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(admission.tryAdmit().isPresent());
+        }
+        assertEquals(0, admission.getNumberRejected());
+    }
+
+    @Test
+    void shouldRejectWhenQueueFull() {
+        JourneySearchAdmission admission = createAdmission(2, 0, 10);
+
+        Optional<JourneySearchAdmission.Permit> first = admission.tryAdmit();
+        Optional<JourneySearchAdmission.Permit> second = admission.tryAdmit();
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertEquals(2, admission.getNumberRunning());
+
+        assertTrue(admission.tryAdmit().isEmpty());
+        assertEquals(1, admission.getNumberRejected());
+
+        first.get().close();
+        assertEquals(1, admission.getNumberRunning());
+        assertTrue(admission.tryAdmit().isPresent());
+    }
+
+    @Test
+    void shouldRejectOnceWaitedLongEnough() {
+        JourneySearchAdmission admission = createAdmission(1, 5, 20);
+
+        Optional<JourneySearchAdmission.Permit> first = admission.tryAdmit();
+        assertTrue(first.isPresent());
+
+        long begin = System.nanoTime();
+        assertTrue(admission.tryAdmit().isEmpty());
+        assertTrue(Duration.ofNanos(System.nanoTime() - begin).toMillis() >= 20);
+
+        assertEquals(1, admission.getNumberRejected());
+        assertEquals(0, admission.getNumberQueued());
+    }
+
+    @Test
+    void shouldOnlyReleaseOnce() {
+        JourneySearchAdmission admission = createAdmission(1, 0, 10);
+
+        JourneySearchAdmission.Permit permit = admission.tryAdmit().orElseThrow();
+        permit.close();
+        permit.close();
+
+        assertEquals(0, admission.getNumberRunning());
+        JourneySearchAdmission.Permit again = admission.tryAdmit().orElseThrow();
+        assertTrue(admission.tryAdmit().isEmpty());
+        again.close();
+    }
+
+    @Test
+    void shouldHaveRetryAfterOfAtLeastOneSecond() {
+        assertEquals(Duration.ofSeconds(1), createAdmission(1, 0, 10).getRetryAfter());
+    }
+}
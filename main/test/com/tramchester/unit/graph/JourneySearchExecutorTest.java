@@ -0,0 +1,87 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.search.JourneySearchExecutor;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JourneySearchExecutorTest extends EasyMockSupport {
+
+    private JourneySearchExecutor executor;
+    private CountDownLatch finish;
+    private CountDownLatch running;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        TramchesterConfig config = createMock(TramchesterConfig.class);
+        EasyMock.expect(config.getJourneySearchThreads()).andStubReturn(2);
+
+        replayAll();
+        executor = new JourneySearchExecutor(config);
+        executor.start();
+        finish = new CountDownLatch(1);
+        running = new CountDownLatch(2);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        finish.countDown();
+        executor.stop();
+        verifyAll();
+    }
+
+    private Optional<Future<Integer>> submitBlocked(long waitMillis) {
+        return executor.trySubmit(() -> {
+            running.countDown();
+            finish.await(5, TimeUnit.SECONDS);
+            return 42;
+        }, waitMillis);
+    }
+
+    @Test
+    void shouldBoundSearchesInFlight() throws Exception {
+        Optional<Future<Integer>> first = submitBlocked(0);
+        Optional<Future<Integer>> second = submitBlocked(0);
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertEquals(2, executor.getNumberInFlight());
+
+        assertTrue(submitBlocked(10).isEmpty());
+
+        finish.countDown();
+        assertEquals(42, first.get().get(5, TimeUnit.SECONDS));
+        assertEquals(42, second.get().get(5, TimeUnit.SECONDS));
+
+        // slots are released just after the results are available
+        assertTrue(executor.trySubmit(() -> 7, 1000).isPresent());
+    }
+
+    @Test
+    void shouldHoldSlotUntilCancelledSearchStopsRunning() throws InterruptedException {
+        Optional<Future<Integer>> first = submitBlocked(0);
+        Optional<Future<Integer>> second = submitBlocked(0);
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        second.get().cancel(false);
+
+        // still running on a worker
+        assertEquals(2, executor.getNumberInFlight());
+        assertTrue(submitBlocked(10).isEmpty());
+
+        finish.countDown();
+        assertTrue(executor.trySubmit(() -> 7, 1000).isPresent());
+    }
+}
@@ -215,6 +215,41 @@ class JourneyStateTest extends EasyMockSupport {
         assertTrue(state.alreadyDeparted(tripId2));
     }
 
+    @Test
+    void shouldNotShareTripsDoneBetweenBranches() throws TramchesterException {
+        JourneyState state = new JourneyState(queryTime, traversalState);
+        IdFor<Trip> tripId1 = MutableTrip.createId("trip1");
+        IdFor<Trip> tripId2 = MutableTrip.createId("trip2");
+        IdFor<Trip> tripId3 = MutableTrip.createId("trip3");
+
+        state.board(TransportMode.Tram, node, true);
+        state.recordTime(TramTime.of(9,30),Duration.ofMinutes(10));
+        state.leave(tripId1, TransportMode.Tram, Duration.ofMinutes(25), node);
+
+        JourneyState branchA = JourneyState.fromPrevious(state);
+        JourneyState branchB = JourneyState.fromPrevious(state);
+
+        branchA.board(TransportMode.Tram, node, true);
+        branchA.recordTime(TramTime.of(9,50),Duration.ofMinutes(25));
+        branchA.leave(tripId2, TransportMode.Tram, Duration.ofMinutes(35), node);
+
+        branchB.board(TransportMode.Tram, node, true);
+        branchB.recordTime(TramTime.of(9,50),Duration.ofMinutes(25));
+        branchB.leave(tripId3, TransportMode.Tram, Duration.ofMinutes(35), node);
+
+        assertTrue(state.alreadyDeparted(tripId1));
+        assertFalse(state.alreadyDeparted(tripId2));
+        assertFalse(state.alreadyDeparted(tripId3));
+
+        assertTrue(branchA.alreadyDeparted(tripId1));
+        assertTrue(branchA.alreadyDeparted(tripId2));
+        assertFalse(branchA.alreadyDeparted(tripId3));
+
+        assertTrue(branchB.alreadyDeparted(tripId1));
+        assertFalse(branchB.alreadyDeparted(tripId2));
+        assertTrue(branchB.alreadyDeparted(tripId3));
+    }
+
     @Test
     void shouldCreateNewState() throws TramchesterException {
         JourneyState journeyState = new JourneyState(TramTime.of(7,55), traversalState);
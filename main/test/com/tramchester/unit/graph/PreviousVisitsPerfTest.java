@@ -0,0 +1,84 @@
+package com.tramchester.unit.graph;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tramchester.graph.caches.LongToIntMap;
+import com.tramchester.graph.search.diagnostics.ReasonCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * Compare primitive map used by PreviousVisits with the caffeine caches it replaced, using a synthetic trace
+ * of lookups and inserts for node ids with a similar hit rate to a traversal
+ */
+@Disabled("Performance Testing Only")
+public class PreviousVisitsPerfTest {
+
+    private static final int NUMBER_OF_NODES = 100000;
+    private static final int TRACE_LENGTH = 2000000;
+    private static final int QUERIES = 20;
+
+    private long[] trace;
+    private boolean[] isPut;
+
+    @BeforeEach
+    void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        trace = new long[TRACE_LENGTH];
+        isPut = new boolean[TRACE_LENGTH];
+
+        // traversals revisit a relatively small set of nodes often
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            trace[i] = random.nextInt(10) < 8 ? random.nextInt(NUMBER_OF_NODES / 10) : random.nextInt(NUMBER_OF_NODES);
+            isPut[i] = random.nextInt(10) == 0;
+        }
+    }
+
+    @RepeatedTest(5)
+    void shouldExercisePrimitiveMap() {
+        final int code = ReasonCode.NotAtHour.ordinal();
+        long begin = System.currentTimeMillis();
+        long found = 0;
+
+        LongToIntMap map = new LongToIntMap(NUMBER_OF_NODES, -1);
+        for (int query = 0; query < QUERIES; query++) {
+            map.clear();
+            for (int i = 0; i < TRACE_LENGTH; i++) {
+                if (isPut[i]) {
+                    map.put(trace[i], code);
+                } else if (map.get(trace[i]) != -1) {
+                    found++;
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - begin;
+        System.out.printf("Primitive found %s took %s%n", found, duration);
+    }
+
+    @RepeatedTest(5)
+    void shouldExerciseCaffeineCache() {
+        long begin = System.currentTimeMillis();
+        long found = 0;
+
+        for (int query = 0; query < QUERIES; query++) {
+            // was created per query
+            Cache<Long, ReasonCode> cache = Caffeine.newBuilder().maximumSize(NUMBER_OF_NODES).
+                    expireAfterAccess(5, TimeUnit.MINUTES).recordStats().build();
+            for (int i = 0; i < TRACE_LENGTH; i++) {
+                if (isPut[i]) {
+                    cache.put(trace[i], ReasonCode.NotAtHour);
+                } else if (cache.getIfPresent(trace[i]) != null) {
+                    found++;
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - begin;
+        System.out.printf("Caffeine found %s took %s%n", found, duration);
+    }
+}
@@ -0,0 +1,61 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.graph.NumberOfNodesAndRelationshipsRepository;
+import com.tramchester.graph.caches.PreviousVisits;
+import com.tramchester.graph.caches.PreviousVisitsPool;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviousVisitsPoolTest extends EasyMockSupport {
+
+    private PreviousVisitsPool pool;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        NumberOfNodesAndRelationshipsRepository numberOfNodes = createMock(NumberOfNodesAndRelationshipsRepository.class);
+
+        EasyMock.expect(numberOfNodes.numberOf(EasyMock.anyObject(GraphLabel.class))).andStubReturn(1_000_000L);
+
+        replayAll();
+        pool = new PreviousVisitsPool(numberOfNodes);
+        pool.start();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        pool.stop();
+        verifyAll();
+    }
+
+    @Test
+    void shouldReuseReleased() {
+        PreviousVisits first = pool.acquire();
+        pool.release(first);
+
+        assertSame(first, pool.acquire());
+        assertEquals(1, pool.getNumberCreated());
+    }
+
+    @Test
+    void shouldNeverWaitButOnlyKeepBoundedNumber() {
+        List<PreviousVisits> inUse = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            inUse.add(pool.acquire());
+        }
+        assertEquals(100, pool.getNumberCreated());
+
+        inUse.forEach(pool::release);
+
+        assertTrue(pool.getNumberAvailable() < 100);
+        assertTrue(pool.getNumberAvailable() > 0);
+    }
+}
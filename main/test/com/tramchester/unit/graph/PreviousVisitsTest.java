@@ -0,0 +1,151 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.caches.LongToIntMap;
+import com.tramchester.graph.caches.PreviousVisits;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.search.ImmutableJourneyState;
+import com.tramchester.graph.search.diagnostics.ReasonCode;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Node;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviousVisitsTest extends EasyMockSupport {
+
+    private PreviousVisits previousVisits;
+    private Node node;
+    private ImmutableJourneyState journeyState;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        previousVisits = new PreviousVisits(10, 10, 10, 10);
+        node = createMock(Node.class);
+        journeyState = createMock(ImmutableJourneyState.class);
+
+        EasyMock.expect(node.getId()).andStubReturn(42L);
+    }
+
+    @Test
+    void shouldPutAndGetFromMap() {
+        LongToIntMap map = new LongToIntMap(4, -1);
+
+        assertEquals(-1, map.get(42L));
+        assertFalse(map.containsKey(42L));
+
+        map.put(42L, 7);
+        map.put(0L, 3);
+        map.put(42L, 9);
+
+        assertEquals(9, map.get(42L));
+        assertEquals(3, map.get(0L));
+        assertTrue(map.containsKey(0L));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(42L));
+    }
+
+    @Test
+    void shouldGrowMapBeyondExpectedSize() {
+        LongToIntMap map = new LongToIntMap(4, -1);
+        int initialCapacity = map.capacity();
+
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 17L, i);
+        }
+
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() > initialCapacity);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i * 17L));
+        }
+    }
+
+    @Test
+    void shouldClearMapAfterGrowingAndReuse() {
+        LongToIntMap map = new LongToIntMap(4, -1);
+
+        for (int i = 0; i < 100; i++) {
+            map.put(i * 31L, i);
+        }
+        map.clear();
+
+        assertEquals(0, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertFalse(map.containsKey(i * 31L));
+        }
+
+        map.put(31L, 5);
+        assertEquals(5, map.get(31L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void shouldRecordTimeNodeVisit() {
+        EasyMock.expect(journeyState.getJourneyClock()).andStubReturn(TramTime.of(9, 45));
+
+        replayAll();
+        EnumSet<GraphLabel> labels = EnumSet.of(GraphLabel.MINUTE);
+        assertEquals(ReasonCode.PreviousCacheMiss, previousVisits.getPreviousResult(node, journeyState, labels));
+
+        previousVisits.recordVisitIfUseful(ReasonCode.DoesNotOperateOnTime, node, journeyState, labels);
+        assertEquals(ReasonCode.DoesNotOperateOnTime, previousVisits.getPreviousResult(node, journeyState, labels));
+        verifyAll();
+    }
+
+    @Test
+    void shouldRecordHourNodeVisitForSameTimeOnly() {
+        ImmutableJourneyState laterState = createMock(ImmutableJourneyState.class);
+
+        EasyMock.expect(journeyState.getJourneyClock()).andStubReturn(TramTime.of(9, 45));
+        EasyMock.expect(laterState.getJourneyClock()).andStubReturn(TramTime.nextDay(9, 45));
+
+        replayAll();
+        EnumSet<GraphLabel> labels = EnumSet.of(GraphLabel.HOUR);
+
+        previousVisits.recordVisitIfUseful(ReasonCode.NotAtHour, node, journeyState, labels);
+
+        assertEquals(ReasonCode.NotAtHour, previousVisits.getPreviousResult(node, journeyState, labels));
+        assertEquals(ReasonCode.PreviousCacheMiss, previousVisits.getPreviousResult(node, laterState, labels));
+        verifyAll();
+    }
+
+    @Test
+    void shouldRecordTooManyInterchangesBasedOnNumberOfChanges() {
+        ImmutableJourneyState fewerChanges = createMock(ImmutableJourneyState.class);
+
+        EasyMock.expect(journeyState.getNumberChanges()).andStubReturn(2);
+        EasyMock.expect(fewerChanges.getNumberChanges()).andStubReturn(1);
+
+        replayAll();
+        EnumSet<GraphLabel> labels = EnumSet.of(GraphLabel.ROUTE_STATION);
+
+        previousVisits.recordVisitIfUseful(ReasonCode.TooManyInterchangesRequired, node, journeyState, labels);
+
+        assertEquals(ReasonCode.TooManyInterchangesRequired, previousVisits.getPreviousResult(node, journeyState, labels));
+        assertEquals(ReasonCode.PreviousCacheMiss, previousVisits.getPreviousResult(node, fewerChanges, labels));
+        verifyAll();
+    }
+
+    @Test
+    void shouldClearOnReset() {
+        EasyMock.expect(journeyState.getJourneyClock()).andStubReturn(TramTime.of(9, 45));
+
+        replayAll();
+        EnumSet<GraphLabel> labels = EnumSet.of(GraphLabel.SERVICE);
+
+        previousVisits.recordVisitIfUseful(ReasonCode.NotOnQueryDate, node, journeyState, labels);
+        assertEquals(ReasonCode.NotOnQueryDate, previousVisits.getPreviousResult(node, journeyState, labels));
+
+        previousVisits.reset();
+        assertEquals(ReasonCode.PreviousCacheMiss, previousVisits.getPreviousResult(node, journeyState, labels));
+        verifyAll();
+    }
+}
@@ -0,0 +1,101 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.diagnostics.*;
+import com.tramchester.metrics.CacheMetrics;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceReasonsTest {
+
+    private TramTime queryTime;
+    private JourneyRequest journeyRequest;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        queryTime = TramTime.of(8, 15);
+        journeyRequest = new JourneyRequest(TestEnv.nextSaturday(), queryTime, false, 3,
+                Duration.ofMinutes(120), 1, TramsOnly);
+    }
+
+    @Test
+    void shouldShareReasonsWhenPathNotRecorded() {
+        HowIGotHere notRecorded = HowIGotHere.NotRecorded;
+
+        HeuristicsReason first = ServiceReason.TookTooLong(queryTime, notRecorded);
+        HeuristicsReason second = ServiceReason.TookTooLong(queryTime.plusMinutes(5), notRecorded);
+
+        assertSame(first, second);
+        assertFalse(first.isValid());
+        assertEquals(ReasonCode.TookTooLong, first.getReasonCode());
+
+        HeuristicsReason valid = ServiceReason.IsValid(ReasonCode.Continue, notRecorded);
+        assertTrue(valid.isValid());
+        assertSame(valid, ServiceReason.IsValid(ReasonCode.Continue, notRecorded));
+
+        HeuristicsReason cached = ServiceReason.Cached(ReasonCode.NotAtHour, queryTime, notRecorded);
+        assertEquals(ReasonCode.CachedNotAtHour, cached.getReasonCode());
+        assertFalse(cached.isValid());
+    }
+
+    @Test
+    void shouldCreateReasonsWhenPathRecorded() {
+        HowIGotHere path = HowIGotHere.forTest(42, 24);
+
+        HeuristicsReason first = ServiceReason.TookTooLong(queryTime, path);
+        HeuristicsReason second = ServiceReason.TookTooLong(queryTime, path);
+
+        assertNotSame(first, second);
+        assertEquals(path, first.getHowIGotHere());
+        assertEquals(ReasonCode.TookTooLong, first.getReasonCode());
+    }
+
+    @Test
+    void shouldCountReasons() {
+        ServiceReasons reasons = new ServiceReasons(journeyRequest, queryTime, new ProvidesLocalNow());
+
+        assertFalse(reasons.getDiagnosticsEnabled());
+
+        reasons.recordReason(ServiceReason.Cached(ReasonCode.NotAtHour, queryTime, HowIGotHere.NotRecorded));
+        reasons.recordReason(ServiceReason.Cached(ReasonCode.DoesNotOperateOnTime, queryTime, HowIGotHere.NotRecorded));
+        reasons.recordReason(ServiceReason.CacheMiss(HowIGotHere.NotRecorded));
+        reasons.incrementTotalChecked();
+        reasons.recordSuccess();
+
+        assertEquals(1, reasons.getCount(ReasonCode.CachedNotAtHour));
+        assertEquals(1, reasons.getCount(ReasonCode.PreviousCacheMiss));
+        assertEquals(1, reasons.getCount(ReasonCode.Arrived));
+        assertEquals(2, reasons.getNumberCached());
+        assertEquals(3, reasons.getNumberEvaluated());
+        assertEquals(1, reasons.getTotalChecked());
+    }
+
+    @Test
+    void shouldRecordSearchStatistics() {
+        SearchStatistics searchStatistics = new SearchStatistics(new CacheMetrics(TestEnv.NoopRegisterMetrics()));
+        searchStatistics.start();
+
+        ServiceReasons reasons = new ServiceReasons(journeyRequest, queryTime, new ProvidesLocalNow());
+        reasons.recordReason(ServiceReason.Cached(ReasonCode.NotAtHour, queryTime, HowIGotHere.NotRecorded));
+        reasons.recordReason(ServiceReason.CacheMiss(HowIGotHere.NotRecorded));
+        reasons.incrementTotalChecked();
+        reasons.recordSuccess();
+
+        searchStatistics.record(reasons);
+
+        assertEquals(1, searchStatistics.getEvaluated().getCount());
+        assertEquals(2, searchStatistics.getEvaluated().getSnapshot().getMax());
+        assertEquals(1, searchStatistics.getCached().getSnapshot().getMax());
+        assertEquals(1, searchStatistics.getChecked().getSnapshot().getMax());
+        assertEquals(1, searchStatistics.getArrived().getSnapshot().getMax());
+    }
+
+}
@@ -5,6 +5,7 @@ import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.DataSourceID;
 import com.tramchester.domain.JourneyRequest;
 import com.tramchester.domain.LocationSet;
+import com.tramchester.domain.SearchCancellation;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.exceptions.TramchesterException;
 import com.tramchester.domain.id.IdFor;
@@ -63,6 +64,7 @@ import static com.tramchester.graph.search.diagnostics.ReasonCode.*;
 import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
 import static com.tramchester.testSupport.reference.TramStations.Shudehill;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TramRouteEvaluatorTest extends EasyMockSupport {
 
@@ -85,6 +87,7 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
     private ProvidesNow providesNow;
     private LowestCostsForDestRoutes lowestCostsForRoutes;
     private Duration maxInitialWait;
+    private JourneyRequest journeyRequest;
 
     @BeforeEach
     void onceBeforeEachTestRuns() {
@@ -123,7 +126,7 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         startNodeId = 128L;
 
         long maxNumberOfJourneys = 2;
-        JourneyRequest journeyRequest = new JourneyRequest(
+        journeyRequest = new JourneyRequest(
                 TestEnv.nextSaturday(), TramTime.of(8,15), false,
                 3, Duration.ofMinutes(config.getMaxJourneyDuration()), maxNumberOfJourneys, TramsOnly);
         reasons = new ServiceReasons(journeyRequest, TramTime.of(8,15), providesNow);
@@ -167,7 +170,8 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         // empty means all
 
         return new TramRouteEvaluator(serviceHeuristics, destinationNodeIds, contentsRepository,
-                reasons, previousSuccessfulVisit, lowestCostSeen, config, startNodeId, begin, providesNow, TramsOnly, maxInitialWait);
+                reasons, previousSuccessfulVisit, lowestCostSeen, config, startNodeId, begin, providesNow, TramsOnly, maxInitialWait,
+                journeyRequest.getCancellation());
     }
 
     @Test
@@ -202,6 +206,7 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         assertEquals(Evaluation.EXCLUDE_AND_PRUNE, AlreadyDeparted.getEvaluationAction());
         assertEquals(Evaluation.EXCLUDE_AND_PRUNE, DoesNotOperateOnTime.getEvaluationAction());
         assertEquals(Evaluation.EXCLUDE_AND_PRUNE, StationClosed.getEvaluationAction());
+        assertEquals(Evaluation.EXCLUDE_AND_PRUNE, Cancelled.getEvaluationAction());
 
     }
 
@@ -546,6 +551,8 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
                 andReturn(ServiceReason.IsValid(ReasonCode.Reachable, howIGotHere));
         EasyMock.expect(serviceHeuristics.lowerCostIncludingInterchange(node, Duration.ZERO, lowestCostSeen, howIGotHere, reasons)).andReturn(
                 ServiceReason.IsValid(ReasonCode.Reachable, howIGotHere));
+        EasyMock.expect(serviceHeuristics.lowerBoundUnderLowestCost(node, Duration.ZERO, lowestCostSeen, howIGotHere, reasons)).andReturn(
+                ServiceReason.IsValid(ReasonCode.LowerBoundOk, howIGotHere));
 
         EasyMock.expect(serviceHeuristics.checkStationOpen(node, howIGotHere, reasons)).
                 andReturn(ServiceReason.IsValid(StationOpen, howIGotHere));
@@ -672,6 +679,49 @@ class TramRouteEvaluatorTest extends EasyMockSupport {
         verifyAll();
     }
 
+    @Test
+    void shouldExcludeOnceCancelled() {
+        TramRouteEvaluator evaluator = getEvaluatorForTest(destinationNodeId);
+        BranchState<JourneyState> branchState = new TestBranchState();
+
+        final JourneyState journeyState = createMock(JourneyState.class);
+        EasyMock.expect(journeyState.getTraversalStateName()).andStubReturn("aName");
+        branchState.setState(journeyState);
+
+        journeyRequest.getCancellation().cancel();
+
+        replayAll();
+        Evaluation result = evaluator.evaluate(path, branchState);
+        assertEquals(Evaluation.EXCLUDE_AND_PRUNE, result);
+        verifyAll();
+
+        assertEquals(1, reasons.getCount(ReasonCode.Cancelled));
+    }
+
+    @Test
+    void shouldExcludeOncePastDeadline() {
+        Instant now = Instant.now();
+        SearchCancellation cancellation = SearchCancellation.withDeadline(now.minusMillis(1));
+
+        TramRouteEvaluator evaluator = new TramRouteEvaluator(serviceHeuristics, Collections.singleton(destinationNodeId),
+                contentsRepository, reasons, previousSuccessfulVisit, lowestCostSeen, config, startNodeId, now, providesNow,
+                TramsOnly, maxInitialWait, cancellation);
+        BranchState<JourneyState> branchState = new TestBranchState();
+
+        final JourneyState journeyState = createMock(JourneyState.class);
+        EasyMock.expect(journeyState.getTraversalStateName()).andStubReturn("aName");
+        branchState.setState(journeyState);
+
+        EasyMock.expect(providesNow.getInstant()).andReturn(now);
+
+        replayAll();
+        Evaluation result = evaluator.evaluate(path, branchState);
+        assertEquals(Evaluation.EXCLUDE_AND_PRUNE, result);
+        verifyAll();
+
+        assertTrue(cancellation.isCancelled());
+    }
+
     @Test
     void shouldExcludeIfAlreadyTooLong() {
         TramRouteEvaluator evaluator = getEvaluatorForTest(destinationNodeId);
@@ -0,0 +1,88 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.id.IdFor;
+import com.tramchester.domain.id.IdSet;
+import com.tramchester.domain.input.MutableTrip;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.graph.search.TripsDone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.lang.management.ManagementFactory;
+
+/***
+ * Compare bytes allocated by the per branch copy of the trips done set with the shared persistent list, uses
+ * the per thread allocation counter so can be run without attaching a profiler
+ */
+@Disabled("Performance Testing Only")
+public class TripsDonePerfTest {
+
+    private static final int NUMBER_OF_STATES = 5000000;
+    private static final int TRIPS_PER_JOURNEY = 4;
+
+    private IdFor<Trip>[] tripIds;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        tripIds = new IdFor[TRIPS_PER_JOURNEY * 10];
+        for (int i = 0; i < tripIds.length; i++) {
+            tripIds[i] = MutableTrip.createId("perfTrip" + i);
+        }
+    }
+
+    @RepeatedTest(5)
+    void shouldMeasureCopiedSet() {
+        long allocatedBefore = allocatedBytes();
+        long begin = System.currentTimeMillis();
+        long found = 0;
+
+        IdSet<Trip> current = new IdSet<>();
+        for (int i = 0; i < NUMBER_OF_STATES; i++) {
+            // as JourneyState copy cons did for every branch
+            IdSet<Trip> copy = IdSet.copy(current);
+            if (i % 50 == 0) {
+                copy.add(tripIds[i % tripIds.length]);
+            }
+            if (copy.contains(tripIds[(i + 1) % tripIds.length])) {
+                found++;
+            }
+            current = copy.size() > TRIPS_PER_JOURNEY ? new IdSet<>() : copy;
+        }
+
+        report("IdSet copy", found, begin, allocatedBefore);
+    }
+
+    @RepeatedTest(5)
+    void shouldMeasureSharedList() {
+        long allocatedBefore = allocatedBytes();
+        long begin = System.currentTimeMillis();
+        long found = 0;
+
+        TripsDone current = TripsDone.empty();
+        for (int i = 0; i < NUMBER_OF_STATES; i++) {
+            TripsDone shared = current;
+            if (i % 50 == 0) {
+                shared = shared.add(tripIds[i % tripIds.length]);
+            }
+            if (shared.contains(tripIds[(i + 1) % tripIds.length])) {
+                found++;
+            }
+            current = shared.size() > TRIPS_PER_JOURNEY ? TripsDone.empty() : shared;
+        }
+
+        report("TripsDone", found, begin, allocatedBefore);
+    }
+
+    private void report(String name, long found, long begin, long allocatedBefore) {
+        long duration = System.currentTimeMillis() - begin;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%s found %s took %s ms allocated %s MB%n", name, found, duration, allocated / (1024 * 1024));
+    }
+
+    private long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
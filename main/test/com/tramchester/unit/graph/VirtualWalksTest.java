@@ -0,0 +1,174 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.places.MyLocation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.graph.GraphQuery;
+import com.tramchester.graph.graphbuild.GraphLabel;
+import com.tramchester.graph.graphbuild.GraphProps;
+import com.tramchester.graph.search.walks.VirtualWalks;
+import com.tramchester.testSupport.reference.KnownLocations;
+import com.tramchester.testSupport.reference.TramStations;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.tramchester.graph.TransportRelationshipTypes.WALKS_FROM_STATION;
+import static com.tramchester.graph.TransportRelationshipTypes.WALKS_TO_STATION;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualWalksTest extends EasyMockSupport {
+
+    private GraphQuery graphQuery;
+    private Transaction txn;
+    private Station altrincham;
+    private Station bury;
+    private Node altrinchamNode;
+    private Node buryNode;
+    private MyLocation start;
+    private MyLocation end;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        graphQuery = createMock(GraphQuery.class);
+        txn = createMock(Transaction.class);
+        altrinchamNode = createMock(Node.class);
+        buryNode = createMock(Node.class);
+
+        altrincham = TramStations.Altrincham.fake();
+        bury = TramStations.Bury.fake();
+
+        start = KnownLocations.nearAltrincham.location();
+        end = KnownLocations.nearPiccGardens.location();
+
+        EasyMock.expect(graphQuery.getStationNode(txn, altrincham)).andStubReturn(altrinchamNode);
+        EasyMock.expect(graphQuery.getStationNode(txn, bury)).andStubReturn(buryNode);
+        EasyMock.expect(altrinchamNode.getId()).andStubReturn(42L);
+        EasyMock.expect(buryNode.getId()).andStubReturn(43L);
+    }
+
+    @Test
+    void shouldBindWalksAtStart() {
+        Set<StationWalk> walks = Collections.singleton(new StationWalk(altrincham, Duration.ofMinutes(7)));
+
+        replayAll();
+        VirtualWalks.Bound bound = VirtualWalks.atStart(start, walks).bind(txn, graphQuery);
+        verifyAll();
+
+        assertTrue(bound.hasStart());
+        assertFalse(bound.hasEnd());
+
+        Node startNode = bound.getStartNode();
+        assertTrue(startNode.getId() < 0);
+        assertTrue(VirtualWalks.isVirtual(startNode));
+        assertTrue(startNode.hasLabel(GraphLabel.QUERY_NODE));
+        assertEquals(start.getLatLong(), GraphProps.getLatLong(startNode));
+
+        List<Relationship> outgoing = startNode.getRelationships(Direction.OUTGOING, WALKS_TO_STATION).stream().
+                collect(Collectors.toList());
+        assertEquals(1, outgoing.size());
+
+        Relationship walk = outgoing.get(0);
+        assertTrue(VirtualWalks.isVirtual(walk));
+        assertTrue(walk.isType(WALKS_TO_STATION));
+        assertEquals(startNode, walk.getStartNode());
+        assertSame(altrinchamNode, walk.getEndNode());
+        assertSame(altrinchamNode, walk.getOtherNode(startNode));
+        assertEquals(Duration.ofMinutes(7), GraphProps.getCost(walk));
+        assertEquals(altrincham.getId(), GraphProps.getStationIdFrom(walk));
+
+        assertEquals(0, startNode.getRelationships(Direction.INCOMING).stream().count());
+        assertEquals(0, bound.getWalksFrom(altrinchamNode).count());
+        assertEquals(1, bound.getWalksTo(altrinchamNode).count());
+
+        assertThrows(RuntimeException.class, bound::getEndNode);
+    }
+
+    @Test
+    void shouldBindWalksAtEnd() {
+        Set<StationWalk> walks = Set.of(new StationWalk(altrincham, Duration.ofMinutes(7)),
+                new StationWalk(bury, Duration.ofMinutes(3)));
+
+        replayAll();
+        VirtualWalks.Bound bound = VirtualWalks.atEnd(end, walks).bind(txn, graphQuery);
+        verifyAll();
+
+        assertFalse(bound.hasStart());
+        assertTrue(bound.hasEnd());
+
+        Node endNode = bound.getEndNode();
+        assertEquals(2, endNode.getRelationships(Direction.INCOMING, WALKS_FROM_STATION).stream().count());
+        assertEquals(0, endNode.getRelationships(Direction.OUTGOING).stream().count());
+
+        List<Relationship> fromBury = bound.getWalksFrom(buryNode).collect(Collectors.toList());
+        assertEquals(1, fromBury.size());
+
+        Relationship walk = fromBury.get(0);
+        assertTrue(walk.isType(WALKS_FROM_STATION));
+        assertSame(buryNode, walk.getStartNode());
+        assertEquals(endNode, walk.getEndNode());
+        assertEquals(Duration.ofMinutes(3), GraphProps.getCost(walk));
+    }
+
+    @Test
+    void shouldBindWalksAtStartAndEndWithUniqueIds() {
+        Set<StationWalk> walksAtStart = Collections.singleton(new StationWalk(altrincham, Duration.ofMinutes(7)));
+        Set<StationWalk> walksAtEnd = Collections.singleton(new StationWalk(bury, Duration.ofMinutes(3)));
+
+        replayAll();
+        VirtualWalks.Bound bound = VirtualWalks.atStartAndEnd(start, walksAtStart, end, walksAtEnd).bind(txn, graphQuery);
+        verifyAll();
+
+        Node startNode = bound.getStartNode();
+        Node endNode = bound.getEndNode();
+        assertNotEquals(startNode.getId(), endNode.getId());
+
+        Relationship walkTo = startNode.getRelationships(Direction.OUTGOING).iterator().next();
+        Relationship walkFrom = endNode.getRelationships(Direction.INCOMING).iterator().next();
+        assertNotEquals(walkTo.getId(), walkFrom.getId());
+        assertNotEquals(startNode.getId(), walkTo.getId());
+        assertNotEquals(endNode.getId(), walkFrom.getId());
+    }
+
+    @Test
+    void shouldHaveNothingBoundForNone() {
+        replayAll();
+        VirtualWalks.Bound bound = VirtualWalks.none().bind(txn, graphQuery);
+        verifyAll();
+
+        assertFalse(bound.hasStart());
+        assertFalse(bound.hasEnd());
+        assertEquals(0, bound.getWalksFrom(altrinchamNode).count());
+    }
+
+    @Test
+    void shouldNotSupportChangesToWalkingNodes() {
+        Set<StationWalk> walks = Collections.singleton(new StationWalk(altrincham, Duration.ofMinutes(7)));
+
+        replayAll();
+        Node startNode = VirtualWalks.atStart(start, walks).bind(txn, graphQuery).getStartNode();
+        verifyAll();
+
+        assertThrows(UnsupportedOperationException.class, startNode::delete);
+        assertThrows(UnsupportedOperationException.class, () -> startNode.createRelationshipTo(altrinchamNode, WALKS_TO_STATION));
+    }
+
+    @Test
+    void shouldIdentifyVirtualIds() {
+        assertTrue(VirtualWalks.isVirtual(-1));
+        assertFalse(VirtualWalks.isVirtual(0));
+        assertFalse(VirtualWalks.isVirtual(1234));
+    }
+
+}
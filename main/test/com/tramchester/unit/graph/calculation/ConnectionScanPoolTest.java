@@ -0,0 +1,68 @@
+package com.tramchester.unit.graph.calculation;
+
+import com.tramchester.graph.search.connectionScan.ConnectionScan;
+import com.tramchester.graph.search.connectionScan.ConnectionScanPool;
+import com.tramchester.graph.search.connectionScan.ConnectionTimetable;
+import com.tramchester.graph.search.connectionScan.ProfileConnectionScan;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionScanPoolTest extends EasyMockSupport {
+
+    private ConnectionScanPool pool;
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        ConnectionTimetable timetable = createMock(ConnectionTimetable.class);
+
+        EasyMock.expect(timetable.numberOfStations()).andStubReturn(10);
+        EasyMock.expect(timetable.numberOfTrips()).andStubReturn(20);
+        EasyMock.expect(timetable.numberOfConnections()).andStubReturn(100);
+
+        replayAll();
+        pool = new ConnectionScanPool(timetable);
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        pool.stop();
+        verifyAll();
+    }
+
+    @Test
+    void shouldReuseReleasedScans() {
+        ConnectionScan scan = pool.acquireScan(3);
+        pool.release(scan);
+        assertSame(scan, pool.acquireScan(2));
+
+        ProfileConnectionScan profileScan = pool.acquireProfileScan(3);
+        pool.release(profileScan);
+        assertSame(profileScan, pool.acquireProfileScan(3));
+
+        assertEquals(2, pool.getNumberCreated());
+    }
+
+    @Test
+    void shouldCreateNewScanWhenPooledHasTooFewLegs() {
+        ConnectionScan small = pool.acquireScan(1);
+        pool.release(small);
+
+        ConnectionScan larger = pool.acquireScan(3);
+
+        assertNotSame(small, larger);
+        assertEquals(3, larger.getCapacityLegs());
+        assertEquals(2, pool.getNumberCreated());
+    }
+
+    @Test
+    void shouldNotAllowRequestForMoreLegsThanCapacity() {
+        ConnectionScan scan = pool.acquireScan(1);
+
+        assertThrows(RuntimeException.class, () -> scan.forRequest(2, null, null));
+    }
+}
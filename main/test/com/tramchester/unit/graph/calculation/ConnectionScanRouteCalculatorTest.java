@@ -0,0 +1,294 @@
+package com.tramchester.unit.graph.calculation;
+
+import com.tramchester.ComponentContainer;
+import com.tramchester.ComponentsBuilder;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.JourneyRequest;
+import com.tramchester.domain.dates.TramDate;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.reference.TransportMode;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.graph.search.connectionScan.ConnectionScanArriveByCalculator;
+import com.tramchester.graph.search.connectionScan.ConnectionScanRouteCalculator;
+import com.tramchester.graph.search.connectionScan.ConnectionTimetable;
+import com.tramchester.repository.TransportData;
+import com.tramchester.testSupport.TestEnv;
+import com.tramchester.testSupport.reference.TramTransportDataForTestFactory;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.*;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.tramchester.testSupport.TestEnv.Modes.TramsOnly;
+import static com.tramchester.testSupport.TestEnv.assertMinutesEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionScanRouteCalculatorTest {
+
+    private static ComponentContainer componentContainer;
+    private static SimpleGraphConfig config;
+
+    private TramTransportDataForTestFactory.TramTransportDataForTest transportData;
+    private ConnectionScanRouteCalculator calculator;
+
+    private TramDate queryDate;
+    private TramTime queryTime;
+    private Transaction txn;
+    private EnumSet<TransportMode> modes;
+
+    @BeforeAll
+    static void onceBeforeAllTestRuns() throws IOException {
+        config = new SimpleCompositeGraphConfig("connectionscantest.db");
+        TestEnv.deleteDBIfPresent(config);
+
+        componentContainer = new ComponentsBuilder().
+                overrideProvider(TramTransportDataForTestFactory.class).
+                create(config, TestEnv.NoopRegisterMetrics());
+        componentContainer.initialise();
+    }
+
+    @AfterAll
+    static void onceAfterAllTestsRun() throws IOException {
+        TestEnv.clearDataCache(componentContainer);
+        componentContainer.close();
+        TestEnv.deleteDBIfPresent(config);
+    }
+
+    @BeforeEach
+    void beforeEachTestRuns() {
+        transportData = (TramTransportDataForTestFactory.TramTransportDataForTest) componentContainer.get(TransportData.class);
+        calculator = componentContainer.get(ConnectionScanRouteCalculator.class);
+
+        queryDate = TramDate.of(2014,6,30);
+        queryTime = TramTime.of(7, 57);
+        modes = TramsOnly;
+
+        GraphDatabase database = componentContainer.get(GraphDatabase.class);
+        txn = database.beginTx();
+    }
+
+    @AfterEach
+    void afterEachTestRuns() {
+        if (txn!=null) {
+            txn.close();
+        }
+    }
+
+    @NotNull
+    private JourneyRequest createJourneyRequest(TramTime queryTime, int maxChanges) {
+        return new JourneyRequest(queryDate, queryTime, false, maxChanges,
+                Duration.ofMinutes(config.getMaxJourneyDuration()), 3, modes);
+    }
+
+    @Test
+    void shouldConvertTimes() {
+        assertEquals(TramTime.of(8, 15), ConnectionTimetable.asTramTime(ConnectionTimetable.asMinutes(TramTime.of(8, 15))));
+        assertEquals(TramTime.nextDay(0, 10), ConnectionTimetable.asTramTime(ConnectionTimetable.asMinutes(TramTime.nextDay(0, 10))));
+        assertEquals(ConnectionTimetable.MINS_IN_DAY + 10, ConnectionTimetable.asMinutes(TramTime.nextDay(0, 10)));
+    }
+
+    @Test
+    void shouldHaveSimpleJourney() {
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 0);
+
+        Set<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getSecond(), journeyRequest).
+                collect(Collectors.toSet());
+
+        assertEquals(1, journeys.size());
+
+        Journey journey = journeys.iterator().next();
+        assertEquals(TramTime.of(8, 0), journey.getDepartTime());
+        assertEquals(TramTime.of(8, 11), journey.getArrivalTime());
+        assertEquals(1, journey.getStages().size());
+
+        TransportStage<?, ?> stage = journey.getStages().get(0);
+        assertEquals(transportData.getFirst(), stage.getFirstStation());
+        assertEquals(transportData.getSecond(), stage.getLastStation());
+        assertEquals(0, stage.getPassedStopsCount());
+        assertMinutesEquals(11, stage.getDuration());
+        assertTrue(stage.hasBoardingPlatform());
+    }
+
+    @Test
+    void shouldHaveJourneyWithPassedStops() {
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 0);
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getLast(), journeyRequest).
+                toList();
+
+        assertEquals(1, journeys.size());
+
+        Journey journey = journeys.get(0);
+        assertEquals(1, journey.getStages().size());
+        TransportStage<?, ?> stage = journey.getStages().get(0);
+        assertEquals(2, stage.getPassedStopsCount());
+        assertMinutesEquals(40, stage.getDuration());
+
+        List<Station> expectedPath = Arrays.asList(transportData.getFirst(), transportData.getSecond(),
+                transportData.getInterchange(), transportData.getLast());
+        assertEquals(expectedPath, journey.getPath());
+    }
+
+    @Test
+    void shouldHaveJourneyWithChangeAtInterchange() {
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 1);
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFifthStation(), journeyRequest).
+                toList();
+
+        assertFalse(journeys.isEmpty());
+        journeys.forEach(journey -> {
+            assertEquals(2, journey.getStages().size());
+            final TransportStage<?, ?> firstStage = journey.getStages().get(0);
+            final TransportStage<?, ?> secondStage = journey.getStages().get(1);
+
+            assertEquals(transportData.getInterchange(), firstStage.getLastStation());
+            assertEquals(1, firstStage.getPassedStopsCount());
+            assertMinutesEquals(11+9, firstStage.getDuration());
+
+            assertEquals(transportData.getInterchange(), secondStage.getFirstStation());
+            assertEquals(transportData.getFifthStation(), secondStage.getLastStation());
+            assertMinutesEquals(4, secondStage.getDuration());
+
+            assertEquals(1, journey.getRequestedNumberChanges());
+        });
+    }
+
+    @Test
+    void shouldNotFindJourneyIfChangeNeededButNotAllowed() {
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 0);
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFifthStation(), journeyRequest).
+                toList();
+
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldNotFindJourneyOnDayNotRunning() {
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate.plusDays(1), queryTime, false, 0,
+                Duration.ofMinutes(config.getMaxJourneyDuration()), 3, modes);
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getSecond(), journeyRequest).
+                toList();
+
+        assertTrue(journeys.isEmpty());
+    }
+
+    @Test
+    void shouldFindAllJourneysInDepartureWindow() {
+        JourneyRequest journeyRequest = createJourneyRequest(TramTime.of(8, 0), 0).
+                setDepartureWindow(Duration.ofMinutes(90));
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getInterchange(), transportData.getFourthStation(),
+                journeyRequest).toList();
+
+        List<TramTime> departs = journeys.stream().map(Journey::getDepartTime).collect(Collectors.toList());
+        assertEquals(Arrays.asList(TramTime.of(8, 31), TramTime.of(9, 15), TramTime.of(9, 25)), departs);
+
+        journeys.forEach(journey -> assertEquals(1, journey.getStages().size()));
+    }
+
+    @Test
+    void shouldNotLimitNumberOfJourneysInDepartureWindow() {
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, TramTime.of(8, 0), false, 0,
+                Duration.ofMinutes(config.getMaxJourneyDuration()), 1, modes).
+                setDepartureWindow(Duration.ofMinutes(90));
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getInterchange(), transportData.getFourthStation(),
+                journeyRequest).toList();
+
+        assertEquals(3, journeys.size());
+    }
+
+    @Test
+    void shouldOnlyFindJourneysDepartingInWindow() {
+        JourneyRequest journeyRequest = createJourneyRequest(TramTime.of(9, 0), 0).
+                setDepartureWindow(Duration.ofMinutes(20));
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getInterchange(), transportData.getFourthStation(),
+                journeyRequest).toList();
+
+        assertEquals(1, journeys.size());
+        assertEquals(TramTime.of(9, 15), journeys.get(0).getDepartTime());
+    }
+
+    @Test
+    void shouldFindJourneyWithChangeInDepartureWindow() {
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 1).
+                setDepartureWindow(Duration.ofMinutes(30));
+
+        List<Journey> journeys = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFifthStation(),
+                journeyRequest).toList();
+
+        List<Journey> single = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFifthStation(),
+                createJourneyRequest(queryTime, 1)).toList();
+
+        assertFalse(journeys.isEmpty());
+        assertEquals(single.get(0).getArrivalTime(), journeys.get(0).getArrivalTime());
+        journeys.forEach(journey -> assertEquals(2, journey.getStages().size()));
+    }
+
+    @Test
+    void shouldFindLatestDepartureForArriveBy() {
+        ConnectionScanArriveByCalculator arriveByCalculator = componentContainer.get(ConnectionScanArriveByCalculator.class);
+
+        TramTime arriveBy = TramTime.of(9, 24);
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, arriveBy, true, 0,
+                Duration.ofMinutes(config.getMaxJourneyDuration()), 3, modes);
+
+        List<Journey> journeys = arriveByCalculator.calculateRoute(txn, transportData.getInterchange(), transportData.getFourthStation(),
+                journeyRequest).toList();
+
+        assertFalse(journeys.isEmpty());
+        assertEquals(TramTime.of(9, 15), journeys.get(0).getDepartTime());
+        journeys.forEach(journey -> assertFalse(journey.getArrivalTime().isAfter(arriveBy), journey.toString()));
+    }
+
+    @Test
+    void shouldFindArriveByJourneyWithChange() {
+        ConnectionScanArriveByCalculator arriveByCalculator = componentContainer.get(ConnectionScanArriveByCalculator.class);
+
+        Journey departAfter = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFifthStation(),
+                createJourneyRequest(queryTime, 1)).findFirst().orElseThrow();
+
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, departAfter.getArrivalTime(), true, 1,
+                Duration.ofMinutes(config.getMaxJourneyDuration()), 3, modes);
+
+        List<Journey> journeys = arriveByCalculator.calculateRoute(txn, transportData.getFirst(), transportData.getFifthStation(),
+                journeyRequest).toList();
+
+        assertEquals(1, journeys.size());
+        assertEquals(departAfter.getDepartTime(), journeys.get(0).getDepartTime());
+        assertEquals(2, journeys.get(0).getStages().size());
+    }
+
+    @Test
+    void shouldMatchGraphBasedCalculator() {
+        RouteCalculator graphCalculator = componentContainer.get(RouteCalculator.class);
+        JourneyRequest journeyRequest = createJourneyRequest(queryTime, 1);
+
+        List<Journey> fromGraph = graphCalculator.calculateRoute(txn, transportData.getFirst(), transportData.getFourthStation(),
+                journeyRequest).toList();
+        List<Journey> fromScan = calculator.calculateRoute(txn, transportData.getFirst(), transportData.getFourthStation(),
+                journeyRequest).toList();
+
+        assertFalse(fromGraph.isEmpty());
+        assertFalse(fromScan.isEmpty());
+
+        TramTime earliestGraph = fromGraph.stream().map(Journey::getArrivalTime).min(TramTime::compareTo).orElseThrow();
+        TramTime earliestScan = fromScan.stream().map(Journey::getArrivalTime).min(TramTime::compareTo).orElseThrow();
+
+        assertFalse(earliestScan.isAfter(earliestGraph), "scan " + earliestScan + " graph " + earliestGraph);
+    }
+}
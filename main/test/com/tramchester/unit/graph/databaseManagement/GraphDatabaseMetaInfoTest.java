@@ -127,12 +127,58 @@ public class GraphDatabaseMetaInfoTest extends EasyMockSupport {
         EasyMock.expectLastCall();
         node.setProperty("naptanxml", "9.6");
         EasyMock.expectLastCall();
+        node.setProperty(EasyMock.eq("buildStamp"), EasyMock.anyLong());
+        EasyMock.expectLastCall();
 
         replayAll();
         databaseMetaInfo.createVersionNode(transaction, sourceInfo);
         verifyAll();
     }
 
+    @Test
+    void shouldNotIncludeBuildStampInVersions() {
+        Map<String, Object> versionMap = new HashMap<>();
+        versionMap.put("A", "4.2");
+        versionMap.put("buildStamp", 42L);
+
+        ResourceIteratorForTest nodes = new ResourceIteratorForTest(Collections.singletonList(node));
+        EasyMock.expect(transaction.findNodes(GraphLabel.VERSION)).andReturn(nodes);
+        EasyMock.expect(node.getAllProperties()).andReturn(versionMap);
+
+        replayAll();
+        Map<String, String> results = databaseMetaInfo.getVersions(transaction);
+        verifyAll();
+
+        assertEquals(1, results.size());
+        assertEquals("4.2", results.get("A"));
+    }
+
+    @Test
+    void shouldGetBuildStamp() {
+        ResourceIteratorForTest nodes = new ResourceIteratorForTest(Collections.singletonList(node));
+        EasyMock.expect(transaction.findNodes(GraphLabel.VERSION)).andReturn(nodes);
+        EasyMock.expect(node.hasProperty("buildStamp")).andReturn(true);
+        EasyMock.expect(node.getProperty("buildStamp")).andReturn(42L);
+
+        replayAll();
+        long result = databaseMetaInfo.getBuildStamp(transaction);
+        verifyAll();
+
+        assertEquals(42L, result);
+    }
+
+    @Test
+    void shouldGetNoBuildStampIfMissing() {
+        ResourceIteratorForTest nodes = new ResourceIteratorForTest();
+        EasyMock.expect(transaction.findNodes(GraphLabel.VERSION)).andReturn(nodes);
+
+        replayAll();
+        long result = databaseMetaInfo.getBuildStamp(transaction);
+        verifyAll();
+
+        assertEquals(GraphDatabaseMetaInfo.NO_BUILD_STAMP, result);
+    }
+
     private static class ResourceIteratorForTest implements ResourceIterator<Node> {
         private final LinkedList<Node> nodes;
 